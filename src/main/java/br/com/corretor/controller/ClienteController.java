@@ -1,13 +1,23 @@
 package br.com.corretor.controller;
 
+import br.com.corretor.dto.AutocompletarItemDTO;
 import br.com.corretor.dto.ClienteDTO;
+import br.com.corretor.dto.ImportacaoCadastroResultadoDTO;
+import br.com.corretor.enums.FormatoExportacao;
+import br.com.corretor.enums.TipoCadastro;
 import br.com.corretor.model.Cliente;
 import br.com.corretor.service.ClienteService;
+import br.com.corretor.service.ImportacaoCadastroService;
 import jakarta.validation.Valid;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -20,6 +30,9 @@ public class ClienteController {
 	@Autowired
     private ClienteService clienteService;
 
+    @Autowired
+    private ImportacaoCadastroService importacaoCadastroService;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<Cliente> create(@Valid @RequestBody ClienteDTO clienteDTO) {
@@ -52,6 +65,45 @@ public class ClienteController {
         return clienteService.findAtivosNaoBloqueadosByEmpresaId(empresaId);
     }
 
+    // Sugestões por prefixo do nome (qualquer palavra) ou do documento, para o formulário de venda
+    @GetMapping("/empresa/{empresaId}/autocompletar")
+    public Flux<AutocompletarItemDTO> autocompletar(
+            @PathVariable Long empresaId,
+            @RequestParam String texto,
+            @RequestParam(required = false) Integer limite) {
+        return clienteService.autocompletar(empresaId, texto, limite);
+    }
+
+    // Carga em lote a partir de planilha CSV ou XLSX com cabeçalho; devolve os totais e os primeiros erros
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ImportacaoCadastroResultadoDTO> importar(@RequestParam Long empresaId,
+                                                         @RequestPart("arquivo") FilePart arquivo) {
+        return importacaoCadastroService.importarClientes(empresaId, arquivo.filename(), arquivo.content());
+    }
+
+    // Todas as linhas rejeitadas de uma importação, pelo relatorioErrosId do resultado
+    @GetMapping("/importar/erros/{relatorioId}")
+    public Mono<ResponseEntity<byte[]>> baixarErrosImportacao(@PathVariable String relatorioId,
+                                                              @RequestParam Long empresaId) {
+        return importacaoCadastroService.relatorioErros(TipoCadastro.CLIENTE, empresaId, relatorioId)
+                .map(csv -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename("erros-importacao-clientes.csv")
+                                .build()
+                                .toString())
+                        .contentType(MediaType.parseMediaType(FormatoExportacao.CSV.getContentType()))
+                        .body(csv));
+    }
+
+    // Busca aproximada por nome, tolerante a acentos e erros de digitação; mais parecidos primeiro
+    @GetMapping("/empresa/{empresaId}/busca")
+    public Flux<Cliente> buscar(
+            @PathVariable Long empresaId,
+            @RequestParam String termo,
+            @RequestParam(required = false) Integer limite) {
+        return clienteService.buscar(empresaId, termo, limite);
+    }
+
     @GetMapping("/empresa/{empresaId}/search/razao-social")
     public Flux<Cliente> searchByRazaoSocial(
             @PathVariable Long empresaId,
@@ -1,20 +1,38 @@
 package br.com.corretor.controller;
 
 import br.com.corretor.dto.ComissaoDTO;
+import br.com.corretor.dto.ComissaoFiltroDTO;
 import br.com.corretor.dto.ComissaoPagamentoDTO;
+import br.com.corretor.dto.ComissaoPagamentoLoteDTO;
+import br.com.corretor.dto.ComissaoPagamentoLoteResultadoDTO;
 import br.com.corretor.dto.ComissaoResumoDTO;
+import br.com.corretor.dto.ExtratoLoteDTO;
+import br.com.corretor.dto.LancamentoComissaoDTO;
+import br.com.corretor.dto.PaginaDTO;
+import br.com.corretor.dto.ProjecaoFluxoCaixaDTO;
+import br.com.corretor.dto.RankingCorretorDTO;
+import br.com.corretor.enums.FormatoExportacao;
 import br.com.corretor.service.ComissaoService;
+import br.com.corretor.service.ExportacaoService;
+import br.com.corretor.service.ExtratoComissaoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
 
 @Service
 @RestController
@@ -26,45 +44,112 @@ public class ComissaoController {
 	@Autowired
 	private ComissaoService comissaoService;
 
+	@Autowired
+	private ExportacaoService exportacaoService;
+
+	@Autowired
+	private ExtratoComissaoService extratoComissaoService;
+
     @GetMapping("/{id}")
     public Mono<ComissaoDTO> buscarPorId(@PathVariable Long id) {
         return comissaoService.buscarPorId(id);
     }
 
     @GetMapping
-    public Flux<ComissaoDTO> listar(
-            @RequestParam(required = false) Long empresaId,
-            @RequestParam(required = false) Long corretorId,
-            @RequestParam(required = false) Long fabricaId,
-            @RequestParam(required = false) LocalDate dataInicio,
-            @RequestParam(required = false) LocalDate dataFim,
-            @RequestParam(required = false) String status) {
-        return comissaoService.listarComFiltros(empresaId, corretorId, fabricaId, 
-                dataInicio, dataFim, status);
+    public Mono<PaginaDTO<ComissaoDTO>> listar(
+            ComissaoFiltroDTO filtro,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(filtro, cursor, tamanho);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> listarStream(ComissaoFiltroDTO filtro) {
+        return comissaoService.listarStream(filtro);
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<Flux<DataBuffer>> exportar(
+            ComissaoFiltroDTO filtro,
+            @RequestParam(defaultValue = "csv") String formato) {
+        FormatoExportacao tipo = FormatoExportacao.fromString(formato);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("comissoes." + tipo.getExtensao())
+                        .build()
+                        .toString())
+                .contentType(MediaType.parseMediaType(tipo.getContentType()))
+                .body(exportacaoService.exportarComissoes(filtro, tipo));
     }
 
     @GetMapping("/vencidas")
-    public Flux<ComissaoDTO> buscarVencidas(@RequestParam Long empresaId) {
+    public Mono<PaginaDTO<ComissaoDTO>> buscarVencidas(
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarVencidasPagina(empresaId, cursor, tamanho);
+    }
+
+    @GetMapping(value = "/vencidas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarVencidasStream(@RequestParam Long empresaId) {
         return comissaoService.buscarVencidas(empresaId);
     }
 
     @GetMapping("/a-vencer")
-    public Flux<ComissaoDTO> buscarAVencer(@RequestParam Long empresaId) {
+    public Mono<PaginaDTO<ComissaoDTO>> buscarAVencer(
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarAVencerPagina(empresaId, cursor, tamanho);
+    }
+
+    @GetMapping(value = "/a-vencer", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarAVencerStream(@RequestParam Long empresaId) {
         return comissaoService.buscarAVencer(empresaId);
     }
 
     @GetMapping("/corretor/{corretorId}")
-    public Flux<ComissaoDTO> buscarPorCorretor(@PathVariable Long corretorId) {
+    public Mono<PaginaDTO<ComissaoDTO>> buscarPorCorretor(
+            @PathVariable Long corretorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(ComissaoFiltroDTO.builder().corretorId(corretorId).build(), cursor, tamanho);
+    }
+
+    @GetMapping(value = "/corretor/{corretorId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarPorCorretorStream(@PathVariable Long corretorId) {
         return comissaoService.buscarPorCorretor(corretorId);
     }
 
     @GetMapping("/fabrica/{fabricaId}")
-    public Flux<ComissaoDTO> buscarPorFabrica(@PathVariable Long fabricaId) {
+    public Mono<PaginaDTO<ComissaoDTO>> buscarPorFabrica(
+            @PathVariable Long fabricaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(ComissaoFiltroDTO.builder().fabricaId(fabricaId).build(), cursor, tamanho);
+    }
+
+    @GetMapping(value = "/fabrica/{fabricaId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarPorFabricaStream(@PathVariable Long fabricaId) {
         return comissaoService.buscarPorFabrica(fabricaId);
     }
 
     @GetMapping("/periodo-venda")
-    public Flux<ComissaoDTO> buscarPorPeriodoVenda(
+    public Mono<PaginaDTO<ComissaoDTO>> buscarPorPeriodoVenda(
+            @RequestParam Long empresaId,
+            @RequestParam LocalDate dataInicio,
+            @RequestParam LocalDate dataFim,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(ComissaoFiltroDTO.builder()
+                .empresaId(empresaId)
+                .dataInicio(dataInicio)
+                .dataFim(dataFim)
+                .build(), cursor, tamanho);
+    }
+
+    @GetMapping(value = "/periodo-venda", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarPorPeriodoVendaStream(
             @RequestParam Long empresaId,
             @RequestParam LocalDate dataInicio,
             @RequestParam LocalDate dataFim) {
@@ -72,7 +157,21 @@ public class ComissaoController {
     }
 
     @GetMapping("/periodo-vencimento")
-    public Flux<ComissaoDTO> buscarPorPeriodoVencimento(
+    public Mono<PaginaDTO<ComissaoDTO>> buscarPorPeriodoVencimento(
+            @RequestParam Long empresaId,
+            @RequestParam LocalDate dataInicio,
+            @RequestParam LocalDate dataFim,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(ComissaoFiltroDTO.builder()
+                .empresaId(empresaId)
+                .vencimentoInicio(dataInicio)
+                .vencimentoFim(dataFim)
+                .build(), cursor, tamanho);
+    }
+
+    @GetMapping(value = "/periodo-vencimento", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarPorPeriodoVencimentoStream(
             @RequestParam Long empresaId,
             @RequestParam LocalDate dataInicio,
             @RequestParam LocalDate dataFim) {
@@ -80,7 +179,21 @@ public class ComissaoController {
     }
 
     @GetMapping("/periodo-pagamento")
-    public Flux<ComissaoDTO> buscarPorPeriodoPagamento(
+    public Mono<PaginaDTO<ComissaoDTO>> buscarPorPeriodoPagamento(
+            @RequestParam Long empresaId,
+            @RequestParam LocalDate dataInicio,
+            @RequestParam LocalDate dataFim,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(ComissaoFiltroDTO.builder()
+                .empresaId(empresaId)
+                .pagamentoInicio(dataInicio)
+                .pagamentoFim(dataFim)
+                .build(), cursor, tamanho);
+    }
+
+    @GetMapping(value = "/periodo-pagamento", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarPorPeriodoPagamentoStream(
             @RequestParam Long empresaId,
             @RequestParam LocalDate dataInicio,
             @RequestParam LocalDate dataFim) {
@@ -91,8 +204,34 @@ public class ComissaoController {
     @ResponseStatus(HttpStatus.OK)
     public Mono<ComissaoDTO> registrarPagamento(
             @PathVariable Long id,
+            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia,
             @Valid @RequestBody ComissaoPagamentoDTO pagamentoDTO) { 
-        return comissaoService.registrarPagamento(id, pagamentoDTO);
+        return comissaoService.registrarPagamento(id, pagamentoDTO, chaveIdempotencia);
+    }
+
+    @PutMapping("/pagar-lote")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<ComissaoPagamentoLoteResultadoDTO> registrarPagamentoEmLote(
+            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia,
+            @Valid @RequestBody ComissaoPagamentoLoteDTO loteDTO) {
+        return comissaoService.registrarPagamentoEmLote(loteDTO, chaveIdempotencia);
+    }
+
+    @GetMapping("/{id}/lancamentos")
+    public Flux<LancamentoComissaoDTO> listarLancamentos(@PathVariable Long id) {
+        return comissaoService.listarLancamentos(id);
+    }
+
+    @GetMapping("/{id}/saldo")
+    public Mono<LancamentoComissaoDTO> obterSaldo(@PathVariable Long id) {
+        return comissaoService.obterSaldoComissao(id);
+    }
+
+    @GetMapping("/corretor/{corretorId}/saldo")
+    public Mono<LancamentoComissaoDTO> obterSaldoCorretor(
+            @PathVariable Long corretorId,
+            @RequestParam Long empresaId) {
+        return comissaoService.obterSaldoCorretor(empresaId, corretorId);
     }
 
     @PutMapping("/{id}/cancelar")
@@ -104,7 +243,19 @@ public class ComissaoController {
     }
 
     @GetMapping("/status/{status}")
-    public Flux<ComissaoDTO> buscarPorStatus(
+    public Mono<PaginaDTO<ComissaoDTO>> buscarPorStatus(
+            @PathVariable String status,
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return comissaoService.listarPagina(ComissaoFiltroDTO.builder()
+                .empresaId(empresaId)
+                .status(status)
+                .build(), cursor, tamanho);
+    }
+
+    @GetMapping(value = "/status/{status}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ComissaoDTO> buscarPorStatusStream(
             @PathVariable String status,
             @RequestParam Long empresaId) {
         return comissaoService.buscarPorStatus(empresaId, status);
@@ -117,4 +268,39 @@ public class ComissaoController {
             @RequestParam(required = false) LocalDate dataFim) {
         return comissaoService.obterResumo(empresaId, dataInicio, dataFim);
     }
+
+    @GetMapping("/projecao-fluxo-caixa")
+    public Mono<ProjecaoFluxoCaixaDTO> projetarFluxoCaixa(
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) String granularidade,
+            @RequestParam(required = false) LocalDate dataFim) {
+        return comissaoService.projetarFluxoCaixa(empresaId, granularidade, dataFim);
+    }
+
+    @GetMapping("/ranking-corretores")
+    public Mono<List<RankingCorretorDTO>> obterRankingCorretores(
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) Integer limite) {
+        return comissaoService.obterRankingCorretores(empresaId, limite);
+    }
+
+    @PostMapping("/extratos")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<ExtratoLoteDTO> gerarExtratos(
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) YearMonth mes) {
+        return extratoComissaoService.gerarExtratos(empresaId, mes);
+    }
+
+    @PostMapping("/resumo/reconstruir")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Integer> reconstruirResumoMensal(@RequestParam(required = false) Long empresaId) {
+        return comissaoService.reconstruirResumoMensal(empresaId);
+    }
+
+    @PostMapping("/vencimento/processar")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Long> processarVencimentos(@RequestParam(required = false) LocalDate dataReferencia) {
+        return comissaoService.processarVencimentos(dataReferencia != null ? dataReferencia : LocalDate.now());
+    }
 }
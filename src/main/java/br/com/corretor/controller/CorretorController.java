@@ -1,5 +1,6 @@
 package br.com.corretor.controller;
 
+import br.com.corretor.dto.AutocompletarItemDTO;
 import br.com.corretor.dto.CorretorDTO;
 import br.com.corretor.model.Corretor;
 import br.com.corretor.service.CorretorService;
@@ -52,6 +53,24 @@ public class CorretorController {
         return corretorService.findAtivosNaoBloqueadosByEmpresaId(empresaId);
     }
 
+    // Sugestões por prefixo do nome (qualquer palavra) ou do documento, para o formulário de venda
+    @GetMapping("/empresa/{empresaId}/autocompletar")
+    public Flux<AutocompletarItemDTO> autocompletar(
+            @PathVariable Long empresaId,
+            @RequestParam String texto,
+            @RequestParam(required = false) Integer limite) {
+        return corretorService.autocompletar(empresaId, texto, limite);
+    }
+
+    // Busca aproximada por nome, tolerante a acentos e erros de digitação; mais parecidos primeiro
+    @GetMapping("/empresa/{empresaId}/busca")
+    public Flux<Corretor> buscar(
+            @PathVariable Long empresaId,
+            @RequestParam String termo,
+            @RequestParam(required = false) Integer limite) {
+        return corretorService.buscar(empresaId, termo, limite);
+    }
+
     @GetMapping("/empresa/{empresaId}/search/nome")
     public Flux<Corretor> searchByNome(
             @PathVariable Long empresaId,
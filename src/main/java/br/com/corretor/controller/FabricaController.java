@@ -1,17 +1,31 @@
 package br.com.corretor.controller;
 
+import br.com.corretor.dto.AutocompletarItemDTO;
 import br.com.corretor.dto.FabricaDTO;
+import br.com.corretor.dto.ImportacaoCadastroResultadoDTO;
+import br.com.corretor.dto.RecalculoComissaoProgressoDTO;
+import br.com.corretor.enums.FormatoExportacao;
+import br.com.corretor.enums.TipoCadastro;
 import br.com.corretor.model.Fabrica;
 import br.com.corretor.service.FabricaService;
+import br.com.corretor.service.ImportacaoCadastroService;
+import br.com.corretor.service.RecalculoComissaoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/fabricas")
 @RequiredArgsConstructor
@@ -20,6 +34,12 @@ public class FabricaController {
 	@Autowired
 	private FabricaService fabricaService;
 
+	@Autowired
+	private RecalculoComissaoService recalculoComissaoService;
+
+	@Autowired
+	private ImportacaoCadastroService importacaoCadastroService;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<Fabrica> create(@Valid @RequestBody FabricaDTO fabricaDTO) {
@@ -47,6 +67,45 @@ public class FabricaController {
         return fabricaService.findAtivasByEmpresaId(empresaId);
     }
 
+    // Sugestões por prefixo do nome (qualquer palavra) ou do documento, para o formulário de venda
+    @GetMapping("/empresa/{empresaId}/autocompletar")
+    public Flux<AutocompletarItemDTO> autocompletar(
+            @PathVariable Long empresaId,
+            @RequestParam String texto,
+            @RequestParam(required = false) Integer limite) {
+        return fabricaService.autocompletar(empresaId, texto, limite);
+    }
+
+    // Carga em lote a partir de planilha CSV ou XLSX com cabeçalho; devolve os totais e os primeiros erros
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ImportacaoCadastroResultadoDTO> importar(@RequestParam Long empresaId,
+                                                         @RequestPart("arquivo") FilePart arquivo) {
+        return importacaoCadastroService.importarFabricas(empresaId, arquivo.filename(), arquivo.content());
+    }
+
+    // Todas as linhas rejeitadas de uma importação, pelo relatorioErrosId do resultado
+    @GetMapping("/importar/erros/{relatorioId}")
+    public Mono<ResponseEntity<byte[]>> baixarErrosImportacao(@PathVariable String relatorioId,
+                                                              @RequestParam Long empresaId) {
+        return importacaoCadastroService.relatorioErros(TipoCadastro.FABRICA, empresaId, relatorioId)
+                .map(csv -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename("erros-importacao-fabricas.csv")
+                                .build()
+                                .toString())
+                        .contentType(MediaType.parseMediaType(FormatoExportacao.CSV.getContentType()))
+                        .body(csv));
+    }
+
+    // Busca aproximada por nome, tolerante a acentos e erros de digitação; mais parecidos primeiro
+    @GetMapping("/empresa/{empresaId}/busca")
+    public Flux<Fabrica> buscar(
+            @PathVariable Long empresaId,
+            @RequestParam String termo,
+            @RequestParam(required = false) Integer limite) {
+        return fabricaService.buscar(empresaId, termo, limite);
+    }
+
     @GetMapping("/empresa/{empresaId}/search/razao-social")
     public Flux<Fabrica> searchByRazaoSocial(
             @PathVariable Long empresaId,
@@ -61,6 +120,15 @@ public class FabricaController {
         return fabricaService.searchByNomeFantasia(nomeFantasia, empresaId);
     }
 
+    // Recalcula as comissões em aberto com os percentuais atuais da fábrica, emitindo o progresso por lote
+    @PostMapping(value = "/{id}/recalcular-comissoes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RecalculoComissaoProgressoDTO> recalcularComissoes(
+            @PathVariable Long id,
+            @RequestParam(required = false) LocalDate dataInicio,
+            @RequestParam(required = false) LocalDate dataFim) {
+        return recalculoComissaoService.recalcular(id, dataInicio, dataFim);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> delete(@PathVariable Long id) {
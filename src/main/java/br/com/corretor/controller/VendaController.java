@@ -1,19 +1,35 @@
 package br.com.corretor.controller;
 
+import br.com.corretor.dto.ImportacaoVendaResultadoDTO;
+import br.com.corretor.dto.PaginaDTO;
+import br.com.corretor.dto.VendaAnaliseDTO;
+import br.com.corretor.dto.VendaCuboFiltroDTO;
 import br.com.corretor.dto.VendaDTO;
 import br.com.corretor.model.Venda;
+import br.com.corretor.enums.FormatoExportacao;
+import br.com.corretor.service.ExportacaoService;
+import br.com.corretor.service.CuboVendaService;
+import br.com.corretor.service.ImportacaoVendaService;
+import br.com.corretor.service.VendaAnaliseService;
 import br.com.corretor.service.VendaService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/vendas")
@@ -24,6 +40,18 @@ public class VendaController {
 	@Autowired
 	private VendaService vendaService;
 
+	@Autowired
+	private ExportacaoService exportacaoService;
+
+	@Autowired
+	private ImportacaoVendaService importacaoVendaService;
+
+	@Autowired
+	private VendaAnaliseService vendaAnaliseService;
+
+	@Autowired
+	private CuboVendaService cuboVendaService;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<VendaDTO> criar(@Valid @RequestBody VendaDTO vendaDTO) {
@@ -63,6 +91,62 @@ public class VendaController {
                 cidade, estado, dataInicio, dataFim, valorMinimo, valorMaximo, numeroNotaFiscal);
     }
 
+    // Busca pelo início do número da nota fiscal; com contem=true, por trecho de pelo menos 3 caracteres
+    @GetMapping("/nota-fiscal")
+    public Mono<PaginaDTO<VendaDTO>> buscarPorNotaFiscal(
+            @RequestParam Long empresaId,
+            @RequestParam String numero,
+            @RequestParam(defaultValue = "false") boolean contem,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return vendaService.buscarPorNotaFiscal(empresaId, numero, contem, cursor, tamanho);
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<Flux<DataBuffer>> exportar(
+            @RequestParam Long empresaId,
+            @RequestParam(required = false) Long fabricaId,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) Long corretorId,
+            @RequestParam(required = false) LocalDate dataInicio,
+            @RequestParam(required = false) LocalDate dataFim,
+            @RequestParam(defaultValue = "csv") String formato) {
+        FormatoExportacao tipo = FormatoExportacao.fromString(formato);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("vendas." + tipo.getExtensao())
+                        .build()
+                        .toString())
+                .contentType(MediaType.parseMediaType(tipo.getContentType()))
+                .body(exportacaoService.exportarVendas(empresaId, fabricaId, clienteId, corretorId,
+                        dataInicio, dataFim, tipo));
+    }
+
+    // Totais por combinação de dimensões (tipoVenda, evento, fabrica, corretor, cliente, formaPagamento, mes), com subtotais e total geral
+    @GetMapping("/analise")
+    public Mono<List<VendaAnaliseDTO>> analisar(
+            @RequestParam Long empresaId,
+            @RequestParam LocalDate dataInicio,
+            @RequestParam LocalDate dataFim,
+            @RequestParam List<String> dimensoes) {
+        return vendaAnaliseService.analisar(empresaId, dataInicio, dataFim, dimensoes);
+    }
+
+    // Mesmos totais a partir do cubo em memória da empresa, com filtros; sem dimensões retorna o total
+    @GetMapping("/cubo")
+    public Mono<List<VendaAnaliseDTO>> consultarCubo(
+            VendaCuboFiltroDTO filtro,
+            @RequestParam(required = false) List<String> dimensoes) {
+        return cuboVendaService.agrupar(filtro, dimensoes);
+    }
+
+    // Planilha CSV ou XLSX com cabeçalho; devolve os totais e os erros de cada linha rejeitada
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ImportacaoVendaResultadoDTO> importar(@RequestParam Long empresaId,
+                                                      @RequestPart("arquivo") FilePart arquivo) {
+        return importacaoVendaService.importar(empresaId, arquivo.filename(), arquivo.content());
+    }
+
     @GetMapping("/cliente/{clienteId}")
     public Flux<VendaDTO> buscarPorCliente(@PathVariable Long clienteId, @RequestParam Long empresaId) {
         return vendaService.buscarPorCliente(empresaId, clienteId);
@@ -0,0 +1,19 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Histórico de pagamento das comissões de uma fábrica; atrasos em dias em relação à data prevista
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtrasoPagamentoFabricaDTO {
+    private Long fabricaId;
+    private Long pagas;
+    private Long canceladas;
+    private Double atrasoMediano;
+    private Double atrasoMedio;
+}
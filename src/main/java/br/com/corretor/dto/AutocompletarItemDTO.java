@@ -0,0 +1,17 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompletarItemDTO {
+    private Long id;
+    private String nome;
+    private String nomeFantasia;
+    private String documento;
+}
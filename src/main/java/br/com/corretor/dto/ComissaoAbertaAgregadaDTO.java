@@ -0,0 +1,22 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Comissões em aberto agregadas por fábrica, corretor e data prevista de pagamento
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComissaoAbertaAgregadaDTO {
+    private Long fabricaId;
+    private Long corretorId;
+    private LocalDate dataPrevisaoPagamento;
+    private Long quantidade;
+    private BigDecimal valorTotal;
+}
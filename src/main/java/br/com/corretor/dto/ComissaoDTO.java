@@ -15,10 +15,12 @@ public class ComissaoDTO {
     private BigDecimal valorComissao;
     private LocalDate dataPrevisaoPagamento;
     private LocalDate dataPagamento;
-    private String status; // 'PENDENTE', 'PAGO', 'CANCELADO'
+    private String status; // 'PENDENTE', 'VENCIDA', 'PAGO', 'CANCELADO'
     private String formaPagamento;
     private String numeroNotaFiscal;
     private String observacoes;
+    private Integer numeroParcela;
+    private Integer quantidadeParcelas;
 
     // Construtor vazio
     public ComissaoDTO() {
@@ -144,4 +146,20 @@ public class ComissaoDTO {
     public void setObservacoes(String observacoes) {
         this.observacoes = observacoes;
     }
+
+    public Integer getNumeroParcela() {
+        return numeroParcela;
+    }
+
+    public void setNumeroParcela(Integer numeroParcela) {
+        this.numeroParcela = numeroParcela;
+    }
+
+    public Integer getQuantidadeParcelas() {
+        return quantidadeParcelas;
+    }
+
+    public void setQuantidadeParcelas(Integer quantidadeParcelas) {
+        this.quantidadeParcelas = quantidadeParcelas;
+    }
 }
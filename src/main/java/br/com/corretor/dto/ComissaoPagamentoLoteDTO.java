@@ -0,0 +1,23 @@
+package br.com.corretor.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComissaoPagamentoLoteDTO {
+    // Informar os ids ou um filtro (com empresaId); com filtro, apenas comissões pendentes são consideradas
+    private List<Long> ids;
+
+    private ComissaoFiltroDTO filtro;
+
+    @NotNull(message = "Dados do pagamento são obrigatórios")
+    private ComissaoPagamentoDTO pagamento;
+}
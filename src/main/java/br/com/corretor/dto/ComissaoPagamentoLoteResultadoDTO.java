@@ -0,0 +1,28 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComissaoPagamentoLoteResultadoDTO {
+    private Integer totalSolicitado;
+    private Integer totalPago;
+    private Integer totalRejeitado;
+    private List<Item> itens;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long id;
+        private String resultado; // 'PAGO', 'JA_PAGA', 'CANCELADA', 'NAO_ENCONTRADA', 'CONFLITO'
+        private String mensagem;
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtratoLoteDTO {
+    private Long empresaId;
+    private String mes;
+    private Long corretores;
+    private Long comissoes;
+    private Long arquivos;
+    private String diretorio;
+    private Long duracaoMs;
+}
@@ -0,0 +1,16 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoCadastroErroDTO {
+    private Long linha;
+    private String documento;
+    private String mensagem;
+}
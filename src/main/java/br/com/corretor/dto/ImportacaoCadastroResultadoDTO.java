@@ -0,0 +1,26 @@
+package br.com.corretor.dto;
+
+import br.com.corretor.enums.TipoCadastro;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoCadastroResultadoDTO {
+    private Long empresaId;
+    private TipoCadastro tipo;
+    private String arquivo;
+    private Long totalLinhas;
+    private Long importadas;
+    private Long rejeitadas;
+    private Long duracaoMs;
+    // Primeiros erros; a lista completa é baixada pelo relatório
+    private List<ImportacaoCadastroErroDTO> erros;
+    private String relatorioErrosId;
+}
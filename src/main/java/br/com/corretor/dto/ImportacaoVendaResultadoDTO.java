@@ -0,0 +1,22 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoVendaResultadoDTO {
+    private Long empresaId;
+    private String arquivo;
+    private Long totalLinhas;
+    private Long importadas;
+    private Long rejeitadas;
+    private Long duracaoMs;
+    private List<ImportacaoVendaErroDTO> erros;
+}
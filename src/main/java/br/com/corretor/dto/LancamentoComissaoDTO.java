@@ -0,0 +1,27 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LancamentoComissaoDTO {
+    private Long id;
+    private Long empresaId;
+    private Long corretorId;
+    private Long comissaoId;
+    private String tipo;
+    private BigDecimal valor;
+    private BigDecimal saldoComissao;
+    private BigDecimal saldoCorretor;
+    private Long sequencia;
+    private String descricao;
+    private LocalDateTime dataLancamento;
+}
@@ -0,0 +1,20 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> itens;
+    private Integer tamanho;
+    // Cursor opaco para a próxima página; nulo quando não há mais registros
+    private String proximoCursor;
+    private Boolean temProximaPagina;
+}
@@ -0,0 +1,52 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjecaoFluxoCaixaDTO {
+    private Long empresaId;
+    private String granularidade;
+    private LocalDate dataInicio;
+    private LocalDate dataFim;
+    private Long quantidadeTotal;
+    // Pela data prevista de pagamento
+    private BigDecimal valorTotalPrevisto;
+    // Pela data esperada após aplicar o histórico de atraso e realização de cada fábrica
+    private BigDecimal valorTotalAjustado;
+    private List<Periodo> periodos;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Periodo {
+        private LocalDate inicio;
+        private LocalDate fim;
+        private Long quantidade;
+        private BigDecimal valorPrevisto;
+        private BigDecimal valorAjustado;
+        private List<Parcela> porFabrica;
+        private List<Parcela> porCorretor;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Parcela {
+        private Long id;
+        private Long quantidade;
+        private BigDecimal valorPrevisto;
+        private BigDecimal valorAjustado;
+    }
+}
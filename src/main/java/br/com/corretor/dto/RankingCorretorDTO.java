@@ -0,0 +1,19 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingCorretorDTO {
+    private Integer posicao;
+    private Long corretorId;
+    private Long quantidade;
+    private BigDecimal valorTotal;
+}
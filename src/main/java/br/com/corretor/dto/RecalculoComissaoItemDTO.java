@@ -0,0 +1,24 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Antes/depois de uma comissão recalculada
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecalculoComissaoItemDTO {
+    private Long comissaoId;
+    private Long vendaId;
+    private Long empresaId;
+    private Long corretorId;
+    private BigDecimal percentualAnterior;
+    private BigDecimal percentualNovo;
+    private BigDecimal valorAnterior;
+    private BigDecimal valorNovo;
+}
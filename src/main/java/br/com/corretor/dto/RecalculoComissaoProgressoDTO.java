@@ -0,0 +1,24 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecalculoComissaoProgressoDTO {
+    private Long fabricaId;
+    private Integer lote;
+    private Integer alteradasNoLote;
+    private Long totalAlteradas;
+    // Última venda processada; permite retomar o recálculo a partir dela
+    private Long cursor;
+    private Boolean concluido;
+    private Long duracaoMs;
+    private List<RecalculoComissaoItemDTO> itens;
+}
@@ -0,0 +1,29 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaAnaliseDTO {
+    // Dimensões que definem a linha; as demais vêm nulas (vazio = total geral)
+    private List<String> agrupadoPor;
+    private String tipoVenda;
+    private String evento;
+    private Long fabricaId;
+    private Long corretorId;
+    private Long clienteId;
+    private String formaPagamento;
+    private LocalDate mes;
+    private Long quantidade;
+    private BigDecimal valorVenda;
+    private BigDecimal valorComissao;
+}
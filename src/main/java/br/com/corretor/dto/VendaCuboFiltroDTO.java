@@ -0,0 +1,30 @@
+package br.com.corretor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaCuboFiltroDTO {
+    private Long empresaId;
+    private Long fabricaId;
+    private Long corretorId;
+    private Long clienteId;
+    private String tipoVenda;
+    private String evento;
+    private String formaPagamento;
+
+    // O cubo guarda só o mês da venda: o período é aplicado aos meses que o contêm
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dataInicio;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dataFim;
+}
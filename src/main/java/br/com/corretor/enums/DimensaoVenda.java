@@ -0,0 +1,43 @@
+package br.com.corretor.enums;
+
+import br.com.corretor.exception.BusinessException;
+
+import java.util.Locale;
+
+// Dimensões aceitas pela análise de vendas; a expressão é o que entra no GROUP BY
+public enum DimensaoVenda {
+    TIPO_VENDA("tipoVenda", "tipo_venda"),
+    EVENTO("evento", "evento"),
+    FABRICA("fabrica", "fabrica_id"),
+    CORRETOR("corretor", "corretor_id"),
+    CLIENTE("cliente", "cliente_id"),
+    FORMA_PAGAMENTO("formaPagamento", "forma_pagamento"),
+    MES("mes", "CAST(date_trunc('month', data_venda) AS DATE)");
+
+    private final String nome;
+    private final String expressao;
+
+    DimensaoVenda(String nome, String expressao) {
+        this.nome = nome;
+        this.expressao = expressao;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getExpressao() {
+        return expressao;
+    }
+
+    // Aceita o nome do campo (tipoVenda) ou da constante (TIPO_VENDA)
+    public static DimensaoVenda fromString(String dimensao) {
+        String normalizada = dimensao == null ? "" : dimensao.trim().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+        for (DimensaoVenda valor : values()) {
+            if (valor.nome.toLowerCase(Locale.ROOT).equals(normalizada)) {
+                return valor;
+            }
+        }
+        throw new BusinessException("Dimensão de análise inválida: " + dimensao);
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.corretor.enums;
+
+import br.com.corretor.exception.BusinessException;
+
+public enum FormatoExportacao {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extensao;
+
+    FormatoExportacao(String contentType, String extensao) {
+        this.contentType = contentType;
+        this.extensao = extensao;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+    public static FormatoExportacao fromString(String formato) {
+        for (FormatoExportacao valor : values()) {
+            if (valor.getExtensao().equalsIgnoreCase(formato)) {
+                return valor;
+            }
+        }
+        throw new BusinessException("Formato de exportação inválido: " + formato);
+    }
+}
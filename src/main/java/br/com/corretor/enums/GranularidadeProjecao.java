@@ -0,0 +1,37 @@
+package br.com.corretor.enums;
+
+import br.com.corretor.exception.BusinessException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum GranularidadeProjecao {
+    SEMANA,
+    MES;
+
+    // Semanas começam na segunda-feira
+    public LocalDate inicioDoPeriodo(LocalDate data) {
+        return this == SEMANA
+            ? data.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+            : data.withDayOfMonth(1);
+    }
+
+    public LocalDate fimDoPeriodo(LocalDate inicio) {
+        return this == SEMANA
+            ? inicio.plusDays(6)
+            : inicio.with(TemporalAdjusters.lastDayOfMonth());
+    }
+
+    public static GranularidadeProjecao fromString(String granularidade) {
+        if (granularidade == null || granularidade.isEmpty()) {
+            return MES;
+        }
+        for (GranularidadeProjecao valor : values()) {
+            if (valor.name().equalsIgnoreCase(granularidade)) {
+                return valor;
+            }
+        }
+        throw new BusinessException("Granularidade de projeção inválida: " + granularidade);
+    }
+}
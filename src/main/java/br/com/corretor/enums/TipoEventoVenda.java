@@ -0,0 +1,7 @@
+package br.com.corretor.enums;
+
+public enum TipoEventoVenda {
+    CRIADA,
+    ATUALIZADA,
+    EXCLUIDA
+}
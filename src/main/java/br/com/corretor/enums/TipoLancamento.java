@@ -0,0 +1,10 @@
+package br.com.corretor.enums;
+
+public enum TipoLancamento {
+    // Saldo em aberto das comissões existentes na criação do razão
+    ABERTURA,
+    PROVISAO,
+    PAGAMENTO,
+    CANCELAMENTO,
+    AJUSTE
+}
@@ -4,6 +4,7 @@ import br.com.corretor.exception.banco.BBException;
 import br.com.corretor.exception.banco.ItauException;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -75,6 +76,17 @@ public class GlobalExceptionHandler {
         return Mono.just(response);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Mono<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ErrorResponse response = new ErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Registro alterado por outra operação, tente novamente",
+            LocalDateTime.now()
+        );
+        return Mono.just(response);
+    }
+
     @ExceptionHandler(BancoIntegracaoException.class)
     public ResponseEntity<ErrorResponse> handleBancoIntegracaoException(BancoIntegracaoException ex) {
         HttpStatus status = mapErrorTypeToStatus(ex.getTipoErro());
@@ -0,0 +1,51 @@
+package br.com.corretor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("chaves_idempotencia")
+public class ChaveIdempotencia {
+    @Id
+    private Long id;
+
+    @Column("escopo")
+    private String escopo; // usuário autenticado que enviou a chave
+
+    @Column("chave")
+    private String chave;
+
+    @Column("hash_requisicao")
+    private String hashRequisicao; // SHA-256 de método, caminho e corpo
+
+    @Column("reservada_ate")
+    private LocalDateTime reservadaAte;
+
+    @Column("status_resposta")
+    private Integer statusResposta;
+
+    @Column("tipo_conteudo")
+    private String tipoConteudo;
+
+    @Column("corpo_resposta")
+    private byte[] corpoResposta;
+
+    @Column("concluida_em")
+    private LocalDateTime concluidaEm;
+
+    @Column("expira_em")
+    private LocalDateTime expiraEm;
+
+    @Column("data_criacao")
+    private LocalDateTime dataCriacao;
+}
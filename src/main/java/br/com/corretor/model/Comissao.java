@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -49,7 +50,7 @@ public class Comissao {
     private LocalDate dataPagamento;
     
     @Column("status")
-    private String status; // 'PENDENTE', 'PAGO', 'CANCELADO'
+    private String status; // 'PENDENTE', 'VENCIDA', 'PAGO', 'CANCELADO'
     
     @Column("forma_pagamento")
     private String formaPagamento;
@@ -59,6 +60,20 @@ public class Comissao {
     
     private String observacoes;
 
+    @Column("chave_pagamento")
+    private String chavePagamento;
+
+    @Column("numero_parcela")
+    private Integer numeroParcela;
+
+    @Column("quantidade_parcelas")
+    private Integer quantidadeParcelas;
+
+    // Incrementada a cada alteração; o UPDATE falha se outra operação alterou a comissão antes
+    @Version
+    @Column("versao")
+    private Long versao;
+
     // Construtor vazio
     public Comissao() {
     }
@@ -215,6 +230,38 @@ public class Comissao {
         this.observacoes = observacoes;
     }
 
+    public String getChavePagamento() {
+        return chavePagamento;
+    }
+
+    public void setChavePagamento(String chavePagamento) {
+        this.chavePagamento = chavePagamento;
+    }
+
+    public Integer getNumeroParcela() {
+        return numeroParcela;
+    }
+
+    public void setNumeroParcela(Integer numeroParcela) {
+        this.numeroParcela = numeroParcela;
+    }
+
+    public Integer getQuantidadeParcelas() {
+        return quantidadeParcelas;
+    }
+
+    public void setQuantidadeParcelas(Integer quantidadeParcelas) {
+        this.quantidadeParcelas = quantidadeParcelas;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     // Método estático para criar uma nova comissão
     public static Comissao criar(
             Long empresaId,
@@ -263,6 +310,8 @@ public class Comissao {
         comissao.setStatus(status);
         comissao.setFormaPagamento(formaPagamento);
         comissao.setNumeroNotaFiscal(numeroNotaFiscal);
+        comissao.setNumeroParcela(1);
+        comissao.setQuantidadeParcelas(1);
         return comissao;
     }
 }
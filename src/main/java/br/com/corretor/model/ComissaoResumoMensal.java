@@ -0,0 +1,38 @@
+package br.com.corretor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("comissao_resumo_mensal")
+public class ComissaoResumoMensal {
+    @Id
+    private Long id;
+
+    @Column("empresa_id")
+    private Long empresaId;
+
+    // Primeiro dia do mês da venda
+    @Column("mes")
+    private LocalDate mes;
+
+    @Column("status")
+    private String status; // 'PENDENTE', 'VENCIDA', 'PAGO', 'CANCELADO'
+
+    @Column("quantidade")
+    private Long quantidade;
+
+    @Column("valor_total")
+    private BigDecimal valorTotal;
+}
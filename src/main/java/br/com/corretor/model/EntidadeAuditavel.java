@@ -12,6 +12,7 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Getter
 @Setter
@@ -19,6 +20,9 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class EntidadeAuditavel {
 
+    // Colunas de criação, que uma atualização do registro não deve sobrescrever
+    public static final Set<String> COLUNAS_CRIACAO = Set.of("data_criacao", "criado_por");
+
     @CreatedDate
     @Column(name = "data_criacao", nullable = false, updatable = false)
     private LocalDateTime dataCriacao;
@@ -0,0 +1,58 @@
+package br.com.corretor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("comissao_lancamentos")
+public class LancamentoComissao {
+    @Id
+    private Long id;
+
+    @Column("empresa_id")
+    private Long empresaId;
+
+    @Column("corretor_id")
+    private Long corretorId;
+
+    @Column("comissao_id")
+    private Long comissaoId;
+
+    @Column("tipo")
+    private String tipo; // 'ABERTURA', 'PROVISAO', 'PAGAMENTO', 'CANCELAMENTO', 'AJUSTE'
+
+    // Positivo aumenta o valor devido ao corretor, negativo reduz
+    @Column("valor")
+    private BigDecimal valor;
+
+    @Column("saldo_comissao")
+    private BigDecimal saldoComissao;
+
+    @Column("saldo_corretor")
+    private BigDecimal saldoCorretor;
+
+    // Ordem dos lançamentos do corretor
+    @Column("sequencia")
+    private Long sequencia;
+
+    @Column("descricao")
+    private String descricao;
+
+    // Chave de idempotência do pagamento que gerou o lançamento
+    @Column("chave_pagamento")
+    private String chavePagamento;
+
+    @Column("data_lancamento")
+    private LocalDateTime dataLancamento;
+}
@@ -0,0 +1,45 @@
+package br.com.corretor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("venda_eventos")
+public class VendaEvento {
+    @Id
+    private Long id;
+
+    @Column("empresa_id")
+    private Long empresaId;
+
+    @Column("venda_id")
+    private Long vendaId;
+
+    @Column("tipo")
+    private String tipo; // 'CRIADA', 'ATUALIZADA', 'EXCLUIDA'
+
+    @Column("tentativas")
+    private Integer tentativas;
+
+    @Column("proxima_tentativa")
+    private LocalDateTime proximaTentativa;
+
+    @Column("ultimo_erro")
+    private String ultimoErro;
+
+    @Column("processado_em")
+    private LocalDateTime processadoEm;
+
+    @Column("data_criacao")
+    private LocalDateTime dataCriacao;
+}
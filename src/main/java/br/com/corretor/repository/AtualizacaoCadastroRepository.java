@@ -0,0 +1,61 @@
+package br.com.corretor.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Atualização de cadastros num único comando: UPDATE ... RETURNING * com as colunas da entidade
+ * convertidas pelo mesmo conversor do save(), exceto as preservadas (ativo, data de cadastro,
+ * auditoria de criação), que ficam como estão no banco em vez de serem lidas antes.
+ * Vazio quando o registro não existe.
+ */
+@Repository
+public class AtualizacaoCadastroRepository {
+
+    private static final String COLUNA_ID = "id";
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public <T> Mono<T> atualizar(String tabela, T entidade, Long id, Set<String> colunasPreservadas) {
+        return Mono.defer(() -> {
+            OutboundRow linha = new OutboundRow();
+            template.getConverter().write(entidade, linha);
+
+            List<String> atribuicoes = new ArrayList<>();
+            List<Map.Entry<String, Parameter>> valores = new ArrayList<>();
+            for (Map.Entry<SqlIdentifier, Parameter> coluna : linha.entrySet()) {
+                String nome = coluna.getKey().getReference();
+                if (COLUNA_ID.equals(nome) || colunasPreservadas.contains(nome)) {
+                    continue;
+                }
+                atribuicoes.add(nome + " = :" + nome);
+                valores.add(Map.entry(nome, coluna.getValue()));
+            }
+
+            DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql("UPDATE " + tabela + " SET " + String.join(", ", atribuicoes) + " WHERE id = :id RETURNING *")
+                .bind(COLUNA_ID, id);
+            for (Map.Entry<String, Parameter> valor : valores) {
+                spec = spec.bind(valor.getKey(), valor.getValue());
+            }
+            @SuppressWarnings("unchecked")
+            Class<T> tipo = (Class<T>) entidade.getClass();
+            return spec.map((row, metadados) -> template.getConverter().read(tipo, row, metadados)).one();
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.corretor.repository;
+
+import br.com.corretor.model.ChaveIdempotencia;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends ReactiveCrudRepository<ChaveIdempotencia, Long> {
+
+    // Reserva a chave para esta requisição; retorna vazio se outra requisição já a tem. Uma chave
+    // expirada, ou reservada por uma instância que não concluiu a tempo, é reaproveitada.
+    @Query("INSERT INTO chaves_idempotencia (escopo, chave, hash_requisicao, reservada_ate, expira_em) " +
+           "VALUES (:escopo, :chave, :hashRequisicao, " +
+           "CURRENT_TIMESTAMP + make_interval(secs => :reservaSegundos), " +
+           "CURRENT_TIMESTAMP + make_interval(secs => :validadeSegundos)) " +
+           "ON CONFLICT (escopo, chave) DO UPDATE SET hash_requisicao = EXCLUDED.hash_requisicao, " +
+           "reservada_ate = EXCLUDED.reservada_ate, expira_em = EXCLUDED.expira_em, " +
+           "status_resposta = NULL, tipo_conteudo = NULL, corpo_resposta = NULL, concluida_em = NULL, " +
+           "data_criacao = CURRENT_TIMESTAMP " +
+           "WHERE chaves_idempotencia.expira_em < CURRENT_TIMESTAMP " +
+           "OR (chaves_idempotencia.concluida_em IS NULL AND chaves_idempotencia.reservada_ate < CURRENT_TIMESTAMP) " +
+           "RETURNING *")
+    Mono<ChaveIdempotencia> reservar(String escopo, String chave, String hashRequisicao,
+                                     int reservaSegundos, int validadeSegundos);
+
+    Mono<ChaveIdempotencia> findByEscopoAndChave(String escopo, String chave);
+
+    @Modifying
+    @Query("UPDATE chaves_idempotencia SET status_resposta = :status, tipo_conteudo = :tipoConteudo, " +
+           "corpo_resposta = :corpo, concluida_em = CURRENT_TIMESTAMP WHERE id = :id")
+    Mono<Integer> concluir(Long id, int status, String tipoConteudo, byte[] corpo);
+
+    @Modifying
+    @Query("DELETE FROM chaves_idempotencia WHERE expira_em < CURRENT_TIMESTAMP")
+    Mono<Integer> excluirExpiradas();
+}
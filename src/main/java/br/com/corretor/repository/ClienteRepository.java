@@ -19,12 +19,6 @@ public interface ClienteRepository extends ReactiveCrudRepository<Cliente, Long>
     @Query("SELECT * FROM clientes WHERE empresa_id = :empresaId AND bloqueado = false AND ativo = true")
     Flux<Cliente> findAtivosNaoBloqueadosByEmpresaId(Long empresaId);
     
-    @Query("SELECT COUNT(*) > 0 FROM clientes WHERE cnpj = :cnpj AND empresa_id = :empresaId AND id != :id")
-    Mono<Boolean> existsByCnpjAndEmpresaIdAndIdNot(String cnpj, Long empresaId, Long id);
-    
-    @Query("SELECT COUNT(*) > 0 FROM clientes WHERE cpf = :cpf AND empresa_id = :empresaId AND id != :id")
-    Mono<Boolean> existsByCpfAndEmpresaIdAndIdNot(String cpf, Long empresaId, Long id);
-    
     Flux<Cliente> findByRazaoSocialContainingIgnoreCaseAndEmpresaId(String razaoSocial, Long empresaId);
     
     Flux<Cliente> findByNomeFantasiaContainingIgnoreCaseAndEmpresaId(String nomeFantasia, Long empresaId);
@@ -37,4 +31,40 @@ public interface ClienteRepository extends ReactiveCrudRepository<Cliente, Long>
     
     @Query("SELECT * FROM clientes WHERE empresa_id = :empresaId AND estado = :estado AND ativo = true")
     Flux<Cliente> findByEstadoAndEmpresaId(String estado, Long empresaId);
+    
+    // Busca em lote por CNPJ ou CPF comparando só os dígitos
+    @Query("SELECT * FROM clientes WHERE empresa_id = :empresaId " +
+           "AND ((regexp_replace(cnpj, '[^0-9]', '', 'g') <> '' " +
+           "AND regexp_replace(cnpj, '[^0-9]', '', 'g') = ANY(CAST(:documentos AS VARCHAR[]))) " +
+           "OR (regexp_replace(cpf, '[^0-9]', '', 'g') <> '' " +
+           "AND regexp_replace(cpf, '[^0-9]', '', 'g') = ANY(CAST(:documentos AS VARCHAR[]))))")
+    Flux<Cliente> findByEmpresaIdAndDocumentos(Long empresaId, String[] documentos);
+    
+    // Insere um lote de clientes em um único comando; cada array traz uma coluna, na mesma ordem.
+    // Documento já cadastrado (índices únicos da V14) não interrompe o lote: a linha só não volta no RETURNING
+    @Query("INSERT INTO clientes (empresa_id, tipo, razao_social, nome_fantasia, cnpj, cpf, inscricao_estadual, email, " +
+           "telefone, celular, endereco, bairro, cidade, estado, cep, data_cadastro, bloqueado, ativo) " +
+           "SELECT :empresaId, v.tipo, v.razao_social, v.nome_fantasia, v.cnpj, v.cpf, v.inscricao_estadual, v.email, " +
+           "v.telefone, v.celular, v.endereco, v.bairro, v.cidade, v.estado, v.cep, CURRENT_DATE, false, true " +
+           "FROM unnest(CAST(:tipos AS VARCHAR[]), CAST(:razoesSociais AS VARCHAR[]), CAST(:nomesFantasia AS VARCHAR[]), " +
+           "CAST(:cnpjs AS VARCHAR[]), CAST(:cpfs AS VARCHAR[]), CAST(:inscricoesEstaduais AS VARCHAR[]), " +
+           "CAST(:emails AS VARCHAR[]), CAST(:telefones AS VARCHAR[]), CAST(:celulares AS VARCHAR[]), " +
+           "CAST(:enderecos AS VARCHAR[]), CAST(:bairros AS VARCHAR[]), CAST(:cidades AS VARCHAR[]), " +
+           "CAST(:estados AS VARCHAR[]), CAST(:ceps AS VARCHAR[])) " +
+           "AS v(tipo, razao_social, nome_fantasia, cnpj, cpf, inscricao_estadual, email, telefone, celular, " +
+           "endereco, bairro, cidade, estado, cep) " +
+           "ON CONFLICT DO NOTHING RETURNING *")
+    Flux<Cliente> inserirEmLote(Long empresaId, String[] tipos, String[] razoesSociais, String[] nomesFantasia,
+                                String[] cnpjs, String[] cpfs, String[] inscricoesEstaduais, String[] emails,
+                                String[] telefones, String[] celulares, String[] enderecos, String[] bairros,
+                                String[] cidades, String[] estados, String[] ceps);
+    
+    // Busca aproximada pelo nome sem acentos, mais parecidos primeiro. Trecho exato (LIKE) e nomes com
+    // erro de digitação (<%) usam o índice de trigramas da V13, que repete a mesma expressão
+    @Query("SELECT * FROM clientes WHERE empresa_id = :empresaId " +
+           "AND (normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, '')) LIKE normalizar_busca(:padrao) " +
+           "OR normalizar_busca(:termo) <% normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, ''))) " +
+           "ORDER BY word_similarity(normalizar_busca(:termo), normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, ''))) DESC, id " +
+           "LIMIT :limite")
+    Flux<Cliente> buscarPorNome(Long empresaId, String termo, String padrao, int limite);
 }
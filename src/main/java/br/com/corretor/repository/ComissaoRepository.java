@@ -1,6 +1,11 @@
 package br.com.corretor.repository;
 
+import br.com.corretor.dto.AtrasoPagamentoFabricaDTO;
+import br.com.corretor.dto.ComissaoAbertaAgregadaDTO;
+import br.com.corretor.dto.RankingCorretorDTO;
+import br.com.corretor.dto.RecalculoComissaoItemDTO;
 import br.com.corretor.model.Comissao;
+import br.com.corretor.model.ComissaoResumoMensal;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -8,14 +13,15 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Repository
 public interface ComissaoRepository extends ReactiveCrudRepository<Comissao, Long> {
 	
 	
-    @Query("SELECT c FROM Comissao c WHERE c.vendaId = :vendaId")
-    Mono<Comissao> findByVendaId(Long vendaId);
+    @Query("SELECT * FROM comissoes WHERE venda_id = :vendaId ORDER BY numero_parcela")
+    Flux<Comissao> findByVendaId(Long vendaId);
 
     @Query("SELECT c FROM Comissao c WHERE " +
            "(:empresaId IS NULL OR c.empresaId = :empresaId) AND " +
@@ -32,17 +38,18 @@ public interface ComissaoRepository extends ReactiveCrudRepository<Comissao, Lon
             LocalDate dataFim,
             String status);
 
-    @Query("SELECT c FROM Comissao c WHERE " +
-           "c.empresaId = :empresaId AND " +
-           "c.status = 'PENDENTE' AND " +
-           "c.dataVencimento < :dataReferencia")
-    Flux<Comissao> findVencidas(Long empresaId, LocalDate dataReferencia);
+    // Inclui as pendentes que venceram depois da última execução do job de vencimento
+    @Query("SELECT * FROM comissoes WHERE empresa_id = :empresaId AND " +
+           "(status = 'VENCIDA' OR (status = 'PENDENTE' AND data_previsao_pagamento < :dataReferencia)) AND " +
+           "(:cursorData IS NULL OR (data_venda, id) > (:cursorData, :cursorId)) " +
+           "ORDER BY data_venda, id LIMIT :limite")
+    Flux<Comissao> findVencidas(Long empresaId, LocalDate dataReferencia, LocalDate cursorData, Long cursorId, int limite);
 
-    @Query("SELECT c FROM Comissao c WHERE " +
-           "c.empresaId = :empresaId AND " +
-           "c.status = 'PENDENTE' AND " +
-           "c.dataVencimento >= :dataReferencia")
-    Flux<Comissao> findAVencer(Long empresaId, LocalDate dataReferencia);
+    @Query("SELECT * FROM comissoes WHERE empresa_id = :empresaId AND " +
+           "status = 'PENDENTE' AND data_previsao_pagamento > :dataReferencia AND " +
+           "(:cursorData IS NULL OR (data_venda, id) > (:cursorData, :cursorId)) " +
+           "ORDER BY data_venda, id LIMIT :limite")
+    Flux<Comissao> findAVencer(Long empresaId, LocalDate dataReferencia, LocalDate cursorData, Long cursorId, int limite);
 
     @Query("SELECT c FROM Comissao c WHERE c.corretorId = :corretorId")
     Flux<Comissao> findByCorretorId(Long corretorId);
@@ -107,9 +114,6 @@ public interface ComissaoRepository extends ReactiveCrudRepository<Comissao, Lon
     
     Flux<Comissao> findByEmpresaId(Long empresaId);
     
-    
-    Flux<Comissao> findByStatus(String status);
-    
     @Query("SELECT * FROM comissoes WHERE empresa_id = :empresaId AND data_venda BETWEEN :dataInicio AND :dataFim")
     Flux<Comissao> findByPeriodo(Long empresaId, LocalDate dataInicio, LocalDate dataFim);
     
@@ -118,4 +122,154 @@ public interface ComissaoRepository extends ReactiveCrudRepository<Comissao, Lon
     
     Mono<Void> deleteByVendaId(Long vendaId);
     
+    @Query("SELECT * FROM comissoes WHERE " +
+           "(:empresaId IS NULL OR empresa_id = :empresaId) AND " +
+           "(:corretorId IS NULL OR corretor_id = :corretorId) AND " +
+           "(:fabricaId IS NULL OR fabrica_id = :fabricaId) AND " +
+           "(:status IS NULL OR status = :status) AND " +
+           "(:dataInicio IS NULL OR data_venda >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR data_venda <= :dataFim) AND " +
+           "(:vencimentoInicio IS NULL OR data_previsao_pagamento >= :vencimentoInicio) AND " +
+           "(:vencimentoFim IS NULL OR data_previsao_pagamento <= :vencimentoFim) AND " +
+           "(:pagamentoInicio IS NULL OR data_pagamento >= :pagamentoInicio) AND " +
+           "(:pagamentoFim IS NULL OR data_pagamento <= :pagamentoFim) AND " +
+           "(:cursorData IS NULL OR (data_venda, id) > (:cursorData, :cursorId)) " +
+           "ORDER BY data_venda, id LIMIT :limite")
+    Flux<Comissao> findPagina(
+            Long empresaId,
+            Long corretorId,
+            Long fabricaId,
+            String status,
+            LocalDate dataInicio,
+            LocalDate dataFim,
+            LocalDate vencimentoInicio,
+            LocalDate vencimentoFim,
+            LocalDate pagamentoInicio,
+            LocalDate pagamentoFim,
+            LocalDate cursorData,
+            Long cursorId,
+            int limite);
+    
+    @Query("SELECT status, COUNT(*) AS quantidade, COALESCE(SUM(valor_comissao), 0) AS valor_total " +
+           "FROM comissoes WHERE empresa_id = :empresaId AND data_venda BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY status")
+    Flux<ComissaoResumoMensal> somarPorStatusNoPeriodo(Long empresaId, LocalDate dataInicio, LocalDate dataFim);
+    
+    @Query("SELECT * FROM comissoes WHERE id = ANY(:ids)")
+    Flux<Comissao> findAllByIds(Long[] ids);
+    
+    @Query("UPDATE comissoes SET status = 'PAGO', data_pagamento = :dataPagamento, valor_pago = valor_comissao, " +
+           "forma_pagamento = :formaPagamento, observacoes = COALESCE(:observacoes, observacoes), " +
+           "chave_pagamento = :chavePagamento, versao = versao + 1 " +
+           "WHERE id = ANY(:ids) AND status IN ('PENDENTE', 'VENCIDA') RETURNING *")
+    Flux<Comissao> pagarPendentes(Long[] ids, LocalDate dataPagamento, String formaPagamento, String observacoes,
+                                  String chavePagamento);
+    
+    // Só aplica se a comissão continua em aberto e na versão lida; vazio indica alteração concorrente.
+    // O valor pago se acumula e a comissão só passa a PAGO quando o saldo chega a zero; sem valor, quita o saldo
+    @Query("UPDATE comissoes SET status = CASE WHEN COALESCE(valor_pago, 0) + " +
+           "COALESCE(:valorPago, valor_comissao - COALESCE(valor_pago, 0)) >= valor_comissao THEN 'PAGO' ELSE status END, " +
+           "data_pagamento = :dataPagamento, " +
+           "valor_pago = COALESCE(valor_pago, 0) + COALESCE(:valorPago, valor_comissao - COALESCE(valor_pago, 0)), " +
+           "forma_pagamento = :formaPagamento, " +
+           "observacoes = COALESCE(:observacoes, observacoes), chave_pagamento = :chavePagamento, versao = versao + 1 " +
+           "WHERE id = :id AND versao = :versao AND status IN ('PENDENTE', 'VENCIDA') RETURNING *")
+    Mono<Comissao> pagar(Long id, Long versao, LocalDate dataPagamento, BigDecimal valorPago, String formaPagamento,
+                         String observacoes, String chavePagamento);
+    
+    @Query("SELECT fabrica_id, corretor_id, data_previsao_pagamento, COUNT(*) AS quantidade, " +
+           "COALESCE(SUM(valor_comissao - COALESCE(valor_pago, 0)), 0) AS valor_total " +
+           "FROM comissoes WHERE empresa_id = :empresaId AND status IN ('PENDENTE', 'VENCIDA') " +
+           "GROUP BY fabrica_id, corretor_id, data_previsao_pagamento")
+    Flux<ComissaoAbertaAgregadaDTO> agregarAbertasPorPrevisao(Long empresaId);
+    
+    @Query("SELECT fabrica_id, " +
+           "COUNT(*) FILTER (WHERE status = 'PAGO') AS pagas, " +
+           "COUNT(*) FILTER (WHERE status = 'CANCELADO') AS canceladas, " +
+           "percentile_cont(0.5) WITHIN GROUP (ORDER BY data_pagamento - data_previsao_pagamento) " +
+           "FILTER (WHERE status = 'PAGO' AND data_pagamento IS NOT NULL) AS atraso_mediano, " +
+           "AVG(data_pagamento - data_previsao_pagamento) FILTER (WHERE status = 'PAGO' AND data_pagamento IS NOT NULL) AS atraso_medio " +
+           "FROM comissoes WHERE empresa_id = :empresaId AND status IN ('PAGO', 'CANCELADO') " +
+           "AND data_previsao_pagamento >= :desde " +
+           "GROUP BY fabrica_id")
+    Flux<AtrasoPagamentoFabricaDTO> estatisticasAtrasoPorFabrica(Long empresaId, LocalDate desde);
+    
+    @Query("SELECT corretor_id, COUNT(*) AS quantidade, COALESCE(SUM(valor_comissao), 0) AS valor_total " +
+           "FROM comissoes WHERE empresa_id = :empresaId AND data_venda BETWEEN :dataInicio AND :dataFim " +
+           "AND status <> 'CANCELADO' AND corretor_id IS NOT NULL " +
+           "GROUP BY corretor_id")
+    Flux<RankingCorretorDTO> totalizarPorCorretor(Long empresaId, LocalDate dataInicio, LocalDate dataFim);
+    
+    // Recalcula um lote de vendas da fábrica com comissões em aberto, com as taxas informadas por tipo de
+    // venda, atualizando vendas e parcelas no mesmo comando; retorna o antes/depois de cada parcela alterada.
+    // Taxas em pontos-base e valor em centavos com arredondamento bancário, como em TabelaComissao.
+    // Parcelas pagas (inteira ou parcialmente) ou canceladas mantêm o valor: o novo total menos esses valores
+    // é dividido entre as parcelas em aberto como em CronogramaParcelas, e a soma das parcelas continua igual
+    // à comissão da venda. Vendas em que as parcelas fechadas já passam do novo total ficam como estão
+    @Query("WITH taxas AS (" +
+           "SELECT tipo_venda, pontos_base, pontos_base * 0.01 AS percentual " +
+           "FROM unnest(CAST(:tipos AS VARCHAR[]), CAST(:pontosBase AS INTEGER[])) AS t(tipo_venda, pontos_base)), " +
+           "lote AS (" +
+           "SELECT v.id, t.percentual, total.centavos, total.centavos - fixo.centavos AS centavos_abertos FROM vendas v " +
+           "JOIN taxas t ON t.tipo_venda = v.tipo_venda " +
+           "CROSS JOIN LATERAL (SELECT CAST(v.valor_venda * 100 AS NUMERIC(21, 0)) * t.pontos_base AS produto) p " +
+           "CROSS JOIN LATERAL (SELECT DIV(p.produto, 10000) + CASE WHEN MOD(p.produto, 10000) * 2 > 10000 " +
+           "OR (MOD(p.produto, 10000) * 2 = 10000 AND MOD(DIV(p.produto, 10000), 2) = 1) THEN 1 ELSE 0 END AS centavos) total " +
+           "CROSS JOIN LATERAL (SELECT COALESCE(SUM(CAST(c.valor_comissao * 100 AS NUMERIC(21, 0))), 0) AS centavos " +
+           "FROM comissoes c WHERE c.venda_id = v.id " +
+           "AND NOT (c.status IN ('PENDENTE', 'VENCIDA') AND COALESCE(c.valor_pago, 0) = 0)) fixo " +
+           "WHERE v.fabrica_id = :fabricaId AND v.id > :cursorId " +
+           "AND (:dataInicio IS NULL OR v.data_venda >= :dataInicio) " +
+           "AND (:dataFim IS NULL OR v.data_venda <= :dataFim) " +
+           "AND EXISTS (SELECT 1 FROM comissoes c WHERE c.venda_id = v.id " +
+           "AND c.status IN ('PENDENTE', 'VENCIDA') AND COALESCE(c.valor_pago, 0) = 0 " +
+           "AND c.percentual_comissao IS DISTINCT FROM t.percentual) " +
+           "AND total.centavos >= fixo.centavos " +
+           "ORDER BY v.id LIMIT :limite), " +
+           "abertas AS (" +
+           "SELECT c.id, c.venda_id, c.percentual_comissao, c.valor_comissao, " +
+           "ROW_NUMBER() OVER (PARTITION BY c.venda_id ORDER BY c.numero_parcela) AS ordem, " +
+           "COUNT(*) OVER (PARTITION BY c.venda_id) AS quantidade " +
+           "FROM comissoes c JOIN lote l ON l.id = c.venda_id " +
+           "WHERE c.status IN ('PENDENTE', 'VENCIDA') AND COALESCE(c.valor_pago, 0) = 0), " +
+           "alvo AS (" +
+           "SELECT a.id AS comissao_id, l.id AS venda_id, l.percentual, " +
+           "(DIV(l.centavos_abertos, a.quantidade) + CASE WHEN a.ordem <= MOD(l.centavos_abertos, a.quantidade) " +
+           "THEN 1 ELSE 0 END) * 0.01 AS valor_novo, " +
+           "a.percentual_comissao AS percentual_anterior, a.valor_comissao AS valor_anterior " +
+           "FROM abertas a JOIN lote l ON l.id = a.venda_id), " +
+           "vendas_recalculadas AS (" +
+           "UPDATE vendas v SET percentual_comissao = l.percentual, " +
+           "valor_comissao = l.centavos * 0.01 " +
+           "FROM lote l WHERE v.id = l.id) " +
+           "UPDATE comissoes c SET percentual_comissao = a.percentual, " +
+           "valor_comissao = a.valor_novo, versao = c.versao + 1 " +
+           "FROM alvo a WHERE c.id = a.comissao_id " +
+           "RETURNING c.id AS comissao_id, a.venda_id, c.empresa_id, c.corretor_id, " +
+           "a.percentual_anterior, c.percentual_comissao AS percentual_novo, " +
+           "a.valor_anterior, c.valor_comissao AS valor_novo")
+    Flux<RecalculoComissaoItemDTO> recalcularPercentuais(Long fabricaId, String[] tipos, Integer[] pontosBase,
+                                                         LocalDate dataInicio, LocalDate dataFim, Long cursorId, int limite);
+    
+    // SKIP LOCKED evita esperar por comissões que estão sendo pagas ou canceladas no momento
+    @Query("UPDATE comissoes SET status = 'VENCIDA', versao = versao + 1 WHERE id IN (" +
+           "SELECT id FROM comissoes WHERE status = 'PENDENTE' AND data_previsao_pagamento < :dataReferencia " +
+           "LIMIT :limite FOR UPDATE SKIP LOCKED) RETURNING *")
+    Flux<Comissao> vencerPendentes(LocalDate dataReferencia, int limite);
+    
+    // Gera em um único comando as parcelas PENDENTE das comissões de vendas já gravadas (ver CronogramaParcelas)
+    @Query("INSERT INTO comissoes (empresa_id, venda_id, corretor_id, fabrica_id, data_venda, valor_venda, " +
+           "percentual_comissao, valor_comissao, valor_pago, data_previsao_pagamento, status, forma_pagamento, numero_nota_fiscal, " +
+           "numero_parcela, quantidade_parcelas) " +
+           "SELECT v.empresa_id, v.id, v.corretor_id, v.fabrica_id, v.data_venda, p.valor_venda, " +
+           "v.percentual_comissao, p.valor_comissao, 0, p.data_previsao_pagamento, 'PENDENTE', v.forma_pagamento, v.numero_nota_fiscal, " +
+           "p.numero_parcela, p.quantidade_parcelas " +
+           "FROM unnest(CAST(:vendaIds AS BIGINT[]), CAST(:numerosParcela AS INTEGER[]), CAST(:quantidadesParcelas AS INTEGER[]), " +
+           "CAST(:valoresVenda AS NUMERIC[]), CAST(:valoresComissao AS NUMERIC[]), CAST(:datasPrevisao AS DATE[])) " +
+           "AS p(venda_id, numero_parcela, quantidade_parcelas, valor_venda, valor_comissao, data_previsao_pagamento) " +
+           "JOIN vendas v ON v.id = p.venda_id " +
+           "ORDER BY v.id, p.numero_parcela RETURNING *")
+    Flux<Comissao> gerarParcelas(Long[] vendaIds, Integer[] numerosParcela, Integer[] quantidadesParcelas,
+                                 BigDecimal[] valoresVenda, BigDecimal[] valoresComissao, String[] datasPrevisao);
+    
 }
@@ -0,0 +1,42 @@
+package br.com.corretor.repository;
+
+import br.com.corretor.model.ComissaoResumoMensal;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface ComissaoResumoMensalRepository extends ReactiveCrudRepository<ComissaoResumoMensal, Long> {
+
+    @Modifying
+    @Query("INSERT INTO comissao_resumo_mensal (empresa_id, mes, status, quantidade, valor_total) " +
+           "VALUES (:empresaId, :mes, :status, :quantidade, :valor) " +
+           "ON CONFLICT (empresa_id, mes, status) DO UPDATE SET " +
+           "quantidade = comissao_resumo_mensal.quantidade + EXCLUDED.quantidade, " +
+           "valor_total = comissao_resumo_mensal.valor_total + EXCLUDED.valor_total")
+    Mono<Integer> acumular(Long empresaId, LocalDate mes, String status, Long quantidade, BigDecimal valor);
+
+    @Query("SELECT status, SUM(quantidade) AS quantidade, SUM(valor_total) AS valor_total " +
+           "FROM comissao_resumo_mensal WHERE empresa_id = :empresaId " +
+           "AND (:mesInicio IS NULL OR mes >= :mesInicio) " +
+           "AND (:mesFim IS NULL OR mes <= :mesFim) " +
+           "GROUP BY status")
+    Flux<ComissaoResumoMensal> somarPorStatus(Long empresaId, LocalDate mesInicio, LocalDate mesFim);
+
+    @Modifying
+    @Query("DELETE FROM comissao_resumo_mensal WHERE (:empresaId IS NULL OR empresa_id = :empresaId)")
+    Mono<Integer> limpar(Long empresaId);
+
+    @Modifying
+    @Query("INSERT INTO comissao_resumo_mensal (empresa_id, mes, status, quantidade, valor_total) " +
+           "SELECT empresa_id, CAST(date_trunc('month', data_venda) AS DATE), status, COUNT(*), COALESCE(SUM(valor_comissao), 0) " +
+           "FROM comissoes WHERE (:empresaId IS NULL OR empresa_id = :empresaId) " +
+           "GROUP BY empresa_id, CAST(date_trunc('month', data_venda) AS DATE), status")
+    Mono<Integer> reconstruir(Long empresaId);
+}
@@ -29,4 +29,19 @@ public interface CorretorRepository extends ReactiveCrudRepository<Corretor, Lon
     
     @Query("SELECT * FROM corretores WHERE empresa_id = :empresaId AND data_validade_registro BETWEEN CURRENT_DATE AND (CURRENT_DATE + INTERVAL '30 days')")
     Flux<Corretor> findByRegistroAVencer(Long empresaId);
+    
+    // Busca em lote por CPF comparando só os dígitos; a condição <> '' permite usar o índice único parcial
+    @Query("SELECT * FROM corretores WHERE empresa_id = :empresaId " +
+           "AND regexp_replace(cpf, '[^0-9]', '', 'g') <> '' " +
+           "AND regexp_replace(cpf, '[^0-9]', '', 'g') = ANY(CAST(:cpfs AS VARCHAR[]))")
+    Flux<Corretor> findByEmpresaIdAndCpfs(Long empresaId, String[] cpfs);
+    
+    // Busca aproximada pelo nome sem acentos, mais parecidos primeiro. Trecho exato (LIKE) e nomes com
+    // erro de digitação (<%) usam o índice de trigramas da V13, que repete a mesma expressão
+    @Query("SELECT * FROM corretores WHERE empresa_id = :empresaId " +
+           "AND (normalizar_busca(nome) LIKE normalizar_busca(:padrao) " +
+           "OR normalizar_busca(:termo) <% normalizar_busca(nome)) " +
+           "ORDER BY word_similarity(normalizar_busca(:termo), normalizar_busca(nome)) DESC, id " +
+           "LIMIT :limite")
+    Flux<Corretor> buscarPorNome(Long empresaId, String termo, String padrao, int limite);
 }
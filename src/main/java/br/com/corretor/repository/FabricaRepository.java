@@ -14,10 +14,40 @@ public interface FabricaRepository extends ReactiveCrudRepository<Fabrica, Long>
     @Query("SELECT * FROM fabricas WHERE empresa_id = :empresaId AND ativo = true")
     Flux<Fabrica> findAtivasByEmpresaId(Long empresaId);
     
-    @Query("SELECT COUNT(*) > 0 FROM fabricas WHERE cnpj = :cnpj AND empresa_id = :empresaId AND id != :id")
-    Mono<Boolean> existsByCnpjAndEmpresaIdAndIdNot(String cnpj, Long empresaId, Long id);
-    
     Flux<Fabrica> findByRazaoSocialContainingIgnoreCaseAndEmpresaId(String razaoSocial, Long empresaId);
     
     Flux<Fabrica> findByNomeFantasiaContainingIgnoreCaseAndEmpresaId(String nomeFantasia, Long empresaId);
+    
+    // Busca em lote por CNPJ comparando só os dígitos, para aceitar o documento com ou sem máscara
+    @Query("SELECT * FROM fabricas WHERE empresa_id = :empresaId " +
+           "AND regexp_replace(cnpj, '[^0-9]', '', 'g') <> '' " +
+           "AND regexp_replace(cnpj, '[^0-9]', '', 'g') = ANY(CAST(:cnpjs AS VARCHAR[]))")
+    Flux<Fabrica> findByEmpresaIdAndCnpjs(Long empresaId, String[] cnpjs);
+    
+    // Insere um lote de fábricas em um único comando; cada array traz uma coluna, na mesma ordem.
+    // CNPJ já cadastrado (índice único da V14) não interrompe o lote: a linha só não volta no RETURNING
+    @Query("INSERT INTO fabricas (empresa_id, razao_social, nome_fantasia, cnpj, inscricao_estadual, email, telefone, " +
+           "whatsapp, endereco, bairro, cidade, estado, cep, site, ativo) " +
+           "SELECT :empresaId, v.razao_social, v.nome_fantasia, v.cnpj, v.inscricao_estadual, v.email, v.telefone, " +
+           "v.whatsapp, v.endereco, v.bairro, v.cidade, v.estado, v.cep, v.site, true " +
+           "FROM unnest(CAST(:razoesSociais AS VARCHAR[]), CAST(:nomesFantasia AS VARCHAR[]), CAST(:cnpjs AS VARCHAR[]), " +
+           "CAST(:inscricoesEstaduais AS VARCHAR[]), CAST(:emails AS VARCHAR[]), CAST(:telefones AS VARCHAR[]), " +
+           "CAST(:whatsapps AS VARCHAR[]), CAST(:enderecos AS VARCHAR[]), CAST(:bairros AS VARCHAR[]), " +
+           "CAST(:cidades AS VARCHAR[]), CAST(:estados AS VARCHAR[]), CAST(:ceps AS VARCHAR[]), CAST(:sites AS VARCHAR[])) " +
+           "AS v(razao_social, nome_fantasia, cnpj, inscricao_estadual, email, telefone, whatsapp, " +
+           "endereco, bairro, cidade, estado, cep, site) " +
+           "ON CONFLICT DO NOTHING RETURNING *")
+    Flux<Fabrica> inserirEmLote(Long empresaId, String[] razoesSociais, String[] nomesFantasia, String[] cnpjs,
+                                String[] inscricoesEstaduais, String[] emails, String[] telefones, String[] whatsapps,
+                                String[] enderecos, String[] bairros, String[] cidades, String[] estados,
+                                String[] ceps, String[] sites);
+    
+    // Busca aproximada pelo nome sem acentos, mais parecidos primeiro. Trecho exato (LIKE) e nomes com
+    // erro de digitação (<%) usam o índice de trigramas da V13, que repete a mesma expressão
+    @Query("SELECT * FROM fabricas WHERE empresa_id = :empresaId " +
+           "AND (normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, '')) LIKE normalizar_busca(:padrao) " +
+           "OR normalizar_busca(:termo) <% normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, ''))) " +
+           "ORDER BY word_similarity(normalizar_busca(:termo), normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, ''))) DESC, id " +
+           "LIMIT :limite")
+    Flux<Fabrica> buscarPorNome(Long empresaId, String termo, String padrao, int limite);
 }
@@ -16,7 +16,4 @@ public interface FuncionarioRepository extends ReactiveCrudRepository<Funcionari
     
     @Query("SELECT * FROM funcionarios WHERE empresa_id = :empresaId AND data_demissao IS NULL")
     Flux<Funcionario> findAtuaisbyEmpresaId(Long empresaId);
-    
-    @Query("SELECT COUNT(*) > 0 FROM funcionarios WHERE cpf = :cpf AND empresa_id = :empresaId AND id != :id")
-    Mono<Boolean> existsByCpfAndEmpresaIdAndIdNot(String cpf, Long empresaId, Long id);
 }
@@ -0,0 +1,68 @@
+package br.com.corretor.repository;
+
+import br.com.corretor.model.LancamentoComissao;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface LancamentoComissaoRepository extends ReactiveCrudRepository<LancamentoComissao, Long> {
+
+    // Os saldos partem do último lançamento da comissão e do corretor. Valor nulo lança o saldo em aberto
+    // da comissão com sinal invertido. Vazio indica que outro lançamento do corretor tomou a sequência
+    // (ou que a chave de pagamento já foi lançada na comissão).
+    @Query("WITH ultimo_corretor AS (" +
+           "SELECT saldo_corretor, sequencia FROM comissao_lancamentos " +
+           "WHERE empresa_id = :empresaId AND COALESCE(corretor_id, 0) = COALESCE(:corretorId, 0) " +
+           "ORDER BY sequencia DESC LIMIT 1), " +
+           "saldo AS (SELECT COALESCE((SELECT saldo_comissao FROM comissao_lancamentos " +
+           "WHERE comissao_id = :comissaoId ORDER BY id DESC LIMIT 1), 0) AS saldo_comissao), " +
+           "lancamento AS (SELECT COALESCE(:valor, -saldo_comissao) AS valor, saldo_comissao FROM saldo) " +
+           "INSERT INTO comissao_lancamentos (empresa_id, corretor_id, comissao_id, tipo, valor, " +
+           "saldo_comissao, saldo_corretor, sequencia, descricao, chave_pagamento) " +
+           "SELECT :empresaId, :corretorId, :comissaoId, :tipo, l.valor, l.saldo_comissao + l.valor, " +
+           "COALESCE(u.saldo_corretor, 0) + l.valor, COALESCE(u.sequencia, 0) + 1, :descricao, :chavePagamento " +
+           "FROM lancamento l LEFT JOIN ultimo_corretor u ON true " +
+           "ON CONFLICT DO NOTHING RETURNING *")
+    Mono<LancamentoComissao> lancar(Long empresaId, Long corretorId, Long comissaoId, String tipo,
+                                    BigDecimal valor, String descricao, String chavePagamento);
+
+    // Versão em lote de lancar: a sequência e o saldo de cada corretor avançam lançamento a lançamento
+    // dentro do lote. Uma disputa de sequência viola o índice único e a transação deve ser repetida.
+    @Modifying
+    @Query("INSERT INTO comissao_lancamentos (empresa_id, corretor_id, comissao_id, tipo, valor, " +
+           "saldo_comissao, saldo_corretor, sequencia, descricao) " +
+           "SELECT c.empresa_id, c.corretor_id, c.id, :tipo, a.valor, " +
+           "COALESCE(uc.saldo_comissao, 0) + a.valor, " +
+           "COALESCE(ur.saldo_corretor, 0) + SUM(a.valor) OVER corretor, " +
+           "COALESCE(ur.sequencia, 0) + ROW_NUMBER() OVER corretor, :descricao " +
+           "FROM unnest(CAST(:comissaoIds AS BIGINT[]), CAST(:valores AS NUMERIC[])) AS a(comissao_id, valor) " +
+           "JOIN comissoes c ON c.id = a.comissao_id " +
+           "LEFT JOIN LATERAL (SELECT saldo_comissao FROM comissao_lancamentos l " +
+           "WHERE l.comissao_id = c.id ORDER BY l.id DESC LIMIT 1) uc ON true " +
+           "LEFT JOIN LATERAL (SELECT saldo_corretor, sequencia FROM comissao_lancamentos l " +
+           "WHERE l.empresa_id = c.empresa_id AND COALESCE(l.corretor_id, 0) = COALESCE(c.corretor_id, 0) " +
+           "ORDER BY l.sequencia DESC LIMIT 1) ur ON true " +
+           "WINDOW corretor AS (PARTITION BY c.empresa_id, COALESCE(c.corretor_id, 0) ORDER BY c.id)")
+    Mono<Integer> lancarEmLote(Long[] comissaoIds, BigDecimal[] valores, String tipo, String descricao);
+
+    @Query("SELECT * FROM comissao_lancamentos WHERE comissao_id = :comissaoId ORDER BY id")
+    Flux<LancamentoComissao> findByComissaoId(Long comissaoId);
+
+    @Query("SELECT * FROM comissao_lancamentos WHERE comissao_id = :comissaoId ORDER BY id DESC LIMIT 1")
+    Mono<LancamentoComissao> findUltimoDaComissao(Long comissaoId);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM comissao_lancamentos " +
+           "WHERE comissao_id = :comissaoId AND chave_pagamento = :chavePagamento)")
+    Mono<Boolean> existePagamentoComChave(Long comissaoId, String chavePagamento);
+
+    @Query("SELECT * FROM comissao_lancamentos " +
+           "WHERE empresa_id = :empresaId AND COALESCE(corretor_id, 0) = COALESCE(:corretorId, 0) " +
+           "ORDER BY sequencia DESC LIMIT 1")
+    Mono<LancamentoComissao> findUltimoDoCorretor(Long empresaId, Long corretorId);
+}
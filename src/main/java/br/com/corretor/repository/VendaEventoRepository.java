@@ -0,0 +1,45 @@
+package br.com.corretor.repository;
+
+import br.com.corretor.model.VendaEvento;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface VendaEventoRepository extends ReactiveCrudRepository<VendaEvento, Long> {
+
+    @Modifying
+    @Query("INSERT INTO venda_eventos (empresa_id, venda_id, tipo) VALUES (:empresaId, :vendaId, :tipo)")
+    Mono<Integer> registrar(Long empresaId, Long vendaId, String tipo);
+
+    // Reserva os próximos eventos vencidos adiando a próxima tentativa pelo tempo da reserva; se a
+    // instância cair, os eventos voltam à fila quando a reserva expira. Só entra o evento mais antigo
+    // pendente de cada venda, para que os eventos de uma venda sejam aplicados em ordem.
+    @Query("UPDATE venda_eventos SET proxima_tentativa = CURRENT_TIMESTAMP + make_interval(secs => :reservaSegundos) " +
+           "WHERE id IN (" +
+           "SELECT e.id FROM venda_eventos e " +
+           "WHERE e.processado_em IS NULL AND e.proxima_tentativa <= CURRENT_TIMESTAMP " +
+           "AND NOT EXISTS (SELECT 1 FROM venda_eventos a " +
+           "WHERE a.venda_id = e.venda_id AND a.processado_em IS NULL AND a.id < e.id) " +
+           "ORDER BY e.id LIMIT :limite FOR UPDATE SKIP LOCKED) " +
+           "RETURNING *")
+    Flux<VendaEvento> reservarPendentes(int limite, int reservaSegundos);
+
+    @Modifying
+    @Query("UPDATE venda_eventos SET processado_em = CURRENT_TIMESTAMP, ultimo_erro = NULL WHERE id = :id")
+    Mono<Integer> concluir(Long id);
+
+    @Modifying
+    @Query("UPDATE venda_eventos SET tentativas = tentativas + 1, ultimo_erro = :erro, " +
+           "proxima_tentativa = CURRENT_TIMESTAMP + make_interval(secs => :atrasoSegundos) WHERE id = :id")
+    Mono<Integer> reagendar(Long id, String erro, int atrasoSegundos);
+
+    @Modifying
+    @Query("DELETE FROM venda_eventos WHERE processado_em < :limite")
+    Mono<Integer> excluirProcessadosAntesDe(LocalDateTime limite);
+}
@@ -18,6 +18,33 @@ public interface VendaRepository extends ReactiveCrudRepository<Venda, Long> {
     
     Flux<Venda> findByEmpresaIdAndFabricaId(Long empresaId, Long fabricaId);
     
+    // Filtros opcionais resolvidos no banco em uma única consulta; os do cliente via junção com clientes
+    @Query("SELECT v.* FROM vendas v LEFT JOIN clientes c ON c.id = v.cliente_id WHERE " +
+           "v.empresa_id = :empresaId AND " +
+           "(:clienteId IS NULL OR v.cliente_id = :clienteId) AND " +
+           "(:fabricaId IS NULL OR v.fabrica_id = :fabricaId) AND " +
+           "(:dataInicio IS NULL OR v.data_venda >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR v.data_venda <= :dataFim) AND " +
+           "(:valorMinimo IS NULL OR v.valor_venda >= :valorMinimo) AND " +
+           "(:valorMaximo IS NULL OR v.valor_venda <= :valorMaximo) AND " +
+           "(:numeroNotaFiscal IS NULL OR v.numero_nota_fiscal = :numeroNotaFiscal) AND " +
+           "(:cnpj IS NULL OR c.cnpj = :cnpj) AND " +
+           "(:cidade IS NULL OR c.cidade = :cidade) AND " +
+           "(:estado IS NULL OR c.estado = :estado) " +
+           "ORDER BY v.data_venda, v.id")
+    Flux<Venda> findComFiltros(
+            Long empresaId,
+            Long clienteId,
+            Long fabricaId,
+            LocalDate dataInicio,
+            LocalDate dataFim,
+            BigDecimal valorMinimo,
+            BigDecimal valorMaximo,
+            String numeroNotaFiscal,
+            String cnpj,
+            String cidade,
+            String estado);
+    
     @Query("SELECT * FROM vendas WHERE empresa_id = :empresaId AND data_venda BETWEEN :inicio AND :fim")
     Flux<Venda> findByPeriodo(Long empresaId, LocalDate inicio, LocalDate fim);
     
@@ -41,5 +68,36 @@ public interface VendaRepository extends ReactiveCrudRepository<Venda, Long> {
     
     @Query("SELECT * FROM vendas WHERE empresa_id = :empresaId AND valor_comissao >= :valorMinimo")
     Flux<Venda> findByValorComissaoMinimo(Long empresaId, BigDecimal valorMinimo);
-}
+    
+    // Insere um lote de vendas em um único comando; cada array traz uma coluna, na mesma ordem
+    @Query("INSERT INTO vendas (empresa_id, data_venda, fabrica_id, cliente_id, corretor_id, tipo_venda, evento, " +
+           "valor_venda, numero_nota_fiscal, percentual_comissao, valor_comissao, forma_pagamento, quantidade_parcelas) " +
+           "SELECT :empresaId, v.data_venda, v.fabrica_id, v.cliente_id, v.corretor_id, v.tipo_venda, v.evento, " +
+           "v.valor_venda, v.numero_nota_fiscal, v.percentual_comissao, v.valor_comissao, v.forma_pagamento, v.quantidade_parcelas " +
+           "FROM unnest(CAST(:datasVenda AS DATE[]), CAST(:fabricaIds AS BIGINT[]), CAST(:clienteIds AS BIGINT[]), " +
+           "CAST(:corretorIds AS BIGINT[]), CAST(:tiposVenda AS VARCHAR[]), CAST(:eventos AS VARCHAR[]), " +
+           "CAST(:valoresVenda AS NUMERIC[]), CAST(:notasFiscais AS VARCHAR[]), CAST(:percentuais AS NUMERIC[]), " +
+           "CAST(:valoresComissao AS NUMERIC[]), CAST(:formasPagamento AS VARCHAR[]), CAST(:parcelas AS INTEGER[])) " +
+           "AS v(data_venda, fabrica_id, cliente_id, corretor_id, tipo_venda, evento, valor_venda, numero_nota_fiscal, " +
+           "percentual_comissao, valor_comissao, forma_pagamento, quantidade_parcelas) " +
+           "RETURNING *")
+    Flux<Venda> inserirEmLote(Long empresaId, String[] datasVenda, Long[] fabricaIds, Long[] clienteIds,
+                              Long[] corretorIds, String[] tiposVenda, String[] eventos, BigDecimal[] valoresVenda,
+                              String[] notasFiscais, BigDecimal[] percentuais, BigDecimal[] valoresComissao,
+                              String[] formasPagamento, Integer[] parcelas);
 
+    // Busca por número da nota fiscal com paginação por chave (nota, id)
+    // Prefixo: intervalo [inicio, fim) no índice btree com collation "C", que já lê na ordem da paginação.
+    // Um intervalo explícito continua usando o índice no plano genérico do comando preparado, o que LIKE não garante
+    @Query("SELECT * FROM vendas WHERE empresa_id = :empresaId AND numero_nota_fiscal IS NOT NULL " +
+           "AND numero_nota_fiscal COLLATE \"C\" >= :inicio AND numero_nota_fiscal COLLATE \"C\" < :fim " +
+           "AND (CAST(:cursorNota AS TEXT) IS NULL OR (numero_nota_fiscal COLLATE \"C\", id) > (CAST(:cursorNota AS TEXT), :cursorId)) " +
+           "ORDER BY numero_nota_fiscal COLLATE \"C\", id LIMIT :limite")
+    Flux<Venda> findPorPrefixoNotaFiscal(Long empresaId, String inicio, String fim, String cursorNota, Long cursorId, int limite);
+
+    // Trecho ('%abc%', padrão já escapado): usa o índice de trigramas e ordena apenas as vendas encontradas
+    @Query("SELECT * FROM vendas WHERE empresa_id = :empresaId AND numero_nota_fiscal LIKE :padrao " +
+           "AND (CAST(:cursorNota AS TEXT) IS NULL OR (numero_nota_fiscal COLLATE \"C\", id) > (CAST(:cursorNota AS TEXT), :cursorId)) " +
+           "ORDER BY numero_nota_fiscal COLLATE \"C\", id LIMIT :limite")
+    Flux<Venda> findPorTrechoNotaFiscal(Long empresaId, String padrao, String cursorNota, Long cursorId, int limite);
+}
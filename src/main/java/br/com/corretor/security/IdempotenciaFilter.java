@@ -0,0 +1,159 @@
+package br.com.corretor.security;
+
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.ChaveIdempotencia;
+import br.com.corretor.service.IdempotenciaService;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Torna seguras as repetições de POST que trazem o cabeçalho Idempotency-Key: a primeira requisição
+ * executa e tem a resposta gravada; as seguintes com a mesma chave recebem a mesma resposta sem
+ * executar de novo. Uploads multipart ficam de fora, pois o corpo precisaria ser mantido em memória.
+ */
+@Component
+public class IdempotenciaFilter implements WebFilter {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotency-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String chave = request.getHeaders().getFirst(CABECALHO);
+        if (chave == null || !HttpMethod.POST.equals(request.getMethod()) || multipart(request)) {
+            return chain.filter(exchange);
+        }
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida"));
+        }
+
+        return DataBufferUtils.join(request.getBody())
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .defaultIfEmpty(new byte[0])
+            .zipWith(escopo())
+            .flatMap(dados -> {
+                byte[] corpo = dados.getT1();
+                return idempotenciaService.reservar(dados.getT2(), chave, hash(request, corpo))
+                    .onErrorMap(BusinessException.class,
+                        e -> new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage()))
+                    .onErrorMap(IllegalStateException.class,
+                        e -> new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage()))
+                    .flatMap(reserva -> reserva.executar()
+                        ? executar(exchange, chain, corpo, reserva.chave())
+                        : repetir(exchange, reserva.chave()));
+            });
+    }
+
+    private Mono<Void> executar(ServerWebExchange exchange, WebFilterChain chain, byte[] corpo, ChaveIdempotencia chave) {
+        // O corpo já foi lido para o hash: o controller recebe uma cópia
+        ServerHttpRequest requisicao = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(corpo)));
+            }
+        };
+
+        AtomicReference<byte[]> corpoResposta = new AtomicReference<>(new byte[0]);
+        ServerHttpResponseDecorator resposta = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(Flux.from(body))
+                    .flatMap(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        corpoResposta.set(bytes);
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    })
+                    .switchIfEmpty(Mono.defer(() -> super.writeWith(Flux.empty())));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return writeWith(Flux.from(body).concatMap(Flux::from));
+            }
+        };
+
+        return chain.filter(exchange.mutate().request(requisicao).response(resposta).build())
+            .then(Mono.defer(() -> {
+                HttpStatusCode status = resposta.getStatusCode();
+                MediaType tipo = resposta.getHeaders().getContentType();
+                return idempotenciaService.concluir(chave, status != null ? status.value() : HttpStatus.OK.value(),
+                    tipo != null ? tipo.toString() : null, corpoResposta.get());
+            }))
+            .onErrorResume(e -> idempotenciaService.liberar(chave).then(Mono.error(e)));
+    }
+
+    private Mono<Void> repetir(ServerWebExchange exchange, ChaveIdempotencia chave) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(chave.getStatusResposta()));
+        if (chave.getTipoConteudo() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, chave.getTipoConteudo());
+        }
+        response.getHeaders().set(CABECALHO_REPETIDA, "true");
+        byte[] corpo = chave.getCorpoResposta() != null ? chave.getCorpoResposta() : new byte[0];
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(corpo)));
+    }
+
+    // Chaves são por usuário: clientes diferentes podem gerar a mesma chave
+    private Mono<String> escopo() {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(SecurityContext::getAuthentication)
+            .map(Authentication::getName)
+            .defaultIfEmpty("anonimo");
+    }
+
+    // A mesma chave com outro método, caminho ou corpo é recusada
+    private String hash(ServerHttpRequest request, byte[] corpo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod().name() + " " + request.getURI().getRawPath() + "?"
+                + request.getURI().getRawQuery() + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(corpo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean multipart(ServerHttpRequest request) {
+        MediaType tipo = request.getHeaders().getContentType();
+        return tipo != null && MediaType.MULTIPART_FORM_DATA.isCompatibleWith(tipo);
+    }
+}
@@ -0,0 +1,236 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.AutocompletarItemDTO;
+import br.com.corretor.enums.TipoCadastro;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Corretor;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.IndiceAutocompletar;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autocompletar de clientes, fábricas e corretores nos formulários de venda, respondido por índices
+ * de prefixos em memória por empresa em vez de uma consulta ao banco a cada tecla. O índice de cada
+ * cadastro é montado na primeira consulta da empresa e mantido pelos serviços dos cadastros ao gravar
+ * ou excluir. Empresas sem consulta há mais de OCIOSIDADE_MAXIMA são descartadas, e quando a memória
+ * estimada de todos os índices passa de MEMORIA_MAXIMA_BYTES saem primeiro as usadas há mais tempo.
+ */
+@Slf4j
+@Service
+public class AutocompletarService {
+
+    private static final int LIMITE_PADRAO = 10;
+    private static final int LIMITE_MAXIMO = 50;
+    private static final Duration OCIOSIDADE_MAXIMA = Duration.ofMinutes(30);
+    private static final long MEMORIA_MAXIMA_BYTES = 256L * 1024 * 1024;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private FabricaRepository fabricaRepository;
+
+    @Autowired
+    private CorretorRepository corretorRepository;
+
+    private final Map<Long, IndicesEmpresa> empresas = new ConcurrentHashMap<>();
+
+    public Flux<AutocompletarItemDTO> completar(TipoCadastro tipo, Long empresaId, String texto, Integer limite) {
+        return Flux.defer(() -> {
+            if (texto == null || texto.isBlank()) {
+                return Flux.empty();
+            }
+            int n = limite == null || limite <= 0 ? LIMITE_PADRAO : Math.min(limite, LIMITE_MAXIMO);
+            return obterIndice(tipo, empresaId)
+                .flatMapIterable(indice -> indice.completar(texto, n))
+                .map(this::toDTO);
+        });
+    }
+
+    // Chamados após gravar o cadastro; inativos saem do índice
+    public void registrarCliente(Cliente cliente) {
+        registrar(TipoCadastro.CLIENTE, cliente.getEmpresaId(), cliente.getAtivo(), itemDe(cliente));
+    }
+
+    public void registrarFabrica(Fabrica fabrica) {
+        registrar(TipoCadastro.FABRICA, fabrica.getEmpresaId(), fabrica.getAtivo(), itemDe(fabrica));
+    }
+
+    public void registrarCorretor(Corretor corretor) {
+        registrar(TipoCadastro.CORRETOR, corretor.getEmpresaId(), corretor.getAtivo(), itemDe(corretor));
+    }
+
+    // Para exclusões em que só o id é conhecido: procura o item nos índices de todas as empresas
+    public void remover(TipoCadastro tipo, Long id) {
+        for (IndicesEmpresa indices : empresas.values()) {
+            synchronized (indices) {
+                indices.geracao++;
+                IndiceAutocompletar atual = indices.indices.get(tipo);
+                if (atual != null) {
+                    indices.indices.put(tipo, atual.sem(id));
+                }
+            }
+        }
+    }
+
+    // Para gravações em lote: a próxima consulta remonta o índice do banco em vez de intercalar item a item
+    public void invalidar(TipoCadastro tipo, Long empresaId) {
+        IndicesEmpresa indices = empresas.get(empresaId);
+        if (indices == null) {
+            return;
+        }
+        synchronized (indices) {
+            indices.geracao++;
+            indices.indices.remove(tipo);
+        }
+    }
+
+    // Memória estimada dos índices carregados da empresa, em bytes
+    public long memoriaEstimada(Long empresaId) {
+        IndicesEmpresa indices = empresas.get(empresaId);
+        return indices != null ? indices.bytesEstimados() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${cadastros.autocompletar.limpeza-ms:60000}")
+    public void descartarOciosas() {
+        long limite = System.nanoTime() - OCIOSIDADE_MAXIMA.toNanos();
+        int antes = empresas.size();
+        empresas.values().removeIf(indices -> indices.ultimoAcesso - limite < 0);
+        if (empresas.size() < antes) {
+            log.debug("Índices de autocompletar descartados por ociosidade - Empresas: {}, restantes: {}",
+                antes - empresas.size(), empresas.size());
+        }
+    }
+
+    private void registrar(TipoCadastro tipo, Long empresaId, Boolean ativo, IndiceAutocompletar.Item item) {
+        // Sem índice carregado para a empresa não há o que atualizar; a próxima consulta lê do banco
+        IndicesEmpresa indices = empresas.get(empresaId);
+        if (indices == null || item.id() == null) {
+            return;
+        }
+        synchronized (indices) {
+            // Carga em andamento leu o banco antes desta alteração e não deve ser guardada
+            indices.geracao++;
+            IndiceAutocompletar atual = indices.indices.get(tipo);
+            if (atual != null) {
+                indices.indices.put(tipo, Boolean.FALSE.equals(ativo) ? atual.sem(item.id()) : atual.com(item));
+            }
+        }
+    }
+
+    private Mono<IndiceAutocompletar> obterIndice(TipoCadastro tipo, Long empresaId) {
+        IndicesEmpresa indices = empresas.computeIfAbsent(empresaId, id -> new IndicesEmpresa());
+        indices.ultimoAcesso = System.nanoTime();
+        synchronized (indices) {
+            IndiceAutocompletar atual = indices.indices.get(tipo);
+            if (atual != null) {
+                return Mono.just(atual);
+            }
+            // Teclas digitadas enquanto o índice é montado aguardam a mesma carga
+            return indices.cargas.computeIfAbsent(tipo, t -> {
+                long geracao = indices.geracao;
+                return carregar(tipo, empresaId)
+                    .doOnNext(indice -> guardar(indices, tipo, indice, geracao))
+                    .doFinally(sinal -> {
+                        synchronized (indices) {
+                            indices.cargas.remove(tipo);
+                        }
+                    })
+                    .cache();
+            });
+        }
+    }
+
+    private void guardar(IndicesEmpresa indices, TipoCadastro tipo, IndiceAutocompletar indice, long geracao) {
+        synchronized (indices) {
+            if (indices.geracao != geracao) {
+                return;
+            }
+            indices.indices.put(tipo, indice);
+        }
+        limitarMemoria();
+    }
+
+    // Descarta as empresas usadas há mais tempo até a memória estimada caber no limite
+    private void limitarMemoria() {
+        List<Map.Entry<Long, IndicesEmpresa>> carregadas = new ArrayList<>(empresas.entrySet());
+        long total = 0;
+        for (Map.Entry<Long, IndicesEmpresa> carregada : carregadas) {
+            total += carregada.getValue().bytesEstimados();
+        }
+        if (total <= MEMORIA_MAXIMA_BYTES) {
+            return;
+        }
+        carregadas.sort(Comparator.comparingLong(carregada -> carregada.getValue().ultimoAcesso));
+        for (Map.Entry<Long, IndicesEmpresa> carregada : carregadas) {
+            if (total <= MEMORIA_MAXIMA_BYTES) {
+                break;
+            }
+            total -= carregada.getValue().bytesEstimados();
+            empresas.remove(carregada.getKey(), carregada.getValue());
+            log.info("Índices de autocompletar da empresa {} descartados por limite de memória", carregada.getKey());
+        }
+    }
+
+    private Mono<IndiceAutocompletar> carregar(TipoCadastro tipo, Long empresaId) {
+        Flux<IndiceAutocompletar.Item> itens = switch (tipo) {
+            case CLIENTE -> clienteRepository.findAtivosByEmpresaId(empresaId).map(AutocompletarService::itemDe);
+            case FABRICA -> fabricaRepository.findAtivasByEmpresaId(empresaId).map(AutocompletarService::itemDe);
+            case CORRETOR -> corretorRepository.findByEmpresaIdAndAtivo(empresaId, true).map(AutocompletarService::itemDe);
+        };
+        return itens.collectList().map(IndiceAutocompletar::construir);
+    }
+
+    private static IndiceAutocompletar.Item itemDe(Cliente cliente) {
+        String documento = cliente.getCnpj() != null ? cliente.getCnpj() : cliente.getCpf();
+        return new IndiceAutocompletar.Item(cliente.getId(), cliente.getRazaoSocial(), cliente.getNomeFantasia(), documento);
+    }
+
+    private static IndiceAutocompletar.Item itemDe(Fabrica fabrica) {
+        return new IndiceAutocompletar.Item(fabrica.getId(), fabrica.getRazaoSocial(), fabrica.getNomeFantasia(), fabrica.getCnpj());
+    }
+
+    private static IndiceAutocompletar.Item itemDe(Corretor corretor) {
+        return new IndiceAutocompletar.Item(corretor.getId(), corretor.getNome(), null, corretor.getCpf());
+    }
+
+    private AutocompletarItemDTO toDTO(IndiceAutocompletar.Item item) {
+        return AutocompletarItemDTO.builder()
+            .id(item.id())
+            .nome(item.nome())
+            .nomeFantasia(item.nomeFantasia())
+            .documento(item.documento())
+            .build();
+    }
+
+    private static class IndicesEmpresa {
+        private final Map<TipoCadastro, IndiceAutocompletar> indices = new EnumMap<>(TipoCadastro.class);
+        private final Map<TipoCadastro, Mono<IndiceAutocompletar>> cargas = new EnumMap<>(TipoCadastro.class);
+        private long geracao;
+        private volatile long ultimoAcesso = System.nanoTime();
+
+        synchronized long bytesEstimados() {
+            long total = 0;
+            for (IndiceAutocompletar indice : indices.values()) {
+                total += indice.getBytesEstimados();
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Corretor;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.CacheLru;
+import br.com.corretor.util.TabelaComissao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache de fábricas, clientes e corretores por id para os caminhos de gravação de vendas, que só
+ * leem esses cadastros (principalmente os percentuais de comissão da fábrica). As entradas são
+ * invalidadas pelos serviços de cada cadastro ao gravar ou excluir; a validade limita o tempo que
+ * uma alteração feita por outra instância leva para aparecer. Os percentuais de comissão de cada
+ * fábrica ficam também compilados em TabelaComissao, descartada junto com a fábrica.
+ */
+@Service
+public class CadastroCacheService {
+
+    private static final int TAMANHO_MAXIMO = 10_000;
+    private static final Duration VALIDADE = Duration.ofMinutes(10);
+
+    @Autowired
+    private FabricaRepository fabricaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CorretorRepository corretorRepository;
+
+    private final CacheLru<Long, Fabrica> fabricas = new CacheLru<>(TAMANHO_MAXIMO, VALIDADE);
+    private final CacheLru<Long, Cliente> clientes = new CacheLru<>(TAMANHO_MAXIMO, VALIDADE);
+    private final CacheLru<Long, Corretor> corretores = new CacheLru<>(TAMANHO_MAXIMO, VALIDADE);
+    private final CacheLru<Long, TabelaComissao> tabelasComissao = new CacheLru<>(TAMANHO_MAXIMO, VALIDADE);
+
+    public Mono<Fabrica> obterFabrica(Long id) {
+        return obter(fabricas, id, fabricaRepository::findById);
+    }
+
+    public Mono<Cliente> obterCliente(Long id) {
+        return obter(clientes, id, clienteRepository::findById);
+    }
+
+    public Mono<Corretor> obterCorretor(Long id) {
+        return obter(corretores, id, corretorRepository::findById);
+    }
+
+    // Vazio quando a fábrica não existe
+    public Mono<TabelaComissao> obterTabelaComissao(Long fabricaId) {
+        return obter(tabelasComissao, fabricaId, id -> obterFabrica(id)
+            .map(fabrica -> TabelaComissao.compilar(fabrica.getId(), fabrica.getPercentuaisComissao())));
+    }
+
+    public void invalidarFabrica(Long id) {
+        fabricas.invalidar(id);
+        tabelasComissao.invalidar(id);
+    }
+
+    public void invalidarCliente(Long id) {
+        clientes.invalidar(id);
+    }
+
+    public void invalidarCorretor(Long id) {
+        corretores.invalidar(id);
+    }
+
+    private <T> Mono<T> obter(CacheLru<Long, T> cache, Long id, Function<Long, Mono<T>> carregar) {
+        return Mono.defer(() -> {
+            T valor = cache.obter(id);
+            if (valor != null) {
+                return Mono.just(valor);
+            }
+            long geracao = cache.geracao();
+            return carregar.apply(id)
+                .doOnNext(carregado -> cache.guardar(id, carregado, geracao));
+        });
+    }
+}
@@ -1,51 +1,60 @@
 package br.com.corretor.service;
 
+import br.com.corretor.dto.AutocompletarItemDTO;
 import br.com.corretor.dto.ClienteDTO;
+import br.com.corretor.enums.TipoCadastro;
 import br.com.corretor.model.Cliente;
+import br.com.corretor.model.EntidadeAuditavel;
+import br.com.corretor.repository.AtualizacaoCadastroRepository;
 import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.util.BuscaTexto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
 
 @Service
 public class ClienteService {
+
+    // Colunas que a edição do cadastro não altera; as de criação vêm de EntidadeAuditavel (V2)
+    private static final Set<String> COLUNAS_PRESERVADAS = colunasPreservadas();
     
     @Autowired
     private ClienteRepository clienteRepository;
 
+    @Autowired
+    private AtualizacaoCadastroRepository atualizacaoCadastroRepository;
+    
+    @Autowired
+    private CadastroCacheService cadastroCacheService;
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
     public Mono<Cliente> save(ClienteDTO dto) {
         Cliente cliente = convertToEntity(dto);
-        
+        String documento = "PJ".equals(cliente.getTipo()) ? "CNPJ" : "CPF";
+
+        // Um único comando por gravação: a unicidade do documento é garantida pelos índices únicos da V14
+        Mono<Cliente> gravacao;
         if (cliente.getId() == null) {
-            return validarDocumentoUnico(cliente)
-                .flatMap(valido -> {
-                    if (!valido) {
-                        String documento = "PJ".equals(cliente.getTipo()) ? "CNPJ" : "CPF";
-                        return Mono.error(new IllegalArgumentException(documento + " já cadastrado para esta empresa"));
-                    }
-                    cliente.setAtivo(true);
-                    cliente.setDataCadastro(LocalDate.now());
-                    return clienteRepository.save(cliente);
-                });
+            cliente.setAtivo(true);
+            cliente.setDataCadastro(LocalDate.now());
+            gravacao = clienteRepository.save(cliente);
         } else {
-            return validarDocumentoUnico(cliente)
-                .flatMap(valido -> {
-                    if (!valido) {
-                        String documento = "PJ".equals(cliente.getTipo()) ? "CNPJ" : "CPF";
-                        return Mono.error(new IllegalArgumentException(documento + " já cadastrado para esta empresa"));
-                    }
-                    return clienteRepository.findById(cliente.getId())
-                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Cliente não encontrado")))
-                        .flatMap(existingCliente -> {
-                            cliente.setAtivo(existingCliente.getAtivo());
-                            cliente.setDataCadastro(existingCliente.getDataCadastro());
-                            return clienteRepository.save(cliente);
-                        });
-                });
+            gravacao = atualizacaoCadastroRepository.atualizar("clientes", cliente, cliente.getId(), COLUNAS_PRESERVADAS)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Cliente não encontrado")))
+                .doOnNext(salvo -> cadastroCacheService.invalidarCliente(salvo.getId()));
         }
+        return gravacao
+            .onErrorMap(DuplicateKeyException.class,
+                e -> new IllegalArgumentException(documento + " já cadastrado para esta empresa"))
+            .doOnNext(autocompletarService::registrarCliente);
     }
 
     public Mono<Cliente> findById(Long id) {
@@ -65,6 +74,19 @@ public class ClienteService {
         return clienteRepository.findAtivosNaoBloqueadosByEmpresaId(empresaId);
     }
 
+    // Busca aproximada pelo nome, tolerante a acentos e erros de digitação; mais parecidos primeiro
+    public Flux<Cliente> buscar(Long empresaId, String termo, Integer limite) {
+        return Flux.defer(() -> {
+            String valor = BuscaTexto.termo(termo);
+            return clienteRepository.buscarPorNome(empresaId, valor, BuscaTexto.padraoTrecho(valor), BuscaTexto.limite(limite));
+        });
+    }
+
+    // Sugestões para o campo de seleção do formulário de venda, a partir do índice em memória da empresa
+    public Flux<AutocompletarItemDTO> autocompletar(Long empresaId, String texto, Integer limite) {
+        return autocompletarService.completar(TipoCadastro.CLIENTE, empresaId, texto, limite);
+    }
+
     public Flux<Cliente> searchByRazaoSocial(String razaoSocial, Long empresaId) {
         return clienteRepository.findByRazaoSocialContainingIgnoreCaseAndEmpresaId(razaoSocial, empresaId);
     }
@@ -92,6 +114,8 @@ public class ClienteService {
                 cliente.setAtivo(false);
                 return clienteRepository.save(cliente);
             })
+            .doOnNext(cliente -> cadastroCacheService.invalidarCliente(id))
+            .doOnNext(autocompletarService::registrarCliente)
             .then();
     }
 
@@ -103,6 +127,7 @@ public class ClienteService {
                 cliente.setMotivoBloqueio(motivo);
                 return clienteRepository.save(cliente);
             })
+            .doOnNext(cliente -> cadastroCacheService.invalidarCliente(id))
             .then();
     }
 
@@ -114,29 +139,15 @@ public class ClienteService {
                 cliente.setMotivoBloqueio(null);
                 return clienteRepository.save(cliente);
             })
+            .doOnNext(cliente -> cadastroCacheService.invalidarCliente(id))
             .then();
     }
 
-    private Mono<Boolean> validarDocumentoUnico(Cliente cliente) {
-        if ("PJ".equals(cliente.getTipo())) {
-            if (cliente.getId() == null) {
-                return clienteRepository.findByCnpjAndEmpresaId(cliente.getCnpj(), cliente.getEmpresaId())
-                    .map(c -> false)
-                    .defaultIfEmpty(true);
-            }
-            return clienteRepository.existsByCnpjAndEmpresaIdAndIdNot(
-                cliente.getCnpj(), cliente.getEmpresaId(), cliente.getId())
-                .map(exists -> !exists);
-        } else {
-            if (cliente.getId() == null) {
-                return clienteRepository.findByCpfAndEmpresaId(cliente.getCpf(), cliente.getEmpresaId())
-                    .map(c -> false)
-                    .defaultIfEmpty(true);
-            }
-            return clienteRepository.existsByCpfAndEmpresaIdAndIdNot(
-                cliente.getCpf(), cliente.getEmpresaId(), cliente.getId())
-                .map(exists -> !exists);
-        }
+    private static Set<String> colunasPreservadas() {
+        Set<String> colunas = new HashSet<>(EntidadeAuditavel.COLUNAS_CRIACAO);
+        colunas.add("ativo");
+        colunas.add("data_cadastro");
+        return Set.copyOf(colunas);
     }
 
     private Cliente convertToEntity(ClienteDTO dto) {
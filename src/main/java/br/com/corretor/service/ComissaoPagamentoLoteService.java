@@ -0,0 +1,105 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ComissaoPagamentoDTO;
+import br.com.corretor.dto.ComissaoPagamentoLoteResultadoDTO;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.util.AposCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class ComissaoPagamentoLoteService {
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    @Autowired
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    @Autowired
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Autowired
+    private LancamentoComissaoService lancamentoComissaoService;
+
+    // Liquida um lote de comissões em uma transação: uma leitura para validar e um UPDATE para aplicar
+    @Transactional
+    public Mono<List<ComissaoPagamentoLoteResultadoDTO.Item>> liquidar(
+            List<Long> ids, ComissaoPagamentoDTO pagamento, String chaveIdempotencia) {
+        Long[] idsLote = ids.toArray(new Long[0]);
+        LocalDate dataPagamento = pagamento.getDataPagamento() != null ? pagamento.getDataPagamento() : LocalDate.now();
+
+        return comissaoRepository.findAllByIds(idsLote)
+            .collectMap(Comissao::getId, Function.identity())
+            .flatMap(existentes -> {
+                Long[] pendentes = existentes.values().stream()
+                    .filter(comissao -> "PENDENTE".equals(comissao.getStatus()) || "VENCIDA".equals(comissao.getStatus()))
+                    .map(Comissao::getId)
+                    .toArray(Long[]::new);
+
+                if (pendentes.length == 0) {
+                    return Mono.just(montarResultado(ids, existentes, List.of(), chaveIdempotencia));
+                }
+
+                return comissaoRepository.pagarPendentes(pendentes, dataPagamento,
+                        pagamento.getFormaPagamento(), pagamento.getObservacoes(), chaveIdempotencia)
+                    .collectList()
+                    .flatMap(pagas -> registrarNoResumo(pagas, existentes)
+                        .thenReturn(montarResultado(ids, existentes, pagas, chaveIdempotencia)));
+            });
+    }
+
+    private Mono<Void> registrarNoResumo(List<Comissao> pagas, Map<Long, Comissao> existentes) {
+        // O resumo é movimentado a partir do status que cada comissão tinha antes do pagamento; a projeção
+        // em memória só depois do commit, para um lote desfeito não deixar a previsão errada. O saldo
+        // anterior sai da projeção antes da mudança de status, que já encontra a comissão quitada
+        Map<String, List<Comissao>> porStatusAnterior = pagas.stream()
+            .collect(Collectors.groupingBy(paga -> existentes.get(paga.getId()).getStatus()));
+        return Flux.fromIterable(porStatusAnterior.entrySet())
+            .concatMap(grupo -> lancamentoComissaoService.registrarMudancaStatusEmLote(grupo.getValue(), grupo.getKey())
+                .then(comissaoResumoMensalService.registrarMudancaStatusEmLote(grupo.getValue(), grupo.getKey())))
+            .then(AposCommit.executar(() -> pagas.forEach(paga -> {
+                Comissao anterior = existentes.get(paga.getId());
+                projecaoFluxoCaixaService.registrarPagamento(anterior, paga);
+                projecaoFluxoCaixaService.registrarMudancaStatus(paga, anterior.getStatus());
+            })));
+    }
+
+    private List<ComissaoPagamentoLoteResultadoDTO.Item> montarResultado(
+            List<Long> ids, Map<Long, Comissao> existentes, List<Comissao> pagas, String chaveIdempotencia) {
+        Set<Long> idsPagos = pagas.stream().map(Comissao::getId).collect(Collectors.toSet());
+        List<ComissaoPagamentoLoteResultadoDTO.Item> itens = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            Comissao comissao = existentes.get(id);
+            if (idsPagos.contains(id)) {
+                itens.add(new ComissaoPagamentoLoteResultadoDTO.Item(id, "PAGO", null));
+            } else if (comissao != null && chaveIdempotencia != null && chaveIdempotencia.equals(comissao.getChavePagamento())) {
+                // Paga por uma execução anterior deste mesmo lote: a repetição tem o mesmo resultado
+                itens.add(new ComissaoPagamentoLoteResultadoDTO.Item(id, "PAGO", null));
+            } else if (comissao == null) {
+                itens.add(new ComissaoPagamentoLoteResultadoDTO.Item(id, "NAO_ENCONTRADA", "Comissão não encontrada"));
+            } else if ("PAGO".equals(comissao.getStatus())) {
+                itens.add(new ComissaoPagamentoLoteResultadoDTO.Item(id, "JA_PAGA", "Comissão já está paga"));
+            } else if ("CANCELADO".equals(comissao.getStatus())) {
+                itens.add(new ComissaoPagamentoLoteResultadoDTO.Item(id, "CANCELADA", "Não é possível pagar uma comissão cancelada"));
+            } else {
+                // Alterada por outra operação entre a validação e o UPDATE
+                itens.add(new ComissaoPagamentoLoteResultadoDTO.Item(id, "CONFLITO", "Comissão alterada durante o pagamento"));
+            }
+        }
+        return itens;
+    }
+}
@@ -0,0 +1,191 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ComissaoResumoDTO;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.ComissaoResumoMensal;
+import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.repository.ComissaoResumoMensalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Service
+public class ComissaoResumoMensalService {
+
+    @Autowired
+    private ComissaoResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    public Mono<Void> registrarInclusao(Comissao comissao) {
+        return movimentar(comissao, comissao.getStatus(), 1L, valorDe(comissao));
+    }
+
+    public Mono<Void> registrarExclusao(Comissao comissao) {
+        return movimentar(comissao, comissao.getStatus(), -1L, valorDe(comissao).negate());
+    }
+
+    public Mono<Void> registrarAlteracaoValor(Comissao comissao, BigDecimal valorAnterior) {
+        BigDecimal diferenca = valorDe(comissao).subtract(valorAnterior != null ? valorAnterior : BigDecimal.ZERO);
+        if (diferenca.signum() == 0) {
+            return Mono.empty();
+        }
+        return movimentar(comissao, comissao.getStatus(), 0L, diferenca);
+    }
+
+    public Mono<Void> registrarMudancaStatus(Comissao comissao, String statusAnterior) {
+        if (Objects.equals(statusAnterior, comissao.getStatus())) {
+            return Mono.empty();
+        }
+        BigDecimal valor = valorDe(comissao);
+        return movimentar(comissao, statusAnterior, -1L, valor.negate())
+            .then(movimentar(comissao, comissao.getStatus(), 1L, valor));
+    }
+
+    public Mono<Void> registrarInclusaoEmLote(List<Comissao> comissoes) {
+        Map<Long, Map<LocalDate, Map<String, List<Comissao>>>> grupos = comissoes.stream()
+            .collect(Collectors.groupingBy(Comissao::getEmpresaId,
+                Collectors.groupingBy(comissao -> comissao.getDataVenda().withDayOfMonth(1),
+                    Collectors.groupingBy(Comissao::getStatus))));
+
+        return Flux.fromIterable(grupos.entrySet())
+            .concatMap(porEmpresa -> Flux.fromIterable(porEmpresa.getValue().entrySet())
+                .concatMap(porMes -> Flux.fromIterable(porMes.getValue().entrySet())
+                    .concatMap(porStatus -> {
+                        BigDecimal valor = porStatus.getValue().stream()
+                            .map(this::valorDe)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                        return resumoMensalRepository.acumular(porEmpresa.getKey(), porMes.getKey(), porStatus.getKey(),
+                            (long) porStatus.getValue().size(), valor);
+                    })))
+            .then();
+    }
+
+    // Todas as comissões devem ter saído do mesmo status anterior para o mesmo novo status
+    public Mono<Void> registrarMudancaStatusEmLote(List<Comissao> comissoes, String statusAnterior) {
+        Map<Long, Map<LocalDate, List<Comissao>>> grupos = comissoes.stream()
+            .filter(comissao -> !Objects.equals(statusAnterior, comissao.getStatus()))
+            .collect(Collectors.groupingBy(Comissao::getEmpresaId,
+                Collectors.groupingBy(comissao -> comissao.getDataVenda().withDayOfMonth(1))));
+
+        return Flux.fromIterable(grupos.entrySet())
+            .concatMap(porEmpresa -> Flux.fromIterable(porEmpresa.getValue().entrySet())
+                .concatMap(porMes -> {
+                    List<Comissao> doMes = porMes.getValue();
+                    long quantidade = doMes.size();
+                    BigDecimal valor = doMes.stream()
+                        .map(this::valorDe)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    return resumoMensalRepository.acumular(porEmpresa.getKey(), porMes.getKey(), statusAnterior, -quantidade, valor.negate())
+                        .then(resumoMensalRepository.acumular(porEmpresa.getKey(), porMes.getKey(), doMes.get(0).getStatus(), quantidade, valor));
+                }))
+            .then();
+    }
+
+    public Mono<ComissaoResumoDTO> obterResumo(Long empresaId, LocalDate dataInicio, LocalDate dataFim) {
+        // Meses inteiros vêm da tabela de resumo; apenas os meses parciais das bordas são agregados em comissoes
+        LocalDate inicioMesesCompletos = dataInicio == null || dataInicio.getDayOfMonth() == 1
+            ? dataInicio
+            : dataInicio.with(TemporalAdjusters.firstDayOfNextMonth());
+        LocalDate fimMesesCompletos = dataFim == null || dataFim.equals(dataFim.with(TemporalAdjusters.lastDayOfMonth()))
+            ? dataFim
+            : dataFim.withDayOfMonth(1).minusDays(1);
+
+        if (inicioMesesCompletos != null && fimMesesCompletos != null && inicioMesesCompletos.isAfter(fimMesesCompletos)) {
+            return comissaoRepository.somarPorStatusNoPeriodo(empresaId, dataInicio, dataFim)
+                .collectList()
+                .map(this::montarResumo);
+        }
+
+        Flux<ComissaoResumoMensal> mesesCompletos = resumoMensalRepository.somarPorStatus(
+            empresaId,
+            inicioMesesCompletos,
+            fimMesesCompletos != null ? fimMesesCompletos.withDayOfMonth(1) : null);
+
+        Flux<ComissaoResumoMensal> mesInicialParcial = dataInicio != null && dataInicio.isBefore(inicioMesesCompletos)
+            ? comissaoRepository.somarPorStatusNoPeriodo(empresaId, dataInicio, inicioMesesCompletos.minusDays(1))
+            : Flux.empty();
+
+        Flux<ComissaoResumoMensal> mesFinalParcial = dataFim != null && dataFim.isAfter(fimMesesCompletos)
+            ? comissaoRepository.somarPorStatusNoPeriodo(empresaId, fimMesesCompletos.plusDays(1), dataFim)
+            : Flux.empty();
+
+        return Flux.concat(mesesCompletos, mesInicialParcial, mesFinalParcial)
+            .collectList()
+            .map(this::montarResumo);
+    }
+
+    @Transactional
+    public Mono<Integer> reconstruir(Long empresaId) {
+        return resumoMensalRepository.limpar(empresaId)
+            .then(resumoMensalRepository.reconstruir(empresaId));
+    }
+
+    private Mono<Void> movimentar(Comissao comissao, String status, Long quantidade, BigDecimal valor) {
+        return resumoMensalRepository.acumular(
+                comissao.getEmpresaId(),
+                comissao.getDataVenda().withDayOfMonth(1),
+                status,
+                quantidade,
+                valor)
+            .then();
+    }
+
+    private ComissaoResumoDTO montarResumo(List<ComissaoResumoMensal> linhas) {
+        long totalPendente = 0;
+        long totalPago = 0;
+        long totalCancelado = 0;
+        long totalComissoes = 0;
+        BigDecimal valorTotal = BigDecimal.ZERO;
+        BigDecimal valorPendente = BigDecimal.ZERO;
+        BigDecimal valorPago = BigDecimal.ZERO;
+        long totalVencido = 0;
+        BigDecimal valorVencido = BigDecimal.ZERO;
+
+        for (ComissaoResumoMensal linha : linhas) {
+            long quantidade = linha.getQuantidade() != null ? linha.getQuantidade() : 0L;
+            BigDecimal valor = linha.getValorTotal() != null ? linha.getValorTotal() : BigDecimal.ZERO;
+            totalComissoes += quantidade;
+            valorTotal = valorTotal.add(valor);
+            if ("PENDENTE".equals(linha.getStatus())) {
+                totalPendente += quantidade;
+                valorPendente = valorPendente.add(valor);
+            } else if ("PAGO".equals(linha.getStatus())) {
+                totalPago += quantidade;
+                valorPago = valorPago.add(valor);
+            } else if ("VENCIDA".equals(linha.getStatus())) {
+                totalVencido += quantidade;
+                valorVencido = valorVencido.add(valor);
+            } else if ("CANCELADO".equals(linha.getStatus())) {
+                totalCancelado += quantidade;
+            }
+        }
+
+        ComissaoResumoDTO resumo = new ComissaoResumoDTO();
+        resumo.setTotalComissoes(totalComissoes);
+        resumo.setTotalPendente(totalPendente);
+        resumo.setTotalPago(totalPago);
+        resumo.setTotalCancelado(totalCancelado);
+        resumo.setValorTotalComissoes(valorTotal);
+        resumo.setValorTotalPendente(valorPendente);
+        resumo.setValorTotalPago(valorPago);
+        resumo.setComissoesVencidas(totalVencido);
+        resumo.setValorComissoesVencidas(valorVencido);
+        return resumo;
+    }
+
+    private BigDecimal valorDe(Comissao comissao) {
+        return comissao.getValorComissao() != null ? comissao.getValorComissao() : BigDecimal.ZERO;
+    }
+}
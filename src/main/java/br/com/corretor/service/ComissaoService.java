@@ -1,60 +1,157 @@
 package br.com.corretor.service;
 
 import br.com.corretor.dto.ComissaoDTO;
+import br.com.corretor.dto.ComissaoFiltroDTO;
 import br.com.corretor.dto.ComissaoPagamentoDTO;
+import br.com.corretor.dto.ComissaoPagamentoLoteDTO;
+import br.com.corretor.dto.ComissaoPagamentoLoteResultadoDTO;
 import br.com.corretor.dto.ComissaoResumoDTO;
+import br.com.corretor.dto.LancamentoComissaoDTO;
+import br.com.corretor.dto.PaginaDTO;
+import br.com.corretor.dto.ProjecaoFluxoCaixaDTO;
+import br.com.corretor.dto.RankingCorretorDTO;
 import br.com.corretor.model.Comissao;
 import br.com.corretor.model.Venda;
 import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.util.AposCommit;
+import br.com.corretor.util.CronogramaParcelas;
+import br.com.corretor.util.CursorPaginacao;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import br.com.corretor.exception.BusinessException;
 import br.com.corretor.exception.ResourceNotFoundException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ComissaoService {
+
+    private static final int TAMANHO_PAGINA_PADRAO = 100;
+    private static final int TAMANHO_PAGINA_MAXIMO = 500;
+    private static final int TAMANHO_LOTE_STREAM = 500;
+    private static final int TAMANHO_LOTE_PAGAMENTO = 500;
+    private static final int TAMANHO_LOTE_VENCIMENTO = 1000;
+    private static final int TENTATIVAS_PAGAMENTO = 3;
     
     @Autowired
     private ComissaoRepository comissaoRepository;
 
+    @Autowired
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    @Autowired
+    private ComissaoPagamentoLoteService comissaoPagamentoLoteService;
+
+    @Autowired
+    private ComissaoVencimentoService comissaoVencimentoService;
+
+    @Autowired
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Autowired
+    private RankingCorretorService rankingCorretorService;
+
+    @Autowired
+    private LancamentoComissaoService lancamentoComissaoService;
+
+    // Uma comissão por parcela da venda, todas gravadas com um único INSERT. A provisão no razão disputa
+    // a sequência do corretor: em conflito a transação inteira é desfeita e repetida por quem a abriu
+    @Transactional
     public Mono<Void> gerarComissao(Venda venda) {
-        Comissao comissao = Comissao.criar(
-            venda.getEmpresaId(),
-            venda.getId(),
-            venda.getCorretorId(),
-            venda.getFabricaId(),
-            venda.getDataVenda(),
-            venda.getValorVenda(),
-            venda.getPercentualComissao(),
-            venda.getValorComissao(),
-            calcularDataPrevisaoPagamento(venda.getDataVenda()),
-            "PENDENTE",
-            venda.getFormaPagamento(),
-            venda.getNumeroNotaFiscal());
-            
-        return comissaoRepository.save(comissao).then();
+        CronogramaParcelas cronograma = new CronogramaParcelas().adicionar(venda);
+        return comissaoRepository.gerarParcelas(cronograma.getVendaIds(), cronograma.getNumeros(),
+                cronograma.getQuantidades(), cronograma.getValoresVenda(), cronograma.getValoresComissao(),
+                cronograma.getDatasPrevisao())
+            .collectList()
+            .flatMap(salvas -> lancamentoComissaoService.registrarInclusoesEmLote(salvas)
+                .then(comissaoResumoMensalService.registrarInclusaoEmLote(salvas))
+                .then(aposCommit(() -> salvas.forEach(salva -> {
+                    projecaoFluxoCaixaService.registrarInclusao(salva);
+                    rankingCorretorService.registrarInclusao(salva);
+                }))));
     }
 
+    // Se a quantidade de parcelas mudou e nenhuma foi liquidada, o cronograma é refeito; senão os novos
+    // valores são redistribuídos entre as parcelas existentes, mantendo os vencimentos
+    @Transactional
     public Mono<Void> atualizarComissao(Venda venda) {
         return comissaoRepository.findByVendaId(venda.getId())
-            .flatMap(comissao -> {
-                comissao.setValorVenda(venda.getValorVenda());
-                comissao.setPercentualComissao(venda.getPercentualComissao());
-                comissao.setValorComissao(venda.getValorComissao());
-                comissao.setNumeroNotaFiscal(venda.getNumeroNotaFiscal());
-                comissao.setFormaPagamento(venda.getFormaPagamento());
-                return comissaoRepository.save(comissao);
-            })
-            .then();
+            .collectList()
+            .flatMap(parcelas -> {
+                if (parcelas.isEmpty()) {
+                    return Mono.empty();
+                }
+                int quantidade = CronogramaParcelas.quantidade(venda.getQuantidadeParcelas());
+                if (quantidade != parcelas.size()) {
+                    if (parcelas.stream().noneMatch(this::liquidada)) {
+                        return excluirParcelas(parcelas).then(gerarComissao(venda));
+                    }
+                    log.warn("Quantidade de parcelas alterada em venda com parcelas liquidadas; cronograma mantido - Venda: {}, Parcelas: {}, Nova quantidade: {}",
+                        venda.getId(), parcelas.size(), quantidade);
+                }
+                BigDecimal[] valoresVenda = CronogramaParcelas.dividir(venda.getValorVenda(), parcelas.size());
+                BigDecimal[] valoresComissao = CronogramaParcelas.dividir(venda.getValorComissao(), parcelas.size());
+                return Flux.range(0, parcelas.size())
+                    .concatMap(i -> atualizarParcela(parcelas.get(i), venda, valoresVenda[i], valoresComissao[i]))
+                    .then();
+            });
+    }
+
+    private Mono<Void> atualizarParcela(Comissao comissao, Venda venda, BigDecimal valorVenda, BigDecimal valorComissao) {
+        BigDecimal valorAnterior = comissao.getValorComissao();
+        comissao.setValorVenda(valorVenda);
+        comissao.setPercentualComissao(venda.getPercentualComissao());
+        comissao.setValorComissao(valorComissao);
+        comissao.setNumeroNotaFiscal(venda.getNumeroNotaFiscal());
+        comissao.setFormaPagamento(venda.getFormaPagamento());
+        return comissaoRepository.save(comissao)
+            .flatMap(salva -> lancamentoComissaoService.registrarAlteracaoValor(salva, valorAnterior)
+                .then(comissaoResumoMensalService.registrarAlteracaoValor(salva, valorAnterior))
+                .then(aposCommit(() -> {
+                    projecaoFluxoCaixaService.registrarAlteracaoValor(salva, valorAnterior);
+                    rankingCorretorService.registrarAlteracaoValor(salva, valorAnterior);
+                })));
     }
 
+    @Transactional
     public Mono<Void> excluirComissao(Venda venda) {
-        return comissaoRepository.deleteByVendaId(venda.getId());
+        return comissaoRepository.findByVendaId(venda.getId())
+            .collectList()
+            .flatMap(this::excluirParcelas);
+    }
+
+    private Mono<Void> excluirParcelas(List<Comissao> parcelas) {
+        return Flux.fromIterable(parcelas)
+            .concatMap(comissao -> comissaoRepository.delete(comissao)
+                .then(lancamentoComissaoService.registrarExclusao(comissao))
+                .then(comissaoResumoMensalService.registrarExclusao(comissao))
+                .then(aposCommit(() -> {
+                    projecaoFluxoCaixaService.registrarExclusao(comissao);
+                    rankingCorretorService.registrarExclusao(comissao);
+                })))
+            .then();
+    }
+
+    // Projeção e ranking em memória só mudam depois do commit: uma transação desfeita e repetida
+    // (conflito no razão, nova entrega do evento) não aplica a mesma alteração duas vezes
+    private Mono<Void> aposCommit(Runnable alteracao) {
+        return AposCommit.executar(alteracao);
+    }
+
+    private boolean liquidada(Comissao comissao) {
+        return "PAGO".equals(comissao.getStatus()) || "CANCELADO".equals(comissao.getStatus());
     }
 
     public Mono<ComissaoDTO> buscarPorId(Long id) {
@@ -64,13 +161,15 @@ public class ComissaoService {
     }
 
     public Flux<ComissaoDTO> buscarPorCorretor(Long corretorId) {
-        return comissaoRepository.findByCorretorId(corretorId)
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .corretorId(corretorId)
+            .build());
     }
 
     public Flux<ComissaoDTO> buscarPorFabrica(Long fabricaId) {
-        return comissaoRepository.findByFabricaId(fabricaId)
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .fabricaId(fabricaId)
+            .build());
     }
 
     public Flux<ComissaoDTO> buscarPorPeriodo(Long empresaId, LocalDate dataInicio, LocalDate dataFim) {
@@ -84,34 +183,27 @@ public class ComissaoService {
     }
 
     public Flux<ComissaoDTO> buscarPendentes() {
-        return comissaoRepository.findByStatus("PENDENTE")
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .status("PENDENTE")
+            .build());
     }
 
     public Flux<ComissaoDTO> buscarPagas() {
-        return comissaoRepository.findByStatus("PAGO")
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .status("PAGO")
+            .build());
     }
 
+    @Transactional
     public Mono<Void> registrarPagamento(Long id, String formaPagamento, String observacoes) {
-        return comissaoRepository.findById(id)
-            .switchIfEmpty(Mono.error(new ResourceNotFoundException("Comissão não encontrada")))
-            .flatMap(comissao -> {
-                if ("CANCELADO".equals(comissao.getStatus())) {
-                    return Mono.error(new IllegalStateException("Não é possível pagar uma comissão cancelada"));
-                }
-                if ("PAGO".equals(comissao.getStatus())) {
-                    return Mono.error(new IllegalStateException("Comissão já está paga"));
-                }
-                comissao.setStatus("PAGO");
-                comissao.setDataPagamento(LocalDate.now());
-                comissao.setFormaPagamento(formaPagamento);
-                comissao.setObservacoes(observacoes);
-                return comissaoRepository.save(comissao);
-            })
-            .then();
+        ComissaoPagamentoDTO pagamento = ComissaoPagamentoDTO.builder()
+            .formaPagamento(formaPagamento)
+            .observacoes(observacoes)
+            .build();
+        return registrarPagamento(id, pagamento, null).then();
     }
 
+    @Transactional
     public Mono<ComissaoDTO> cancelar(Long id, String motivo) {
         return comissaoRepository.findById(id)
             .switchIfEmpty(Mono.error(new ResourceNotFoundException("Comissão não encontrada")))
@@ -119,13 +211,139 @@ public class ComissaoService {
                 if ("PAGO".equals(comissao.getStatus())) {
                     return Mono.error(new IllegalStateException("Não é possível cancelar uma comissão paga"));
                 }
+                String statusAnterior = comissao.getStatus();
                 comissao.setStatus("CANCELADO");
                 comissao.setObservacoes(motivo);
-                return comissaoRepository.save(comissao);
+                return salvarComMudancaStatus(comissao, statusAnterior);
             })
             .map(this::toDTO);
     }
 
+    public Mono<PaginaDTO<ComissaoDTO>> listarPagina(ComissaoFiltroDTO filtro, String cursor, Integer tamanho) {
+        return paginar((posicao, limite) -> buscarLote(filtro, posicao, limite), cursor, tamanho);
+    }
+
+    public Mono<PaginaDTO<ComissaoDTO>> listarVencidasPagina(Long empresaId, String cursor, Integer tamanho) {
+        return paginar(loteVencidas(empresaId, LocalDate.now()), cursor, tamanho);
+    }
+
+    public Mono<PaginaDTO<ComissaoDTO>> listarAVencerPagina(Long empresaId, String cursor, Integer tamanho) {
+        return paginar(loteAVencer(empresaId, LocalDate.now()), cursor, tamanho);
+    }
+
+    private Mono<PaginaDTO<ComissaoDTO>> paginar(
+            BiFunction<CursorPaginacao, Integer, Flux<Comissao>> buscarLote, String cursor, Integer tamanho) {
+        int tamanhoPagina = normalizarTamanhoPagina(tamanho);
+        CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+
+        // Busca um registro a mais para saber se existe próxima página
+        return buscarLote.apply(posicao, tamanhoPagina + 1)
+            .map(this::toDTO)
+            .collectList()
+            .map(itens -> {
+                boolean temProxima = itens.size() > tamanhoPagina;
+                List<ComissaoDTO> pagina = temProxima ? itens.subList(0, tamanhoPagina) : itens;
+                String proximoCursor = null;
+                if (temProxima) {
+                    ComissaoDTO ultima = pagina.get(pagina.size() - 1);
+                    proximoCursor = new CursorPaginacao(ultima.getDataVenda(), ultima.getId()).codificar();
+                }
+                return PaginaDTO.<ComissaoDTO>builder()
+                    .itens(pagina)
+                    .tamanho(pagina.size())
+                    .proximoCursor(proximoCursor)
+                    .temProximaPagina(temProxima)
+                    .build();
+            });
+    }
+
+    public Flux<ComissaoDTO> listarStream(ComissaoFiltroDTO filtro) {
+        return percorrer(filtro).map(this::toDTO);
+    }
+
+    public Mono<ComissaoPagamentoLoteResultadoDTO> registrarPagamentoEmLote(ComissaoPagamentoLoteDTO loteDTO) {
+        return registrarPagamentoEmLote(loteDTO, null);
+    }
+
+    public Mono<ComissaoPagamentoLoteResultadoDTO> registrarPagamentoEmLote(ComissaoPagamentoLoteDTO loteDTO, String chaveIdempotencia) {
+        ComissaoPagamentoDTO pagamento = loteDTO.getPagamento();
+        if (pagamento.getFormaPagamento() == null) {
+            return Mono.error(new BusinessException("Forma de pagamento é obrigatória"));
+        }
+
+        Flux<Long> ids;
+        if (loteDTO.getIds() != null && !loteDTO.getIds().isEmpty()) {
+            ids = Flux.fromIterable(loteDTO.getIds()).distinct();
+        } else if (loteDTO.getFiltro() != null && loteDTO.getFiltro().getEmpresaId() != null) {
+            ComissaoFiltroDTO filtro = loteDTO.getFiltro();
+            if (!"VENCIDA".equalsIgnoreCase(filtro.getStatus())) {
+                filtro.setStatus("PENDENTE");
+            }
+            ids = percorrer(filtro).map(Comissao::getId);
+        } else {
+            return Mono.error(new BusinessException("Informe os ids das comissões ou um filtro com a empresa"));
+        }
+
+        // Cada lote é validado e liquidado em sua própria transação
+        return ids.buffer(TAMANHO_LOTE_PAGAMENTO)
+            .concatMap(lote -> comissaoPagamentoLoteService.liquidar(lote, pagamento, chaveIdempotencia))
+            .concatMapIterable(itens -> itens)
+            .collectList()
+            .map(itens -> {
+                int pagos = (int) itens.stream().filter(item -> "PAGO".equals(item.getResultado())).count();
+                return ComissaoPagamentoLoteResultadoDTO.builder()
+                    .totalSolicitado(itens.size())
+                    .totalPago(pagos)
+                    .totalRejeitado(itens.size() - pagos)
+                    .itens(itens)
+                    .build();
+            });
+    }
+
+    // Executado de madrugada: as consultas de vencidas/a vencer passam a depender apenas do status
+    @Scheduled(cron = "${comissoes.vencimento.cron:0 5 0 * * *}")
+    public void vencerComissoesAgendado() {
+        processarVencimentos(LocalDate.now()).block();
+    }
+
+    public Mono<Long> processarVencimentos(LocalDate dataReferencia) {
+        long inicio = System.currentTimeMillis();
+        return comissaoVencimentoService.vencerLote(dataReferencia, TAMANHO_LOTE_VENCIMENTO)
+            .expand(lote -> lote.size() < TAMANHO_LOTE_VENCIMENTO
+                ? Mono.empty()
+                : comissaoVencimentoService.vencerLote(dataReferencia, TAMANHO_LOTE_VENCIMENTO))
+            .concatMapIterable(lote -> lote)
+            .collect(Collectors.groupingBy(Comissao::getEmpresaId, Collectors.counting()))
+            .map(porEmpresa -> {
+                long total = porEmpresa.values().stream().mapToLong(Long::longValue).sum();
+                log.info("Vencimento de comissões em {}: {} comissões marcadas como VENCIDA em {} ms",
+                    dataReferencia, total, System.currentTimeMillis() - inicio);
+                porEmpresa.forEach((empresaId, quantidade) ->
+                    log.info("Vencimento de comissões - Empresa: {}, Vencidas: {}", empresaId, quantidade));
+                return total;
+            })
+            .doOnError(e -> log.error("Falha ao processar vencimento de comissões em {}", dataReferencia, e));
+    }
+
+    private Flux<Comissao> percorrer(ComissaoFiltroDTO filtro) {
+        return percorrer((posicao, limite) -> buscarLote(filtro, posicao, limite));
+    }
+
+    private Flux<Comissao> percorrer(BiFunction<CursorPaginacao, Integer, Flux<Comissao>> buscarLote) {
+        // Percorre o resultado em lotes por chave, mantendo em memória apenas um lote por vez
+        return buscarLote.apply(null, TAMANHO_LOTE_STREAM)
+            .collectList()
+            .expand(lote -> {
+                if (lote.size() < TAMANHO_LOTE_STREAM) {
+                    return Mono.empty();
+                }
+                Comissao ultima = lote.get(lote.size() - 1);
+                return buscarLote.apply(new CursorPaginacao(ultima.getDataVenda(), ultima.getId()), TAMANHO_LOTE_STREAM)
+                    .collectList();
+            })
+            .concatMapIterable(lote -> lote);
+    }
+
     public Flux<ComissaoDTO> listarComFiltros(
             Long empresaId,
             Long corretorId,
@@ -133,104 +351,114 @@ public class ComissaoService {
             LocalDate dataInicio,
             LocalDate dataFim,
             String status) {
-        
-        return comissaoRepository.findAll()
-            .filter(comissao -> {
-                boolean match = true;
-                
-                if (empresaId != null) {
-                    match = match && comissao.getEmpresaId().equals(empresaId);
-                }
-                
-                if (corretorId != null) {
-                    match = match && comissao.getCorretorId().equals(corretorId);
-                }
-                
-                if (fabricaId != null) {
-                    match = match && comissao.getFabricaId().equals(fabricaId);
-                }
-                
-                if (dataInicio != null) {
-                    match = match && !comissao.getDataVenda().isBefore(dataInicio);
-                }
-                
-                if (dataFim != null) {
-                    match = match && !comissao.getDataVenda().isAfter(dataFim);
-                }
-                
-                if (status != null && !status.isEmpty()) {
-                    match = match && comissao.getStatus().equalsIgnoreCase(status);
-                }
-                
-                return match;
-            })
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .empresaId(empresaId)
+            .corretorId(corretorId)
+            .fabricaId(fabricaId)
+            .dataInicio(dataInicio)
+            .dataFim(dataFim)
+            .status(status)
+            .build());
     }
 
     public Flux<ComissaoDTO> buscarVencidas(Long empresaId) {
-        return comissaoRepository.findByEmpresaId(empresaId)
-            .defaultIfEmpty(new Comissao())
-            .filter(comissao -> 
-                "PENDENTE".equals(comissao.getStatus()) && 
-                comissao.getDataPrevisaoPagamento().isBefore(LocalDate.now()))
-            .map(this::toDTO);
+        return percorrer(loteVencidas(empresaId, LocalDate.now())).map(this::toDTO);
     }
 
- // No ComissaoService.java
     public Flux<ComissaoDTO> buscarAVencer(Long empresaId) {
-        return comissaoRepository.findByEmpresaId(empresaId)
-            .defaultIfEmpty(new Comissao())
-            .filter(comissao -> 
-                "PENDENTE".equals(comissao.getStatus()) && 
-                comissao.getDataPrevisaoPagamento().isAfter(LocalDate.now()))
-            .map(this::toDTO);
+        return percorrer(loteAVencer(empresaId, LocalDate.now())).map(this::toDTO);
     }
 
-    
-
     public Flux<ComissaoDTO> buscarPorPeriodoVenda(Long empresaId, LocalDate dataInicio, LocalDate dataFim) {
-        return comissaoRepository.findAll()
-            .filter(comissao -> 
-                comissao.getEmpresaId().equals(empresaId) &&
-                !comissao.getDataVenda().isBefore(dataInicio) &&
-                !comissao.getDataVenda().isAfter(dataFim)
-            )
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .empresaId(empresaId)
+            .dataInicio(dataInicio)
+            .dataFim(dataFim)
+            .build());
     }
 
     public Flux<ComissaoDTO> buscarPorPeriodoVencimento(Long empresaId, LocalDate dataInicio, LocalDate dataFim) {
-        return comissaoRepository.findAll()
-            .filter(comissao -> 
-                comissao.getEmpresaId().equals(empresaId) &&
-                !comissao.getDataPrevisaoPagamento().isBefore(dataInicio) &&
-                !comissao.getDataPrevisaoPagamento().isAfter(dataFim)
-            )
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .empresaId(empresaId)
+            .vencimentoInicio(dataInicio)
+            .vencimentoFim(dataFim)
+            .build());
     }
 
     public Flux<ComissaoDTO> buscarPorPeriodoPagamento(Long empresaId, LocalDate dataInicio, LocalDate dataFim) {
-        return comissaoRepository.findAll()
-            .filter(comissao -> 
-                comissao.getEmpresaId().equals(empresaId) &&
-                comissao.getDataPagamento() != null &&
-                !comissao.getDataPagamento().isBefore(dataInicio) &&
-                !comissao.getDataPagamento().isAfter(dataFim)
-            )
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .empresaId(empresaId)
+            .pagamentoInicio(dataInicio)
+            .pagamentoFim(dataFim)
+            .build());
     }
 
+    @Transactional
     public Mono<ComissaoDTO> registrarPagamento(Long id, ComissaoPagamentoDTO pagamentoDTO) {
+        return registrarPagamento(id, pagamentoDTO, null);
+    }
+
+    // Sem lock: o UPDATE só é aplicado na versão lida; em conflito, relê a comissão e revalida
+    @Transactional
+    public Mono<ComissaoDTO> registrarPagamento(Long id, ComissaoPagamentoDTO pagamentoDTO, String chaveIdempotencia) {
+        return Mono.defer(() -> pagar(id, pagamentoDTO, chaveIdempotencia))
+            .retryWhen(Retry.max(TENTATIVAS_PAGAMENTO)
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .onRetryExhaustedThrow((spec, sinal) -> sinal.failure()))
+            .map(this::toDTO);
+    }
+
+    private Mono<Comissao> pagar(Long id, ComissaoPagamentoDTO pagamentoDTO, String chaveIdempotencia) {
         return comissaoRepository.findById(id)
+            .switchIfEmpty(Mono.error(new ResourceNotFoundException("Comissão não encontrada")))
             .flatMap(comissao -> {
-                comissao.setStatus("PAGO");
-                comissao.setDataPagamento(LocalDate.now());
-                comissao.setFormaPagamento(pagamentoDTO.getFormaPagamento());
-                comissao.setObservacoes(pagamentoDTO.getObservacoes());
-                return comissaoRepository.save(comissao);
-            })
-            .map(this::toDTO);
+                // Repetição de um pagamento já aplicado com a mesma chave. Uma comissão paga não recebe outro
+                // pagamento, então a chave gravada nela é a do último; com parciais, cada chave fica no razão
+                if (chaveIdempotencia == null) {
+                    return aplicarPagamento(comissao, pagamentoDTO, null);
+                }
+                if ("PAGO".equals(comissao.getStatus()) && chaveIdempotencia.equals(comissao.getChavePagamento())) {
+                    return Mono.just(comissao);
+                }
+                return lancamentoComissaoService.pagamentoRegistrado(id, chaveIdempotencia)
+                    .flatMap(registrado -> registrado
+                        ? Mono.just(comissao)
+                        : aplicarPagamento(comissao, pagamentoDTO, chaveIdempotencia));
+            });
     }
 
+    private Mono<Comissao> aplicarPagamento(Comissao comissao, ComissaoPagamentoDTO pagamentoDTO, String chaveIdempotencia) {
+        if ("CANCELADO".equals(comissao.getStatus())) {
+            return Mono.error(new IllegalStateException("Não é possível pagar uma comissão cancelada"));
+        }
+        if ("PAGO".equals(comissao.getStatus())) {
+            return Mono.error(new IllegalStateException("Comissão já está paga"));
+        }
+        // Pagamentos parciais se acumulam; o valor informado não pode passar do saldo em aberto
+        BigDecimal valorPago = pagamentoDTO.getValorPago();
+        BigDecimal saldo = valorOuZero(comissao.getValorComissao()).subtract(valorOuZero(comissao.getValorPago()));
+        if (valorPago != null && valorPago.signum() <= 0) {
+            return Mono.error(new IllegalStateException("Valor pago deve ser maior que zero"));
+        }
+        if (valorPago != null && valorPago.compareTo(saldo) > 0) {
+            return Mono.error(new IllegalStateException("Valor pago não pode ser maior que o saldo da comissão"));
+        }
+        String statusAnterior = comissao.getStatus();
+        LocalDate dataPagamento = pagamentoDTO.getDataPagamento() != null ? pagamentoDTO.getDataPagamento() : LocalDate.now();
+        return comissaoRepository.pagar(comissao.getId(), comissao.getVersao(), dataPagamento, valorPago,
+                pagamentoDTO.getFormaPagamento(), pagamentoDTO.getObservacoes(), chaveIdempotencia)
+            .switchIfEmpty(Mono.error(new OptimisticLockingFailureException("Comissão alterada durante o pagamento")))
+            // A quitação lança o saldo restante; o parcial, o valor pago
+            .flatMap(paga -> "PAGO".equals(paga.getStatus())
+                ? lancamentoComissaoService.registrarPagamento(paga, null, chaveIdempotencia)
+                    .then(aposCommit(() -> projecaoFluxoCaixaService.registrarPagamento(comissao, paga)))
+                    .then(registrarMudancaStatusNasVisoes(paga, statusAnterior))
+                : lancamentoComissaoService.registrarPagamento(paga, valorPago, chaveIdempotencia)
+                    .then(aposCommit(() -> projecaoFluxoCaixaService.registrarPagamento(comissao, paga)))
+                    .thenReturn(paga));
+    }
+
+    @Transactional
     public Mono<Void> cancelar(Long id) {
         return comissaoRepository.findById(id)
             .switchIfEmpty(Mono.error(new ResourceNotFoundException("Comissão não encontrada")))
@@ -238,67 +466,112 @@ public class ComissaoService {
                 if ("PAGO".equals(comissao.getStatus())) {
                     return Mono.error(new IllegalStateException("Não é possível cancelar uma comissão paga"));
                 }
+                String statusAnterior = comissao.getStatus();
                 comissao.setStatus("CANCELADO");
-                return comissaoRepository.save(comissao);
+                return salvarComMudancaStatus(comissao, statusAnterior);
             })
             .then();
     }
     
     public Flux<ComissaoDTO> buscarPorStatus(Long empresaId, String status) {
-        return comissaoRepository.findAll()
-            .filter(comissao -> 
-                comissao.getEmpresaId().equals(empresaId) &&
-                comissao.getStatus().equalsIgnoreCase(status)
-            )
-            .map(this::toDTO);
+        return listarStream(ComissaoFiltroDTO.builder()
+            .empresaId(empresaId)
+            .status(status)
+            .build());
     }
 
     public Mono<ComissaoResumoDTO> obterResumo(Long empresaId, LocalDate dataInicio, LocalDate dataFim) {
-        return comissaoRepository.findAll()
-            .filter(comissao -> {
-                boolean match = comissao.getEmpresaId().equals(empresaId);
-                
-                if (dataInicio != null) {
-                    match = match && !comissao.getDataVenda().isBefore(dataInicio);
-                }
-                
-                if (dataFim != null) {
-                    match = match && !comissao.getDataVenda().isAfter(dataFim);
-                }
-                
-                return match;
-            })
-            .collectList()
-            .map(comissoes -> {
-                ComissaoResumoDTO resumo = new ComissaoResumoDTO();
-                resumo.setTotalComissoes((long) comissoes.size());
-                resumo.setTotalPendente(comissoes.stream()
-                    .filter(c -> "PENDENTE".equals(c.getStatus()))
-                    .count());
-                resumo.setTotalPago(comissoes.stream()
-                    .filter(c -> "PAGO".equals(c.getStatus()))
-                    .count());
-                resumo.setTotalCancelado(comissoes.stream()
-                    .filter(c -> "CANCELADO".equals(c.getStatus()))
-                    .count());
-                resumo.setValorTotalComissoes(comissoes.stream()
-                    .map(Comissao::getValorComissao)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-                resumo.setValorTotalPendente(comissoes.stream()
-                    .filter(c -> "PENDENTE".equals(c.getStatus()))
-                    .map(Comissao::getValorComissao)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-                resumo.setValorTotalPago(comissoes.stream()
-                    .filter(c -> "PAGO".equals(c.getStatus()))
-                    .map(Comissao::getValorComissao)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-                return resumo;
-            });
+        return comissaoResumoMensalService.obterResumo(empresaId, dataInicio, dataFim);
+    }
+
+    public Mono<ProjecaoFluxoCaixaDTO> projetarFluxoCaixa(Long empresaId, String granularidade, LocalDate dataFim) {
+        return projecaoFluxoCaixaService.projetar(empresaId, granularidade, dataFim);
+    }
+
+    public Mono<List<RankingCorretorDTO>> obterRankingCorretores(Long empresaId, Integer limite) {
+        return rankingCorretorService.obterRanking(empresaId, limite);
+    }
+
+    public Flux<LancamentoComissaoDTO> listarLancamentos(Long comissaoId) {
+        return lancamentoComissaoService.listarPorComissao(comissaoId);
+    }
+
+    public Mono<LancamentoComissaoDTO> obterSaldoComissao(Long comissaoId) {
+        return lancamentoComissaoService.obterSaldoComissao(comissaoId);
+    }
+
+    public Mono<LancamentoComissaoDTO> obterSaldoCorretor(Long empresaId, Long corretorId) {
+        return lancamentoComissaoService.obterSaldoCorretor(empresaId, corretorId);
     }
 
-    private LocalDate calcularDataPrevisaoPagamento(LocalDate dataVenda) {
-        // Por padrão, a previsão de pagamento é no último dia do mês seguinte
-        return dataVenda.plusMonths(1).with(TemporalAdjusters.lastDayOfMonth());
+    public Mono<Integer> reconstruirResumoMensal(Long empresaId) {
+        return comissaoResumoMensalService.reconstruir(empresaId);
+    }
+
+    private Mono<Comissao> salvarComMudancaStatus(Comissao comissao, String statusAnterior) {
+        return comissaoRepository.save(comissao)
+            .flatMap(salva -> registrarMudancaStatus(salva, statusAnterior));
+    }
+
+    private Mono<Comissao> registrarMudancaStatus(Comissao salva, String statusAnterior) {
+        return lancamentoComissaoService.registrarMudancaStatus(salva, statusAnterior)
+            .then(registrarMudancaStatusNasVisoes(salva, statusAnterior));
+    }
+
+    private Mono<Comissao> registrarMudancaStatusNasVisoes(Comissao salva, String statusAnterior) {
+        return comissaoResumoMensalService.registrarMudancaStatus(salva, statusAnterior)
+            .then(aposCommit(() -> {
+                projecaoFluxoCaixaService.registrarMudancaStatus(salva, statusAnterior);
+                rankingCorretorService.registrarMudancaStatus(salva, statusAnterior);
+            }))
+            .thenReturn(salva);
+    }
+
+    private Flux<Comissao> buscarLote(ComissaoFiltroDTO filtro, CursorPaginacao posicao, int limite) {
+        return comissaoRepository.findPagina(
+            filtro.getEmpresaId(),
+            filtro.getCorretorId(),
+            filtro.getFabricaId(),
+            filtro.getStatus() != null && !filtro.getStatus().isEmpty() ? filtro.getStatus().toUpperCase() : null,
+            filtro.getDataInicio(),
+            filtro.getDataFim(),
+            filtro.getVencimentoInicio(),
+            filtro.getVencimentoFim(),
+            filtro.getPagamentoInicio(),
+            filtro.getPagamentoFim(),
+            posicao != null ? posicao.getData() : null,
+            posicao != null ? posicao.getId() : null,
+            limite);
+    }
+
+    private BiFunction<CursorPaginacao, Integer, Flux<Comissao>> loteVencidas(Long empresaId, LocalDate hoje) {
+        return (posicao, limite) -> comissaoRepository.findVencidas(
+            empresaId,
+            hoje,
+            posicao != null ? posicao.getData() : null,
+            posicao != null ? posicao.getId() : null,
+            limite);
+    }
+
+    private BiFunction<CursorPaginacao, Integer, Flux<Comissao>> loteAVencer(Long empresaId, LocalDate hoje) {
+        return (posicao, limite) -> comissaoRepository.findAVencer(
+            empresaId,
+            hoje,
+            posicao != null ? posicao.getData() : null,
+            posicao != null ? posicao.getId() : null,
+            limite);
+    }
+
+    private int normalizarTamanhoPagina(Integer tamanho) {
+        if (tamanho == null || tamanho <= 0) {
+            return TAMANHO_PAGINA_PADRAO;
+        }
+        return Math.min(tamanho, TAMANHO_PAGINA_MAXIMO);
+    }
+
+
+    private BigDecimal valorOuZero(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
     }
 
     private ComissaoDTO toDTO(Comissao comissao) {
@@ -315,6 +588,8 @@ public class ComissaoService {
         dto.setDataPrevisaoPagamento(comissao.getDataPrevisaoPagamento());
         dto.setDataPagamento(comissao.getDataPagamento());
         dto.setStatus(comissao.getStatus());
+        dto.setNumeroParcela(comissao.getNumeroParcela());
+        dto.setQuantidadeParcelas(comissao.getQuantidadeParcelas());
         dto.setFormaPagamento(comissao.getFormaPagamento());
         dto.setNumeroNotaFiscal(comissao.getNumeroNotaFiscal());
         dto.setObservacoes(comissao.getObservacoes());
@@ -0,0 +1,30 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+public class ComissaoVencimentoService {
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    @Autowired
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    // Marca um lote de pendentes vencidas como VENCIDA e ajusta o resumo mensal na mesma transação
+    @Transactional
+    public Mono<List<Comissao>> vencerLote(LocalDate dataReferencia, int limite) {
+        return comissaoRepository.vencerPendentes(dataReferencia, limite)
+            .collectList()
+            .flatMap(vencidas -> comissaoResumoMensalService.registrarMudancaStatusEmLote(vencidas, "PENDENTE")
+                .thenReturn(vencidas));
+    }
+}
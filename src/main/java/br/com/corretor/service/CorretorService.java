@@ -1,11 +1,15 @@
 package br.com.corretor.service;
 
+import br.com.corretor.dto.AutocompletarItemDTO;
 import br.com.corretor.dto.CorretorDTO;
+import br.com.corretor.enums.TipoCadastro;
 import br.com.corretor.model.Corretor;
 import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.util.BuscaTexto;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
@@ -20,19 +24,21 @@ public class CorretorService {
     
 	@Autowired
 	private CorretorRepository corretorRepository;
+    
+	@Autowired
+	private CadastroCacheService cadastroCacheService;
+
+	@Autowired
+	private AutocompletarService autocompletarService;
 
+    // Um único comando por gravação: a unicidade do CPF é garantida pelo índice único da V14
     public Mono<Corretor> save(CorretorDTO dto) {
-        return validateUniqueCpf(dto)
-                .then(Mono.just(dto))
+        return Mono.just(dto)
                 .map(this::toEntity)
-                .flatMap(corretorRepository::save);
-    }
-
-    private Mono<Void> validateUniqueCpf(CorretorDTO dto) {
-        return corretorRepository.findByCpfAndEmpresaId(dto.getCpf(), dto.getEmpresaId())
-                .filter(corretor -> !corretor.getId().equals(dto.getId()))
-                .flatMap(corretor -> Mono.error(new RuntimeException("CPF já cadastrado para esta empresa")))
-                .then();
+                .flatMap(corretorRepository::save)
+                .onErrorMap(DuplicateKeyException.class, e -> new RuntimeException("CPF já cadastrado para esta empresa"))
+                .doOnNext(salvo -> cadastroCacheService.invalidarCorretor(salvo.getId()))
+                .doOnNext(autocompletarService::registrarCorretor);
     }
 
     private Corretor toEntity(CorretorDTO dto) {
@@ -82,6 +88,19 @@ public class CorretorService {
         return corretorRepository.findByEmpresaIdAndAtivoAndBloqueado(empresaId, true, false);
     }
 
+    // Busca aproximada pelo nome, tolerante a acentos e erros de digitação; mais parecidos primeiro
+    public Flux<Corretor> buscar(Long empresaId, String termo, Integer limite) {
+        return Flux.defer(() -> {
+            String valor = BuscaTexto.termo(termo);
+            return corretorRepository.buscarPorNome(empresaId, valor, BuscaTexto.padraoTrecho(valor), BuscaTexto.limite(limite));
+        });
+    }
+
+    // Sugestões para o campo de seleção do formulário de venda, a partir do índice em memória da empresa
+    public Flux<AutocompletarItemDTO> autocompletar(Long empresaId, String texto, Integer limite) {
+        return autocompletarService.completar(TipoCadastro.CORRETOR, empresaId, texto, limite);
+    }
+
     public Flux<Corretor> searchByNome(String nome, Long empresaId) {
         return corretorRepository.searchByNome(nome, empresaId);
     }
@@ -95,7 +114,11 @@ public class CorretorService {
     }
 
     public Mono<Void> delete(Long id) {
-        return corretorRepository.deleteById(id);
+        return corretorRepository.deleteById(id)
+                .doOnSuccess(v -> {
+                    cadastroCacheService.invalidarCorretor(id);
+                    autocompletarService.remover(TipoCadastro.CORRETOR, id);
+                });
     }
 
     public Mono<Void> bloquear(Long id, String motivo) {
@@ -106,6 +129,7 @@ public class CorretorService {
                     return corretor;
                 })
                 .flatMap(corretorRepository::save)
+                .doOnNext(corretor -> cadastroCacheService.invalidarCorretor(id))
                 .then();
     }
 
@@ -117,6 +141,7 @@ public class CorretorService {
                     return corretor;
                 })
                 .flatMap(corretorRepository::save)
+                .doOnNext(corretor -> cadastroCacheService.invalidarCorretor(id))
                 .then();
     }
 
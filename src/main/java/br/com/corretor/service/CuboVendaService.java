@@ -0,0 +1,225 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.VendaAnaliseDTO;
+import br.com.corretor.dto.VendaCuboFiltroDTO;
+import br.com.corretor.enums.DimensaoVenda;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Venda;
+import br.com.corretor.repository.VendaRepository;
+import br.com.corretor.util.CuboColunar;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Cubo de vendas em memória por empresa para fatiar os totais sem ida ao banco a cada clique. O cubo
+ * é carregado na primeira consulta da empresa, acompanha as vendas pelos eventos do outbox e é
+ * recarregado quando expira. A memória é limitada pelo número de linhas por empresa e pelo número de
+ * empresas com cubo carregado; a empresa consultada há mais tempo é descartada primeiro.
+ */
+@Slf4j
+@Service
+public class CuboVendaService {
+
+    private static final Duration VALIDADE = Duration.ofMinutes(30);
+    // As colunas do cubo seguem a ordem de DimensaoVenda
+    private static final DimensaoVenda[] DIMENSOES = DimensaoVenda.values();
+    private static final int VALOR_VENDA = 0;
+    private static final int VALOR_COMISSAO = 1;
+
+    @Value("${vendas.cubo.linhas-maximas:2000000}")
+    private int linhasMaximas;
+
+    @Value("${vendas.cubo.empresas-maximas:20}")
+    private int empresasMaximas;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    private final Map<Long, Cubo> cubos = new ConcurrentHashMap<>();
+
+    public Mono<List<VendaAnaliseDTO>> agrupar(VendaCuboFiltroDTO filtro, List<String> dimensoes) {
+        return Mono.defer(() -> {
+            if (filtro.getEmpresaId() == null) {
+                return Mono.error(new BusinessException("Empresa é obrigatória para o cubo de vendas"));
+            }
+            List<DimensaoVenda> agrupamento = (dimensoes == null ? List.<String>of() : dimensoes).stream()
+                .map(DimensaoVenda::fromString)
+                .distinct()
+                .toList();
+            Map<Integer, Predicate<Object>> filtros = montarFiltros(filtro);
+            return obterCubo(filtro.getEmpresaId())
+                .map(cubo -> consultar(cubo, agrupamento, filtros));
+        });
+    }
+
+    // Alimentados pelo processamento dos eventos de venda; só atuam se o cubo da empresa estiver carregado
+    public void registrar(Venda venda) {
+        Cubo cubo = cubos.get(venda.getEmpresaId());
+        if (cubo != null) {
+            alterar(venda.getEmpresaId(), cubo, () -> cubo.dados.gravar(venda.getId(), dimensoesDe(venda), medidasDe(venda)));
+        }
+    }
+
+    public void remover(Long empresaId, Long vendaId) {
+        Cubo cubo = cubos.get(empresaId);
+        if (cubo != null) {
+            alterar(empresaId, cubo, () -> cubo.dados.remover(vendaId));
+        }
+    }
+
+    // Descarta o cubo após alterações que não passam pelos eventos (importação, recálculo)
+    public void invalidar(Long empresaId) {
+        cubos.remove(empresaId);
+    }
+
+    private Mono<CuboColunar> obterCubo(Long empresaId) {
+        Cubo cubo = cubos.compute(empresaId, (id, atual) ->
+            atual != null && atual.carregadoEm.plus(VALIDADE).isAfter(Instant.now()) ? atual : novoCubo(id));
+        cubo.ultimoAcesso = System.nanoTime();
+        descartarExcedentes();
+        return cubo.pronto;
+    }
+
+    private Cubo novoCubo(Long empresaId) {
+        CuboColunar dados = new CuboColunar(DIMENSOES.length, 2, linhasMaximas);
+        Cubo cubo = new Cubo(dados);
+        long inicio = System.currentTimeMillis();
+        cubo.pronto = vendaRepository.findByEmpresaId(empresaId)
+            .doOnNext(venda -> dados.carregar(venda.getId(), dimensoesDe(venda), medidasDe(venda)))
+            .then(Mono.fromCallable(() -> {
+                dados.concluirCarga();
+                log.info("Cubo de vendas carregado - Empresa: {}, Linhas: {}, Tempo: {} ms",
+                    empresaId, dados.tamanho(), System.currentTimeMillis() - inicio);
+                return dados;
+            }))
+            .onErrorMap(IllegalStateException.class, e -> new BusinessException(
+                "Empresa excede o limite de vendas do cubo; use a análise de vendas"))
+            .doOnError(e -> cubos.remove(empresaId, cubo))
+            .cache();
+        return cubo;
+    }
+
+    private void descartarExcedentes() {
+        while (cubos.size() > empresasMaximas) {
+            cubos.entrySet().stream()
+                .min(Comparator.comparingLong(entrada -> entrada.getValue().ultimoAcesso))
+                .ifPresent(entrada -> {
+                    log.info("Cubo de vendas descartado por limite de empresas - Empresa: {}", entrada.getKey());
+                    cubos.remove(entrada.getKey(), entrada.getValue());
+                });
+        }
+    }
+
+    private void alterar(Long empresaId, Cubo cubo, Runnable alteracao) {
+        try {
+            alteracao.run();
+        } catch (IllegalStateException e) {
+            log.warn("Cubo de vendas descartado - Empresa: {}: {}", empresaId, e.getMessage());
+            cubos.remove(empresaId, cubo);
+        }
+    }
+
+    private List<VendaAnaliseDTO> consultar(CuboColunar cubo, List<DimensaoVenda> agrupamento, Map<Integer, Predicate<Object>> filtros) {
+        int[] colunas = agrupamento.stream().mapToInt(Enum::ordinal).toArray();
+        List<CuboColunar.Grupo> grupos = cubo.agrupar(colunas, filtros);
+
+        List<VendaAnaliseDTO> resultado = new ArrayList<>(grupos.size());
+        for (CuboColunar.Grupo grupo : grupos) {
+            VendaAnaliseDTO dto = VendaAnaliseDTO.builder()
+                .agrupadoPor(agrupamento.stream().map(DimensaoVenda::getNome).toList())
+                .quantidade(grupo.quantidade())
+                .valorVenda(BigDecimal.valueOf(grupo.somas()[VALOR_VENDA], 2))
+                .valorComissao(BigDecimal.valueOf(grupo.somas()[VALOR_COMISSAO], 2))
+                .build();
+            for (int i = 0; i < agrupamento.size(); i++) {
+                Object valor = grupo.valores()[i];
+                switch (agrupamento.get(i)) {
+                    case TIPO_VENDA -> dto.setTipoVenda((String) valor);
+                    case EVENTO -> dto.setEvento((String) valor);
+                    case FABRICA -> dto.setFabricaId((Long) valor);
+                    case CORRETOR -> dto.setCorretorId((Long) valor);
+                    case CLIENTE -> dto.setClienteId((Long) valor);
+                    case FORMA_PAGAMENTO -> dto.setFormaPagamento((String) valor);
+                    case MES -> dto.setMes((LocalDate) valor);
+                }
+            }
+            resultado.add(dto);
+        }
+        resultado.sort(Comparator.comparing(VendaAnaliseDTO::getValorVenda).reversed());
+        return resultado;
+    }
+
+    private Map<Integer, Predicate<Object>> montarFiltros(VendaCuboFiltroDTO filtro) {
+        Map<Integer, Predicate<Object>> filtros = new HashMap<>();
+        adicionarFiltro(filtros, DimensaoVenda.FABRICA, filtro.getFabricaId());
+        adicionarFiltro(filtros, DimensaoVenda.CORRETOR, filtro.getCorretorId());
+        adicionarFiltro(filtros, DimensaoVenda.CLIENTE, filtro.getClienteId());
+        adicionarFiltro(filtros, DimensaoVenda.TIPO_VENDA, filtro.getTipoVenda());
+        adicionarFiltro(filtros, DimensaoVenda.EVENTO, filtro.getEvento());
+        adicionarFiltro(filtros, DimensaoVenda.FORMA_PAGAMENTO, filtro.getFormaPagamento());
+        if (filtro.getDataInicio() != null || filtro.getDataFim() != null) {
+            LocalDate inicio = filtro.getDataInicio() != null ? filtro.getDataInicio().withDayOfMonth(1) : LocalDate.MIN;
+            LocalDate fim = filtro.getDataFim() != null ? filtro.getDataFim() : LocalDate.MAX;
+            filtros.put(DimensaoVenda.MES.ordinal(), valor ->
+                valor != null && !((LocalDate) valor).isBefore(inicio) && !((LocalDate) valor).isAfter(fim));
+        }
+        return filtros;
+    }
+
+    private void adicionarFiltro(Map<Integer, Predicate<Object>> filtros, DimensaoVenda dimensao, Object valor) {
+        if (valor != null) {
+            filtros.put(dimensao.ordinal(), atual -> Objects.equals(atual, valor));
+        }
+    }
+
+    private Object[] dimensoesDe(Venda venda) {
+        Object[] valores = new Object[DIMENSOES.length];
+        valores[DimensaoVenda.TIPO_VENDA.ordinal()] = venda.getTipoVenda();
+        valores[DimensaoVenda.EVENTO.ordinal()] = venda.getEvento();
+        valores[DimensaoVenda.FABRICA.ordinal()] = venda.getFabricaId();
+        valores[DimensaoVenda.CORRETOR.ordinal()] = venda.getCorretorId();
+        valores[DimensaoVenda.CLIENTE.ordinal()] = venda.getClienteId();
+        valores[DimensaoVenda.FORMA_PAGAMENTO.ordinal()] = venda.getFormaPagamento();
+        valores[DimensaoVenda.MES.ordinal()] = venda.getDataVenda() != null ? venda.getDataVenda().withDayOfMonth(1) : null;
+        return valores;
+    }
+
+    private long[] medidasDe(Venda venda) {
+        long[] medidas = new long[2];
+        medidas[VALOR_VENDA] = centavos(venda.getValorVenda());
+        medidas[VALOR_COMISSAO] = centavos(venda.getValorComissao());
+        return medidas;
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor == null ? 0L : valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static class Cubo {
+        private final CuboColunar dados;
+        private final Instant carregadoEm = Instant.now();
+        private volatile long ultimoAcesso = System.nanoTime();
+        private Mono<CuboColunar> pronto;
+
+        Cubo(CuboColunar dados) {
+            this.dados = dados;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ComissaoFiltroDTO;
+import br.com.corretor.enums.FormatoExportacao;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.util.CsvWriter;
+import br.com.corretor.util.XlsxStreamWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class ExportacaoService {
+
+    private static final int LINHAS_POR_BLOCO = 500;
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String[] COLUNAS_COMISSOES = {
+        "id", "venda_id", "corretor_id", "fabrica_id", "data_venda", "numero_nota_fiscal",
+        "valor_venda", "percentual_comissao", "valor_comissao", "valor_pago",
+        "data_previsao_pagamento", "data_pagamento", "status", "forma_pagamento",
+        "numero_parcela", "quantidade_parcelas"
+    };
+
+    private static final String[] COLUNAS_VENDAS = {
+        "id", "data_venda", "fabrica_id", "cliente_id", "corretor_id", "tipo_venda", "evento",
+        "valor_venda", "numero_nota_fiscal", "percentual_comissao", "valor_comissao",
+        "forma_pagamento", "quantidade_parcelas"
+    };
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Flux<DataBuffer> exportarComissoes(ComissaoFiltroDTO filtro, FormatoExportacao formato) {
+        if (filtro.getEmpresaId() == null) {
+            return Flux.error(new BusinessException("Empresa é obrigatória para exportação"));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+            .append(String.join(", ", COLUNAS_COMISSOES))
+            .append(" FROM comissoes WHERE empresa_id = :empresaId");
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("empresaId", filtro.getEmpresaId());
+        adicionarFiltro(sql, parametros, "corretor_id = :corretorId", "corretorId", filtro.getCorretorId());
+        adicionarFiltro(sql, parametros, "fabrica_id = :fabricaId", "fabricaId", filtro.getFabricaId());
+        adicionarFiltro(sql, parametros, "status = :status", "status",
+            filtro.getStatus() != null && !filtro.getStatus().isEmpty() ? filtro.getStatus().toUpperCase() : null);
+        adicionarFiltro(sql, parametros, "data_venda >= :dataInicio", "dataInicio", filtro.getDataInicio());
+        adicionarFiltro(sql, parametros, "data_venda <= :dataFim", "dataFim", filtro.getDataFim());
+        adicionarFiltro(sql, parametros, "data_previsao_pagamento >= :vencimentoInicio", "vencimentoInicio", filtro.getVencimentoInicio());
+        adicionarFiltro(sql, parametros, "data_previsao_pagamento <= :vencimentoFim", "vencimentoFim", filtro.getVencimentoFim());
+        adicionarFiltro(sql, parametros, "data_pagamento >= :pagamentoInicio", "pagamentoInicio", filtro.getPagamentoInicio());
+        adicionarFiltro(sql, parametros, "data_pagamento <= :pagamentoFim", "pagamentoFim", filtro.getPagamentoFim());
+        sql.append(" ORDER BY data_venda, id");
+
+        return gerar("Comissões", COLUNAS_COMISSOES, consultar(sql.toString(), parametros, COLUNAS_COMISSOES), formato);
+    }
+
+    public Flux<DataBuffer> exportarVendas(Long empresaId, Long fabricaId, Long clienteId, Long corretorId,
+            LocalDate dataInicio, LocalDate dataFim, FormatoExportacao formato) {
+        if (empresaId == null) {
+            return Flux.error(new BusinessException("Empresa é obrigatória para exportação"));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+            .append(String.join(", ", COLUNAS_VENDAS))
+            .append(" FROM vendas WHERE empresa_id = :empresaId");
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("empresaId", empresaId);
+        adicionarFiltro(sql, parametros, "fabrica_id = :fabricaId", "fabricaId", fabricaId);
+        adicionarFiltro(sql, parametros, "cliente_id = :clienteId", "clienteId", clienteId);
+        adicionarFiltro(sql, parametros, "corretor_id = :corretorId", "corretorId", corretorId);
+        adicionarFiltro(sql, parametros, "data_venda >= :dataInicio", "dataInicio", dataInicio);
+        adicionarFiltro(sql, parametros, "data_venda <= :dataFim", "dataFim", dataFim);
+        sql.append(" ORDER BY data_venda, id");
+
+        return gerar("Vendas", COLUNAS_VENDAS, consultar(sql.toString(), parametros, COLUNAS_VENDAS), formato);
+    }
+
+    private void adicionarFiltro(StringBuilder sql, Map<String, Object> parametros, String condicao, String nome, Object valor) {
+        if (valor != null) {
+            sql.append(" AND ").append(condicao);
+            parametros.put(nome, valor);
+        }
+    }
+
+    private Flux<Object[]> consultar(String sql, Map<String, Object> parametros, String[] colunas) {
+        // fetchSize faz o driver ler o resultado em blocos sob demanda em vez de carregá-lo inteiro
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+            .filter(statement -> statement.fetchSize(FETCH_SIZE));
+        for (Map.Entry<String, Object> parametro : parametros.entrySet()) {
+            spec = spec.bind(parametro.getKey(), parametro.getValue());
+        }
+        return spec.map((row, metadata) -> {
+                Object[] valores = new Object[colunas.length];
+                for (int i = 0; i < colunas.length; i++) {
+                    valores[i] = row.get(colunas[i]);
+                }
+                return valores;
+            })
+            .all();
+    }
+
+    private Flux<DataBuffer> gerar(String nomePlanilha, String[] colunas, Flux<Object[]> linhas, FormatoExportacao formato) {
+        Flux<byte[]> conteudo = formato == FormatoExportacao.XLSX
+            ? gerarXlsx(nomePlanilha, colunas, linhas)
+            : gerarCsv(colunas, linhas);
+        return conteudo
+            .filter(bytes -> bytes.length > 0)
+            .map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private Flux<byte[]> gerarCsv(String[] colunas, Flux<Object[]> linhas) {
+        return Flux.concat(
+            Mono.fromCallable(() -> CsvWriter.cabecalho(colunas)),
+            linhas.buffer(LINHAS_POR_BLOCO).map(CsvWriter::linhas));
+    }
+
+    private Flux<byte[]> gerarXlsx(String nomePlanilha, String[] colunas, Flux<Object[]> linhas) {
+        return Flux.using(
+            () -> new XlsxStreamWriter(nomePlanilha),
+            writer -> Flux.concat(
+                Mono.fromCallable(() -> writer.iniciar(colunas)),
+                linhas.buffer(LINHAS_POR_BLOCO).map(writer::escreverLinhas),
+                Mono.fromCallable(writer::finalizar)),
+            XlsxStreamWriter::close);
+    }
+}
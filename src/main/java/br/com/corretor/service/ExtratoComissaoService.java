@@ -0,0 +1,237 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ExtratoLoteDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Empresa;
+import br.com.corretor.repository.EmpresaRepository;
+import br.com.corretor.util.CsvWriter;
+import br.com.corretor.util.PdfTextoWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Gera o extrato mensal de comissões de cada corretor (PDF e CSV) em disco. As comissões do mês
+ * são lidas em uma única consulta ordenada por corretor e cada extrato é gravado assim que as
+ * linhas do corretor terminam, em paralelo limitado.
+ */
+@Slf4j
+@Service
+public class ExtratoComissaoService {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("MM/yyyy");
+    private static final Locale PT_BR = new Locale("pt", "BR");
+
+    private static final String[] COLUNAS = {
+        "data_venda", "numero_nota_fiscal", "fabrica_id", "venda_id", "valor_venda", "percentual_comissao",
+        "valor_comissao", "valor_pago", "data_previsao_pagamento", "data_pagamento", "status"
+    };
+    // Posições em COLUNAS
+    private static final int COL_DATA_VENDA = 0;
+    private static final int COL_NOTA_FISCAL = 1;
+    private static final int COL_FABRICA = 2;
+    private static final int COL_VALOR_VENDA = 4;
+    private static final int COL_PERCENTUAL = 5;
+    private static final int COL_VALOR_COMISSAO = 6;
+    private static final int COL_VALOR_PAGO = 7;
+    private static final int COL_DATA_PAGAMENTO = 9;
+    private static final int COL_STATUS = 10;
+
+    @Value("${extratos.diretorio:${java.io.tmpdir}/extratos}")
+    private String diretorio;
+
+    // 0 usa o número de processadores disponíveis
+    @Value("${extratos.paralelismo:0}")
+    private int paralelismo;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    // Dia 1 de cada mês, extratos do mês anterior para todas as empresas
+    @Scheduled(cron = "${extratos.cron:0 0 2 1 * *}")
+    public void gerarExtratosAgendado() {
+        YearMonth mes = YearMonth.now().minusMonths(1);
+        empresaRepository.findAll()
+            .map(Empresa::getId)
+            .concatMap(empresaId -> gerarExtratos(empresaId, mes)
+                .onErrorResume(e -> {
+                    log.error("Falha ao gerar extratos - Empresa: {}, Mês: {}", empresaId, mes, e);
+                    return Mono.empty();
+                }))
+            .then()
+            .block();
+    }
+
+    public Mono<ExtratoLoteDTO> gerarExtratos(Long empresaId, YearMonth mes) {
+        if (empresaId == null) {
+            return Mono.error(new BusinessException("Empresa é obrigatória para gerar extratos"));
+        }
+        YearMonth referencia = mes != null ? mes : YearMonth.now().minusMonths(1);
+        Path destino = Paths.get(diretorio, String.valueOf(empresaId), referencia.toString());
+        long inicio = System.currentTimeMillis();
+
+        return Mono.fromCallable(() -> Files.createDirectories(destino))
+            .subscribeOn(Schedulers.boundedElastic())
+            .thenMany(consultar(empresaId, referencia))
+            // As linhas chegam ordenadas por corretor: cada grupo é um extrato completo
+            .bufferUntilChanged(LinhaExtrato::corretorId)
+            .flatMap(linhas -> Mono.fromCallable(() -> gravar(destino, referencia, linhas))
+                    .subscribeOn(Schedulers.boundedElastic()),
+                paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors())
+            .reduceWith(() -> new long[3], (totais, quantidade) -> {
+                totais[0]++;
+                totais[1] += quantidade;
+                totais[2] += 2;
+                return totais;
+            })
+            .map(totais -> {
+                long duracao = System.currentTimeMillis() - inicio;
+                log.info("Extratos gerados - Empresa: {}, Mês: {}, Corretores: {}, Comissões: {}, Tempo: {} ms",
+                    empresaId, referencia, totais[0], totais[1], duracao);
+                return ExtratoLoteDTO.builder()
+                    .empresaId(empresaId)
+                    .mes(referencia.toString())
+                    .corretores(totais[0])
+                    .comissoes(totais[1])
+                    .arquivos(totais[2])
+                    .diretorio(destino.toString())
+                    .duracaoMs(duracao)
+                    .build();
+            });
+    }
+
+    private Flux<LinhaExtrato> consultar(Long empresaId, YearMonth mes) {
+        String sql = "SELECT c.corretor_id, co.nome AS corretor_nome, " +
+            "c.data_venda, c.numero_nota_fiscal, c.fabrica_id, c.venda_id, c.valor_venda, c.percentual_comissao, " +
+            "c.valor_comissao, c.valor_pago, c.data_previsao_pagamento, c.data_pagamento, c.status " +
+            "FROM comissoes c LEFT JOIN corretores co ON co.id = c.corretor_id " +
+            "WHERE c.empresa_id = :empresaId AND c.data_venda BETWEEN :dataInicio AND :dataFim " +
+            "AND c.corretor_id IS NOT NULL " +
+            "ORDER BY c.corretor_id, c.data_venda, c.id";
+
+        return databaseClient.sql(sql)
+            .filter(statement -> statement.fetchSize(FETCH_SIZE))
+            .bind("empresaId", empresaId)
+            .bind("dataInicio", mes.atDay(1))
+            .bind("dataFim", mes.atEndOfMonth())
+            .map((row, metadata) -> {
+                Object[] valores = new Object[COLUNAS.length];
+                for (int i = 0; i < COLUNAS.length; i++) {
+                    valores[i] = row.get(COLUNAS[i]);
+                }
+                return new LinhaExtrato(row.get("corretor_id", Long.class), row.get("corretor_nome", String.class), valores);
+            })
+            .all();
+    }
+
+    // Retorna o número de comissões do extrato gravado
+    private long gravar(Path destino, YearMonth mes, List<LinhaExtrato> linhas) throws IOException {
+        LinhaExtrato primeira = linhas.get(0);
+        List<Object[]> valores = new ArrayList<>(linhas.size());
+        linhas.forEach(linha -> valores.add(linha.valores()));
+
+        byte[] csv = concatenar(CsvWriter.cabecalho(COLUNAS), CsvWriter.linhas(valores));
+        gravarArquivo(destino.resolve("corretor-" + primeira.corretorId() + ".csv"), csv);
+        gravarArquivo(destino.resolve("corretor-" + primeira.corretorId() + ".pdf"),
+            PdfTextoWriter.gerar(montarTexto(mes, primeira, valores)));
+        return linhas.size();
+    }
+
+    private List<String> montarTexto(YearMonth mes, LinhaExtrato corretor, List<Object[]> valores) {
+        BigDecimal totalVendas = BigDecimal.ZERO;
+        BigDecimal totalComissoes = BigDecimal.ZERO;
+        BigDecimal totalPago = BigDecimal.ZERO;
+
+        List<String> texto = new ArrayList<>(valores.size() + 12);
+        texto.add("EXTRATO DE COMISSÕES - " + mes.format(FORMATO_MES));
+        texto.add("Corretor: " + corretor.corretorId() + (corretor.corretorNome() != null ? " - " + corretor.corretorNome() : ""));
+        texto.add("");
+        texto.add(String.format("%-10s %-14s %8s %14s %7s %12s %12s %-10s %-10s",
+            "Data venda", "Nota fiscal", "Fábrica", "Valor venda", "%", "Comissão", "Pago", "Pagamento", "Status"));
+        texto.add("-".repeat(107));
+
+        for (Object[] linha : valores) {
+            texto.add(String.format("%-10s %-14s %8s %14s %7s %12s %12s %-10s %-10s",
+                data(linha[COL_DATA_VENDA]),
+                truncar(texto(linha[COL_NOTA_FISCAL]), 14),
+                texto(linha[COL_FABRICA]),
+                valor(linha[COL_VALOR_VENDA]),
+                valor(linha[COL_PERCENTUAL]),
+                valor(linha[COL_VALOR_COMISSAO]),
+                valor(linha[COL_VALOR_PAGO]),
+                data(linha[COL_DATA_PAGAMENTO]),
+                texto(linha[COL_STATUS])));
+            totalVendas = totalVendas.add(numero(linha[COL_VALOR_VENDA]));
+            totalComissoes = totalComissoes.add(numero(linha[COL_VALOR_COMISSAO]));
+            totalPago = totalPago.add(numero(linha[COL_VALOR_PAGO]));
+        }
+
+        texto.add("-".repeat(107));
+        texto.add("Comissões: " + valores.size());
+        texto.add("Total em vendas: " + valor(totalVendas));
+        texto.add("Total em comissões: " + valor(totalComissoes));
+        texto.add("Total pago: " + valor(totalPago));
+        return texto;
+    }
+
+    private void gravarArquivo(Path arquivo, byte[] conteudo) throws IOException {
+        // Grava em arquivo temporário e move, para nunca expor um extrato pela metade
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Files.write(temporario, conteudo);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] concatenar(byte[] a, byte[] b) {
+        byte[] resultado = new byte[a.length + b.length];
+        System.arraycopy(a, 0, resultado, 0, a.length);
+        System.arraycopy(b, 0, resultado, a.length, b.length);
+        return resultado;
+    }
+
+    private static String data(Object valor) {
+        return valor instanceof LocalDate ? ((LocalDate) valor).format(FORMATO_DATA) : texto(valor);
+    }
+
+    private static String valor(Object valor) {
+        return valor instanceof BigDecimal ? String.format(PT_BR, "%,.2f", (BigDecimal) valor) : texto(valor);
+    }
+
+    private static BigDecimal numero(Object valor) {
+        return valor instanceof BigDecimal ? (BigDecimal) valor : BigDecimal.ZERO;
+    }
+
+    private static String texto(Object valor) {
+        return valor != null ? valor.toString() : "";
+    }
+
+    private static String truncar(String texto, int tamanho) {
+        return texto.length() > tamanho ? texto.substring(0, tamanho) : texto;
+    }
+
+    private record LinhaExtrato(Long corretorId, String corretorNome, Object[] valores) {
+    }
+}
@@ -1,48 +1,67 @@
 package br.com.corretor.service;
 
+import br.com.corretor.dto.AutocompletarItemDTO;
 import br.com.corretor.dto.FabricaDTO;
+import br.com.corretor.enums.TipoCadastro;
+import br.com.corretor.exception.BusinessException;
 import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.AtualizacaoCadastroRepository;
 import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.BuscaTexto;
+import br.com.corretor.util.TabelaComissao;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class FabricaService {
+
+    // Colunas que a edição do cadastro não altera
+    private static final Set<String> COLUNAS_PRESERVADAS = Set.of("ativo");
     
 	@Autowired
 	private FabricaRepository fabricaRepository;
 
+	@Autowired
+	private AtualizacaoCadastroRepository atualizacaoCadastroRepository;
+    
+	@Autowired
+	private CadastroCacheService cadastroCacheService;
+
+	@Autowired
+	private AutocompletarService autocompletarService;
+
     public Mono<Fabrica> save(FabricaDTO dto) {
         Fabrica fabrica = convertToEntity(dto);
         
+        // Rejeita percentuais que a tabela de comissão não representa (fora de 0 a 100 ou com mais de 2 casas)
+        try {
+            TabelaComissao.validar(fabrica.getPercentuaisComissao());
+        } catch (BusinessException e) {
+            return Mono.error(e);
+        }
+
+        // Um único comando por gravação: a unicidade do CNPJ é garantida pelo índice único da V14
+        Mono<Fabrica> gravacao;
         if (fabrica.getId() == null) {
-            return checkCnpjUnico(fabrica.getCnpj(), fabrica.getEmpresaId(), null)
-                .flatMap(cnpjUnico -> {
-                    if (!cnpjUnico) {
-                        return Mono.error(new IllegalArgumentException("CNPJ já cadastrado para esta empresa"));
-                    }
-                    fabrica.setAtivo(true);
-                    return fabricaRepository.save(fabrica);
-                });
+            fabrica.setAtivo(true);
+            gravacao = fabricaRepository.save(fabrica);
         } else {
-            return checkCnpjUnico(fabrica.getCnpj(), fabrica.getEmpresaId(), fabrica.getId())
-                .flatMap(cnpjUnico -> {
-                    if (!cnpjUnico) {
-                        return Mono.error(new IllegalArgumentException("CNPJ já cadastrado para esta empresa"));
-                    }
-                    return fabricaRepository.findById(fabrica.getId())
-                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Fábrica não encontrada")))
-                        .flatMap(existingFabrica -> {
-                            fabrica.setAtivo(existingFabrica.getAtivo());
-                            return fabricaRepository.save(fabrica);
-                        });
-                });
+            gravacao = atualizacaoCadastroRepository.atualizar("fabricas", fabrica, fabrica.getId(), COLUNAS_PRESERVADAS)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Fábrica não encontrada")))
+                .doOnNext(salva -> cadastroCacheService.invalidarFabrica(salva.getId()));
         }
+        return gravacao
+            .onErrorMap(DuplicateKeyException.class,
+                e -> new IllegalArgumentException("CNPJ já cadastrado para esta empresa"))
+            .doOnNext(autocompletarService::registrarFabrica);
     }
 
     public Mono<Fabrica> findById(Long id) {
@@ -58,6 +77,19 @@ public class FabricaService {
         return fabricaRepository.findAtivasByEmpresaId(empresaId);
     }
 
+    // Busca aproximada pelo nome, tolerante a acentos e erros de digitação; mais parecidos primeiro
+    public Flux<Fabrica> buscar(Long empresaId, String termo, Integer limite) {
+        return Flux.defer(() -> {
+            String valor = BuscaTexto.termo(termo);
+            return fabricaRepository.buscarPorNome(empresaId, valor, BuscaTexto.padraoTrecho(valor), BuscaTexto.limite(limite));
+        });
+    }
+
+    // Sugestões para o campo de seleção do formulário de venda, a partir do índice em memória da empresa
+    public Flux<AutocompletarItemDTO> autocompletar(Long empresaId, String texto, Integer limite) {
+        return autocompletarService.completar(TipoCadastro.FABRICA, empresaId, texto, limite);
+    }
+
     public Flux<Fabrica> searchByRazaoSocial(String razaoSocial, Long empresaId) {
         return fabricaRepository.findByRazaoSocialContainingIgnoreCaseAndEmpresaId(razaoSocial, empresaId);
     }
@@ -73,19 +105,11 @@ public class FabricaService {
                 fabrica.setAtivo(false);
                 return fabricaRepository.save(fabrica);
             })
+            .doOnNext(fabrica -> cadastroCacheService.invalidarFabrica(id))
+            .doOnNext(autocompletarService::registrarFabrica)
             .then();
     }
 
-    private Mono<Boolean> checkCnpjUnico(String cnpj, Long empresaId, Long id) {
-        if (id == null) {
-            return fabricaRepository.findByCnpjAndEmpresaId(cnpj, empresaId)
-                .map(f -> false)
-                .defaultIfEmpty(true);
-        }
-        return fabricaRepository.existsByCnpjAndEmpresaIdAndIdNot(cnpj, empresaId, id)
-            .map(exists -> !exists);
-    }
-
     private Fabrica convertToEntity(FabricaDTO dto) {
         Fabrica fabrica = new Fabrica();
         fabrica.setId(dto.getId());
@@ -2,47 +2,45 @@ package br.com.corretor.service;
 
 import br.com.corretor.dto.FuncionarioDTO;
 import br.com.corretor.model.Funcionario;
+import br.com.corretor.repository.AtualizacaoCadastroRepository;
 import br.com.corretor.repository.FuncionarioRepository;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class FuncionarioService {
+
+    // Colunas que a edição do cadastro não altera
+    private static final Set<String> COLUNAS_PRESERVADAS = Set.of("ativo");
 	
 	@Autowired
     private FuncionarioRepository funcionarioRepository;
 
+	@Autowired
+    private AtualizacaoCadastroRepository atualizacaoCadastroRepository;
+
     public Mono<Funcionario> save(FuncionarioDTO dto) {
         Funcionario funcionario = convertToEntity(dto);
-        
+
+        // Um único comando por gravação: a unicidade do CPF é garantida pelo índice único da V14
+        Mono<Funcionario> gravacao;
         if (funcionario.getId() == null) {
-            return checkCpfUnico(funcionario.getCpf(), funcionario.getEmpresaId(), null)
-                .flatMap(cpfUnico -> {
-                    if (!cpfUnico) {
-                        return Mono.error(new IllegalArgumentException("CPF já cadastrado para esta empresa"));
-                    }
-                    funcionario.setAtivo(true);
-                    return funcionarioRepository.save(funcionario);
-                });
+            funcionario.setAtivo(true);
+            gravacao = funcionarioRepository.save(funcionario);
         } else {
-            return checkCpfUnico(funcionario.getCpf(), funcionario.getEmpresaId(), funcionario.getId())
-                .flatMap(cpfUnico -> {
-                    if (!cpfUnico) {
-                        return Mono.error(new IllegalArgumentException("CPF já cadastrado para esta empresa"));
-                    }
-                    return funcionarioRepository.findById(funcionario.getId())
-                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Funcionário não encontrado")))
-                        .flatMap(existingFuncionario -> {
-                            funcionario.setAtivo(existingFuncionario.getAtivo());
-                            return funcionarioRepository.save(funcionario);
-                        });
-                });
+            gravacao = atualizacaoCadastroRepository.atualizar("funcionarios", funcionario, funcionario.getId(), COLUNAS_PRESERVADAS)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Funcionário não encontrado")));
         }
+        return gravacao.onErrorMap(DuplicateKeyException.class,
+            e -> new IllegalArgumentException("CPF já cadastrado para esta empresa"));
     }
 
     public Mono<Funcionario> findById(Long id) {
@@ -72,16 +70,6 @@ public class FuncionarioService {
             .then();
     }
 
-    private Mono<Boolean> checkCpfUnico(String cpf, Long empresaId, Long id) {
-        if (id == null) {
-            return funcionarioRepository.findByCpfAndEmpresaId(cpf, empresaId)
-                .map(f -> false)
-                .defaultIfEmpty(true);
-        }
-        return funcionarioRepository.existsByCpfAndEmpresaIdAndIdNot(cpf, empresaId, id)
-            .map(exists -> !exists);
-    }
-
     private Funcionario convertToEntity(FuncionarioDTO dto) {
         Funcionario funcionario = new Funcionario();
         funcionario.setId(dto.getId());
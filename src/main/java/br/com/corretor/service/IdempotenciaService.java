@@ -0,0 +1,84 @@
+package br.com.corretor.service;
+
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.ChaveIdempotencia;
+import br.com.corretor.repository.ChaveIdempotenciaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Guarda a primeira resposta de cada chave de idempotência para repeti-la nas novas tentativas da
+ * mesma requisição. A chave é reservada no banco antes de executar, então requisições duplicadas em
+ * paralelo (na mesma instância ou em outra) esperam a primeira terminar em vez de executar de novo.
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    // Tempo que uma instância tem para concluir a requisição antes que outra possa assumir a chave
+    private static final int RESERVA_SEGUNDOS = 60;
+    private static final Duration INTERVALO_ESPERA = Duration.ofMillis(100);
+    private static final int TENTATIVAS_ESPERA = 300;
+
+    @Value("${idempotencia.validade-horas:24}")
+    private int validadeHoras;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    // executar = true: a chave foi reservada para esta requisição; false: a resposta gravada deve ser repetida
+    public record Reserva(ChaveIdempotencia chave, boolean executar) {
+    }
+
+    public Mono<Reserva> reservar(String escopo, String chave, String hashRequisicao) {
+        return Mono.defer(() -> tentarReservar(escopo, chave, hashRequisicao))
+            .repeatWhenEmpty(TENTATIVAS_ESPERA, tentativas -> tentativas.delayElements(INTERVALO_ESPERA))
+            // repeatWhenEmpty sinaliza IllegalStateException ao esgotar as tentativas
+            .onErrorMap(IllegalStateException.class,
+                e -> new IllegalStateException("Requisição com a mesma Idempotency-Key ainda em processamento", e));
+    }
+
+    // Respostas de erro do servidor não são guardadas: a próxima tentativa executa de novo
+    public Mono<Void> concluir(ChaveIdempotencia chave, int status, String tipoConteudo, byte[] corpo) {
+        if (status >= 500) {
+            return liberar(chave);
+        }
+        return chaveIdempotenciaRepository.concluir(chave.getId(), status, tipoConteudo, corpo).then();
+    }
+
+    public Mono<Void> liberar(ChaveIdempotencia chave) {
+        return chaveIdempotenciaRepository.deleteById(chave.getId());
+    }
+
+    @Scheduled(cron = "${idempotencia.limpeza-cron:0 15 * * * *}")
+    public void excluirExpiradasAgendado() {
+        chaveIdempotenciaRepository.excluirExpiradas()
+            .doOnNext(excluidas -> log.info("Chaves de idempotência expiradas removidas: {}", excluidas))
+            .onErrorResume(e -> {
+                log.error("Falha ao remover chaves de idempotência expiradas", e);
+                return Mono.empty();
+            })
+            .block();
+    }
+
+    // Vazio enquanto outra requisição com a mesma chave está em andamento
+    private Mono<Reserva> tentarReservar(String escopo, String chave, String hashRequisicao) {
+        return chaveIdempotenciaRepository.reservar(escopo, chave, hashRequisicao, RESERVA_SEGUNDOS, validadeHoras * 3600)
+            .map(reservada -> new Reserva(reservada, true))
+            .switchIfEmpty(Mono.defer(() -> chaveIdempotenciaRepository.findByEscopoAndChave(escopo, chave)
+                .flatMap(existente -> {
+                    if (!hashRequisicao.equals(existente.getHashRequisicao())) {
+                        return Mono.error(new BusinessException("Idempotency-Key já utilizada em outra requisição"));
+                    }
+                    return existente.getConcluidaEm() != null
+                        ? Mono.just(new Reserva(existente, false))
+                        : Mono.empty();
+                })));
+    }
+}
@@ -0,0 +1,361 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ImportacaoCadastroErroDTO;
+import br.com.corretor.dto.ImportacaoCadastroResultadoDTO;
+import br.com.corretor.enums.TipoCadastro;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.BuscaTexto;
+import br.com.corretor.util.CacheLru;
+import br.com.corretor.util.CsvWriter;
+import br.com.corretor.util.DocumentoFiscal;
+import br.com.corretor.util.Planilha;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importa clientes e fábricas de uma planilha CSV ou XLSX, para a carga inicial dos cadastros de uma
+ * empresa. CPF e CNPJ são validados em memória (dígitos verificadores e repetição no arquivo); cada lote
+ * confere os documentos já cadastrados com uma só consulta e grava os novos com um único INSERT.
+ * Linhas inválidas não impedem a gravação das demais: as primeiras voltam no resultado e a lista
+ * completa fica disponível para download em CSV por RELATORIO_VALIDADE.
+ */
+@Slf4j
+@Service
+public class ImportacaoCadastroService {
+
+    private static final int TAMANHO_LOTE = 1000;
+    private static final int ERROS_NO_RESULTADO = 100;
+    private static final int RELATORIOS_MAXIMOS = 200;
+    private static final Duration RELATORIO_VALIDADE = Duration.ofHours(1);
+
+    private static final String COL_DOCUMENTO = "documento";
+    private static final String COL_CNPJ = "cnpj";
+    private static final String COL_RAZAO_SOCIAL = "razao_social";
+    private static final String COL_NOME_FANTASIA = "nome_fantasia";
+    private static final String COL_INSCRICAO_ESTADUAL = "inscricao_estadual";
+    private static final String COL_EMAIL = "email";
+    private static final String COL_TELEFONE = "telefone";
+    private static final String COL_CELULAR = "celular";
+    private static final String COL_WHATSAPP = "whatsapp";
+    private static final String COL_ENDERECO = "endereco";
+    private static final String COL_BAIRRO = "bairro";
+    private static final String COL_CIDADE = "cidade";
+    private static final String COL_ESTADO = "estado";
+    private static final String COL_CEP = "cep";
+    private static final String COL_SITE = "site";
+    private static final List<String> COLUNAS_OBRIGATORIAS_CLIENTE = List.of(COL_DOCUMENTO, COL_RAZAO_SOCIAL);
+    private static final List<String> COLUNAS_OBRIGATORIAS_FABRICA = List.of(COL_CNPJ, COL_RAZAO_SOCIAL);
+
+    private static final String[] COLUNAS_RELATORIO = {"Linha", "Documento", "Mensagem"};
+    private static final String JA_CADASTRADO = "Documento já cadastrado para esta empresa";
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private FabricaRepository fabricaRepository;
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    private final CacheLru<String, RelatorioErros> relatorios = new CacheLru<>(RELATORIOS_MAXIMOS, RELATORIO_VALIDADE);
+
+    public Mono<ImportacaoCadastroResultadoDTO> importarClientes(Long empresaId, String nomeArquivo, Flux<DataBuffer> conteudo) {
+        return importar(empresaId, nomeArquivo, conteudo, new Layout<>(
+            TipoCadastro.CLIENTE,
+            COLUNAS_OBRIGATORIAS_CLIENTE,
+            ImportacaoCadastroService::converterCliente,
+            clienteRepository::findByEmpresaIdAndDocumentos,
+            cliente -> List.of(BuscaTexto.somenteDigitos(cliente.getCnpj()), BuscaTexto.somenteDigitos(cliente.getCpf())),
+            this::inserirClientes));
+    }
+
+    public Mono<ImportacaoCadastroResultadoDTO> importarFabricas(Long empresaId, String nomeArquivo, Flux<DataBuffer> conteudo) {
+        return importar(empresaId, nomeArquivo, conteudo, new Layout<>(
+            TipoCadastro.FABRICA,
+            COLUNAS_OBRIGATORIAS_FABRICA,
+            ImportacaoCadastroService::converterFabrica,
+            fabricaRepository::findByEmpresaIdAndCnpjs,
+            fabrica -> List.of(BuscaTexto.somenteDigitos(fabrica.getCnpj())),
+            this::inserirFabricas));
+    }
+
+    // CSV com todas as linhas rejeitadas de uma importação da empresa
+    public Mono<byte[]> relatorioErros(TipoCadastro tipo, Long empresaId, String relatorioId) {
+        return Mono.fromCallable(() -> {
+            RelatorioErros relatorio = relatorios.obter(relatorioId);
+            if (relatorio == null || relatorio.tipo() != tipo || !relatorio.empresaId().equals(empresaId)) {
+                throw new IllegalArgumentException("Relatório de erros não encontrado ou expirado");
+            }
+            List<Object[]> linhas = relatorio.erros().stream()
+                .map(erro -> new Object[]{erro.getLinha(), erro.getDocumento(), erro.getMensagem()})
+                .toList();
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            csv.writeBytes(CsvWriter.cabecalho(COLUNAS_RELATORIO));
+            csv.writeBytes(CsvWriter.linhas(linhas));
+            return csv.toByteArray();
+        });
+    }
+
+    private <T> Mono<ImportacaoCadastroResultadoDTO> importar(Long empresaId, String nomeArquivo,
+                                                              Flux<DataBuffer> conteudo, Layout<T> layout) {
+        if (empresaId == null) {
+            return Mono.error(new BusinessException("Empresa é obrigatória para importar cadastros"));
+        }
+        if (!Planilha.formatoAceito(nomeArquivo)) {
+            return Mono.error(new BusinessException("Formato de arquivo inválido: use CSV ou XLSX"));
+        }
+        long inicio = System.currentTimeMillis();
+        Importacao importacao = new Importacao(empresaId);
+
+        return Planilha.lotes(nomeArquivo, conteudo, layout.colunasObrigatorias(), TAMANHO_LOTE)
+            .concatMap(lote -> processarLote(importacao, layout, lote.colunas(), lote.linhas()))
+            .then(Mono.fromCallable(() -> concluir(importacao, layout.tipo(), nomeArquivo, inicio)));
+    }
+
+    private <T> Mono<Void> processarLote(Importacao importacao, Layout<T> layout, Map<String, Integer> colunas,
+                                         List<Planilha.Linha> linhas) {
+        importacao.totalLinhas += linhas.size();
+        List<LinhaCadastro<T>> validas = new ArrayList<>(linhas.size());
+        for (Planilha.Linha linha : linhas) {
+            try {
+                LinhaCadastro<T> cadastro = layout.converter().apply(colunas, linha);
+                Long anterior = importacao.documentos.putIfAbsent(cadastro.documento(), linha.numero());
+                if (anterior != null) {
+                    importacao.rejeitar(linha.numero(), cadastro.documento(), "Documento repetido no arquivo (linha " + anterior + ")");
+                } else {
+                    validas.add(cadastro);
+                }
+            } catch (IllegalArgumentException e) {
+                importacao.rejeitar(linha.numero(), null, e.getMessage());
+            }
+        }
+        if (validas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        // Uma consulta para os documentos do lote inteiro, pelos índices únicos da V14
+        String[] documentos = validas.stream().map(LinhaCadastro::documento).toArray(String[]::new);
+        return layout.existentes().apply(importacao.empresaId, documentos)
+            .flatMapIterable(layout.documentos())
+            .collect(Collectors.toSet())
+            .flatMap(cadastrados -> {
+                List<LinhaCadastro<T>> novas = new ArrayList<>(validas.size());
+                for (LinhaCadastro<T> cadastro : validas) {
+                    if (cadastrados.contains(cadastro.documento())) {
+                        importacao.rejeitar(cadastro.numero(), cadastro.documento(), JA_CADASTRADO);
+                    } else {
+                        novas.add(cadastro);
+                    }
+                }
+                return gravarLote(importacao, layout, novas);
+            });
+    }
+
+    // Um documento gravado por outra requisição depois da consulta não volta no RETURNING e é
+    // rejeitado como já cadastrado; outras falhas rejeitam as linhas do lote e a importação segue
+    private <T> Mono<Void> gravarLote(Importacao importacao, Layout<T> layout, List<LinhaCadastro<T>> novas) {
+        if (novas.isEmpty()) {
+            return Mono.empty();
+        }
+        List<T> entidades = novas.stream().map(LinhaCadastro::entidade).toList();
+        return Mono.defer(() -> layout.inserir().apply(importacao.empresaId, entidades)
+                .flatMapIterable(layout.documentos())
+                .collect(Collectors.toSet()))
+            .doOnNext(gravados -> {
+                for (LinhaCadastro<T> cadastro : novas) {
+                    if (gravados.contains(cadastro.documento())) {
+                        importacao.importadas++;
+                    } else {
+                        importacao.rejeitar(cadastro.numero(), cadastro.documento(), JA_CADASTRADO);
+                    }
+                }
+            })
+            .onErrorResume(e -> {
+                log.error("Falha ao gravar lote da importação de cadastros - Empresa: {}, Linhas: {} a {}",
+                    importacao.empresaId, novas.get(0).numero(), novas.get(novas.size() - 1).numero(), e);
+                novas.forEach(cadastro ->
+                    importacao.rejeitar(cadastro.numero(), cadastro.documento(), "Não foi possível gravar o cadastro"));
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private ImportacaoCadastroResultadoDTO concluir(Importacao importacao, TipoCadastro tipo, String nomeArquivo, long inicio) {
+        if (importacao.importadas > 0) {
+            // Os cadastros entraram fora dos ganchos de gravação: o índice é remontado na próxima consulta
+            autocompletarService.invalidar(tipo, importacao.empresaId);
+        }
+        importacao.erros.sort(Comparator.comparing(ImportacaoCadastroErroDTO::getLinha));
+        String relatorioId = null;
+        if (!importacao.erros.isEmpty()) {
+            relatorioId = UUID.randomUUID().toString();
+            relatorios.guardar(relatorioId, new RelatorioErros(tipo, importacao.empresaId, List.copyOf(importacao.erros)),
+                relatorios.geracao());
+        }
+        long duracao = System.currentTimeMillis() - inicio;
+        log.info("Importação de cadastros concluída - Tipo: {}, Empresa: {}, Arquivo: {}, Linhas: {}, Importadas: {}, Rejeitadas: {}, Tempo: {} ms",
+            tipo, importacao.empresaId, nomeArquivo, importacao.totalLinhas, importacao.importadas, importacao.erros.size(), duracao);
+        return ImportacaoCadastroResultadoDTO.builder()
+            .empresaId(importacao.empresaId)
+            .tipo(tipo)
+            .arquivo(nomeArquivo)
+            .totalLinhas(importacao.totalLinhas)
+            .importadas(importacao.importadas)
+            .rejeitadas((long) importacao.erros.size())
+            .duracaoMs(duracao)
+            .erros(new ArrayList<>(importacao.erros.subList(0, Math.min(ERROS_NO_RESULTADO, importacao.erros.size()))))
+            .relatorioErrosId(relatorioId)
+            .build();
+    }
+
+    // O tipo do cliente vem do tamanho do documento: 14 dígitos é CNPJ (PJ), 11 é CPF (PF)
+    private static LinhaCadastro<Cliente> converterCliente(Map<String, Integer> colunas, Planilha.Linha linha) {
+        String documento = BuscaTexto.somenteDigitos(linha.obrigatorio(colunas, COL_DOCUMENTO, "Documento"));
+        Cliente cliente = new Cliente();
+        if (documento.length() == DocumentoFiscal.TAMANHO_CNPJ) {
+            if (!DocumentoFiscal.cnpjValido(documento)) {
+                throw new IllegalArgumentException("CNPJ inválido: " + documento);
+            }
+            cliente.setTipo("PJ");
+            cliente.setCnpj(documento);
+        } else if (documento.length() == DocumentoFiscal.TAMANHO_CPF) {
+            if (!DocumentoFiscal.cpfValido(documento)) {
+                throw new IllegalArgumentException("CPF inválido: " + documento);
+            }
+            cliente.setTipo("PF");
+            cliente.setCpf(documento);
+        } else {
+            throw new IllegalArgumentException("Documento inválido: informe CPF (11 dígitos) ou CNPJ (14 dígitos)");
+        }
+        cliente.setRazaoSocial(linha.obrigatorio(colunas, COL_RAZAO_SOCIAL, "Razão social"));
+        cliente.setNomeFantasia(linha.opcional(colunas, COL_NOME_FANTASIA));
+        cliente.setInscricaoEstadual(linha.opcional(colunas, COL_INSCRICAO_ESTADUAL));
+        cliente.setEmail(linha.opcional(colunas, COL_EMAIL));
+        cliente.setTelefone(linha.opcional(colunas, COL_TELEFONE));
+        cliente.setCelular(linha.opcional(colunas, COL_CELULAR));
+        cliente.setEndereco(linha.opcional(colunas, COL_ENDERECO));
+        cliente.setBairro(linha.opcional(colunas, COL_BAIRRO));
+        cliente.setCidade(linha.opcional(colunas, COL_CIDADE));
+        cliente.setEstado(linha.opcional(colunas, COL_ESTADO));
+        cliente.setCep(linha.opcional(colunas, COL_CEP));
+        return new LinhaCadastro<>(linha.numero(), documento, cliente);
+    }
+
+    private static LinhaCadastro<Fabrica> converterFabrica(Map<String, Integer> colunas, Planilha.Linha linha) {
+        String cnpj = BuscaTexto.somenteDigitos(linha.obrigatorio(colunas, COL_CNPJ, "CNPJ"));
+        if (!DocumentoFiscal.cnpjValido(cnpj)) {
+            throw new IllegalArgumentException("CNPJ inválido: " + cnpj);
+        }
+        Fabrica fabrica = new Fabrica();
+        fabrica.setCnpj(cnpj);
+        fabrica.setRazaoSocial(linha.obrigatorio(colunas, COL_RAZAO_SOCIAL, "Razão social"));
+        fabrica.setNomeFantasia(linha.opcional(colunas, COL_NOME_FANTASIA));
+        fabrica.setInscricaoEstadual(linha.opcional(colunas, COL_INSCRICAO_ESTADUAL));
+        fabrica.setEmail(linha.opcional(colunas, COL_EMAIL));
+        fabrica.setTelefone(linha.opcional(colunas, COL_TELEFONE));
+        fabrica.setWhatsapp(linha.opcional(colunas, COL_WHATSAPP));
+        fabrica.setEndereco(linha.opcional(colunas, COL_ENDERECO));
+        fabrica.setBairro(linha.opcional(colunas, COL_BAIRRO));
+        fabrica.setCidade(linha.opcional(colunas, COL_CIDADE));
+        fabrica.setEstado(linha.opcional(colunas, COL_ESTADO));
+        fabrica.setCep(linha.opcional(colunas, COL_CEP));
+        fabrica.setSite(linha.opcional(colunas, COL_SITE));
+        return new LinhaCadastro<>(linha.numero(), cnpj, fabrica);
+    }
+
+    private Flux<Cliente> inserirClientes(Long empresaId, List<Cliente> clientes) {
+        return clienteRepository.inserirEmLote(empresaId,
+            coluna(clientes, Cliente::getTipo),
+            coluna(clientes, Cliente::getRazaoSocial),
+            coluna(clientes, Cliente::getNomeFantasia),
+            coluna(clientes, Cliente::getCnpj),
+            coluna(clientes, Cliente::getCpf),
+            coluna(clientes, Cliente::getInscricaoEstadual),
+            coluna(clientes, Cliente::getEmail),
+            coluna(clientes, Cliente::getTelefone),
+            coluna(clientes, Cliente::getCelular),
+            coluna(clientes, Cliente::getEndereco),
+            coluna(clientes, Cliente::getBairro),
+            coluna(clientes, Cliente::getCidade),
+            coluna(clientes, Cliente::getEstado),
+            coluna(clientes, Cliente::getCep));
+    }
+
+    private Flux<Fabrica> inserirFabricas(Long empresaId, List<Fabrica> fabricas) {
+        return fabricaRepository.inserirEmLote(empresaId,
+            coluna(fabricas, Fabrica::getRazaoSocial),
+            coluna(fabricas, Fabrica::getNomeFantasia),
+            coluna(fabricas, Fabrica::getCnpj),
+            coluna(fabricas, Fabrica::getInscricaoEstadual),
+            coluna(fabricas, Fabrica::getEmail),
+            coluna(fabricas, Fabrica::getTelefone),
+            coluna(fabricas, Fabrica::getWhatsapp),
+            coluna(fabricas, Fabrica::getEndereco),
+            coluna(fabricas, Fabrica::getBairro),
+            coluna(fabricas, Fabrica::getCidade),
+            coluna(fabricas, Fabrica::getEstado),
+            coluna(fabricas, Fabrica::getCep),
+            coluna(fabricas, Fabrica::getSite));
+    }
+
+    private static <T> String[] coluna(List<T> entidades, Function<T, String> valor) {
+        String[] coluna = new String[entidades.size()];
+        for (int i = 0; i < coluna.length; i++) {
+            coluna[i] = valor.apply(entidades.get(i));
+        }
+        return coluna;
+    }
+
+    // O que muda entre clientes e fábricas: colunas, conversão da linha, consulta e gravação em lote
+    private record Layout<T>(TipoCadastro tipo,
+                             List<String> colunasObrigatorias,
+                             BiFunction<Map<String, Integer>, Planilha.Linha, LinhaCadastro<T>> converter,
+                             BiFunction<Long, String[], Flux<T>> existentes,
+                             Function<T, List<String>> documentos,
+                             BiFunction<Long, List<T>, Flux<T>> inserir) {
+    }
+
+    private record LinhaCadastro<T>(long numero, String documento, T entidade) {
+    }
+
+    private record RelatorioErros(TipoCadastro tipo, Long empresaId, List<ImportacaoCadastroErroDTO> erros) {
+    }
+
+    // Estado de uma importação: documentos já vistos no arquivo (com a linha), contadores e erros
+    private static class Importacao {
+        private final Long empresaId;
+        private final Map<String, Long> documentos = new HashMap<>();
+        private final List<ImportacaoCadastroErroDTO> erros = new ArrayList<>();
+        private long totalLinhas;
+        private long importadas;
+
+        private Importacao(Long empresaId) {
+            this.empresaId = empresaId;
+        }
+
+        private void rejeitar(long linha, String documento, String mensagem) {
+            erros.add(ImportacaoCadastroErroDTO.builder().linha(linha).documento(documento).mensagem(mensagem).build());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.Venda;
+import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.repository.VendaRepository;
+import br.com.corretor.util.CronogramaParcelas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Service
+public class ImportacaoVendaLoteService {
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    @Autowired
+    private LancamentoComissaoService lancamentoComissaoService;
+
+    @Autowired
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    // Grava um lote de vendas já validadas com suas comissões, provisões no razão e resumo mensal
+    // na mesma transação: um INSERT para as vendas, um para as comissões e um para o razão
+    @Transactional
+    public Mono<List<Comissao>> gravarLote(Long empresaId, List<Venda> vendas) {
+        if (vendas.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        int quantidade = vendas.size();
+        String[] datasVenda = new String[quantidade];
+        Long[] fabricaIds = new Long[quantidade];
+        Long[] clienteIds = new Long[quantidade];
+        Long[] corretorIds = new Long[quantidade];
+        String[] tiposVenda = new String[quantidade];
+        String[] eventos = new String[quantidade];
+        BigDecimal[] valoresVenda = new BigDecimal[quantidade];
+        String[] notasFiscais = new String[quantidade];
+        BigDecimal[] percentuais = new BigDecimal[quantidade];
+        BigDecimal[] valoresComissao = new BigDecimal[quantidade];
+        String[] formasPagamento = new String[quantidade];
+        Integer[] parcelas = new Integer[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            Venda venda = vendas.get(i);
+            datasVenda[i] = venda.getDataVenda().toString();
+            fabricaIds[i] = venda.getFabricaId();
+            clienteIds[i] = venda.getClienteId();
+            corretorIds[i] = venda.getCorretorId();
+            tiposVenda[i] = venda.getTipoVenda();
+            eventos[i] = venda.getEvento();
+            valoresVenda[i] = venda.getValorVenda();
+            notasFiscais[i] = venda.getNumeroNotaFiscal();
+            percentuais[i] = venda.getPercentualComissao();
+            valoresComissao[i] = venda.getValorComissao();
+            formasPagamento[i] = venda.getFormaPagamento();
+            parcelas[i] = venda.getQuantidadeParcelas();
+        }
+
+        return vendaRepository.inserirEmLote(empresaId, datasVenda, fabricaIds, clienteIds, corretorIds, tiposVenda,
+                eventos, valoresVenda, notasFiscais, percentuais, valoresComissao, formasPagamento, parcelas)
+            .collectList()
+            .flatMap(salvas -> {
+                // Todas as parcelas do lote em um só INSERT, qualquer que seja a quantidade por venda
+                CronogramaParcelas cronograma = new CronogramaParcelas();
+                salvas.forEach(cronograma::adicionar);
+                return comissaoRepository.gerarParcelas(cronograma.getVendaIds(), cronograma.getNumeros(),
+                        cronograma.getQuantidades(), cronograma.getValoresVenda(), cronograma.getValoresComissao(),
+                        cronograma.getDatasPrevisao())
+                    .collectList();
+            })
+            .flatMap(comissoes -> lancamentoComissaoService.registrarInclusoesEmLote(comissoes)
+                .then(comissaoResumoMensalService.registrarInclusaoEmLote(comissoes))
+                .thenReturn(comissoes));
+    }
+}
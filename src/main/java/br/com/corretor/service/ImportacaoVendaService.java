@@ -0,0 +1,383 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ImportacaoVendaErroDTO;
+import br.com.corretor.dto.ImportacaoVendaResultadoDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.Corretor;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.model.Venda;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.CronogramaParcelas;
+import br.com.corretor.util.Planilha;
+import br.com.corretor.util.TabelaComissao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Importa vendas de uma planilha CSV ou XLSX. As linhas são processadas em lotes: cada lote resolve
+ * fábricas, clientes e corretores com uma consulta por tipo de cadastro (só para documentos ainda não
+ * vistos na importação) e grava vendas e comissões com comandos de várias linhas, em sua própria
+ * transação. Linhas inválidas não impedem a gravação das demais e voltam no relatório de erros.
+ */
+@Slf4j
+@Service
+public class ImportacaoVendaService {
+
+    private static final int TAMANHO_LOTE = 1000;
+    private static final int TENTATIVAS_LOTE = 3;
+    private static final LocalDate BASE_DATA_EXCEL = LocalDate.of(1899, 12, 30);
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String COL_DATA_VENDA = "data_venda";
+    private static final String COL_FABRICA_CNPJ = "fabrica_cnpj";
+    private static final String COL_CLIENTE_DOCUMENTO = "cliente_documento";
+    private static final String COL_CORRETOR_CPF = "corretor_cpf";
+    private static final String COL_TIPO_VENDA = "tipo_venda";
+    private static final String COL_VALOR_VENDA = "valor_venda";
+    private static final String COL_EVENTO = "evento";
+    private static final String COL_NUMERO_NOTA_FISCAL = "numero_nota_fiscal";
+    private static final String COL_FORMA_PAGAMENTO = "forma_pagamento";
+    private static final String COL_QUANTIDADE_PARCELAS = "quantidade_parcelas";
+    private static final List<String> COLUNAS_OBRIGATORIAS = List.of(
+        COL_DATA_VENDA, COL_FABRICA_CNPJ, COL_CLIENTE_DOCUMENTO, COL_CORRETOR_CPF, COL_TIPO_VENDA, COL_VALOR_VENDA);
+
+    private static final Set<String> TIPOS_VENDA = Set.of("PRONTA_ENTREGA", "PEDIDO", "PROMOCAO", "PONTA_ESTOQUE");
+    private static final Set<String> FORMAS_PAGAMENTO = Set.of("BOLETO", "CHEQUE", "PIX", "TRANSFERENCIA", "CARTAO");
+
+    @Autowired
+    private FabricaRepository fabricaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CorretorRepository corretorRepository;
+
+    @Autowired
+    private ImportacaoVendaLoteService importacaoVendaLoteService;
+
+    @Autowired
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Autowired
+    private RankingCorretorService rankingCorretorService;
+
+    @Autowired
+    private VendaAnaliseService vendaAnaliseService;
+
+    @Autowired
+    private CuboVendaService cuboVendaService;
+
+    public Mono<ImportacaoVendaResultadoDTO> importar(Long empresaId, String nomeArquivo, Flux<DataBuffer> conteudo) {
+        if (empresaId == null) {
+            return Mono.error(new BusinessException("Empresa é obrigatória para importar vendas"));
+        }
+        if (!Planilha.formatoAceito(nomeArquivo)) {
+            return Mono.error(new BusinessException("Formato de arquivo inválido: use CSV ou XLSX"));
+        }
+        long inicio = System.currentTimeMillis();
+        Importacao importacao = new Importacao(empresaId);
+
+        return Planilha.lotes(nomeArquivo, conteudo, COLUNAS_OBRIGATORIAS, TAMANHO_LOTE)
+            .concatMap(lote -> processarLote(importacao, lote.colunas(), lote.linhas()))
+            .then(Mono.fromCallable(() -> {
+                if (importacao.importadas > 0) {
+                    // As comissões entraram fora dos ganchos de inclusão: descarta as visões em memória da empresa
+                    projecaoFluxoCaixaService.invalidar(empresaId);
+                    rankingCorretorService.invalidar(empresaId);
+                    vendaAnaliseService.invalidar(empresaId);
+                    cuboVendaService.invalidar(empresaId);
+                }
+                importacao.erros.sort(Comparator.comparing(ImportacaoVendaErroDTO::getLinha));
+                long duracao = System.currentTimeMillis() - inicio;
+                log.info("Importação de vendas concluída - Empresa: {}, Arquivo: {}, Linhas: {}, Importadas: {}, Rejeitadas: {}, Tempo: {} ms",
+                    empresaId, nomeArquivo, importacao.totalLinhas, importacao.importadas, importacao.erros.size(), duracao);
+                return ImportacaoVendaResultadoDTO.builder()
+                    .empresaId(empresaId)
+                    .arquivo(nomeArquivo)
+                    .totalLinhas(importacao.totalLinhas)
+                    .importadas(importacao.importadas)
+                    .rejeitadas((long) importacao.erros.size())
+                    .duracaoMs(duracao)
+                    .erros(importacao.erros)
+                    .build();
+            }));
+    }
+
+    private Mono<Void> processarLote(Importacao importacao, Map<String, Integer> colunas, List<Planilha.Linha> linhas) {
+        importacao.totalLinhas += linhas.size();
+        List<LinhaVenda> validas = new ArrayList<>(linhas.size());
+        for (Planilha.Linha linha : linhas) {
+            try {
+                validas.add(converter(colunas, linha));
+            } catch (IllegalArgumentException e) {
+                importacao.rejeitar(linha.numero(), e.getMessage());
+            }
+        }
+        if (validas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return resolverCadastros(importacao, validas)
+            .then(Mono.defer(() -> {
+                List<Venda> vendas = new ArrayList<>(validas.size());
+                List<LinhaVenda> gravadas = new ArrayList<>(validas.size());
+                for (LinhaVenda linha : validas) {
+                    Venda venda = montarVenda(importacao, linha);
+                    if (venda != null) {
+                        vendas.add(venda);
+                        gravadas.add(linha);
+                    }
+                }
+                return gravarLote(importacao, vendas, gravadas);
+            }));
+    }
+
+    // Uma consulta por tipo de cadastro, só com os documentos que a importação ainda não conhece
+    private Mono<Void> resolverCadastros(Importacao importacao, List<LinhaVenda> linhas) {
+        Set<String> cnpjs = new HashSet<>();
+        Set<String> documentos = new HashSet<>();
+        Set<String> cpfs = new HashSet<>();
+        for (LinhaVenda linha : linhas) {
+            if (importacao.fabricasConsultadas.add(linha.fabricaCnpj())) {
+                cnpjs.add(linha.fabricaCnpj());
+            }
+            if (importacao.clientesConsultados.add(linha.clienteDocumento())) {
+                documentos.add(linha.clienteDocumento());
+            }
+            if (importacao.corretoresConsultados.add(linha.corretorCpf())) {
+                cpfs.add(linha.corretorCpf());
+            }
+        }
+
+        Mono<Void> fabricas = consultar(cnpjs,
+            chaves -> fabricaRepository.findByEmpresaIdAndCnpjs(importacao.empresaId, chaves)
+                .doOnNext(fabrica -> importacao.fabricas.put(apenasDigitos(fabrica.getCnpj()), fabrica)));
+        Mono<Void> clientes = consultar(documentos,
+            chaves -> clienteRepository.findByEmpresaIdAndDocumentos(importacao.empresaId, chaves)
+                .doOnNext(cliente -> {
+                    if (cliente.getCnpj() != null) {
+                        importacao.clientes.put(apenasDigitos(cliente.getCnpj()), cliente);
+                    }
+                    if (cliente.getCpf() != null) {
+                        importacao.clientes.put(apenasDigitos(cliente.getCpf()), cliente);
+                    }
+                }));
+        Mono<Void> corretores = consultar(cpfs,
+            chaves -> corretorRepository.findByEmpresaIdAndCpfs(importacao.empresaId, chaves)
+                .doOnNext(corretor -> importacao.corretores.put(apenasDigitos(corretor.getCpf()), corretor)));
+
+        return Mono.when(fabricas, clientes, corretores);
+    }
+
+    private <T> Mono<Void> consultar(Set<String> chaves, Function<String[], Flux<T>> consulta) {
+        if (chaves.isEmpty()) {
+            return Mono.empty();
+        }
+        return consulta.apply(chaves.toArray(new String[0])).then();
+    }
+
+    // Null quando algum cadastro não existe; o motivo vai para o relatório
+    private Venda montarVenda(Importacao importacao, LinhaVenda linha) {
+        Fabrica fabrica = importacao.fabricas.get(linha.fabricaCnpj());
+        if (fabrica == null) {
+            importacao.rejeitar(linha.numero(), "Fábrica não encontrada: " + linha.fabricaCnpj());
+            return null;
+        }
+        Cliente cliente = importacao.clientes.get(linha.clienteDocumento());
+        if (cliente == null) {
+            importacao.rejeitar(linha.numero(), "Cliente não encontrado: " + linha.clienteDocumento());
+            return null;
+        }
+        Corretor corretor = importacao.corretores.get(linha.corretorCpf());
+        if (corretor == null) {
+            importacao.rejeitar(linha.numero(), "Corretor não encontrado: " + linha.corretorCpf());
+            return null;
+        }
+
+        // Mesmo cálculo de VendaService.criar, com a tabela compilada uma vez por fábrica na importação
+        TabelaComissao tabelaComissao;
+        try {
+            tabelaComissao = importacao.tabelasComissao.computeIfAbsent(fabrica.getId(),
+                id -> TabelaComissao.compilar(id, fabrica.getPercentuaisComissao()));
+        } catch (BusinessException e) {
+            importacao.rejeitar(linha.numero(), e.getMessage());
+            return null;
+        }
+        BigDecimal percentualComissao = tabelaComissao.percentual(linha.tipoVenda());
+        BigDecimal valorComissao = tabelaComissao.calcular(linha.valorVenda(), linha.tipoVenda());
+
+        Venda venda = new Venda();
+        venda.setEmpresaId(importacao.empresaId);
+        venda.setDataVenda(linha.dataVenda());
+        venda.setFabricaId(fabrica.getId());
+        venda.setClienteId(cliente.getId());
+        venda.setCorretorId(corretor.getId());
+        venda.setTipoVenda(linha.tipoVenda());
+        venda.setEvento(linha.evento());
+        venda.setValorVenda(linha.valorVenda());
+        venda.setNumeroNotaFiscal(linha.numeroNotaFiscal());
+        venda.setPercentualComissao(percentualComissao);
+        venda.setValorComissao(valorComissao);
+        venda.setFormaPagamento(linha.formaPagamento());
+        venda.setQuantidadeParcelas(linha.quantidadeParcelas());
+        return venda;
+    }
+
+    // Disputa de sequência no razão desfaz o lote inteiro, que é então repetido; outras falhas
+    // rejeitam as linhas do lote e a importação segue com o próximo
+    private Mono<Void> gravarLote(Importacao importacao, List<Venda> vendas, List<LinhaVenda> linhas) {
+        if (vendas.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> importacaoVendaLoteService.gravarLote(importacao.empresaId, vendas))
+            .retryWhen(Retry.max(TENTATIVAS_LOTE)
+                .filter(DataIntegrityViolationException.class::isInstance)
+                .onRetryExhaustedThrow((spec, sinal) -> sinal.failure()))
+            // Uma comissão por parcela: conta as vendas, não as comissões
+            .doOnNext(comissoes -> importacao.importadas += comissoes.stream().map(Comissao::getVendaId).distinct().count())
+            .onErrorResume(e -> {
+                log.error("Falha ao gravar lote da importação de vendas - Empresa: {}, Linhas: {} a {}",
+                    importacao.empresaId, linhas.get(0).numero(), linhas.get(linhas.size() - 1).numero(), e);
+                linhas.forEach(linha -> importacao.rejeitar(linha.numero(), "Não foi possível gravar a venda"));
+                return Mono.just(List.<Comissao>of());
+            })
+            .then();
+    }
+
+    private LinhaVenda converter(Map<String, Integer> colunas, Planilha.Linha linha) {
+        String tipoVenda = linha.obrigatorio(colunas, COL_TIPO_VENDA, "Tipo de venda").toUpperCase(Locale.ROOT);
+        if (!TIPOS_VENDA.contains(tipoVenda)) {
+            throw new IllegalArgumentException("Tipo de venda inválido: " + tipoVenda);
+        }
+        String formaPagamento = linha.opcional(colunas, COL_FORMA_PAGAMENTO);
+        if (formaPagamento != null) {
+            formaPagamento = formaPagamento.toUpperCase(Locale.ROOT);
+            if (!FORMAS_PAGAMENTO.contains(formaPagamento)) {
+                throw new IllegalArgumentException("Forma de pagamento inválida: " + formaPagamento);
+            }
+        }
+        BigDecimal valorVenda = lerValor(linha.obrigatorio(colunas, COL_VALOR_VENDA, "Valor da venda"));
+        if (valorVenda.signum() <= 0) {
+            throw new IllegalArgumentException("Valor da venda deve ser maior que zero");
+        }
+        String parcelas = linha.opcional(colunas, COL_QUANTIDADE_PARCELAS);
+        Integer quantidadeParcelas = parcelas != null ? lerInteiro(parcelas) : null;
+        if (quantidadeParcelas != null && quantidadeParcelas < 1) {
+            throw new IllegalArgumentException("Quantidade de parcelas deve ser maior que zero");
+        }
+        if (quantidadeParcelas != null && quantidadeParcelas > CronogramaParcelas.QUANTIDADE_MAXIMA) {
+            throw new IllegalArgumentException("Quantidade de parcelas deve ser no máximo " + CronogramaParcelas.QUANTIDADE_MAXIMA);
+        }
+
+        return new LinhaVenda(
+            linha.numero(),
+            lerData(linha.obrigatorio(colunas, COL_DATA_VENDA, "Data da venda")),
+            documento(colunas, linha, COL_FABRICA_CNPJ, "CNPJ da fábrica"),
+            documento(colunas, linha, COL_CLIENTE_DOCUMENTO, "Documento do cliente"),
+            documento(colunas, linha, COL_CORRETOR_CPF, "CPF do corretor"),
+            tipoVenda,
+            linha.opcional(colunas, COL_EVENTO),
+            valorVenda,
+            linha.opcional(colunas, COL_NUMERO_NOTA_FISCAL),
+            formaPagamento,
+            quantidadeParcelas);
+    }
+
+    private static String documento(Map<String, Integer> colunas, Planilha.Linha linha, String coluna, String descricao) {
+        String digitos = apenasDigitos(linha.obrigatorio(colunas, coluna, descricao));
+        if (digitos.isEmpty()) {
+            throw new IllegalArgumentException(descricao + " inválido");
+        }
+        return digitos;
+    }
+
+    // Aceita 2024-03-15, 15/03/2024 e o número serial de data do Excel
+    private static LocalDate lerData(String valor) {
+        if (valor.matches("\\d{1,5}(\\.\\d+)?")) {
+            return BASE_DATA_EXCEL.plusDays((long) Double.parseDouble(valor));
+        }
+        try {
+            return valor.contains("/") ? LocalDate.parse(valor, FORMATO_DATA) : LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data da venda inválida: " + valor);
+        }
+    }
+
+    // Aceita 1234.56 e o formato brasileiro 1.234,56
+    private static BigDecimal lerValor(String valor) {
+        String numero = valor.replace("R$", "").replace(" ", "");
+        if (numero.contains(",")) {
+            numero = numero.replace(".", "").replace(',', '.');
+        }
+        try {
+            return new BigDecimal(numero);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor da venda inválido: " + valor);
+        }
+    }
+
+    private static Integer lerInteiro(String valor) {
+        try {
+            return new BigDecimal(valor.replace(',', '.')).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Quantidade de parcelas inválida: " + valor);
+        }
+    }
+
+    private static String apenasDigitos(String documento) {
+        return documento != null ? documento.replaceAll("[^0-9]", "") : "";
+    }
+
+    // Estado de uma importação: cadastros já resolvidos, contadores e erros
+    private static class Importacao {
+        private final Long empresaId;
+        private final Map<String, Fabrica> fabricas = new HashMap<>();
+        private final Map<String, Cliente> clientes = new HashMap<>();
+        private final Map<String, Corretor> corretores = new HashMap<>();
+        private final Map<Long, TabelaComissao> tabelasComissao = new HashMap<>();
+        private final Set<String> fabricasConsultadas = new HashSet<>();
+        private final Set<String> clientesConsultados = new HashSet<>();
+        private final Set<String> corretoresConsultados = new HashSet<>();
+        private final List<ImportacaoVendaErroDTO> erros = new ArrayList<>();
+        private long totalLinhas;
+        private long importadas;
+
+        private Importacao(Long empresaId) {
+            this.empresaId = empresaId;
+        }
+
+        private void rejeitar(long linha, String mensagem) {
+            erros.add(ImportacaoVendaErroDTO.builder().linha(linha).mensagem(mensagem).build());
+        }
+    }
+
+    private record LinhaVenda(long numero, LocalDate dataVenda, String fabricaCnpj, String clienteDocumento,
+                              String corretorCpf, String tipoVenda, String evento, BigDecimal valorVenda,
+                              String numeroNotaFiscal, String formaPagamento, Integer quantidadeParcelas) {
+    }
+}
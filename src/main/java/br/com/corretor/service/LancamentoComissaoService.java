@@ -0,0 +1,171 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.LancamentoComissaoDTO;
+import br.com.corretor.enums.TipoLancamento;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.exception.ResourceNotFoundException;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.LancamentoComissao;
+import br.com.corretor.repository.LancamentoComissaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Razão de comissões por corretor. As alterações de comissão viram lançamentos (provisão, pagamento,
+ * cancelamento, ajuste) que nunca são alterados; cada lançamento guarda o saldo acumulado da comissão
+ * e do corretor, e o saldo atual é lido do último lançamento.
+ */
+@Service
+public class LancamentoComissaoService {
+
+    private static final int TENTATIVAS_LANCAMENTO = 5;
+
+    @Autowired
+    private LancamentoComissaoRepository lancamentoRepository;
+
+    public Mono<Void> registrarInclusao(Comissao comissao) {
+        if ("CANCELADO".equals(comissao.getStatus())) {
+            return Mono.empty();
+        }
+        return lancar(comissao, TipoLancamento.PROVISAO, valorDe(comissao.getValorComissao()), "Provisão da comissão");
+    }
+
+    public Mono<Void> registrarExclusao(Comissao comissao) {
+        return lancar(comissao, TipoLancamento.CANCELAMENTO, null, "Exclusão da venda");
+    }
+
+    public Mono<Void> registrarAlteracaoValor(Comissao comissao, BigDecimal valorAnterior) {
+        BigDecimal diferenca = valorDe(comissao.getValorComissao()).subtract(valorDe(valorAnterior));
+        if (diferenca.signum() == 0 || "CANCELADO".equals(comissao.getStatus())) {
+            return Mono.empty();
+        }
+        return lancar(comissao, TipoLancamento.AJUSTE, diferenca, "Alteração do valor da venda");
+    }
+
+    public Mono<Void> registrarMudancaStatus(Comissao comissao, String statusAnterior) {
+        if (Objects.equals(statusAnterior, comissao.getStatus())) {
+            return Mono.empty();
+        }
+        // A quitação lança o saldo em aberto, já descontados os pagamentos parciais
+        if ("PAGO".equals(comissao.getStatus())) {
+            return registrarPagamento(comissao, null, null);
+        }
+        if ("CANCELADO".equals(comissao.getStatus())) {
+            return lancar(comissao, TipoLancamento.CANCELAMENTO, null, "Cancelamento da comissão");
+        }
+        return Mono.empty();
+    }
+
+    // Um lançamento por pagamento, com a chave de idempotência dele; sem valor, quita o saldo em aberto
+    public Mono<Void> registrarPagamento(Comissao comissao, BigDecimal valorPago, String chavePagamento) {
+        boolean quitacao = "PAGO".equals(comissao.getStatus());
+        return lancar(comissao, TipoLancamento.PAGAMENTO, valorPago != null ? valorPago.negate() : null,
+            quitacao ? "Pagamento da comissão" : "Pagamento parcial da comissão", chavePagamento);
+    }
+
+    public Mono<Boolean> pagamentoRegistrado(Long comissaoId, String chavePagamento) {
+        return lancamentoRepository.existePagamentoComChave(comissaoId, chavePagamento);
+    }
+
+    public Mono<Void> registrarMudancaStatusEmLote(List<Comissao> comissoes, String statusAnterior) {
+        return Flux.fromIterable(comissoes)
+            .concatMap(comissao -> registrarMudancaStatus(comissao, statusAnterior))
+            .then();
+    }
+
+    // Provisão de muitas comissões novas em um único INSERT; deve rodar na transação que as gerou
+    public Mono<Void> registrarInclusoesEmLote(List<Comissao> comissoes) {
+        List<Long> comissaoIds = new ArrayList<>(comissoes.size());
+        List<BigDecimal> valores = new ArrayList<>(comissoes.size());
+        for (Comissao comissao : comissoes) {
+            if (!"CANCELADO".equals(comissao.getStatus())) {
+                comissaoIds.add(comissao.getId());
+                valores.add(valorDe(comissao.getValorComissao()));
+            }
+        }
+        return lancarEmLote(comissaoIds, valores, TipoLancamento.PROVISAO, "Provisão da comissão");
+    }
+
+    // Ajustes de muitas comissões em um único INSERT; deve rodar na transação que alterou os valores
+    public Mono<Void> registrarAjustesEmLote(List<Long> comissaoIds, List<BigDecimal> diferencas, String descricao) {
+        return lancarEmLote(comissaoIds, diferencas, TipoLancamento.AJUSTE, descricao);
+    }
+
+    public Flux<LancamentoComissaoDTO> listarPorComissao(Long comissaoId) {
+        return lancamentoRepository.findByComissaoId(comissaoId)
+            .map(this::toDTO);
+    }
+
+    public Mono<LancamentoComissaoDTO> obterSaldoComissao(Long comissaoId) {
+        return lancamentoRepository.findUltimoDaComissao(comissaoId)
+            .switchIfEmpty(Mono.error(new ResourceNotFoundException("Nenhum lançamento para a comissão")))
+            .map(this::toDTO);
+    }
+
+    public Mono<LancamentoComissaoDTO> obterSaldoCorretor(Long empresaId, Long corretorId) {
+        if (empresaId == null) {
+            return Mono.error(new BusinessException("Empresa é obrigatória para consultar o saldo"));
+        }
+        return lancamentoRepository.findUltimoDoCorretor(empresaId, corretorId)
+            .switchIfEmpty(Mono.error(new ResourceNotFoundException("Nenhum lançamento para o corretor")))
+            .map(this::toDTO);
+    }
+
+    private Mono<Void> lancarEmLote(List<Long> comissaoIds, List<BigDecimal> valores, TipoLancamento tipo, String descricao) {
+        if (comissaoIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return lancamentoRepository.lancarEmLote(
+                comissaoIds.toArray(new Long[0]),
+                valores.toArray(new BigDecimal[0]),
+                tipo.name(),
+                descricao)
+            .then();
+    }
+
+    private Mono<Void> lancar(Comissao comissao, TipoLancamento tipo, BigDecimal valor, String descricao) {
+        return lancar(comissao, tipo, valor, descricao, null);
+    }
+
+    private Mono<Void> lancar(Comissao comissao, TipoLancamento tipo, BigDecimal valor, String descricao, String chavePagamento) {
+        return lancar(comissao, tipo, valor, descricao, chavePagamento, 1).then();
+    }
+
+    // Sem lock no corretor: se outro lançamento tomou a sequência, recalcula a partir dele
+    private Mono<LancamentoComissao> lancar(Comissao comissao, TipoLancamento tipo, BigDecimal valor,
+                                            String descricao, String chavePagamento, int tentativa) {
+        return lancamentoRepository.lancar(comissao.getEmpresaId(), comissao.getCorretorId(), comissao.getId(),
+                tipo.name(), valor, descricao, chavePagamento)
+            .switchIfEmpty(Mono.defer(() -> tentativa < TENTATIVAS_LANCAMENTO
+                ? lancar(comissao, tipo, valor, descricao, chavePagamento, tentativa + 1)
+                : Mono.error(new OptimisticLockingFailureException("Não foi possível registrar o lançamento da comissão"))));
+    }
+
+    private BigDecimal valorDe(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+
+    private LancamentoComissaoDTO toDTO(LancamentoComissao lancamento) {
+        return LancamentoComissaoDTO.builder()
+            .id(lancamento.getId())
+            .empresaId(lancamento.getEmpresaId())
+            .corretorId(lancamento.getCorretorId())
+            .comissaoId(lancamento.getComissaoId())
+            .tipo(lancamento.getTipo())
+            .valor(lancamento.getValor())
+            .saldoComissao(lancamento.getSaldoComissao())
+            .saldoCorretor(lancamento.getSaldoCorretor())
+            .sequencia(lancamento.getSequencia())
+            .descricao(lancamento.getDescricao())
+            .dataLancamento(lancamento.getDataLancamento())
+            .build();
+    }
+}
@@ -0,0 +1,330 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.AtrasoPagamentoFabricaDTO;
+import br.com.corretor.dto.ComissaoAbertaAgregadaDTO;
+import br.com.corretor.dto.ProjecaoFluxoCaixaDTO;
+import br.com.corretor.enums.GranularidadeProjecao;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Projeta a entrada de caixa das comissões em aberto (PENDENTE e VENCIDA) por semana ou mês, pelo
+ * saldo que ainda falta receber de cada uma (valor da comissão menos os pagamentos parciais).
+ * A base agregada de cada empresa fica em memória e é ajustada a cada alteração de comissão,
+ * sendo recarregada do banco apenas quando expira.
+ */
+@Service
+public class ProjecaoFluxoCaixaService {
+
+    private static final Duration VALIDADE_BASE = Duration.ofMinutes(30);
+    private static final int MESES_HISTORICO_ATRASO = 12;
+    private static final int MESES_HORIZONTE_PADRAO = 6;
+    // Abaixo disso o histórico da fábrica não é representativo e usa-se o da empresa
+    private static final long AMOSTRA_MINIMA_ATRASO = 5;
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    private final Map<Long, BaseProjecao> bases = new ConcurrentHashMap<>();
+
+    public Mono<ProjecaoFluxoCaixaDTO> projetar(Long empresaId, String granularidade, LocalDate dataFim) {
+        return Mono.defer(() -> {
+            if (empresaId == null) {
+                return Mono.error(new BusinessException("Empresa é obrigatória para a projeção"));
+            }
+            GranularidadeProjecao tipo = GranularidadeProjecao.fromString(granularidade);
+            LocalDate hoje = LocalDate.now();
+            LocalDate fim = dataFim != null ? dataFim : hoje.plusMonths(MESES_HORIZONTE_PADRAO);
+            if (fim.isBefore(hoje)) {
+                return Mono.error(new BusinessException("Data final da projeção deve ser futura"));
+            }
+
+            return obterBase(empresaId)
+                .map(base -> montarProjecao(empresaId, base, tipo, hoje, fim));
+        });
+    }
+
+    public void registrarInclusao(Comissao comissao) {
+        if (emAberto(comissao.getStatus())) {
+            movimentar(comissao, 1L, saldo(comissao));
+        }
+    }
+
+    public void registrarExclusao(Comissao comissao) {
+        if (emAberto(comissao.getStatus())) {
+            movimentar(comissao, -1L, saldo(comissao).negate());
+        }
+    }
+
+    public void registrarAlteracaoValor(Comissao comissao, BigDecimal valorAnterior) {
+        if (emAberto(comissao.getStatus())) {
+            BigDecimal anterior = valorAnterior != null ? valorAnterior : BigDecimal.ZERO;
+            movimentar(comissao, 0L, valorOuZero(comissao.getValorComissao()).subtract(anterior));
+        }
+    }
+
+    public void registrarMudancaStatus(Comissao comissao, String statusAnterior) {
+        boolean estavaAberta = emAberto(statusAnterior);
+        boolean estaAberta = emAberto(comissao.getStatus());
+        if (estavaAberta && !estaAberta) {
+            movimentar(comissao, -1L, saldo(comissao).negate());
+        } else if (!estavaAberta && estaAberta) {
+            movimentar(comissao, 1L, saldo(comissao));
+        }
+    }
+
+    // Sai da projeção o que foi pago, parcial ou quitação; a quantidade só muda com o status, e a quitação
+    // chega à mudança de status já com saldo zero
+    public void registrarPagamento(Comissao anterior, Comissao paga) {
+        if (emAberto(anterior.getStatus())) {
+            movimentar(paga, 0L, saldo(paga).subtract(saldo(anterior)));
+        }
+    }
+
+    public void invalidar(Long empresaId) {
+        bases.remove(empresaId);
+    }
+
+    private Mono<BaseProjecao> obterBase(Long empresaId) {
+        BaseProjecao atual = bases.get(empresaId);
+        if (atual != null && atual.carregadaEm.plus(VALIDADE_BASE).isAfter(Instant.now())) {
+            return Mono.just(atual);
+        }
+
+        // Uma consulta agregada para o que está em aberto e outra para o histórico de atraso
+        Mono<Map<ChaveAberta, Acumulado>> abertas = comissaoRepository.agregarAbertasPorPrevisao(empresaId)
+            .filter(linha -> linha.getDataPrevisaoPagamento() != null)
+            .collectMap(
+                linha -> new ChaveAberta(linha.getFabricaId(), linha.getCorretorId(), linha.getDataPrevisaoPagamento()),
+                linha -> Acumulado.de(linha.getQuantidade(), linha.getValorTotal()));
+        Mono<List<AtrasoPagamentoFabricaDTO>> atrasos = comissaoRepository
+            .estatisticasAtrasoPorFabrica(empresaId, LocalDate.now().minusMonths(MESES_HISTORICO_ATRASO))
+            .collectList();
+
+        return Mono.zip(abertas, atrasos)
+            .map(tupla -> {
+                BaseProjecao base = new BaseProjecao(new ConcurrentHashMap<>(tupla.getT1()), modelarAtrasos(tupla.getT2()));
+                bases.put(empresaId, base);
+                return base;
+            });
+    }
+
+    private ModeloAtraso modelarAtrasos(List<AtrasoPagamentoFabricaDTO> estatisticas) {
+        Map<Long, Fator> porFabrica = estatisticas.stream()
+            .filter(estatistica -> estatistica.getFabricaId() != null)
+            .filter(estatistica -> amostra(estatistica) >= AMOSTRA_MINIMA_ATRASO)
+            .collect(Collectors.toMap(AtrasoPagamentoFabricaDTO::getFabricaId, this::fator));
+
+        // Fator geral: atraso mediano ponderado pelo número de pagamentos e taxa de realização da empresa
+        long pagas = estatisticas.stream().mapToLong(e -> valorOuZero(e.getPagas())).sum();
+        long canceladas = estatisticas.stream().mapToLong(e -> valorOuZero(e.getCanceladas())).sum();
+        double atrasoPonderado = estatisticas.stream()
+            .filter(e -> e.getAtrasoMediano() != null)
+            .mapToDouble(e -> e.getAtrasoMediano() * valorOuZero(e.getPagas()))
+            .sum();
+        Fator geral = pagas + canceladas >= AMOSTRA_MINIMA_ATRASO
+            ? new Fator(Math.round(pagas > 0 ? atrasoPonderado / pagas : 0), taxaRealizacao(pagas, canceladas))
+            : Fator.NEUTRO;
+
+        return new ModeloAtraso(porFabrica, geral);
+    }
+
+    private Fator fator(AtrasoPagamentoFabricaDTO estatistica) {
+        long atraso = estatistica.getAtrasoMediano() != null ? Math.round(estatistica.getAtrasoMediano()) : 0L;
+        return new Fator(atraso, taxaRealizacao(valorOuZero(estatistica.getPagas()), valorOuZero(estatistica.getCanceladas())));
+    }
+
+    private ProjecaoFluxoCaixaDTO montarProjecao(Long empresaId, BaseProjecao base, GranularidadeProjecao tipo,
+            LocalDate hoje, LocalDate fim) {
+        LocalDate inicioAtual = tipo.inicioDoPeriodo(hoje);
+        Map<LocalDate, AcumuladorPeriodo> periodos = new TreeMap<>();
+
+        base.abertas.forEach((chave, acumulado) -> {
+            if (acumulado.quantidade <= 0) {
+                return;
+            }
+            Fator fator = base.modelo.fatorDa(chave.fabricaId);
+
+            // Comissões já vencidas entram no período corrente
+            LocalDate prevista = maior(chave.dataPrevisao, hoje);
+            LocalDate esperada = maior(chave.dataPrevisao.plusDays(fator.atrasoDias), hoje);
+
+            if (!prevista.isAfter(fim)) {
+                periodos.computeIfAbsent(tipo.inicioDoPeriodo(prevista), AcumuladorPeriodo::new)
+                    .somarPrevisto(chave, acumulado);
+            }
+            if (!esperada.isAfter(fim)) {
+                periodos.computeIfAbsent(tipo.inicioDoPeriodo(esperada), AcumuladorPeriodo::new)
+                    .somarAjustado(chave, acumulado.valor.multiply(fator.taxaRealizacao));
+            }
+        });
+
+        List<ProjecaoFluxoCaixaDTO.Periodo> resultado = periodos.values().stream()
+            .map(periodo -> periodo.paraDTO(tipo))
+            .collect(Collectors.toList());
+
+        return ProjecaoFluxoCaixaDTO.builder()
+            .empresaId(empresaId)
+            .granularidade(tipo.name())
+            .dataInicio(inicioAtual)
+            .dataFim(fim)
+            .quantidadeTotal(resultado.stream().mapToLong(ProjecaoFluxoCaixaDTO.Periodo::getQuantidade).sum())
+            .valorTotalPrevisto(somar(resultado, ProjecaoFluxoCaixaDTO.Periodo::getValorPrevisto))
+            .valorTotalAjustado(somar(resultado, ProjecaoFluxoCaixaDTO.Periodo::getValorAjustado))
+            .periodos(resultado)
+            .build();
+    }
+
+    private void movimentar(Comissao comissao, Long quantidade, BigDecimal valor) {
+        BaseProjecao base = bases.get(comissao.getEmpresaId());
+        if (base == null || comissao.getDataPrevisaoPagamento() == null) {
+            return;
+        }
+        ChaveAberta chave = new ChaveAberta(comissao.getFabricaId(), comissao.getCorretorId(), comissao.getDataPrevisaoPagamento());
+        base.abertas.merge(chave, Acumulado.de(quantidade, valor), Acumulado::somar);
+    }
+
+    private boolean emAberto(String status) {
+        return "PENDENTE".equals(status) || "VENCIDA".equals(status);
+    }
+
+    private BigDecimal saldo(Comissao comissao) {
+        return valorOuZero(comissao.getValorComissao()).subtract(valorOuZero(comissao.getValorPago()));
+    }
+
+    private static BigDecimal valorOuZero(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal taxaRealizacao(long pagas, long canceladas) {
+        if (pagas + canceladas == 0) {
+            return BigDecimal.ONE;
+        }
+        return BigDecimal.valueOf(pagas).divide(BigDecimal.valueOf(pagas + canceladas), 4, RoundingMode.HALF_UP);
+    }
+
+    private static long amostra(AtrasoPagamentoFabricaDTO estatistica) {
+        return valorOuZero(estatistica.getPagas()) + valorOuZero(estatistica.getCanceladas());
+    }
+
+    private static long valorOuZero(Long valor) {
+        return valor != null ? valor : 0L;
+    }
+
+    private static LocalDate maior(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static <T> BigDecimal somar(List<T> itens, Function<T, BigDecimal> valor) {
+        return itens.stream().map(valor).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private record ChaveAberta(Long fabricaId, Long corretorId, LocalDate dataPrevisao) {
+    }
+
+    private record Acumulado(long quantidade, BigDecimal valor) {
+        static Acumulado de(Long quantidade, BigDecimal valor) {
+            return new Acumulado(quantidade != null ? quantidade : 0L, valor != null ? valor : BigDecimal.ZERO);
+        }
+
+        Acumulado somar(Acumulado outro) {
+            return new Acumulado(quantidade + outro.quantidade, valor.add(outro.valor));
+        }
+    }
+
+    private record Fator(long atrasoDias, BigDecimal taxaRealizacao) {
+        static final Fator NEUTRO = new Fator(0L, BigDecimal.ONE);
+    }
+
+    private record ModeloAtraso(Map<Long, Fator> porFabrica, Fator geral) {
+        Fator fatorDa(Long fabricaId) {
+            return fabricaId != null ? porFabrica.getOrDefault(fabricaId, geral) : geral;
+        }
+    }
+
+    private static class BaseProjecao {
+        private final Map<ChaveAberta, Acumulado> abertas;
+        private final ModeloAtraso modelo;
+        private final Instant carregadaEm = Instant.now();
+
+        BaseProjecao(Map<ChaveAberta, Acumulado> abertas, ModeloAtraso modelo) {
+            this.abertas = abertas;
+            this.modelo = modelo;
+        }
+    }
+
+    private static class AcumuladorPeriodo {
+        private final LocalDate inicio;
+        private long quantidade;
+        private BigDecimal valorPrevisto = BigDecimal.ZERO;
+        private BigDecimal valorAjustado = BigDecimal.ZERO;
+        private final Map<Long, ProjecaoFluxoCaixaDTO.Parcela> porFabrica = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        private final Map<Long, ProjecaoFluxoCaixaDTO.Parcela> porCorretor = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        AcumuladorPeriodo(LocalDate inicio) {
+            this.inicio = inicio;
+        }
+
+        void somarPrevisto(ChaveAberta chave, Acumulado acumulado) {
+            quantidade += acumulado.quantidade;
+            valorPrevisto = valorPrevisto.add(acumulado.valor);
+            for (ProjecaoFluxoCaixaDTO.Parcela parcela : parcelas(chave)) {
+                parcela.setQuantidade(parcela.getQuantidade() + acumulado.quantidade);
+                parcela.setValorPrevisto(parcela.getValorPrevisto().add(acumulado.valor));
+            }
+        }
+
+        void somarAjustado(ChaveAberta chave, BigDecimal valor) {
+            valorAjustado = valorAjustado.add(valor);
+            for (ProjecaoFluxoCaixaDTO.Parcela parcela : parcelas(chave)) {
+                parcela.setValorAjustado(parcela.getValorAjustado().add(valor));
+            }
+        }
+
+        ProjecaoFluxoCaixaDTO.Periodo paraDTO(GranularidadeProjecao tipo) {
+            return ProjecaoFluxoCaixaDTO.Periodo.builder()
+                .inicio(inicio)
+                .fim(tipo.fimDoPeriodo(inicio))
+                .quantidade(quantidade)
+                .valorPrevisto(valorPrevisto)
+                .valorAjustado(valorAjustado.setScale(2, RoundingMode.HALF_UP))
+                .porFabrica(arredondar(porFabrica))
+                .porCorretor(arredondar(porCorretor))
+                .build();
+        }
+
+        private List<ProjecaoFluxoCaixaDTO.Parcela> parcelas(ChaveAberta chave) {
+            return List.of(
+                porFabrica.computeIfAbsent(chave.fabricaId, AcumuladorPeriodo::novaParcela),
+                porCorretor.computeIfAbsent(chave.corretorId, AcumuladorPeriodo::novaParcela));
+        }
+
+        private static ProjecaoFluxoCaixaDTO.Parcela novaParcela(Long id) {
+            return new ProjecaoFluxoCaixaDTO.Parcela(id, 0L, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+
+        private static List<ProjecaoFluxoCaixaDTO.Parcela> arredondar(Map<Long, ProjecaoFluxoCaixaDTO.Parcela> parcelas) {
+            List<ProjecaoFluxoCaixaDTO.Parcela> lista = new ArrayList<>(parcelas.values());
+            lista.forEach(parcela -> parcela.setValorAjustado(parcela.getValorAjustado().setScale(2, RoundingMode.HALF_UP)));
+            return lista;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.RankingCorretorDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ranking de corretores por valor de comissão no mês corrente. Os totais de cada empresa ficam em
+ * contadores em memória alimentados pelas alterações de comissão e são reconciliados periodicamente
+ * com o banco, o que corrige reinícios e alterações feitas por outras instâncias.
+ */
+@Slf4j
+@Service
+public class RankingCorretorService {
+
+    private static final int LIMITE_PADRAO = 10;
+    private static final int LIMITE_MAXIMO = 100;
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    private final Map<ChavePlacar, Placar> placares = new ConcurrentHashMap<>();
+
+    public Mono<List<RankingCorretorDTO>> obterRanking(Long empresaId, Integer limite) {
+        return Mono.defer(() -> {
+            if (empresaId == null) {
+                return Mono.error(new BusinessException("Empresa é obrigatória para o ranking"));
+            }
+            int k = limite == null || limite <= 0 ? LIMITE_PADRAO : Math.min(limite, LIMITE_MAXIMO);
+            return obterPlacar(new ChavePlacar(empresaId, YearMonth.now()))
+                .map(placar -> placar.maiores(k));
+        });
+    }
+
+    public void registrarInclusao(Comissao comissao) {
+        if (contaNoRanking(comissao.getStatus())) {
+            movimentar(comissao, 1L, valorDe(comissao));
+        }
+    }
+
+    public void registrarExclusao(Comissao comissao) {
+        if (contaNoRanking(comissao.getStatus())) {
+            movimentar(comissao, -1L, valorDe(comissao).negate());
+        }
+    }
+
+    public void registrarAlteracaoValor(Comissao comissao, BigDecimal valorAnterior) {
+        if (contaNoRanking(comissao.getStatus())) {
+            BigDecimal anterior = valorAnterior != null ? valorAnterior : BigDecimal.ZERO;
+            movimentar(comissao, 0L, valorDe(comissao).subtract(anterior));
+        }
+    }
+
+    public void registrarMudancaStatus(Comissao comissao, String statusAnterior) {
+        boolean contava = contaNoRanking(statusAnterior);
+        boolean conta = contaNoRanking(comissao.getStatus());
+        if (contava && !conta) {
+            movimentar(comissao, -1L, valorDe(comissao).negate());
+        } else if (!contava && conta) {
+            movimentar(comissao, 1L, valorDe(comissao));
+        }
+    }
+
+    // Descarta os placares da empresa após alterações feitas fora dos ganchos (ex.: recálculo em massa)
+    public void invalidar(Long empresaId) {
+        placares.keySet().removeIf(chave -> chave.empresaId().equals(empresaId));
+    }
+
+    // Recarrega do banco os placares em uso e descarta os de meses anteriores
+    @Scheduled(fixedDelayString = "${comissoes.ranking.reconciliacao-ms:300000}")
+    public void reconciliar() {
+        YearMonth mesAtual = YearMonth.now();
+        placares.keySet().removeIf(chave -> !chave.mes().equals(mesAtual));
+
+        Long reconciliados = Flux.fromIterable(new ArrayList<>(placares.keySet()))
+            .concatMap(chave -> carregar(chave)
+                .doOnNext(placar -> placares.put(chave, placar)))
+            .count()
+            .onErrorResume(e -> {
+                log.error("Falha ao reconciliar ranking de corretores", e);
+                return Mono.just(0L);
+            })
+            .block();
+        log.debug("Ranking de corretores reconciliado - Placares: {}", reconciliados);
+    }
+
+    private Mono<Placar> obterPlacar(ChavePlacar chave) {
+        Placar atual = placares.get(chave);
+        if (atual != null) {
+            return Mono.just(atual);
+        }
+        return carregar(chave)
+            .map(placar -> {
+                Placar existente = placares.putIfAbsent(chave, placar);
+                return existente != null ? existente : placar;
+            });
+    }
+
+    private Mono<Placar> carregar(ChavePlacar chave) {
+        return comissaoRepository.totalizarPorCorretor(chave.empresaId(), chave.mes().atDay(1), chave.mes().atEndOfMonth())
+            .collectList()
+            .map(Placar::de);
+    }
+
+    private void movimentar(Comissao comissao, long quantidade, BigDecimal valor) {
+        if (comissao.getCorretorId() == null || comissao.getDataVenda() == null) {
+            return;
+        }
+        // Só há o que atualizar se o placar do mês já estiver carregado
+        Placar placar = placares.get(new ChavePlacar(comissao.getEmpresaId(), YearMonth.from(comissao.getDataVenda())));
+        if (placar != null) {
+            placar.somar(comissao.getCorretorId(), quantidade, centavos(valor));
+        }
+    }
+
+    private boolean contaNoRanking(String status) {
+        return status != null && !"CANCELADO".equals(status);
+    }
+
+    private BigDecimal valorDe(Comissao comissao) {
+        return comissao.getValorComissao() != null ? comissao.getValorComissao() : BigDecimal.ZERO;
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record ChavePlacar(Long empresaId, YearMonth mes) {
+    }
+
+    // LongAdder distribui as atualizações concorrentes entre células, evitando disputa no mesmo contador
+    private record Contador(LongAdder quantidade, LongAdder centavos) {
+        Contador() {
+            this(new LongAdder(), new LongAdder());
+        }
+    }
+
+    private record Posicao(Long corretorId, long quantidade, long centavos) {
+    }
+
+    private static class Placar {
+        private static final Comparator<Posicao> POR_VALOR = Comparator
+            .comparingLong(Posicao::centavos)
+            .thenComparing(Posicao::corretorId, Comparator.reverseOrder());
+
+        private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+
+        static Placar de(List<RankingCorretorDTO> totais) {
+            Placar placar = new Placar();
+            for (RankingCorretorDTO total : totais) {
+                placar.somar(
+                    total.getCorretorId(),
+                    total.getQuantidade() != null ? total.getQuantidade() : 0L,
+                    centavos(total.getValorTotal() != null ? total.getValorTotal() : BigDecimal.ZERO));
+            }
+            return placar;
+        }
+
+        void somar(Long corretorId, long quantidade, long centavos) {
+            Contador contador = contadores.computeIfAbsent(corretorId, id -> new Contador());
+            contador.quantidade().add(quantidade);
+            contador.centavos().add(centavos);
+        }
+
+        // Heap mínimo de tamanho k: O(n log k) sem ordenar todos os corretores
+        List<RankingCorretorDTO> maiores(int k) {
+            PriorityQueue<Posicao> heap = new PriorityQueue<>(k + 1, POR_VALOR);
+            contadores.forEach((corretorId, contador) -> {
+                long quantidade = contador.quantidade().sum();
+                if (quantidade <= 0) {
+                    return;
+                }
+                heap.offer(new Posicao(corretorId, quantidade, contador.centavos().sum()));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            });
+
+            List<Posicao> ordenadas = new ArrayList<>(heap);
+            ordenadas.sort(POR_VALOR.reversed());
+
+            List<RankingCorretorDTO> ranking = new ArrayList<>(ordenadas.size());
+            for (int i = 0; i < ordenadas.size(); i++) {
+                Posicao posicao = ordenadas.get(i);
+                ranking.add(RankingCorretorDTO.builder()
+                    .posicao(i + 1)
+                    .corretorId(posicao.corretorId())
+                    .quantidade(posicao.quantidade())
+                    .valorTotal(BigDecimal.valueOf(posicao.centavos(), 2))
+                    .build());
+            }
+            return ranking;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.RecalculoComissaoItemDTO;
+import br.com.corretor.repository.ComissaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class RecalculoComissaoLoteService {
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    @Autowired
+    private LancamentoComissaoService lancamentoComissaoService;
+
+    // Recalcula um lote e registra os ajustes no razão na mesma transação
+    @Transactional
+    public Mono<List<RecalculoComissaoItemDTO>> recalcularLote(Long fabricaId, String[] tipos, Integer[] pontosBase,
+                                                             LocalDate dataInicio, LocalDate dataFim,
+                                                             Long cursorId, int limite) {
+        return comissaoRepository.recalcularPercentuais(fabricaId, tipos, pontosBase, dataInicio, dataFim, cursorId, limite)
+            .collectList()
+            .flatMap(itens -> {
+                List<Long> comissaoIds = new ArrayList<>(itens.size());
+                List<BigDecimal> diferencas = new ArrayList<>(itens.size());
+                for (RecalculoComissaoItemDTO item : itens) {
+                    BigDecimal diferenca = valorDe(item.getValorNovo()).subtract(valorDe(item.getValorAnterior()));
+                    if (diferenca.signum() != 0) {
+                        comissaoIds.add(item.getComissaoId());
+                        diferencas.add(diferenca);
+                    }
+                }
+                return lancamentoComissaoService.registrarAjustesEmLote(comissaoIds, diferencas, "Recálculo de percentual da fábrica")
+                    .thenReturn(itens);
+            });
+    }
+
+    private BigDecimal valorDe(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+}
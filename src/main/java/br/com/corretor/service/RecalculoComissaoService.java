@@ -0,0 +1,152 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.RecalculoComissaoItemDTO;
+import br.com.corretor.dto.RecalculoComissaoProgressoDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.exception.ResourceNotFoundException;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.TabelaComissao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recalcula as comissões em aberto de uma fábrica quando os percentuais por tipo de venda mudam.
+ * Cada lote é um único UPDATE em vendas e comissões junto às novas taxas, em sua própria transação;
+ * o progresso e o antes/depois de cada lote são emitidos à medida que os lotes terminam.
+ */
+@Slf4j
+@Service
+public class RecalculoComissaoService {
+
+    private static final int TAMANHO_LOTE = 1000;
+    private static final int TENTATIVAS_LOTE = 3;
+
+    @Autowired
+    private FabricaRepository fabricaRepository;
+
+    @Autowired
+    private RecalculoComissaoLoteService recalculoComissaoLoteService;
+
+    @Autowired
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    @Autowired
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Autowired
+    private RankingCorretorService rankingCorretorService;
+
+    @Autowired
+    private VendaAnaliseService vendaAnaliseService;
+
+    @Autowired
+    private CuboVendaService cuboVendaService;
+
+    public Flux<RecalculoComissaoProgressoDTO> recalcular(Long fabricaId, LocalDate dataInicio, LocalDate dataFim) {
+        if (dataInicio != null && dataFim != null && dataInicio.isAfter(dataFim)) {
+            return Flux.error(new BusinessException("Data inicial deve ser anterior à data final"));
+        }
+        return fabricaRepository.findById(fabricaId)
+            .switchIfEmpty(Mono.error(new ResourceNotFoundException("Fábrica não encontrada")))
+            .flatMapMany(fabrica -> recalcular(fabrica, dataInicio, dataFim));
+    }
+
+    private Flux<RecalculoComissaoProgressoDTO> recalcular(Fabrica fabrica, LocalDate dataInicio, LocalDate dataFim) {
+        TabelaComissao tabela;
+        try {
+            tabela = TabelaComissao.compilar(fabrica.getId(), fabrica.getPercentuaisComissao());
+        } catch (BusinessException e) {
+            return Flux.error(e);
+        }
+        if (tabela.getPontosBase().isEmpty()) {
+            return Flux.error(new BusinessException("Fábrica não possui percentuais de comissão cadastrados"));
+        }
+        String[] tipos = tabela.getPontosBase().keySet().toArray(new String[0]);
+        Integer[] pontosBase = new Integer[tipos.length];
+        for (int i = 0; i < tipos.length; i++) {
+            pontosBase[i] = tabela.pontosBase(tipos[i]);
+        }
+
+        long inicio = System.currentTimeMillis();
+        AtomicInteger lotes = new AtomicInteger();
+        AtomicLong total = new AtomicLong();
+
+        Flux<RecalculoComissaoProgressoDTO> progresso = executarLote(fabrica.getId(), tipos, pontosBase, dataInicio, dataFim, 0L)
+            .expand(itens -> itens.size() < TAMANHO_LOTE
+                ? Mono.empty()
+                : executarLote(fabrica.getId(), tipos, pontosBase, dataInicio, dataFim, ultimaVenda(itens)))
+            .filter(itens -> !itens.isEmpty())
+            .map(itens -> {
+                int lote = lotes.incrementAndGet();
+                long alteradas = total.addAndGet(itens.size());
+                log.info("Recálculo de comissões - Fábrica: {}, Lote: {}, Alteradas: {}, Total: {}",
+                    fabrica.getId(), lote, itens.size(), alteradas);
+                return RecalculoComissaoProgressoDTO.builder()
+                    .fabricaId(fabrica.getId())
+                    .lote(lote)
+                    .alteradasNoLote(itens.size())
+                    .totalAlteradas(alteradas)
+                    .cursor(ultimaVenda(itens))
+                    .concluido(false)
+                    .duracaoMs(System.currentTimeMillis() - inicio)
+                    .itens(itens)
+                    .build();
+            });
+
+        Mono<RecalculoComissaoProgressoDTO> conclusao = Mono.defer(() -> {
+            Mono<Integer> resumo = total.get() > 0
+                ? comissaoResumoMensalService.reconstruir(fabrica.getEmpresaId())
+                : Mono.just(0);
+            return resumo.map(r -> {
+                // Os valores mudaram fora dos ganchos de alteração: descarta as visões em memória da empresa
+                projecaoFluxoCaixaService.invalidar(fabrica.getEmpresaId());
+                rankingCorretorService.invalidar(fabrica.getEmpresaId());
+                vendaAnaliseService.invalidar(fabrica.getEmpresaId());
+                cuboVendaService.invalidar(fabrica.getEmpresaId());
+                long duracao = System.currentTimeMillis() - inicio;
+                log.info("Recálculo de comissões concluído - Fábrica: {}, Lotes: {}, Alteradas: {}, Tempo: {} ms",
+                    fabrica.getId(), lotes.get(), total.get(), duracao);
+                return RecalculoComissaoProgressoDTO.builder()
+                    .fabricaId(fabrica.getId())
+                    .lote(lotes.get())
+                    .alteradasNoLote(0)
+                    .totalAlteradas(total.get())
+                    .concluido(true)
+                    .duracaoMs(duracao)
+                    .itens(List.of())
+                    .build();
+            });
+        });
+
+        return progresso.concatWith(conclusao)
+            .doOnError(e -> log.error("Falha no recálculo de comissões - Fábrica: {}", fabrica.getId(), e));
+    }
+
+    // Disputa de sequência no razão desfaz o lote inteiro, que é então repetido
+    private Mono<List<RecalculoComissaoItemDTO>> executarLote(Long fabricaId, String[] tipos, Integer[] pontosBase,
+                                                            LocalDate dataInicio, LocalDate dataFim, Long cursorId) {
+        return Mono.defer(() -> recalculoComissaoLoteService.recalcularLote(
+                fabricaId, tipos, pontosBase, dataInicio, dataFim, cursorId, TAMANHO_LOTE))
+            .retryWhen(Retry.max(TENTATIVAS_LOTE)
+                .filter(DataIntegrityViolationException.class::isInstance)
+                .onRetryExhaustedThrow((spec, sinal) -> sinal.failure()));
+    }
+
+    private Long ultimaVenda(List<RecalculoComissaoItemDTO> itens) {
+        return itens.stream()
+            .mapToLong(RecalculoComissaoItemDTO::getVendaId)
+            .max()
+            .orElse(0L);
+    }
+}
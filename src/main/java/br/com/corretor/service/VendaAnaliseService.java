@@ -0,0 +1,140 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.VendaAnaliseDTO;
+import br.com.corretor.enums.DimensaoVenda;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.util.CacheLru;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Totais de vendas (quantidade, valor de venda e de comissão) agrupados pelas dimensões pedidas num
+ * período. Uma única consulta com GROUPING SETS devolve a combinação das dimensões, o subtotal de cada
+ * uma e o total geral; o resultado fica em cache por empresa, período e dimensões até expirar ou até
+ * uma venda da empresa ser alterada.
+ */
+@Service
+public class VendaAnaliseService {
+
+    private static final int TAMANHO_CACHE = 1_000;
+    private static final Duration VALIDADE = Duration.ofMinutes(5);
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final CacheLru<ChaveAnalise, List<VendaAnaliseDTO>> resultados = new CacheLru<>(TAMANHO_CACHE, VALIDADE);
+
+    public Mono<List<VendaAnaliseDTO>> analisar(Long empresaId, LocalDate dataInicio, LocalDate dataFim, List<String> dimensoes) {
+        return Mono.defer(() -> {
+            if (empresaId == null) {
+                return Mono.error(new BusinessException("Empresa é obrigatória para a análise de vendas"));
+            }
+            if (dataInicio == null || dataFim == null) {
+                return Mono.error(new BusinessException("Período é obrigatório para a análise de vendas"));
+            }
+            if (dataFim.isBefore(dataInicio)) {
+                return Mono.error(new BusinessException("Data final deve ser posterior à data inicial"));
+            }
+            // A ordem pedida não altera o resultado: normaliza para reaproveitar o cache
+            List<DimensaoVenda> agrupamento = (dimensoes == null ? List.<String>of() : dimensoes).stream()
+                .map(DimensaoVenda::fromString)
+                .distinct()
+                .sorted(Comparator.naturalOrder())
+                .toList();
+            if (agrupamento.isEmpty()) {
+                return Mono.error(new BusinessException("Informe ao menos uma dimensão para a análise de vendas"));
+            }
+
+            ChaveAnalise chave = new ChaveAnalise(empresaId, dataInicio, dataFim, agrupamento);
+            List<VendaAnaliseDTO> emCache = resultados.obter(chave);
+            if (emCache != null) {
+                return Mono.just(emCache);
+            }
+            long geracao = resultados.geracao();
+            return consultar(chave)
+                .collectList()
+                .map(List::copyOf)
+                .doOnNext(linhas -> resultados.guardar(chave, linhas, geracao));
+        });
+    }
+
+    // Chamado a cada alteração de venda da empresa
+    public void invalidar(Long empresaId) {
+        resultados.invalidarSe(chave -> chave.empresaId().equals(empresaId));
+    }
+
+    private Flux<VendaAnaliseDTO> consultar(ChaveAnalise chave) {
+        List<DimensaoVenda> dimensoes = chave.dimensoes();
+        String expressoes = dimensoes.stream().map(DimensaoVenda::getExpressao).collect(Collectors.joining(", "));
+
+        List<String> conjuntos = new ArrayList<>();
+        conjuntos.add("(" + expressoes + ")");
+        if (dimensoes.size() > 1) {
+            dimensoes.forEach(dimensao -> conjuntos.add("(" + dimensao.getExpressao() + ")"));
+        }
+        conjuntos.add("()");
+
+        String sql = "SELECT " +
+            dimensoes.stream().map(d -> d.getExpressao() + " AS " + coluna(d)).collect(Collectors.joining(", ")) + ", " +
+            "GROUPING(" + expressoes + ") AS grupo, COUNT(*) AS quantidade, " +
+            "COALESCE(SUM(valor_venda), 0) AS valor_venda, COALESCE(SUM(valor_comissao), 0) AS valor_comissao " +
+            "FROM vendas WHERE empresa_id = :empresaId AND data_venda BETWEEN :dataInicio AND :dataFim " +
+            "GROUP BY GROUPING SETS (" + String.join(", ", conjuntos) + ") " +
+            "ORDER BY grupo, " + dimensoes.stream().map(VendaAnaliseService::coluna).collect(Collectors.joining(", "));
+
+        return databaseClient.sql(sql)
+            .bind("empresaId", chave.empresaId())
+            .bind("dataInicio", chave.dataInicio())
+            .bind("dataFim", chave.dataFim())
+            .map((row, metadata) -> toDTO(row, dimensoes))
+            .all();
+    }
+
+    private VendaAnaliseDTO toDTO(Row row, List<DimensaoVenda> dimensoes) {
+        // GROUPING() liga o bit de cada dimensão fora do agrupamento, a primeira no bit mais alto
+        int grupo = row.get("grupo", Integer.class);
+        VendaAnaliseDTO dto = VendaAnaliseDTO.builder()
+            .agrupadoPor(new ArrayList<>())
+            .quantidade(row.get("quantidade", Long.class))
+            .valorVenda(row.get("valor_venda", BigDecimal.class))
+            .valorComissao(row.get("valor_comissao", BigDecimal.class))
+            .build();
+        for (int i = 0; i < dimensoes.size(); i++) {
+            if ((grupo >> (dimensoes.size() - 1 - i) & 1) == 1) {
+                continue;
+            }
+            DimensaoVenda dimensao = dimensoes.get(i);
+            dto.getAgrupadoPor().add(dimensao.getNome());
+            switch (dimensao) {
+                case TIPO_VENDA -> dto.setTipoVenda(row.get(coluna(dimensao), String.class));
+                case EVENTO -> dto.setEvento(row.get(coluna(dimensao), String.class));
+                case FABRICA -> dto.setFabricaId(row.get(coluna(dimensao), Long.class));
+                case CORRETOR -> dto.setCorretorId(row.get(coluna(dimensao), Long.class));
+                case CLIENTE -> dto.setClienteId(row.get(coluna(dimensao), Long.class));
+                case FORMA_PAGAMENTO -> dto.setFormaPagamento(row.get(coluna(dimensao), String.class));
+                case MES -> dto.setMes(row.get(coluna(dimensao), LocalDate.class));
+            }
+        }
+        return dto;
+    }
+
+    private static String coluna(DimensaoVenda dimensao) {
+        return dimensao.name().toLowerCase(Locale.ROOT);
+    }
+
+    private record ChaveAnalise(Long empresaId, LocalDate dataInicio, LocalDate dataFim, List<DimensaoVenda> dimensoes) {
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.corretor.service;
+
+import br.com.corretor.enums.TipoEventoVenda;
+import br.com.corretor.model.Venda;
+import br.com.corretor.model.VendaEvento;
+import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.repository.VendaEventoRepository;
+import br.com.corretor.repository.VendaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+@Service
+public class VendaEventoProcessamentoService {
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ComissaoRepository comissaoRepository;
+
+    @Autowired
+    private VendaEventoRepository vendaEventoRepository;
+
+    @Autowired
+    private ComissaoService comissaoService;
+
+    @Autowired
+    private CuboVendaService cuboVendaService;
+
+    // Aplica o evento à comissão e o marca como processado na mesma transação. Cada evento pode ser
+    // entregue de novo se a instância cair antes do commit, então a aplicação precisa ser idempotente:
+    // as comissões são sempre alinhadas ao estado atual da venda, não ao conteúdo do evento.
+    @Transactional
+    public Mono<Void> processar(VendaEvento evento) {
+        return aplicar(evento)
+            .then(vendaEventoRepository.concluir(evento.getId()))
+            .then();
+    }
+
+    private Mono<Void> aplicar(VendaEvento evento) {
+        return switch (TipoEventoVenda.valueOf(evento.getTipo())) {
+            // Venda já excluída ou comissão já gerada: nada a fazer
+            case CRIADA -> vendaRepository.findById(evento.getVendaId())
+                .doOnNext(cuboVendaService::registrar)
+                .filterWhen(venda -> comissaoRepository.findByVendaId(venda.getId()).hasElements().map(existe -> !existe))
+                .flatMap(comissaoService::gerarComissao);
+            // Venda excluída depois da alteração: o evento de exclusão cuida da comissão
+            case ATUALIZADA -> vendaRepository.findById(evento.getVendaId())
+                .doOnNext(cuboVendaService::registrar)
+                .flatMap(comissaoService::atualizarComissao);
+            case EXCLUIDA -> comissaoService.excluirComissao(vendaExcluida(evento.getVendaId()))
+                .doOnSuccess(v -> cuboVendaService.remover(evento.getEmpresaId(), evento.getVendaId()));
+        };
+    }
+
+    // A venda já não existe; a comissão é localizada só pelo id da venda
+    private Venda vendaExcluida(Long vendaId) {
+        Venda venda = new Venda();
+        venda.setId(vendaId);
+        return venda;
+    }
+}
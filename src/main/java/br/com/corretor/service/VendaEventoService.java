@@ -0,0 +1,101 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.VendaEvento;
+import br.com.corretor.repository.VendaEventoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Repassa às comissões os eventos de venda gravados no outbox. Os eventos são reservados em lotes,
+ * aplicados em paralelo entre vendas diferentes e em ordem dentro de cada venda; um evento que falha
+ * volta para a fila com espera crescente e bloqueia os seguintes da mesma venda até ser aplicado.
+ */
+@Slf4j
+@Service
+public class VendaEventoService {
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final int CONCORRENCIA = 8;
+    private static final int RESERVA_SEGUNDOS = 60;
+    private static final int ESPERA_MAXIMA_SEGUNDOS = 300;
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+    private static final int TENTATIVAS_CONFLITO = 3;
+
+    @Value("${vendas.eventos.retencao-dias:7}")
+    private int retencaoDias;
+
+    @Autowired
+    private VendaEventoRepository vendaEventoRepository;
+
+    @Autowired
+    private VendaEventoProcessamentoService vendaEventoProcessamentoService;
+
+    @Scheduled(fixedDelayString = "${vendas.eventos.intervalo-ms:1000}")
+    public void processarPendentesAgendado() {
+        processarPendentes()
+            .doOnError(e -> log.error("Falha ao processar eventos de venda", e))
+            .onErrorResume(e -> Mono.empty())
+            .block();
+    }
+
+    @Scheduled(cron = "${vendas.eventos.limpeza-cron:0 30 3 * * *}")
+    public void limparProcessadosAgendado() {
+        vendaEventoRepository.excluirProcessadosAntesDe(LocalDateTime.now().minusDays(retencaoDias))
+            .doOnNext(excluidos -> log.info("Eventos de venda processados removidos: {}", excluidos))
+            .block();
+    }
+
+    // Processa lotes até não restar evento vencido; retorna quantos eventos foram aplicados
+    public Mono<Long> processarPendentes() {
+        long inicio = System.currentTimeMillis();
+        return processarLote()
+            .expand(resultados -> resultados.isEmpty() ? Mono.empty() : processarLote())
+            .map(resultados -> resultados.stream().filter(Boolean::booleanValue).count())
+            .reduce(0L, Long::sum)
+            .doOnNext(aplicados -> {
+                if (aplicados > 0) {
+                    log.info("Eventos de venda aplicados: {} em {} ms", aplicados, System.currentTimeMillis() - inicio);
+                }
+            });
+    }
+
+    private Mono<List<Boolean>> processarLote() {
+        return vendaEventoRepository.reservarPendentes(TAMANHO_LOTE, RESERVA_SEGUNDOS)
+            .sort(Comparator.comparing(VendaEvento::getId))
+            .flatMap(this::processar, CONCORRENCIA)
+            .collectList();
+    }
+
+    private Mono<Boolean> processar(VendaEvento evento) {
+        // Eventos de vendas do mesmo corretor disputam a sequência do razão: quem perde tem a transação
+        // desfeita e a repete na hora, em vez de esperar o reagendamento
+        return Mono.defer(() -> vendaEventoProcessamentoService.processar(evento))
+            .retryWhen(Retry.max(TENTATIVAS_CONFLITO)
+                .filter(DataIntegrityViolationException.class::isInstance)
+                .onRetryExhaustedThrow((spec, sinal) -> sinal.failure()))
+            .thenReturn(true)
+            .onErrorResume(e -> {
+                int tentativas = evento.getTentativas() != null ? evento.getTentativas() : 0;
+                int espera = (int) Math.min(ESPERA_MAXIMA_SEGUNDOS, 1L << Math.min(tentativas, 16));
+                log.warn("Falha ao aplicar evento de venda - Evento: {}, Venda: {}, Tipo: {}, Tentativa: {}, Nova tentativa em {} s",
+                    evento.getId(), evento.getVendaId(), evento.getTipo(), tentativas + 1, espera, e);
+                return vendaEventoRepository.reagendar(evento.getId(), resumir(e), espera)
+                    .thenReturn(false);
+            });
+    }
+
+    private String resumir(Throwable e) {
+        String mensagem = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return mensagem.length() > TAMANHO_MAXIMO_ERRO ? mensagem.substring(0, TAMANHO_MAXIMO_ERRO) : mensagem;
+    }
+}
@@ -1,11 +1,16 @@
 package br.com.corretor.service;
 
+import br.com.corretor.dto.PaginaDTO;
 import br.com.corretor.dto.VendaDTO;
+import br.com.corretor.enums.TipoEventoVenda;
+import br.com.corretor.exception.BusinessException;
 import br.com.corretor.model.Venda;
 import br.com.corretor.repository.VendaRepository;
-import br.com.corretor.repository.FabricaRepository;
-import br.com.corretor.repository.ClienteRepository;
-import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.VendaEventoRepository;
+import br.com.corretor.util.AposCommit;
+import br.com.corretor.util.BuscaTexto;
+import br.com.corretor.util.CronogramaParcelas;
+import br.com.corretor.util.CursorTexto;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,50 +21,54 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class VendaService {
 
+    private static final int TAMANHO_PAGINA_PADRAO = 50;
+    private static final int TAMANHO_PAGINA_MAXIMO = 500;
+    // Abaixo disso o índice de trigramas não é usado e a busca por trecho percorreria a empresa inteira
+    private static final int TAMANHO_MINIMO_TRECHO = 3;
+    private static final String MENSAGEM_PARCELAS_INVALIDAS =
+        "Quantidade de parcelas deve estar entre 1 e " + CronogramaParcelas.QUANTIDADE_MAXIMA;
+
 	@Autowired
 	private VendaRepository vendaRepository;
     
 	@Autowired
-	private FabricaRepository fabricaRepository;
-    
-	@Autowired
-	private ClienteRepository clienteRepository;
+	private CadastroCacheService cadastroCacheService;
     
 	@Autowired
-	private CorretorRepository corretorRepository;
+	private VendaEventoRepository vendaEventoRepository;
     
 	@Autowired
-	private ComissaoService comissaoService;
+	private VendaAnaliseService vendaAnaliseService;
 
     @Transactional
     public Mono<VendaDTO> criar(VendaDTO vendaDTO) {
+        if (!parcelasValidas(vendaDTO.getQuantidadeParcelas())) {
+            return Mono.error(new BusinessException(MENSAGEM_PARCELAS_INVALIDAS));
+        }
         return Mono.zip(
-                fabricaRepository.findById(vendaDTO.getFabricaId()),
-                clienteRepository.findById(vendaDTO.getClienteId()),
-                corretorRepository.findById(vendaDTO.getCorretorId())
+                cadastroCacheService.obterTabelaComissao(vendaDTO.getFabricaId()),
+                cadastroCacheService.obterCliente(vendaDTO.getClienteId()),
+                cadastroCacheService.obterCorretor(vendaDTO.getCorretorId())
             )
             .flatMap(tuple -> {
-                var fabrica = tuple.getT1();
+                var tabelaComissao = tuple.getT1();
                 var cliente = tuple.getT2();
                 var corretor = tuple.getT3();
 
-                // Validar e obter percentual de comissão da fábrica baseado no tipo de venda
-                BigDecimal percentualComissao = fabrica.getPercentualComissaoPorTipoVenda(vendaDTO.getTipoVenda());
-                
-                // Calcular valor da comissão
-                BigDecimal valorComissao = vendaDTO.getValorVenda()
-                    .multiply(percentualComissao)
-                    .divide(new BigDecimal("100"));
+                // Percentual da fábrica para o tipo de venda e comissão em centavos, com arredondamento bancário
+                BigDecimal percentualComissao = tabelaComissao.percentual(vendaDTO.getTipoVenda());
+                BigDecimal valorComissao = tabelaComissao.calcular(vendaDTO.getValorVenda(), vendaDTO.getTipoVenda());
 
                 Venda venda = new Venda();
                 venda.setEmpresaId(vendaDTO.getEmpresaId());
                 venda.setDataVenda(vendaDTO.getDataVenda() != null ? vendaDTO.getDataVenda() : LocalDate.now());
-                venda.setFabricaId(fabrica.getId());
+                venda.setFabricaId(tabelaComissao.getFabricaId());
                 venda.setClienteId(cliente.getId());
                 venda.setCorretorId(corretor.getId());
                 venda.setTipoVenda(vendaDTO.getTipoVenda());
@@ -71,32 +80,31 @@ public class VendaService {
                 venda.setFormaPagamento(vendaDTO.getFormaPagamento());
                 venda.setQuantidadeParcelas(vendaDTO.getQuantidadeParcelas());
 
+                // A comissão é gerada em segundo plano a partir do evento gravado na mesma transação
                 return vendaRepository.save(venda)
-                    .flatMap(vendaSalva -> {
-                        // Gerar comissão a receber
-                        return comissaoService.gerarComissao(vendaSalva)
-                            .thenReturn(toDTO(vendaSalva));
-                    });
+                    .flatMap(vendaSalva -> registrarEvento(vendaSalva, TipoEventoVenda.CRIADA)
+                        .thenReturn(toDTO(vendaSalva)));
             });
     }
 
     @Transactional
     public Mono<VendaDTO> atualizar(Long id, VendaDTO vendaDTO) {
+        if (!parcelasValidas(vendaDTO.getQuantidadeParcelas())) {
+            return Mono.error(new BusinessException(MENSAGEM_PARCELAS_INVALIDAS));
+        }
         return vendaRepository.findById(id)
             .flatMap(venda -> {
                 return Mono.zip(
-                    fabricaRepository.findById(vendaDTO.getFabricaId()),
-                    clienteRepository.findById(vendaDTO.getClienteId()),
-                    corretorRepository.findById(vendaDTO.getCorretorId())
+                    cadastroCacheService.obterTabelaComissao(vendaDTO.getFabricaId()),
+                    cadastroCacheService.obterCliente(vendaDTO.getClienteId()),
+                    cadastroCacheService.obterCorretor(vendaDTO.getCorretorId())
                 )
                 .flatMap(tuple -> {
-                    var fabrica = tuple.getT1();
+                    var tabelaComissao = tuple.getT1();
                     
                     // Atualizar campos
-                    BigDecimal percentualComissao = fabrica.getPercentualComissaoPorTipoVenda(vendaDTO.getTipoVenda());
-                    BigDecimal valorComissao = vendaDTO.getValorVenda()
-                        .multiply(percentualComissao)
-                        .divide(new BigDecimal("100"));
+                    BigDecimal percentualComissao = tabelaComissao.percentual(vendaDTO.getTipoVenda());
+                    BigDecimal valorComissao = tabelaComissao.calcular(vendaDTO.getValorVenda(), vendaDTO.getTipoVenda());
 
                     venda.setDataVenda(vendaDTO.getDataVenda());
                     venda.setFabricaId(vendaDTO.getFabricaId());
@@ -112,11 +120,8 @@ public class VendaService {
                     venda.setQuantidadeParcelas(vendaDTO.getQuantidadeParcelas());
 
                     return vendaRepository.save(venda)
-                        .flatMap(vendaAtualizada -> {
-                            // Atualizar comissão
-                            return comissaoService.atualizarComissao(vendaAtualizada)
-                                .thenReturn(toDTO(vendaAtualizada));
-                        });
+                        .flatMap(vendaAtualizada -> registrarEvento(vendaAtualizada, TipoEventoVenda.ATUALIZADA)
+                            .thenReturn(toDTO(vendaAtualizada)));
                 });
             });
     }
@@ -124,10 +129,15 @@ public class VendaService {
     @Transactional
     public Mono<Void> excluir(Long id) {
         return vendaRepository.findById(id)
-            .flatMap(venda -> {
-                return comissaoService.excluirComissao(venda)
-                    .then(vendaRepository.delete(venda));
-            });
+            .flatMap(venda -> vendaRepository.delete(venda)
+                .then(registrarEvento(venda, TipoEventoVenda.EXCLUIDA)));
+    }
+
+    // Outbox: as comissões acompanham a venda pelo VendaEventoService. A análise em cache só é descartada
+    // depois do commit; antes, uma leitura concorrente a recarregaria sem a venda e a guardaria de novo
+    private Mono<Void> registrarEvento(Venda venda, TipoEventoVenda tipo) {
+        return vendaEventoRepository.registrar(venda.getEmpresaId(), venda.getId(), tipo.name())
+            .then(AposCommit.executar(() -> vendaAnaliseService.invalidar(venda.getEmpresaId())));
     }
 
     public Mono<VendaDTO> buscarPorId(Long id) {
@@ -140,55 +150,53 @@ public class VendaService {
             String cidade, String estado, LocalDate dataInicio, LocalDate dataFim,
             BigDecimal valorMinimo, BigDecimal valorMaximo, String numeroNotaFiscal) {
         
-        return vendaRepository.findByEmpresaId(empresaId)
-            .filterWhen(venda -> {
-                // Verificar filtros básicos primeiro
-                if (clienteId != null && !venda.getClienteId().equals(clienteId)) {
-                    return Mono.just(false);
-                }
-                if (fabricaId != null && !venda.getFabricaId().equals(fabricaId)) {
-                    return Mono.just(false);
-                }
-                if (dataInicio != null && venda.getDataVenda().isBefore(dataInicio)) {
-                    return Mono.just(false);
-                }
-                if (dataFim != null && venda.getDataVenda().isAfter(dataFim)) {
-                    return Mono.just(false);
-                }
-                if (valorMinimo != null && venda.getValorVenda().compareTo(valorMinimo) < 0) {
-                    return Mono.just(false);
-                }
-                if (valorMaximo != null && venda.getValorVenda().compareTo(valorMaximo) > 0) {
-                    return Mono.just(false);
-                }
-                if (numeroNotaFiscal != null && !numeroNotaFiscal.equals(venda.getNumeroNotaFiscal())) {
-                    return Mono.just(false);
-                }
-
-                // Se não precisar verificar dados do cliente, retorna true
-                if (cnpj == null && cidade == null && estado == null) {
-                    return Mono.just(true);
-                }
-
-                // Verificar filtros que precisam consultar o cliente
-                return clienteRepository.findById(venda.getClienteId())
-                    .map(cliente -> {
-                        if (cnpj != null && !cnpj.equals(cliente.getCnpj())) {
-                            return false;
-                        }
-                        if (cidade != null && !cidade.equals(cliente.getCidade())) {
-                            return false;
-                        }
-                        if (estado != null && !estado.equals(cliente.getEstado())) {
-                            return false;
-                        }
-                        return true;
-                    })
-                    .defaultIfEmpty(false);
-            })
+        return vendaRepository.findComFiltros(empresaId, clienteId, fabricaId, dataInicio, dataFim,
+                valorMinimo, valorMaximo, numeroNotaFiscal, cnpj, cidade, estado)
             .map(this::toDTO);
     }
 
+    // Busca pelo início do número da nota fiscal ou, com contem, por um trecho em qualquer posição
+    public Mono<PaginaDTO<VendaDTO>> buscarPorNotaFiscal(Long empresaId, String termo, boolean contem,
+                                                         String cursor, Integer tamanho) {
+        return Mono.defer(() -> {
+            String valor = termo == null ? "" : termo.trim();
+            if (valor.isEmpty()) {
+                return Mono.error(new BusinessException("Informe o número da nota fiscal"));
+            }
+            if (contem && valor.length() < TAMANHO_MINIMO_TRECHO) {
+                return Mono.error(new BusinessException(
+                    "A busca por trecho da nota fiscal exige pelo menos " + TAMANHO_MINIMO_TRECHO + " caracteres"));
+            }
+            int tamanhoPagina = normalizarTamanhoPagina(tamanho);
+            CursorTexto posicao = CursorTexto.decodificar(cursor);
+            String cursorNota = posicao != null ? posicao.getTexto() : null;
+            Long cursorId = posicao != null ? posicao.getId() : null;
+
+            // Busca um registro a mais para saber se existe próxima página
+            Flux<Venda> vendas = contem
+                ? vendaRepository.findPorTrechoNotaFiscal(empresaId, BuscaTexto.padraoTrecho(valor), cursorNota, cursorId, tamanhoPagina + 1)
+                : vendaRepository.findPorPrefixoNotaFiscal(empresaId, valor, fimDoPrefixo(valor), cursorNota, cursorId, tamanhoPagina + 1);
+            return vendas
+                .map(this::toDTO)
+                .collectList()
+                .map(itens -> {
+                    boolean temProxima = itens.size() > tamanhoPagina;
+                    List<VendaDTO> pagina = temProxima ? itens.subList(0, tamanhoPagina) : itens;
+                    String proximoCursor = null;
+                    if (temProxima) {
+                        VendaDTO ultima = pagina.get(pagina.size() - 1);
+                        proximoCursor = new CursorTexto(ultima.getNumeroNotaFiscal(), ultima.getId()).codificar();
+                    }
+                    return PaginaDTO.<VendaDTO>builder()
+                        .itens(pagina)
+                        .tamanho(pagina.size())
+                        .proximoCursor(proximoCursor)
+                        .temProximaPagina(temProxima)
+                        .build();
+                });
+        });
+    }
+
     public Flux<VendaDTO> buscarPorCliente(Long empresaId, Long clienteId) {
         return vendaRepository.findByEmpresaIdAndClienteId(empresaId, clienteId)
             .map(this::toDTO);
@@ -229,6 +237,25 @@ public class VendaService {
             .map(this::toDTO);
     }
 
+    // Sem quantidade informada a comissão é paga em parcela única
+    private boolean parcelasValidas(Integer quantidadeParcelas) {
+        return quantidadeParcelas == null
+            || (quantidadeParcelas >= 1 && quantidadeParcelas <= CronogramaParcelas.QUANTIDADE_MAXIMA);
+    }
+
+    private int normalizarTamanhoPagina(Integer tamanho) {
+        if (tamanho == null || tamanho <= 0) {
+            return TAMANHO_PAGINA_PADRAO;
+        }
+        return Math.min(tamanho, TAMANHO_PAGINA_MAXIMO);
+    }
+
+    // Menor texto maior que todos os que começam com o prefixo, na ordem binária da collation "C"
+    static String fimDoPrefixo(String prefixo) {
+        int ultimo = prefixo.codePointBefore(prefixo.length());
+        return prefixo.substring(0, prefixo.length() - Character.charCount(ultimo)) + Character.toString(ultimo + 1);
+    }
+
     private VendaDTO toDTO(Venda venda) {
         return VendaDTO.builder()
             .id(venda.getId())
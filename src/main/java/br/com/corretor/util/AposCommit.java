@@ -0,0 +1,35 @@
+package br.com.corretor.util;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Alterações de visões em memória (projeção, ranking, caches de análise) que só devem valer depois
+ * do commit: uma transação desfeita ou repetida não aplica a mesma alteração duas vezes nem deixa
+ * a visão com dados que não chegaram ao banco. Fora de transação a alteração é aplicada na hora.
+ */
+public final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    public static Mono<Void> executar(Runnable alteracao) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .flatMap(sincronizacao -> {
+                if (!sincronizacao.isSynchronizationActive()) {
+                    return Mono.fromRunnable(alteracao);
+                }
+                sincronizacao.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(alteracao);
+                    }
+                });
+                return Mono.empty();
+            })
+            .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(alteracao))
+            .then();
+    }
+}
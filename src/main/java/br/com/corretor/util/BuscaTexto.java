@@ -0,0 +1,64 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Regras comuns das buscas por texto digitado pelo usuário: tamanho mínimo do termo, limite de
+ * resultados, escape dos curingas do LIKE e normalização (sem acentos, minúsculas) feita em memória.
+ */
+public final class BuscaTexto {
+
+    // Trigramas só filtram com pelo menos 3 caracteres; termos menores varreriam o índice inteiro
+    public static final int TAMANHO_MINIMO = 3;
+    public static final int LIMITE_PADRAO = 20;
+    public static final int LIMITE_MAXIMO = 100;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern NAO_DIGITOS = Pattern.compile("[^0-9]");
+
+    private BuscaTexto() {
+    }
+
+    public static String termo(String termo) {
+        String valor = termo != null ? termo.trim() : "";
+        if (valor.length() < TAMANHO_MINIMO) {
+            throw new BusinessException("A busca exige pelo menos " + TAMANHO_MINIMO + " caracteres");
+        }
+        return valor;
+    }
+
+    public static int limite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    // Padrão LIKE de trecho em qualquer posição
+    public static String padraoTrecho(String termo) {
+        return "%" + escaparLike(termo) + "%";
+    }
+
+    // O termo é literal: %, _ e \ digitados não funcionam como curingas do LIKE
+    public static String escaparLike(String termo) {
+        return termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Mesmo efeito de normalizar_busca() no banco, com pontuação e espaços repetidos reduzidos a um espaço
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcento = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcento.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static String somenteDigitos(String texto) {
+        return texto == null ? "" : NAO_DIGITOS.matcher(texto).replaceAll("");
+    }
+}
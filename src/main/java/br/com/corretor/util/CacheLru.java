@@ -0,0 +1,81 @@
+package br.com.corretor.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache em memória limitado por quantidade de entradas (descarta a menos usada) e por validade.
+ * Uma invalidação avança a geração do cache, e valores lidos do banco antes dela são descartados
+ * em vez de gravados, para que uma leitura lenta não devolva ao cache um registro já alterado.
+ */
+public class CacheLru<K, V> {
+
+    private final long validadeNanos;
+    private final LongSupplier relogio;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    private long geracao;
+
+    public CacheLru(int capacidade, Duration validade) {
+        this(capacidade, validade, System::nanoTime);
+    }
+
+    CacheLru(int capacidade, Duration validade, LongSupplier relogio) {
+        this.validadeNanos = validade.toNanos();
+        this.relogio = relogio;
+        // Ordem de acesso: a entrada mais antiga é a menos usada recentemente
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                return size() > capacidade;
+            }
+        };
+    }
+
+    public synchronized V obter(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada == null) {
+            return null;
+        }
+        if (relogio.getAsLong() - entrada.gravadaEm() > validadeNanos) {
+            entradas.remove(chave);
+            return null;
+        }
+        return entrada.valor();
+    }
+
+    // Deve ser lida antes de consultar o banco e repassada a guardar()
+    public synchronized long geracao() {
+        return geracao;
+    }
+
+    public synchronized void guardar(K chave, V valor, long geracaoDaLeitura) {
+        if (geracaoDaLeitura == geracao) {
+            entradas.put(chave, new Entrada<>(valor, relogio.getAsLong()));
+        }
+    }
+
+    public synchronized void invalidar(K chave) {
+        geracao++;
+        entradas.remove(chave);
+    }
+
+    public synchronized void invalidarSe(Predicate<K> condicao) {
+        geracao++;
+        entradas.keySet().removeIf(condicao);
+    }
+
+    public synchronized void limpar() {
+        geracao++;
+        entradas.clear();
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    private record Entrada<V>(V valor, long gravadaEm) {
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.corretor.util;
+
+import br.com.corretor.model.Venda;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cronograma de parcelas da comissão de uma ou mais vendas, montado em colunas para ser gravado com
+ * um único INSERT. Cada parcela vence no último dia do mês: a primeira no mês seguinte à venda e as
+ * demais nos meses subsequentes. Valor da venda e da comissão são divididos em centavos; a sobra da
+ * divisão vai para as primeiras parcelas, de modo que a soma das parcelas é sempre o total da venda.
+ */
+public class CronogramaParcelas {
+
+    public static final int QUANTIDADE_MAXIMA = 120;
+
+    private final List<Long> vendaIds = new ArrayList<>();
+    private final List<Integer> numeros = new ArrayList<>();
+    private final List<Integer> quantidades = new ArrayList<>();
+    private final List<BigDecimal> valoresVenda = new ArrayList<>();
+    private final List<BigDecimal> valoresComissao = new ArrayList<>();
+    private final List<String> datasPrevisao = new ArrayList<>();
+
+    public CronogramaParcelas adicionar(Venda venda) {
+        int quantidade = quantidade(venda.getQuantidadeParcelas());
+        BigDecimal[] vendaPorParcela = dividir(venda.getValorVenda(), quantidade);
+        BigDecimal[] comissaoPorParcela = dividir(venda.getValorComissao(), quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            vendaIds.add(venda.getId());
+            numeros.add(i + 1);
+            quantidades.add(quantidade);
+            valoresVenda.add(vendaPorParcela[i]);
+            valoresComissao.add(comissaoPorParcela[i]);
+            datasPrevisao.add(dataPrevisao(venda.getDataVenda(), i + 1).toString());
+        }
+        return this;
+    }
+
+    public int tamanho() {
+        return vendaIds.size();
+    }
+
+    public Long[] getVendaIds() {
+        return vendaIds.toArray(new Long[0]);
+    }
+
+    public Integer[] getNumeros() {
+        return numeros.toArray(new Integer[0]);
+    }
+
+    public Integer[] getQuantidades() {
+        return quantidades.toArray(new Integer[0]);
+    }
+
+    public BigDecimal[] getValoresVenda() {
+        return valoresVenda.toArray(new BigDecimal[0]);
+    }
+
+    public BigDecimal[] getValoresComissao() {
+        return valoresComissao.toArray(new BigDecimal[0]);
+    }
+
+    public String[] getDatasPrevisao() {
+        return datasPrevisao.toArray(new String[0]);
+    }
+
+    // Vendas antigas não têm a quantidade preenchida e são pagas em parcela única
+    public static int quantidade(Integer quantidadeParcelas) {
+        if (quantidadeParcelas == null || quantidadeParcelas < 1) {
+            return 1;
+        }
+        return Math.min(quantidadeParcelas, QUANTIDADE_MAXIMA);
+    }
+
+    public static LocalDate dataPrevisao(LocalDate dataVenda, int numeroParcela) {
+        return dataVenda.plusMonths(numeroParcela).with(TemporalAdjusters.lastDayOfMonth());
+    }
+
+    public static BigDecimal[] dividir(BigDecimal valor, int quantidade) {
+        long centavos = valor != null ? TabelaComissao.centavos(valor) : 0L;
+        long base = centavos / quantidade;
+        long sobra = centavos % quantidade;
+        BigDecimal[] parcelas = new BigDecimal[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            long parcela = base + (i < Math.abs(sobra) ? Long.signum(sobra) : 0);
+            parcelas[i] = BigDecimal.valueOf(parcela, 2);
+        }
+        return parcelas;
+    }
+}
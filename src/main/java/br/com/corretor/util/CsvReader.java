@@ -0,0 +1,146 @@
+package br.com.corretor.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê um CSV à medida que os blocos do upload chegam, sem juntar o arquivo em memória: cada bloco
+ * devolve as linhas que ficaram completas e concluir devolve a última. Aceita ponto e vírgula (padrão
+ * do Excel em pt-BR) ou vírgula como separador, detectado pela primeira linha, e campos entre aspas
+ * com quebras de linha. Caracteres UTF-8 e aspas duplicadas podem ficar divididos entre blocos.
+ */
+public class CsvReader {
+
+    private final CharsetDecoder decodificador = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // Bytes de um caractere dividido entre blocos
+    private byte[] restante = new byte[0];
+    // Texto lido antes de completar a primeira linha, enquanto o separador não é conhecido
+    private StringBuilder inicio = new StringBuilder();
+    private char separador;
+
+    private final List<String> campos = new ArrayList<>();
+    private final StringBuilder campo = new StringBuilder();
+    private boolean linhaIniciada;
+    private boolean entreAspas;
+    // Aspas dentro de um campo entre aspas: fecham o campo ou, seguidas de outras, são uma aspa literal
+    private boolean aspaPendente;
+
+    public List<String[]> ler(byte[] bloco) {
+        ByteBuffer entrada = ByteBuffer.allocate(restante.length + bloco.length).put(restante).put(bloco).flip();
+        CharBuffer texto = CharBuffer.allocate(entrada.remaining() + 1);
+        decodificador.decode(entrada, texto, false);
+        restante = new byte[entrada.remaining()];
+        entrada.get(restante);
+
+        List<String[]> linhas = new ArrayList<>();
+        consumir(texto.flip(), linhas);
+        return linhas;
+    }
+
+    public List<String[]> concluir() {
+        CharBuffer texto = CharBuffer.allocate(restante.length + 1);
+        decodificador.decode(ByteBuffer.wrap(restante), texto, true);
+        decodificador.flush(texto);
+        restante = new byte[0];
+
+        List<String[]> linhas = new ArrayList<>();
+        consumir(texto.flip(), linhas);
+        if (inicio != null) {
+            iniciar(linhas);
+        }
+        aspaPendente = false;
+        if (linhaIniciada) {
+            fecharLinha(linhas);
+        }
+        return linhas;
+    }
+
+    private void consumir(CharSequence texto, List<String[]> linhas) {
+        if (inicio != null) {
+            inicio.append(texto);
+            if (inicio.indexOf("\n") >= 0 || inicio.indexOf("\r") >= 0) {
+                iniciar(linhas);
+            }
+            return;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            processar(texto.charAt(i), linhas);
+        }
+    }
+
+    private void iniciar(List<String[]> linhas) {
+        String texto = inicio.length() > 0 && inicio.charAt(0) == '\uFEFF' ? inicio.substring(1) : inicio.toString();
+        inicio = null;
+        separador = detectarSeparador(texto);
+        consumir(texto, linhas);
+    }
+
+    private void processar(char c, List<String[]> linhas) {
+        if (aspaPendente) {
+            aspaPendente = false;
+            if (c == '"') {
+                campo.append('"');
+                return;
+            }
+            entreAspas = false;
+        }
+        if (entreAspas) {
+            if (c == '"') {
+                aspaPendente = true;
+            } else {
+                campo.append(c);
+            }
+            return;
+        }
+        // Quebras de linha sem nada antes (linhas vazias e o \n de \r\n) não geram linha
+        if (c == '\r' || c == '\n') {
+            if (linhaIniciada) {
+                fecharLinha(linhas);
+            }
+            return;
+        }
+        linhaIniciada = true;
+        if (c == '"') {
+            entreAspas = true;
+        } else if (c == separador) {
+            campos.add(campo.toString());
+            campo.setLength(0);
+        } else {
+            campo.append(c);
+        }
+    }
+
+    private void fecharLinha(List<String[]> linhas) {
+        campos.add(campo.toString());
+        linhas.add(campos.toArray(new String[0]));
+        campos.clear();
+        campo.setLength(0);
+        linhaIniciada = false;
+        entreAspas = false;
+    }
+
+    private static char detectarSeparador(String texto) {
+        int pontoEVirgulas = 0;
+        int virgulas = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '\r' || c == '\n') {
+                break;
+            }
+            if (c == ';') {
+                pontoEVirgulas++;
+            } else if (c == ',') {
+                virgulas++;
+            }
+        }
+        return virgulas > pontoEVirgulas ? ',' : ';';
+    }
+}
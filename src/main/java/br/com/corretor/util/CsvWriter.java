@@ -0,0 +1,61 @@
+package br.com.corretor.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Serializa linhas em CSV separado por ponto e vírgula, compatível com o Excel em pt-BR. Textos que
+ * o Excel interpretaria como fórmula recebem um apóstrofo na frente e abrem como texto.
+ */
+public class CsvWriter {
+
+    private static final char SEPARADOR = ';';
+    private static final byte[] BOM_UTF8 = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final String INICIO_FORMULA = "=+-@\t\r";
+
+    private CsvWriter() {
+    }
+
+    public static byte[] cabecalho(String[] colunas) {
+        byte[] linha = linha(colunas).getBytes(StandardCharsets.UTF_8);
+        byte[] resultado = new byte[BOM_UTF8.length + linha.length];
+        System.arraycopy(BOM_UTF8, 0, resultado, 0, BOM_UTF8.length);
+        System.arraycopy(linha, 0, resultado, BOM_UTF8.length, linha.length);
+        return resultado;
+    }
+
+    public static byte[] linhas(List<Object[]> linhas) {
+        StringBuilder sb = new StringBuilder(linhas.size() * 128);
+        for (Object[] valores : linhas) {
+            sb.append(linha(valores));
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String linha(Object[] valores) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARADOR);
+            }
+            sb.append(formatar(valores[i]));
+        }
+        return sb.append("\r\n").toString();
+    }
+
+    private static String formatar(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor instanceof BigDecimal ? ((BigDecimal) valor).toPlainString() : valor.toString();
+        // Números negativos saem como números; só textos vindos do usuário podem carregar uma fórmula
+        if (!(valor instanceof Number) && !texto.isEmpty() && INICIO_FORMULA.indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.indexOf(SEPARADOR) >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,356 @@
+package br.com.corretor.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Fatos em colunas na memória: cada dimensão é uma coluna de int com dicionário de valores e cada
+ * medida uma coluna de long (ex.: centavos). As linhas são identificadas por um id (ex.: id da venda);
+ * gravar o mesmo id substitui a linha e a exclusão move a última linha para o lugar da excluída, para
+ * que as colunas fiquem sempre contíguas. Os filtros viram bitmaps sobre as linhas e o agrupamento
+ * percorre só os bits ligados.
+ */
+public class CuboColunar {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+    // Limite de grupos possíveis numa consulta; acima disso o agrupamento é recusado
+    private static final long COMBINACOES_MAXIMAS = 1 << 20;
+
+    private final int linhasMaximas;
+    private final Dicionario[] dicionarios;
+    private final int[][] dimensoes;
+    private final long[][] medidas;
+    private long[] ids;
+    private final IndiceIds indice = new IndiceIds();
+    private int tamanho;
+
+    // Durante a carga inicial, ids excluídos por alterações incrementais que a carga não pode recriar
+    private Set<Long> excluidosDuranteCarga = new HashSet<>();
+    private boolean carregando = true;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    public CuboColunar(int quantidadeDimensoes, int quantidadeMedidas, int linhasMaximas) {
+        this.linhasMaximas = linhasMaximas;
+        this.dicionarios = new Dicionario[quantidadeDimensoes];
+        this.dimensoes = new int[quantidadeDimensoes][CAPACIDADE_INICIAL];
+        this.medidas = new long[quantidadeMedidas][CAPACIDADE_INICIAL];
+        this.ids = new long[CAPACIDADE_INICIAL];
+        for (int d = 0; d < quantidadeDimensoes; d++) {
+            dicionarios[d] = new Dicionario();
+        }
+    }
+
+    // Linha lida pela carga inicial: não sobrescreve o que uma alteração incremental já gravou ou excluiu
+    public void carregar(long id, Object[] valores, long[] valoresMedidas) {
+        trava.writeLock().lock();
+        try {
+            if (indice.obter(id) < 0 && !excluidosDuranteCarga.contains(id)) {
+                inserir(id, valores, valoresMedidas);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void concluirCarga() {
+        trava.writeLock().lock();
+        try {
+            carregando = false;
+            excluidosDuranteCarga = null;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void gravar(long id, Object[] valores, long[] valoresMedidas) {
+        trava.writeLock().lock();
+        try {
+            int linha = indice.obter(id);
+            if (linha < 0) {
+                inserir(id, valores, valoresMedidas);
+            } else {
+                preencher(linha, valores, valoresMedidas);
+            }
+            if (carregando) {
+                excluidosDuranteCarga.remove(id);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void remover(long id) {
+        trava.writeLock().lock();
+        try {
+            if (carregando) {
+                excluidosDuranteCarga.add(id);
+            }
+            int linha = indice.remover(id);
+            if (linha < 0) {
+                return;
+            }
+            int ultima = --tamanho;
+            if (linha != ultima) {
+                for (int[] coluna : dimensoes) {
+                    coluna[linha] = coluna[ultima];
+                }
+                for (long[] coluna : medidas) {
+                    coluna[linha] = coluna[ultima];
+                }
+                ids[linha] = ids[ultima];
+                indice.gravar(ids[linha], linha);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return tamanho;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Soma as medidas das linhas que passam em todos os filtros, agrupadas pelas dimensões informadas
+     * (nenhuma dimensão = total geral). Os filtros são avaliados uma vez por valor do dicionário.
+     */
+    public List<Grupo> agrupar(int[] agrupamento, Map<Integer, Predicate<Object>> filtros) {
+        trava.readLock().lock();
+        try {
+            // Sem filtro, todas as linhas; senão a interseção dos bitmaps de cada filtro
+            long[] selecao = null;
+            for (Map.Entry<Integer, Predicate<Object>> filtro : filtros.entrySet()) {
+                long[] bitmap = bitmap(filtro.getKey(), filtro.getValue());
+                if (selecao == null) {
+                    selecao = bitmap;
+                } else {
+                    for (int palavra = 0; palavra < selecao.length; palavra++) {
+                        selecao[palavra] &= bitmap[palavra];
+                    }
+                }
+            }
+
+            // Chave do grupo em base mista: código da dimensão i vezes o produto das cardinalidades anteriores
+            int[][] colunas = new int[agrupamento.length][];
+            int[] cardinalidades = new int[agrupamento.length];
+            long combinacoes = 1;
+            for (int i = 0; i < agrupamento.length; i++) {
+                colunas[i] = dimensoes[agrupamento[i]];
+                cardinalidades[i] = Math.max(1, dicionarios[agrupamento[i]].tamanho());
+                combinacoes *= cardinalidades[i];
+                if (combinacoes > COMBINACOES_MAXIMAS) {
+                    throw new IllegalArgumentException("Combinação de dimensões com valores demais para agrupar");
+                }
+            }
+
+            // Acumuladores densos indexados pela chave: sem objeto por linha no laço principal
+            int tamanhoChaves = (int) combinacoes;
+            long[] quantidades = new long[tamanhoChaves];
+            long[][] somas = new long[medidas.length][tamanhoChaves];
+            if (selecao == null) {
+                for (int linha = 0; linha < tamanho; linha++) {
+                    acumular(linha, colunas, cardinalidades, quantidades, somas);
+                }
+            } else {
+                for (int palavra = 0; palavra < selecao.length; palavra++) {
+                    long bits = selecao[palavra];
+                    while (bits != 0) {
+                        acumular((palavra << 6) + Long.numberOfTrailingZeros(bits), colunas, cardinalidades, quantidades, somas);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+
+            List<Grupo> grupos = new ArrayList<>();
+            for (int chave = 0; chave < tamanhoChaves; chave++) {
+                if (quantidades[chave] == 0) {
+                    continue;
+                }
+                Object[] valores = new Object[agrupamento.length];
+                int resto = chave;
+                for (int i = 0; i < agrupamento.length; i++) {
+                    valores[i] = dicionarios[agrupamento[i]].valor(resto % cardinalidades[i]);
+                    resto /= cardinalidades[i];
+                }
+                long[] somasGrupo = new long[medidas.length];
+                for (int m = 0; m < medidas.length; m++) {
+                    somasGrupo[m] = somas[m][chave];
+                }
+                grupos.add(new Grupo(valores, quantidades[chave], somasGrupo));
+            }
+            return grupos;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private void acumular(int linha, int[][] colunas, int[] cardinalidades, long[] quantidades, long[][] somas) {
+        int chave = 0;
+        for (int i = colunas.length - 1; i >= 0; i--) {
+            chave = chave * cardinalidades[i] + colunas[i][linha];
+        }
+        quantidades[chave]++;
+        for (int m = 0; m < medidas.length; m++) {
+            somas[m][chave] += medidas[m][linha];
+        }
+    }
+
+    // Um bit por linha, 64 linhas por palavra
+    private long[] bitmap(int dimensao, Predicate<Object> filtro) {
+        Dicionario dicionario = dicionarios[dimensao];
+        boolean[] aceitos = new boolean[dicionario.tamanho()];
+        for (int codigo = 0; codigo < aceitos.length; codigo++) {
+            aceitos[codigo] = filtro.test(dicionario.valor(codigo));
+        }
+        int[] coluna = dimensoes[dimensao];
+        long[] bitmap = new long[(tamanho + 63) >>> 6];
+        for (int linha = 0; linha < tamanho; linha++) {
+            if (aceitos[coluna[linha]]) {
+                bitmap[linha >>> 6] |= 1L << linha;
+            }
+        }
+        return bitmap;
+    }
+
+    private void inserir(long id, Object[] valores, long[] valoresMedidas) {
+        if (tamanho >= linhasMaximas) {
+            throw new IllegalStateException("Cubo atingiu o limite de " + linhasMaximas + " linhas");
+        }
+        if (tamanho == ids.length) {
+            int capacidade = (int) Math.min((long) ids.length * 2, Math.max(linhasMaximas, CAPACIDADE_INICIAL));
+            for (int d = 0; d < dimensoes.length; d++) {
+                dimensoes[d] = Arrays.copyOf(dimensoes[d], capacidade);
+            }
+            for (int m = 0; m < medidas.length; m++) {
+                medidas[m] = Arrays.copyOf(medidas[m], capacidade);
+            }
+            ids = Arrays.copyOf(ids, capacidade);
+        }
+        int linha = tamanho++;
+        ids[linha] = id;
+        indice.gravar(id, linha);
+        preencher(linha, valores, valoresMedidas);
+    }
+
+    private void preencher(int linha, Object[] valores, long[] valoresMedidas) {
+        for (int d = 0; d < dimensoes.length; d++) {
+            dimensoes[d][linha] = dicionarios[d].codigo(valores[d]);
+        }
+        for (int m = 0; m < medidas.length; m++) {
+            medidas[m][linha] = valoresMedidas[m];
+        }
+    }
+
+    public record Grupo(Object[] valores, long quantidade, long[] somas) {
+    }
+
+    // Valor -> código sequencial; o nulo também recebe código
+    private static class Dicionario {
+        private final Map<Object, Integer> codigos = new HashMap<>();
+        private final List<Object> valores = new ArrayList<>();
+
+        int codigo(Object valor) {
+            Integer codigo = codigos.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                codigos.put(valor, codigo);
+                valores.add(valor);
+            }
+            return codigo;
+        }
+
+        Object valor(int codigo) {
+            return valores.get(codigo);
+        }
+
+        int tamanho() {
+            return valores.size();
+        }
+    }
+
+    // Mapa id -> linha com endereçamento aberto, sem objetos por entrada
+    private static class IndiceIds {
+        private static final long VAZIO = Long.MIN_VALUE;
+
+        private long[] chaves = vazio(CAPACIDADE_INICIAL * 2);
+        private int[] linhas = new int[CAPACIDADE_INICIAL * 2];
+        private int ocupados;
+
+        int obter(long id) {
+            int posicao = posicao(id, chaves);
+            return chaves[posicao] == id ? linhas[posicao] : -1;
+        }
+
+        void gravar(long id, int linha) {
+            if ((ocupados + 1) * 2 > chaves.length) {
+                redimensionar(chaves.length * 2);
+            }
+            int posicao = posicao(id, chaves);
+            if (chaves[posicao] == VAZIO) {
+                chaves[posicao] = id;
+                ocupados++;
+            }
+            linhas[posicao] = linha;
+        }
+
+        // Retorna a linha do id removido, ou -1; reposiciona os seguintes da sequência de sondagem
+        int remover(long id) {
+            int posicao = posicao(id, chaves);
+            if (chaves[posicao] != id) {
+                return -1;
+            }
+            int linha = linhas[posicao];
+            chaves[posicao] = VAZIO;
+            ocupados--;
+            int mascara = chaves.length - 1;
+            for (int seguinte = (posicao + 1) & mascara; chaves[seguinte] != VAZIO; seguinte = (seguinte + 1) & mascara) {
+                long chave = chaves[seguinte];
+                int linhaSeguinte = linhas[seguinte];
+                chaves[seguinte] = VAZIO;
+                ocupados--;
+                gravar(chave, linhaSeguinte);
+            }
+            return linha;
+        }
+
+        private void redimensionar(int capacidade) {
+            long[] chavesAntigas = chaves;
+            int[] linhasAntigas = linhas;
+            chaves = vazio(capacidade);
+            linhas = new int[capacidade];
+            ocupados = 0;
+            for (int i = 0; i < chavesAntigas.length; i++) {
+                if (chavesAntigas[i] != VAZIO) {
+                    gravar(chavesAntigas[i], linhasAntigas[i]);
+                }
+            }
+        }
+
+        private static int posicao(long id, long[] chaves) {
+            int mascara = chaves.length - 1;
+            int posicao = (int) (Long.hashCode(id * 0x9E3779B97F4A7C15L)) & mascara;
+            while (chaves[posicao] != VAZIO && chaves[posicao] != id) {
+                posicao = (posicao + 1) & mascara;
+            }
+            return posicao;
+        }
+
+        private static long[] vazio(int capacidade) {
+            long[] chaves = new long[capacidade];
+            Arrays.fill(chaves, VAZIO);
+            return chaves;
+        }
+    }
+}
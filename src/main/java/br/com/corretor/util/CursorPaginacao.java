@@ -0,0 +1,52 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor de paginação por chave (data, id), serializado como token opaco.
+ */
+public class CursorPaginacao {
+
+    private static final String SEPARADOR = "|";
+
+    private final LocalDate data;
+    private final Long id;
+
+    public CursorPaginacao(LocalDate data, Long id) {
+        this.data = data;
+        this.id = id;
+    }
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String codificar() {
+        String valor = data + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorPaginacao decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int posicao = valor.indexOf(SEPARADOR);
+            return new CursorPaginacao(
+                LocalDate.parse(valor.substring(0, posicao)),
+                Long.valueOf(valor.substring(posicao + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BusinessException("Cursor de paginação inválido");
+        }
+    }
+}
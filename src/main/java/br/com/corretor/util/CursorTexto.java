@@ -0,0 +1,49 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de paginação por chave (texto, id), serializado como token opaco.
+ */
+public class CursorTexto {
+
+    private static final String SEPARADOR = "|";
+
+    private final String texto;
+    private final Long id;
+
+    public CursorTexto(String texto, Long id) {
+        this.texto = texto;
+        this.id = id;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String codificar() {
+        String valor = texto + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorTexto decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // O texto pode conter o separador; o id é sempre o último campo
+            int posicao = valor.lastIndexOf(SEPARADOR);
+            return new CursorTexto(valor.substring(0, posicao), Long.valueOf(valor.substring(posicao + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BusinessException("Cursor de paginação inválido");
+        }
+    }
+}
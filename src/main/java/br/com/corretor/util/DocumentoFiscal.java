@@ -0,0 +1,70 @@
+package br.com.corretor.util;
+
+/**
+ * Dígitos verificadores de CPF e CNPJ (módulo 11). Recebem só os dígitos; sequências de um mesmo
+ * dígito ("00000000000") passam no cálculo mas não são documentos válidos.
+ */
+public final class DocumentoFiscal {
+
+    public static final int TAMANHO_CPF = 11;
+    public static final int TAMANHO_CNPJ = 14;
+
+    private static final int[] PESOS_CNPJ = {6, 5, 4, 3, 2, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    private DocumentoFiscal() {
+    }
+
+    public static boolean cpfValido(String digitos) {
+        if (!formatoValido(digitos, TAMANHO_CPF)) {
+            return false;
+        }
+        for (int posicao = 9; posicao <= 10; posicao++) {
+            int soma = 0;
+            for (int i = 0; i < posicao; i++) {
+                soma += (digitos.charAt(i) - '0') * (posicao + 1 - i);
+            }
+            if (digitoVerificador(soma) != digitos.charAt(posicao) - '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean cnpjValido(String digitos) {
+        if (!formatoValido(digitos, TAMANHO_CNPJ)) {
+            return false;
+        }
+        for (int posicao = 12; posicao <= 13; posicao++) {
+            // O primeiro dígito usa os 12 últimos pesos; o segundo, todos os 13
+            int deslocamento = PESOS_CNPJ.length - posicao;
+            int soma = 0;
+            for (int i = 0; i < posicao; i++) {
+                soma += (digitos.charAt(i) - '0') * PESOS_CNPJ[i + deslocamento];
+            }
+            if (digitoVerificador(soma) != digitos.charAt(posicao) - '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digitoVerificador(int soma) {
+        int resto = soma % 11;
+        return resto < 2 ? 0 : 11 - resto;
+    }
+
+    private static boolean formatoValido(String digitos, int tamanho) {
+        if (digitos == null || digitos.length() != tamanho) {
+            return false;
+        }
+        boolean repetido = true;
+        for (int i = 0; i < tamanho; i++) {
+            char c = digitos.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            repetido &= c == digitos.charAt(0);
+        }
+        return !repetido;
+    }
+}
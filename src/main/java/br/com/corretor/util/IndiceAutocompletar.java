@@ -0,0 +1,262 @@
+package br.com.corretor.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de prefixos para autocompletar os cadastros de uma empresa. Cada item gera chaves
+ * normalizadas (sem acentos, minúsculas) a partir de cada palavra do nome, para que "silva" encontre
+ * "Maria da Silva", além dos dígitos do CNPJ/CPF; as chaves ficam num array ordenado e a consulta é
+ * uma busca binária pelo prefixo seguida da varredura até juntar o limite de itens.
+ * O índice é imutável: inclusões e exclusões devolvem um novo índice, e a leitura não precisa de trava.
+ */
+public final class IndiceAutocompletar {
+
+    // Nomes muito longos não geram uma chave por palavra além deste limite
+    private static final int PALAVRAS_MAXIMAS = 8;
+
+    // Estimativa de memória com referências comprimidas: cabeçalhos de objeto e de array mais o conteúdo
+    private static final int BYTES_TEXTO = 40;
+    private static final int BYTES_ITEM = 32;
+    private static final int BYTES_REFERENCIA = 4;
+
+    private static final Pattern DOCUMENTO = Pattern.compile("[0-9.\\-/\\s]+");
+
+    private static final Comparator<Entrada> ORDEM = Comparator
+        .comparing(Entrada::chave)
+        .thenComparing(entrada -> entrada.item().id());
+
+    public record Item(Long id, String nome, String nomeFantasia, String documento) {
+    }
+
+    private record Entrada(String chave, Item item) {
+    }
+
+    private final String[] chaves;
+    private final Item[] itens;
+    private final long[] ids;
+    private final long bytesEstimados;
+
+    private IndiceAutocompletar(String[] chaves, Item[] itens, long[] ids, long bytesEstimados) {
+        this.chaves = chaves;
+        this.itens = itens;
+        this.ids = ids;
+        this.bytesEstimados = bytesEstimados;
+    }
+
+    public static IndiceAutocompletar construir(Collection<Item> itens) {
+        Map<Long, Item> distintos = new HashMap<>();
+        for (Item item : itens) {
+            distintos.put(item.id(), item);
+        }
+        List<Entrada> entradas = new ArrayList<>();
+        long bytes = 0;
+        for (Item item : distintos.values()) {
+            bytes += bytesItem(item) + adicionarEntradas(item, entradas);
+        }
+        entradas.sort(ORDEM);
+
+        String[] chaves = new String[entradas.size()];
+        Item[] itensPorChave = new Item[entradas.size()];
+        for (int i = 0; i < entradas.size(); i++) {
+            chaves[i] = entradas.get(i).chave();
+            itensPorChave[i] = entradas.get(i).item();
+        }
+        long[] ids = distintos.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        return new IndiceAutocompletar(chaves, itensPorChave, ids, bytes);
+    }
+
+    // Inclui o item ou substitui as chaves que ele já tinha; intercala as novas chaves em O(n), sem reordenar
+    public IndiceAutocompletar com(Item item) {
+        List<Entrada> novas = new ArrayList<>();
+        long bytes = bytesEstimados + bytesItem(item) + adicionarEntradas(item, novas);
+        novas.sort(ORDEM);
+        boolean existia = contem(item.id());
+        if (existia) {
+            bytes -= bytesItem(itemPorId(item.id()));
+        }
+
+        String[] mescladas = new String[chaves.length + novas.size()];
+        Item[] mescladosItens = new Item[mescladas.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < chaves.length || j < novas.size()) {
+            if (existia && i < chaves.length && itens[i].id().equals(item.id())) {
+                bytes -= bytesChave(chaves[i]);
+                i++;
+                continue;
+            }
+            boolean usarAtual = j == novas.size()
+                || (i < chaves.length && comparar(chaves[i], itens[i].id(), novas.get(j)) <= 0);
+            if (usarAtual) {
+                mescladas[k] = chaves[i];
+                mescladosItens[k] = itens[i];
+                i++;
+            } else {
+                mescladas[k] = novas.get(j).chave();
+                mescladosItens[k] = novas.get(j).item();
+                j++;
+            }
+            k++;
+        }
+        long[] novosIds = existia ? ids : inserirOrdenado(ids, item.id());
+        return new IndiceAutocompletar(Arrays.copyOf(mescladas, k), Arrays.copyOf(mescladosItens, k), novosIds, bytes);
+    }
+
+    public IndiceAutocompletar sem(Long id) {
+        if (!contem(id)) {
+            return this;
+        }
+        long bytes = bytesEstimados - bytesItem(itemPorId(id));
+        String[] restantes = new String[chaves.length];
+        Item[] restantesItens = new Item[chaves.length];
+        int k = 0;
+        for (int i = 0; i < chaves.length; i++) {
+            if (itens[i].id().equals(id)) {
+                bytes -= bytesChave(chaves[i]);
+            } else {
+                restantes[k] = chaves[i];
+                restantesItens[k] = itens[i];
+                k++;
+            }
+        }
+        long[] restantesIds = new long[ids.length - 1];
+        int posicao = Arrays.binarySearch(ids, id);
+        System.arraycopy(ids, 0, restantesIds, 0, posicao);
+        System.arraycopy(ids, posicao + 1, restantesIds, posicao, ids.length - posicao - 1);
+        return new IndiceAutocompletar(Arrays.copyOf(restantes, k), Arrays.copyOf(restantesItens, k), restantesIds, bytes);
+    }
+
+    public boolean contem(Long id) {
+        return id != null && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    // Itens cujo nome (a partir de qualquer palavra) ou documento começa com o texto, na ordem das chaves
+    public List<Item> completar(String texto, int limite) {
+        String prefixo = chaveDeBusca(texto);
+        if (prefixo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        List<Item> encontrados = new ArrayList<>(limite);
+        for (int i = primeiraChaveAPartirDe(prefixo); i < chaves.length && chaves[i].startsWith(prefixo); i++) {
+            // Um item aparece uma vez mesmo quando mais de uma de suas chaves começa com o prefixo
+            if (!encontrados.contains(itens[i])) {
+                encontrados.add(itens[i]);
+                if (encontrados.size() == limite) {
+                    break;
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    public int quantidadeItens() {
+        return ids.length;
+    }
+
+    public int quantidadeChaves() {
+        return chaves.length;
+    }
+
+    public long getBytesEstimados() {
+        return bytesEstimados;
+    }
+
+    // Texto só com dígitos e pontuação de documento ("12.345.678/0001") é buscado pelos dígitos
+    static String chaveDeBusca(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        if (DOCUMENTO.matcher(texto).matches()) {
+            return BuscaTexto.somenteDigitos(texto);
+        }
+        return BuscaTexto.normalizar(texto);
+    }
+
+    private int primeiraChaveAPartirDe(String prefixo) {
+        int inicio = 0;
+        int fim = chaves.length;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (chaves[meio].compareTo(prefixo) < 0) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    private Item itemPorId(Long id) {
+        for (Item item : itens) {
+            if (item.id().equals(id)) {
+                return item;
+            }
+        }
+        throw new IllegalStateException("Item " + id + " não está no índice");
+    }
+
+    private static int comparar(String chave, Long id, Entrada entrada) {
+        int porChave = chave.compareTo(entrada.chave());
+        return porChave != 0 ? porChave : id.compareTo(entrada.item().id());
+    }
+
+    private static long[] inserirOrdenado(long[] ids, long id) {
+        int posicao = -Arrays.binarySearch(ids, id) - 1;
+        long[] novos = new long[ids.length + 1];
+        System.arraycopy(ids, 0, novos, 0, posicao);
+        novos[posicao] = id;
+        System.arraycopy(ids, posicao, novos, posicao + 1, ids.length - posicao);
+        return novos;
+    }
+
+    // Devolve a memória estimada das chaves adicionadas
+    private static long adicionarEntradas(Item item, List<Entrada> entradas) {
+        Set<String> chavesDoItem = new LinkedHashSet<>();
+        adicionarSufixosPorPalavra(BuscaTexto.normalizar(item.nome()), chavesDoItem);
+        adicionarSufixosPorPalavra(BuscaTexto.normalizar(item.nomeFantasia()), chavesDoItem);
+        String documento = BuscaTexto.somenteDigitos(item.documento());
+        if (!documento.isEmpty()) {
+            chavesDoItem.add(documento);
+        }
+        long bytes = 0;
+        for (String chave : chavesDoItem) {
+            entradas.add(new Entrada(chave, item));
+            bytes += bytesChave(chave);
+        }
+        return bytes;
+    }
+
+    private static void adicionarSufixosPorPalavra(String nome, Set<String> chavesDoItem) {
+        if (nome.isEmpty()) {
+            return;
+        }
+        chavesDoItem.add(nome);
+        int palavras = 1;
+        for (int i = nome.indexOf(' '); i >= 0 && palavras < PALAVRAS_MAXIMAS; i = nome.indexOf(' ', i + 1)) {
+            chavesDoItem.add(nome.substring(i + 1));
+            palavras++;
+        }
+    }
+
+    private static long bytesChave(String chave) {
+        return BYTES_TEXTO + chave.length() + 2L * BYTES_REFERENCIA;
+    }
+
+    private static long bytesItem(Item item) {
+        return BYTES_ITEM + Long.BYTES + tamanho(item.nome()) + tamanho(item.nomeFantasia()) + tamanho(item.documento());
+    }
+
+    private static long tamanho(String texto) {
+        return texto == null ? 0 : BYTES_TEXTO + texto.length();
+    }
+}
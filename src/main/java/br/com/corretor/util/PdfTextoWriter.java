@@ -0,0 +1,107 @@
+package br.com.corretor.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gera um PDF simples de texto em fonte monoespaçada (Courier), quebrando as linhas em páginas A4.
+ * Suficiente para relatórios tabulares sem depender de uma biblioteca de PDF.
+ */
+public class PdfTextoWriter {
+
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+    private static final int LARGURA_PAGINA = 595;
+    private static final int ALTURA_PAGINA = 842;
+    private static final int MARGEM = 40;
+    private static final int TAMANHO_FONTE = 8;
+    private static final int ENTRELINHA = 10;
+    private static final int LINHAS_POR_PAGINA = (ALTURA_PAGINA - 2 * MARGEM) / ENTRELINHA;
+
+    private PdfTextoWriter() {
+    }
+
+    public static byte[] gerar(List<String> linhas) {
+        List<List<String>> paginas = new ArrayList<>();
+        for (int i = 0; i < linhas.size(); i += LINHAS_POR_PAGINA) {
+            paginas.add(linhas.subList(i, Math.min(i + LINHAS_POR_PAGINA, linhas.size())));
+        }
+        if (paginas.isEmpty()) {
+            paginas.add(List.of());
+        }
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        List<Integer> offsets = new ArrayList<>();
+        escrever(saida, "%PDF-1.4\n");
+
+        // 1: catálogo, 2: árvore de páginas, 3: fonte; a partir de 4, pares página/conteúdo
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < paginas.size(); i++) {
+            kids.append(4 + 2 * i).append(" 0 R ");
+        }
+        objeto(saida, offsets, "<< /Type /Catalog /Pages 2 0 R >>");
+        objeto(saida, offsets, "<< /Type /Pages /Kids [" + kids.toString().trim() + "] /Count " + paginas.size() + " >>");
+        objeto(saida, offsets, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+
+        for (int i = 0; i < paginas.size(); i++) {
+            objeto(saida, offsets, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + LARGURA_PAGINA + " " + ALTURA_PAGINA + "] " +
+                "/Resources << /Font << /F1 3 0 R >> >> /Contents " + (5 + 2 * i) + " 0 R >>");
+            byte[] conteudo = conteudoDaPagina(paginas.get(i));
+            offsets.add(saida.size());
+            escrever(saida, offsets.size() + " 0 obj\n<< /Length " + conteudo.length + " >>\nstream\n");
+            saida.writeBytes(conteudo);
+            escrever(saida, "\nendstream\nendobj\n");
+        }
+
+        int inicioXref = saida.size();
+        StringBuilder xref = new StringBuilder();
+        xref.append("xref\n0 ").append(offsets.size() + 1).append('\n');
+        xref.append("0000000000 65535 f \n");
+        for (Integer offset : offsets) {
+            xref.append(String.format("%010d 00000 n \n", offset));
+        }
+        xref.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root 1 0 R >>\n");
+        xref.append("startxref\n").append(inicioXref).append("\n%%EOF\n");
+        escrever(saida, xref.toString());
+        return saida.toByteArray();
+    }
+
+    private static byte[] conteudoDaPagina(List<String> linhas) {
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+        conteudo.writeBytes(("BT /F1 " + TAMANHO_FONTE + " Tf " + ENTRELINHA + " TL " +
+            MARGEM + " " + (ALTURA_PAGINA - MARGEM) + " Td\n").getBytes(StandardCharsets.US_ASCII));
+        for (String linha : linhas) {
+            conteudo.write('(');
+            conteudo.writeBytes(escapar(linha).getBytes(WIN_ANSI));
+            conteudo.writeBytes(") Tj T*\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        conteudo.writeBytes("ET".getBytes(StandardCharsets.US_ASCII));
+        return conteudo.toByteArray();
+    }
+
+    private static void objeto(ByteArrayOutputStream saida, List<Integer> offsets, String corpo) {
+        offsets.add(saida.size());
+        escrever(saida, offsets.size() + " 0 obj\n" + corpo + "\nendobj\n");
+    }
+
+    private static void escrever(ByteArrayOutputStream saida, String texto) {
+        saida.writeBytes(texto.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String escapar(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(' ');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
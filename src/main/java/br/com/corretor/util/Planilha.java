@@ -0,0 +1,131 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Leitura das planilhas CSV e XLSX enviadas nas importações: extensão aceita, conteúdo do upload,
+ * colunas do cabeçalho pelo nome normalizado e valores de cada linha. O CSV é lido à medida que o
+ * upload chega; o XLSX é juntado em memória até TAMANHO_MAXIMO_XLSX e descompactado pelo XlsxReader,
+ * que limita o tamanho descompactado.
+ */
+public final class Planilha {
+
+    public static final int TAMANHO_MAXIMO_XLSX = 20 * 1024 * 1024;
+
+    private Planilha() {
+    }
+
+    // Linha 1 é o cabeçalho; o número é o da linha como o usuário a vê na planilha
+    public record Linha(long numero, String[] valores) {
+
+        public String opcional(Map<String, Integer> colunas, String coluna) {
+            Integer indice = colunas.get(coluna);
+            if (indice == null || indice >= valores.length) {
+                return null;
+            }
+            String valor = valores[indice].trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        public String obrigatorio(Map<String, Integer> colunas, String coluna, String descricao) {
+            String valor = opcional(colunas, coluna);
+            if (valor == null) {
+                throw new IllegalArgumentException(descricao + " é obrigatório");
+            }
+            return valor;
+        }
+    }
+
+    // Linhas de dados em lotes, com as colunas do cabeçalho
+    public record Lote(Map<String, Integer> colunas, List<Linha> linhas) {
+    }
+
+    public static boolean formatoAceito(String nomeArquivo) {
+        String extensao = extensao(nomeArquivo);
+        return "csv".equals(extensao) || "xlsx".equals(extensao);
+    }
+
+    // Valida o cabeçalho e agrupa as linhas seguintes; linha 1 é o cabeçalho, como o usuário a vê na planilha
+    public static Flux<Lote> lotes(String nomeArquivo, Flux<DataBuffer> conteudo, List<String> obrigatorias, int tamanhoLote) {
+        return linhas(nomeArquivo, conteudo)
+            .switchOnFirst((primeira, linhas) -> {
+                if (!primeira.hasValue()) {
+                    return Flux.error(primeira.hasError() ? primeira.getThrowable() : new BusinessException("Arquivo sem cabeçalho"));
+                }
+                Map<String, Integer> colunas;
+                try {
+                    colunas = mapearColunas(primeira.get(), obrigatorias);
+                } catch (BusinessException e) {
+                    return Flux.error(e);
+                }
+                return linhas.skip(1)
+                    .index((indice, valores) -> new Linha(indice + 2, valores))
+                    .buffer(tamanhoLote)
+                    .map(lote -> new Lote(colunas, lote));
+            });
+    }
+
+    public static Flux<String[]> linhas(String nomeArquivo, Flux<DataBuffer> conteudo) {
+        if ("xlsx".equals(extensao(nomeArquivo))) {
+            return DataBufferUtils.join(conteudo, TAMANHO_MAXIMO_XLSX)
+                .onErrorMap(DataBufferLimitException.class, e -> new BusinessException(
+                    "Arquivo XLSX maior que o limite de " + TAMANHO_MAXIMO_XLSX / (1024 * 1024) + " MB; envie em partes ou como CSV"))
+                .map(buffer -> new XlsxReader(bytes(buffer)))
+                .flatMapIterable(leitor -> () -> leitor)
+                // Arquivo malformado na abertura ou em qualquer linha lida depois
+                .onErrorMap(IllegalArgumentException.class, e -> new BusinessException(e.getMessage()));
+        }
+        return Flux.defer(() -> {
+            CsvReader leitor = new CsvReader();
+            return conteudo.concatMapIterable(buffer -> leitor.ler(bytes(buffer)))
+                .concatWith(Flux.defer(() -> Flux.fromIterable(leitor.concluir())));
+        });
+    }
+
+    public static Map<String, Integer> mapearColunas(String[] cabecalho, List<String> obrigatorias) {
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < cabecalho.length; i++) {
+            colunas.putIfAbsent(normalizarColuna(cabecalho[i]), i);
+        }
+        List<String> ausentes = obrigatorias.stream()
+            .filter(coluna -> !colunas.containsKey(coluna))
+            .toList();
+        if (!ausentes.isEmpty()) {
+            throw new BusinessException("Colunas obrigatórias ausentes no arquivo: " + String.join(", ", ausentes));
+        }
+        return colunas;
+    }
+
+    // "Data Venda", "data-venda" e "DATA_VENDA" viram data_venda
+    static String normalizarColuna(String coluna) {
+        String semAcento = Normalizer.normalize(coluna.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcento.toLowerCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+    }
+
+    private static byte[] bytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static String extensao(String nomeArquivo) {
+        if (nomeArquivo == null || nomeArquivo.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return nomeArquivo.substring(nomeArquivo.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
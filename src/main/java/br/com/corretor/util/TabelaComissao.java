@@ -0,0 +1,113 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Percentuais de comissão de uma fábrica compilados em pontos-base (centésimos de ponto percentual)
+ * por tipo de venda. O cálculo é feito em centavos com arredondamento bancário (metade para o par),
+ * sem criar BigDecimal por venda; o recálculo em SQL reproduz o mesmo arredondamento.
+ * O cadastro da fábrica exige no máximo 2 casas (validar); percentuais gravados antes disso com mais
+ * casas são arredondados na compilação, para não bloquear vendas e importações da fábrica.
+ */
+@Slf4j
+public final class TabelaComissao {
+
+    // 100% = 10.000 pontos-base
+    public static final int PONTOS_BASE_MAXIMO = 10_000;
+
+    private final Long fabricaId;
+    private final Map<String, Integer> pontosBase;
+
+    private TabelaComissao(Long fabricaId, Map<String, Integer> pontosBase) {
+        this.fabricaId = fabricaId;
+        this.pontosBase = pontosBase;
+    }
+
+    public static TabelaComissao compilar(Long fabricaId, Map<String, BigDecimal> percentuais) {
+        Map<String, Integer> compilados = new HashMap<>();
+        if (percentuais != null) {
+            percentuais.forEach((tipoVenda, percentual) -> {
+                if (percentual == null) {
+                    return;
+                }
+                BigDecimal arredondado = percentual.setScale(2, RoundingMode.HALF_EVEN);
+                if (arredondado.compareTo(percentual) != 0) {
+                    log.warn("Percentual de comissão com mais de 2 casas arredondado - Fábrica: {}, tipo: {}, percentual: {} -> {}",
+                        fabricaId, tipoVenda, percentual, arredondado);
+                }
+                compilados.put(tipoVenda, paraPontosBase(tipoVenda, arredondado));
+            });
+        }
+        return new TabelaComissao(fabricaId, Map.copyOf(compilados));
+    }
+
+    // Regras do cadastro: rejeita percentuais fora de 0 a 100 ou com mais de 2 casas em vez de arredondar
+    public static void validar(Map<String, BigDecimal> percentuais) {
+        if (percentuais == null) {
+            return;
+        }
+        percentuais.forEach((tipoVenda, percentual) -> {
+            if (percentual == null) {
+                return;
+            }
+            if (percentual.stripTrailingZeros().scale() > 2) {
+                throw new BusinessException("Percentual de comissão para " + tipoVenda + " deve ter no máximo 2 casas decimais");
+            }
+            paraPontosBase(tipoVenda, percentual);
+        });
+    }
+
+    private static int paraPontosBase(String tipoVenda, BigDecimal percentual) {
+        // Chega aqui com no máximo 2 casas
+        if (percentual.signum() < 0 || percentual.compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new BusinessException("Percentual de comissão para " + tipoVenda + " deve estar entre 0 e 100");
+        }
+        return percentual.movePointRight(2).intValueExact();
+    }
+
+    public Long getFabricaId() {
+        return fabricaId;
+    }
+
+    // Tipo de venda sem percentual cadastrado não gera comissão, como em Fabrica.getPercentualComissaoPorTipoVenda
+    public int pontosBase(String tipoVenda) {
+        return pontosBase.getOrDefault(tipoVenda, 0);
+    }
+
+    public Map<String, Integer> getPontosBase() {
+        return pontosBase;
+    }
+
+    public BigDecimal percentual(String tipoVenda) {
+        return BigDecimal.valueOf(pontosBase(tipoVenda), 2);
+    }
+
+    public BigDecimal calcular(BigDecimal valorVenda, String tipoVenda) {
+        return BigDecimal.valueOf(calcularCentavos(centavos(valorVenda), tipoVenda), 2);
+    }
+
+    public long calcularCentavos(long valorCentavos, String tipoVenda) {
+        return comissaoCentavos(valorCentavos, pontosBase(tipoVenda));
+    }
+
+    static long comissaoCentavos(long valorCentavos, int pontosBase) {
+        long produto = Math.multiplyExact(valorCentavos, (long) pontosBase);
+        long quociente = produto / PONTOS_BASE_MAXIMO;
+        long dobroResto = Math.abs(produto % PONTOS_BASE_MAXIMO) * 2;
+        // Metade exata vai para o quociente par
+        if (dobroResto > PONTOS_BASE_MAXIMO || (dobroResto == PONTOS_BASE_MAXIMO && (quociente & 1) != 0)) {
+            quociente += Long.signum(produto);
+        }
+        return quociente;
+    }
+
+    public static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+}
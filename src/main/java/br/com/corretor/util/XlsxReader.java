@@ -0,0 +1,219 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Lê a primeira aba de uma planilha XLSX linha a linha, convertendo cada linha só quando pedida.
+ * Os valores são devolvidos como texto: números e datas chegam no formato bruto do arquivo
+ * (datas como número serial do Excel) e a interpretação fica com quem lê. O ZIP é lido entrada a entrada
+ * pelos cabeçalhos locais, com limite de bytes descompactados por entrada e no total.
+ */
+public class XlsxReader implements Iterator<String[]> {
+
+    private static final String PLANILHA_PADRAO = "xl/worksheets/sheet1.xml";
+    private static final String PREFIXO_PLANILHAS = "xl/worksheets/";
+    private static final String TEXTOS_COMPARTILHADOS = "xl/sharedStrings.xml";
+
+    // Um XLSX de poucos MB pode descompactar para gigabytes; acima disso o arquivo é recusado
+    public static final int TAMANHO_MAXIMO_ENTRADA = 50 * 1024 * 1024;
+    public static final long TAMANHO_MAXIMO_DESCOMPACTADO = 100L * 1024 * 1024;
+
+    private final List<String> textosCompartilhados;
+    private final XMLStreamReader leitor;
+    private String[] proxima;
+
+    public XlsxReader(byte[] conteudo) {
+        Map<String, byte[]> entradas = lerEntradas(conteudo);
+        byte[] planilha = entradas.get(PLANILHA_PADRAO);
+        if (planilha == null) {
+            planilha = entradas.entrySet().stream()
+                .filter(entrada -> entrada.getKey().startsWith(PREFIXO_PLANILHAS) && entrada.getKey().endsWith(".xml"))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Arquivo XLSX sem planilha"));
+        }
+        try {
+            this.textosCompartilhados = lerTextosCompartilhados(entradas.get(TEXTOS_COMPARTILHADOS));
+            this.leitor = criarLeitor(planilha);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Arquivo XLSX inválido", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (proxima == null) {
+            proxima = lerProximaLinha();
+        }
+        return proxima != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String[] linha = proxima;
+        proxima = null;
+        return linha;
+    }
+
+    // Avança até a próxima linha com algum valor; null no fim da planilha
+    private String[] lerProximaLinha() {
+        try {
+            while (leitor.hasNext()) {
+                if (leitor.next() == XMLStreamConstants.START_ELEMENT && "row".equals(leitor.getLocalName())) {
+                    String[] linha = lerLinha();
+                    for (String valor : linha) {
+                        if (!valor.isEmpty()) {
+                            return linha;
+                        }
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Arquivo XLSX inválido", e);
+        }
+    }
+
+    private String[] lerLinha() throws XMLStreamException {
+        List<String> valores = new ArrayList<>();
+        while (leitor.hasNext()) {
+            int evento = leitor.next();
+            if (evento == XMLStreamConstants.END_ELEMENT && "row".equals(leitor.getLocalName())) {
+                break;
+            }
+            if (evento == XMLStreamConstants.START_ELEMENT && "c".equals(leitor.getLocalName())) {
+                // Células vazias são omitidas no arquivo: a referência (ex.: C7) diz a coluna
+                String referencia = leitor.getAttributeValue(null, "r");
+                int coluna = referencia != null ? indiceColuna(referencia) : valores.size();
+                String tipo = leitor.getAttributeValue(null, "t");
+                String valor = lerCelula(tipo);
+                while (valores.size() < coluna) {
+                    valores.add("");
+                }
+                valores.add(valor);
+            }
+        }
+        return valores.toArray(new String[0]);
+    }
+
+    private String lerCelula(String tipo) throws XMLStreamException {
+        StringBuilder valor = new StringBuilder();
+        while (leitor.hasNext()) {
+            int evento = leitor.next();
+            if (evento == XMLStreamConstants.END_ELEMENT && "c".equals(leitor.getLocalName())) {
+                break;
+            }
+            if (evento == XMLStreamConstants.START_ELEMENT
+                    && ("v".equals(leitor.getLocalName()) || "t".equals(leitor.getLocalName()))) {
+                valor.append(leitor.getElementText());
+            }
+        }
+        if ("s".equals(tipo) && valor.length() > 0) {
+            int indice;
+            try {
+                indice = Integer.parseInt(valor.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Arquivo XLSX inválido: referência de texto \"" + valor + "\"");
+            }
+            return indice >= 0 && indice < textosCompartilhados.size() ? textosCompartilhados.get(indice) : "";
+        }
+        return valor.toString();
+    }
+
+    private static List<String> lerTextosCompartilhados(byte[] conteudo) throws XMLStreamException {
+        List<String> textos = new ArrayList<>();
+        if (conteudo == null) {
+            return textos;
+        }
+        XMLStreamReader leitor = criarLeitor(conteudo);
+        StringBuilder atual = null;
+        while (leitor.hasNext()) {
+            int evento = leitor.next();
+            if (evento == XMLStreamConstants.START_ELEMENT) {
+                if ("si".equals(leitor.getLocalName())) {
+                    atual = new StringBuilder();
+                } else if ("t".equals(leitor.getLocalName()) && atual != null) {
+                    atual.append(leitor.getElementText());
+                }
+            } else if (evento == XMLStreamConstants.END_ELEMENT && "si".equals(leitor.getLocalName()) && atual != null) {
+                textos.add(atual.toString());
+                atual = null;
+            }
+        }
+        leitor.close();
+        return textos;
+    }
+
+    private static Map<String, byte[]> lerEntradas(byte[] conteudo) {
+        Map<String, byte[]> entradas = new HashMap<>();
+        long total = 0;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(conteudo))) {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null) {
+                String nome = entrada.getName();
+                if (nome.equals(TEXTOS_COMPARTILHADOS) || nome.startsWith(PREFIXO_PLANILHAS)) {
+                    // O tamanho declarado na entrada não é confiável: conta o que de fato foi descompactado
+                    byte[] bytes = zip.readNBytes(TAMANHO_MAXIMO_ENTRADA + 1);
+                    total += bytes.length;
+                    if (bytes.length > TAMANHO_MAXIMO_ENTRADA) {
+                        throw acimaDoLimite(TAMANHO_MAXIMO_ENTRADA);
+                    }
+                    if (total > TAMANHO_MAXIMO_DESCOMPACTADO) {
+                        throw acimaDoLimite(TAMANHO_MAXIMO_DESCOMPACTADO);
+                    }
+                    entradas.put(nome, bytes);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Arquivo XLSX inválido", e);
+        }
+        if (entradas.isEmpty()) {
+            throw new IllegalArgumentException("Arquivo XLSX inválido");
+        }
+        return entradas;
+    }
+
+    private static BusinessException acimaDoLimite(long limite) {
+        return new BusinessException("Planilha XLSX descompactada maior que o limite de "
+            + limite / (1024 * 1024) + " MB; envie em partes ou como CSV");
+    }
+
+    private static XMLStreamReader criarLeitor(byte[] conteudo) throws XMLStreamException {
+        XMLInputFactory fabrica = XMLInputFactory.newInstance();
+        // O arquivo vem do usuário: sem DTD nem entidades externas
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return fabrica.createXMLStreamReader(new ByteArrayInputStream(conteudo), "UTF-8");
+    }
+
+    // "AB12" -> 27
+    private static int indiceColuna(String referencia) {
+        int indice = 0;
+        for (int i = 0; i < referencia.length(); i++) {
+            char c = referencia.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            indice = indice * 26 + (c - 'A' + 1);
+        }
+        return indice - 1;
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.corretor.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Gera uma planilha XLSX de uma aba de forma incremental. Cada chamada devolve apenas os bytes
+ * produzidos desde a chamada anterior, de modo que a memória usada não depende do número de linhas.
+ * Datas são gravadas como número serial do Excel com formato de data, para ordenar e filtrar como datas.
+ */
+public class XlsxStreamWriter implements AutoCloseable {
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PKG_REL = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    // Dia zero do número serial do Excel (o 1900-02-29 inexistente do Excel é anterior a qualquer data exportada)
+    private static final LocalDate EPOCA_EXCEL = LocalDate.of(1899, 12, 30);
+    // Índices em cellXfs do styles.xml
+    private static final int ESTILO_DATA = 1;
+    private static final int ESTILO_DATA_HORA = 2;
+
+    private final ByteArrayOutputStream saida = new ByteArrayOutputStream(64 * 1024);
+    private final ZipOutputStream zip = new ZipOutputStream(saida, StandardCharsets.UTF_8);
+    private final String nomePlanilha;
+
+    public XlsxStreamWriter(String nomePlanilha) {
+        this.nomePlanilha = nomePlanilha;
+    }
+
+    public byte[] iniciar(String[] colunas) {
+        try {
+            escreverEntrada("[Content_Types].xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+                "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>" +
+                "</Types>");
+            escreverEntrada("_rels/.rels",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Relationships xmlns=\"" + NS_PKG_REL + "\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+            escreverEntrada("xl/workbook.xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\">" +
+                "<sheets><sheet name=\"" + escapar(nomePlanilha) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>" +
+                "</workbook>");
+            escreverEntrada("xl/_rels/workbook.xml.rels",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Relationships xmlns=\"" + NS_PKG_REL + "\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>" +
+                "<Relationship Id=\"rId2\" Type=\"" + NS_REL + "/styles\" Target=\"styles.xml\"/>" +
+                "</Relationships>");
+            escreverEntrada("xl/styles.xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<styleSheet xmlns=\"" + NS_MAIN + "\">" +
+                "<numFmts count=\"2\">" +
+                "<numFmt numFmtId=\"164\" formatCode=\"dd/mm/yyyy\"/>" +
+                "<numFmt numFmtId=\"165\" formatCode=\"dd/mm/yyyy hh:mm\"/>" +
+                "</numFmts>" +
+                "<fonts count=\"1\"><font/></fonts>" +
+                "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>" +
+                "<borders count=\"1\"><border/></borders>" +
+                "<cellStyleXfs count=\"1\"><xf/></cellStyleXfs>" +
+                "<cellXfs count=\"3\">" +
+                "<xf/>" +
+                "<xf numFmtId=\"164\" applyNumberFormat=\"1\"/>" +
+                "<xf numFmtId=\"165\" applyNumberFormat=\"1\"/>" +
+                "</cellXfs>" +
+                "</styleSheet>");
+
+            // A aba fica aberta até finalizar(); as linhas são comprimidas à medida que chegam
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            StringBuilder sb = new StringBuilder();
+            sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+              .append("<worksheet xmlns=\"").append(NS_MAIN).append("\"><sheetData>");
+            adicionarLinha(sb, colunas);
+            escrever(sb);
+            return drenar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] escreverLinhas(List<Object[]> linhas) {
+        StringBuilder sb = new StringBuilder(linhas.size() * 256);
+        for (Object[] valores : linhas) {
+            adicionarLinha(sb, valores);
+        }
+        escrever(sb);
+        return drenar();
+    }
+
+    public byte[] finalizar() {
+        try {
+            escrever(new StringBuilder("</sheetData></worksheet>"));
+            zip.closeEntry();
+            zip.finish();
+            return drenar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            zip.close();
+        } catch (IOException e) {
+            // Nada a liberar além do buffer em memória
+        }
+    }
+
+    private void adicionarLinha(StringBuilder sb, Object[] valores) {
+        sb.append("<row>");
+        for (Object valor : valores) {
+            if (valor == null) {
+                sb.append("<c/>");
+            } else if (valor instanceof Number) {
+                String numero = valor instanceof BigDecimal
+                    ? ((BigDecimal) valor).toPlainString()
+                    : valor.toString();
+                sb.append("<c><v>").append(numero).append("</v></c>");
+            } else if (valor instanceof LocalDate) {
+                sb.append("<c s=\"").append(ESTILO_DATA).append("\"><v>")
+                  .append(ChronoUnit.DAYS.between(EPOCA_EXCEL, (LocalDate) valor)).append("</v></c>");
+            } else if (valor instanceof LocalDateTime) {
+                sb.append("<c s=\"").append(ESTILO_DATA_HORA).append("\"><v>")
+                  .append(serial((LocalDateTime) valor).toPlainString()).append("</v></c>");
+            } else {
+                sb.append("<c t=\"inlineStr\"><is><t>").append(escapar(valor.toString())).append("</t></is></c>");
+            }
+        }
+        sb.append("</row>");
+    }
+
+    // Dias desde a época mais a fração do dia
+    private static BigDecimal serial(LocalDateTime dataHora) {
+        long dias = ChronoUnit.DAYS.between(EPOCA_EXCEL, dataHora.toLocalDate());
+        long segundos = Duration.between(dataHora.toLocalDate().atStartOfDay(), dataHora).toSeconds();
+        BigDecimal fracao = BigDecimal.valueOf(segundos).divide(BigDecimal.valueOf(86_400), 10, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(dias).add(fracao).stripTrailingZeros();
+    }
+
+    private void escreverEntrada(String nome, String conteudo) throws IOException {
+        zip.putNextEntry(new ZipEntry(nome));
+        zip.write(conteudo.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private void escrever(StringBuilder sb) {
+        try {
+            zip.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] drenar() {
+        byte[] bytes = saida.toByteArray();
+        saida.reset();
+        return bytes;
+    }
+
+    private static String escapar(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                default -> {
+                    // Caracteres de controle não são permitidos em XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
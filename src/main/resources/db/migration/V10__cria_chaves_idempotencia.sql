@@ -0,0 +1,21 @@
+-- Respostas de requisições POST com cabeçalho Idempotency-Key, reaproveitadas nas repetições da
+-- mesma requisição. Enquanto concluida_em é nulo a chave está reservada por uma instância até
+-- reservada_ate; depois de expira_em a chave pode ser usada de novo
+CREATE TABLE IF NOT EXISTS chaves_idempotencia (
+    id BIGSERIAL PRIMARY KEY,
+    escopo VARCHAR(150) NOT NULL,
+    chave VARCHAR(100) NOT NULL,
+    hash_requisicao VARCHAR(64) NOT NULL,
+    reservada_ate TIMESTAMP NOT NULL,
+    status_resposta INTEGER,
+    tipo_conteudo VARCHAR(150),
+    corpo_resposta BYTEA,
+    concluida_em TIMESTAMP,
+    expira_em TIMESTAMP NOT NULL,
+    data_criacao TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_chaves_idempotencia UNIQUE (escopo, chave)
+);
+
+-- Limpeza das chaves expiradas
+CREATE INDEX IF NOT EXISTS idx_chaves_idempotencia_expira_em
+    ON chaves_idempotencia(expira_em);
@@ -0,0 +1,10 @@
+-- Busca de vendas por parte do número da nota fiscal
+-- Prefixo: btree com collation "C" atende LIKE 'abc%' e já entrega a ordem (nota, id) da paginação por chave
+CREATE INDEX IF NOT EXISTS idx_vendas_empresa_nota_fiscal
+    ON vendas(empresa_id, (numero_nota_fiscal COLLATE "C"), id)
+    WHERE numero_nota_fiscal IS NOT NULL;
+
+-- Trecho em qualquer posição: trigramas (termos com pelo menos 3 caracteres)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_vendas_nota_fiscal_trgm
+    ON vendas USING gin (numero_nota_fiscal gin_trgm_ops);
@@ -0,0 +1,8 @@
+-- Uma comissão por parcela da venda: vencimento, pagamento e fluxo de caixa passam a ser por parcela.
+-- As comissões já existentes ficam como parcela única.
+ALTER TABLE comissoes
+ADD COLUMN numero_parcela INTEGER NOT NULL DEFAULT 1,
+ADD COLUMN quantidade_parcelas INTEGER NOT NULL DEFAULT 1;
+
+-- Também impede que um evento de venda reprocessado gere o cronograma duas vezes
+CREATE UNIQUE INDEX IF NOT EXISTS uk_comissoes_venda_parcela ON comissoes(venda_id, numero_parcela);
@@ -0,0 +1,23 @@
+-- Busca aproximada por nome em clientes, fábricas e corretores: trigramas sobre o nome sem acentos
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+-- Permite empresa_id no mesmo índice GIN dos trigramas
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+-- unaccent() não é IMMUTABLE e não pode entrar em índice; com o dicionário fixo o resultado é estável
+CREATE OR REPLACE FUNCTION normalizar_busca(texto TEXT) RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto))
+$$ LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE;
+
+-- As consultas repetem exatamente estas expressões para que o planejador use os índices
+CREATE INDEX IF NOT EXISTS idx_clientes_busca_nome ON clientes USING gin (
+    empresa_id,
+    normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, '')) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_fabricas_busca_nome ON fabricas USING gin (
+    empresa_id,
+    normalizar_busca(coalesce(razao_social, '') || ' ' || coalesce(nome_fantasia, '')) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_corretores_busca_nome ON corretores USING gin (
+    empresa_id,
+    normalizar_busca(nome) gin_trgm_ops);
@@ -0,0 +1,25 @@
+-- Um documento por empresa em cada cadastro, garantido pelo banco: a gravação não precisa consultar
+-- antes de inserir e dois cadastros simultâneos com o mesmo documento não passam.
+-- Compara só os dígitos, como as buscas em lote por documento (que passam a usar estes índices).
+-- Falha se já houver duplicados; localize-os com, por exemplo:
+--   SELECT empresa_id, regexp_replace(cnpj, '[^0-9]', '', 'g'), count(*) FROM clientes
+--   GROUP BY 1, 2 HAVING count(*) > 1;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_clientes_empresa_cnpj
+    ON clientes(empresa_id, (regexp_replace(cnpj, '[^0-9]', '', 'g')))
+    WHERE regexp_replace(cnpj, '[^0-9]', '', 'g') <> '';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_clientes_empresa_cpf
+    ON clientes(empresa_id, (regexp_replace(cpf, '[^0-9]', '', 'g')))
+    WHERE regexp_replace(cpf, '[^0-9]', '', 'g') <> '';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_fabricas_empresa_cnpj
+    ON fabricas(empresa_id, (regexp_replace(cnpj, '[^0-9]', '', 'g')))
+    WHERE regexp_replace(cnpj, '[^0-9]', '', 'g') <> '';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_corretores_empresa_cpf
+    ON corretores(empresa_id, (regexp_replace(cpf, '[^0-9]', '', 'g')))
+    WHERE regexp_replace(cpf, '[^0-9]', '', 'g') <> '';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_funcionarios_empresa_cpf
+    ON funcionarios(empresa_id, (regexp_replace(cpf, '[^0-9]', '', 'g')))
+    WHERE regexp_replace(cpf, '[^0-9]', '', 'g') <> '';
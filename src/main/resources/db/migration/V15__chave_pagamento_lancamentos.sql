@@ -0,0 +1,18 @@
+-- Chave de idempotência de cada pagamento, no lançamento PAGAMENTO que ele gerou. Com pagamentos
+-- parciais a comissão recebe vários pagamentos e a coluna em comissoes guarda só o último
+ALTER TABLE comissao_lancamentos
+ADD COLUMN chave_pagamento VARCHAR(100);
+
+-- Dois pagamentos com a mesma chave na mesma comissão não passam, mesmo simultâneos
+CREATE UNIQUE INDEX IF NOT EXISTS uk_comissao_lancamentos_chave_pagamento
+    ON comissao_lancamentos(comissao_id, chave_pagamento)
+    WHERE chave_pagamento IS NOT NULL;
+
+-- Chaves já gravadas nas comissões passam para o último pagamento de cada uma
+UPDATE comissao_lancamentos l
+SET chave_pagamento = c.chave_pagamento
+FROM comissoes c
+WHERE c.id = l.comissao_id
+  AND c.chave_pagamento IS NOT NULL
+  AND l.id = (SELECT MAX(p.id) FROM comissao_lancamentos p
+              WHERE p.comissao_id = c.id AND p.tipo = 'PAGAMENTO');
@@ -0,0 +1,24 @@
+-- Resumo mensal de comissões por empresa/mês/status, mantido incrementalmente
+-- pelo ComissaoService na mesma transação das alterações em comissoes
+CREATE TABLE IF NOT EXISTS comissao_resumo_mensal (
+    id BIGSERIAL PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    mes DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    quantidade BIGINT NOT NULL DEFAULT 0,
+    valor_total DECIMAL(19,2) NOT NULL DEFAULT 0,
+    CONSTRAINT uk_comissao_resumo_mensal UNIQUE (empresa_id, mes, status)
+);
+
+-- Índice usado para agregar os meses parciais das bordas do período
+CREATE INDEX IF NOT EXISTS idx_comissoes_empresa_data_venda ON comissoes(empresa_id, data_venda);
+
+-- Carga inicial a partir das comissões existentes
+INSERT INTO comissao_resumo_mensal (empresa_id, mes, status, quantidade, valor_total)
+SELECT empresa_id,
+       CAST(date_trunc('month', data_venda) AS DATE),
+       status,
+       COUNT(*),
+       COALESCE(SUM(valor_comissao), 0)
+FROM comissoes
+GROUP BY empresa_id, CAST(date_trunc('month', data_venda) AS DATE), status;
@@ -0,0 +1,5 @@
+-- Paginação por chave (data_venda, id) nas listagens de comissões
+CREATE INDEX IF NOT EXISTS idx_comissoes_empresa_data_venda_id ON comissoes(empresa_id, data_venda, id);
+
+-- Coberto pelo índice acima
+DROP INDEX IF EXISTS idx_comissoes_empresa_data_venda;
@@ -0,0 +1,10 @@
+-- Comissões pendentes por vencimento: usado pelo job noturno que marca as vencidas
+-- e pela consulta de comissões a vencer. Só indexa as linhas ainda em aberto.
+CREATE INDEX IF NOT EXISTS idx_comissoes_pendentes_vencimento
+    ON comissoes(empresa_id, data_previsao_pagamento)
+    WHERE status = 'PENDENTE';
+
+-- Comissões já marcadas como vencidas, na ordem da paginação por chave
+CREATE INDEX IF NOT EXISTS idx_comissoes_vencidas_data_venda_id
+    ON comissoes(empresa_id, data_venda, id)
+    WHERE status = 'VENCIDA';
@@ -0,0 +1,5 @@
+-- Versão para controle de concorrência otimista: toda alteração da comissão incrementa a coluna
+ALTER TABLE comissoes
+ADD COLUMN versao BIGINT NOT NULL DEFAULT 0,
+-- Chave de idempotência do pagamento que liquidou a comissão (cabeçalho Idempotency-Key)
+ADD COLUMN chave_pagamento VARCHAR(100);
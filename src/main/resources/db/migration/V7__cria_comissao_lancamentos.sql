@@ -0,0 +1,42 @@
+-- Razão de comissões: só recebe INSERTs. Cada lançamento carrega o saldo acumulado da comissão
+-- e do corretor, então o saldo atual é sempre o último lançamento, sem agregação na leitura
+CREATE TABLE IF NOT EXISTS comissao_lancamentos (
+    id BIGSERIAL PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    corretor_id BIGINT,
+    comissao_id BIGINT NOT NULL,
+    tipo VARCHAR(20) NOT NULL,
+    valor DECIMAL(19,2) NOT NULL,
+    saldo_comissao DECIMAL(19,2) NOT NULL,
+    saldo_corretor DECIMAL(19,2) NOT NULL,
+    sequencia BIGINT NOT NULL,
+    descricao VARCHAR(255),
+    data_lancamento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Sequência por corretor: lançamentos simultâneos do mesmo corretor disputam o mesmo número
+-- e o perdedor recalcula o saldo a partir do vencedor, sem lock de linha
+CREATE UNIQUE INDEX IF NOT EXISTS uk_comissao_lancamentos_corretor_sequencia
+    ON comissao_lancamentos(empresa_id, COALESCE(corretor_id, 0), sequencia);
+
+CREATE INDEX IF NOT EXISTS idx_comissao_lancamentos_comissao
+    ON comissao_lancamentos(comissao_id, id);
+
+-- Saldo de abertura a partir das comissões existentes
+INSERT INTO comissao_lancamentos (empresa_id, corretor_id, comissao_id, tipo, valor, saldo_comissao, saldo_corretor, sequencia, descricao)
+SELECT empresa_id,
+       corretor_id,
+       id,
+       'ABERTURA',
+       saldo,
+       saldo,
+       SUM(saldo) OVER corretor,
+       ROW_NUMBER() OVER corretor,
+       'Saldo inicial'
+FROM (
+    SELECT id, empresa_id, corretor_id,
+           CASE WHEN status IN ('PAGO', 'CANCELADO') THEN 0
+                ELSE COALESCE(valor_comissao, 0) - COALESCE(valor_pago, 0) END AS saldo
+    FROM comissoes
+) abertas
+WINDOW corretor AS (PARTITION BY empresa_id, COALESCE(corretor_id, 0) ORDER BY id);
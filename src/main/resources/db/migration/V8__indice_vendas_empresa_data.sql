@@ -0,0 +1,2 @@
+-- Pesquisa de vendas com filtros: empresa sempre informada, período na maioria das consultas
+CREATE INDEX IF NOT EXISTS idx_vendas_empresa_data_venda ON vendas(empresa_id, data_venda, id);
@@ -0,0 +1,26 @@
+-- Outbox de vendas: gravado na mesma transação da venda e aplicado às comissões em segundo plano.
+-- Um evento fica pendente até processado_em ser preenchido; proxima_tentativa serve tanto para o
+-- atraso entre tentativas quanto para a reserva do evento por uma instância
+CREATE TABLE IF NOT EXISTS venda_eventos (
+    id BIGSERIAL PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    venda_id BIGINT NOT NULL,
+    tipo VARCHAR(20) NOT NULL,
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    proxima_tentativa TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_erro VARCHAR(500),
+    processado_em TIMESTAMP,
+    data_criacao TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Fila de pendentes na ordem de chegada
+CREATE INDEX IF NOT EXISTS idx_venda_eventos_pendentes
+    ON venda_eventos(id) WHERE processado_em IS NULL;
+
+-- Evento anterior pendente da mesma venda, que bloqueia os seguintes
+CREATE INDEX IF NOT EXISTS idx_venda_eventos_venda_pendentes
+    ON venda_eventos(venda_id, id) WHERE processado_em IS NULL;
+
+-- Limpeza dos eventos já processados
+CREATE INDEX IF NOT EXISTS idx_venda_eventos_processado_em
+    ON venda_eventos(processado_em) WHERE processado_em IS NOT NULL;
@@ -2,11 +2,15 @@
 
 import br.com.corretor.dto.ComissaoDTO;
 import br.com.corretor.dto.ComissaoResumoDTO;
+import br.com.corretor.dto.PaginaDTO;
 import br.com.corretor.service.ComissaoService;
+import br.com.corretor.service.ExportacaoService;
+import br.com.corretor.service.ExtratoComissaoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
@@ -14,9 +18,11 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -30,6 +36,12 @@ class ComissaoControllerTest {
     @MockBean
     private ComissaoService comissaoService;
 
+    @MockBean
+    private ExportacaoService exportacaoService;
+
+    @MockBean
+    private ExtratoComissaoService extratoComissaoService;
+
     @Test
     void buscarVencidas_RetornaComissoes() {
         ComissaoDTO comissao = new ComissaoDTO();
@@ -37,18 +49,22 @@ class ComissaoControllerTest {
         comissao.setEmpresaId(1L);
         comissao.setStatus("PENDENTE");
 
-        when(comissaoService.buscarVencidas(anyLong()))
-            .thenReturn(Flux.just(comissao));
+        when(comissaoService.listarVencidasPagina(eq(1L), any(), any()))
+            .thenReturn(Mono.just(PaginaDTO.<ComissaoDTO>builder()
+                    .itens(List.of(comissao))
+                    .tamanho(1)
+                    .temProximaPagina(false)
+                    .build()));
 
         webTestClient.get()
                 .uri("/api/comissoes/vencidas?empresaId=1")
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(ComissaoDTO.class)
-                .hasSize(1)
-                .value(list -> {
-                    ComissaoDTO dto = list.get(0);
+                .expectBody(new ParameterizedTypeReference<PaginaDTO<ComissaoDTO>>() {})
+                .value(pagina -> {
+                    assertEquals(1, pagina.getItens().size());
+                    ComissaoDTO dto = pagina.getItens().get(0);
                     assertEquals(1L, dto.getId());
                     assertEquals(1L, dto.getEmpresaId());
                     assertEquals("PENDENTE", dto.getStatus());
@@ -62,24 +78,48 @@ class ComissaoControllerTest {
         comissao.setEmpresaId(1L);
         comissao.setStatus("PENDENTE");
 
-        when(comissaoService.buscarAVencer(anyLong()))
-            .thenReturn(Flux.just(comissao));
+        when(comissaoService.listarAVencerPagina(eq(1L), any(), any()))
+            .thenReturn(Mono.just(PaginaDTO.<ComissaoDTO>builder()
+                    .itens(List.of(comissao))
+                    .tamanho(1)
+                    .temProximaPagina(false)
+                    .build()));
 
         webTestClient.get()
                 .uri("/api/comissoes/a-vencer?empresaId=1")
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(ComissaoDTO.class)
-                .hasSize(1)
-                .value(list -> {
-                    ComissaoDTO dto = list.get(0);
+                .expectBody(new ParameterizedTypeReference<PaginaDTO<ComissaoDTO>>() {})
+                .value(pagina -> {
+                    assertEquals(1, pagina.getItens().size());
+                    ComissaoDTO dto = pagina.getItens().get(0);
                     assertEquals(1L, dto.getId());
                     assertEquals(1L, dto.getEmpresaId());
                     assertEquals("PENDENTE", dto.getStatus());
                 });
     }
 
+    @Test
+    void buscarVencidas_ComAcceptNdjson_RetornaStream() {
+        ComissaoDTO primeira = new ComissaoDTO();
+        primeira.setId(1L);
+        ComissaoDTO segunda = new ComissaoDTO();
+        segunda.setId(2L);
+
+        when(comissaoService.buscarVencidas(anyLong()))
+            .thenReturn(Flux.just(primeira, segunda));
+
+        webTestClient.get()
+                .uri("/api/comissoes/vencidas?empresaId=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ComissaoDTO.class)
+                .hasSize(2);
+    }
+
     @Test
     void obterResumo_RetornaResumoCompleto() {
         LocalDate hoje = LocalDate.now();
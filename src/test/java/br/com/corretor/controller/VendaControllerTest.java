@@ -1,21 +1,33 @@
 package br.com.corretor.controller;
 
+import br.com.corretor.dto.ImportacaoVendaResultadoDTO;
+import br.com.corretor.dto.PaginaDTO;
+import br.com.corretor.dto.VendaAnaliseDTO;
+import br.com.corretor.dto.VendaCuboFiltroDTO;
 import br.com.corretor.dto.VendaDTO;
 import br.com.corretor.service.VendaService;
+import br.com.corretor.service.ExportacaoService;
+import br.com.corretor.service.CuboVendaService;
+import br.com.corretor.service.ImportacaoVendaService;
+import br.com.corretor.service.VendaAnaliseService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -29,6 +41,18 @@ class VendaControllerTest {
     @MockBean
     private VendaService vendaService;
 
+    @MockBean
+    private ExportacaoService exportacaoService;
+
+    @MockBean
+    private ImportacaoVendaService importacaoVendaService;
+
+    @MockBean
+    private VendaAnaliseService vendaAnaliseService;
+
+    @MockBean
+    private CuboVendaService cuboVendaService;
+
     @Test
     void listarComFiltros_RetornaVendas() {
         VendaDTO venda = new VendaDTO();
@@ -193,4 +217,107 @@ class VendaControllerTest {
                 .exchange()
                 .expectStatus().isNoContent();
     }
+
+    @Test
+    void importar_RetornaRelatorioDaImportacao() {
+        when(importacaoVendaService.importar(eq(1L), eq("vendas.csv"), any()))
+            .thenReturn(Mono.just(ImportacaoVendaResultadoDTO.builder()
+                .empresaId(1L)
+                .totalLinhas(2L)
+                .importadas(2L)
+                .rejeitadas(0L)
+                .build()));
+
+        MultipartBodyBuilder multipart = new MultipartBodyBuilder();
+        multipart.part("arquivo", "data_venda;valor_venda\r\n".getBytes())
+                .filename("vendas.csv")
+                .contentType(MediaType.TEXT_PLAIN);
+
+        webTestClient.post()
+                .uri("/api/vendas/importar?empresaId=1")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(multipart.build()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.importadas").isEqualTo(2)
+                .jsonPath("$.rejeitadas").isEqualTo(0);
+    }
+
+    @Test
+    void analisar_RetornaTotaisAgrupados() {
+        when(vendaAnaliseService.analisar(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31),
+                List.of("tipoVenda", "mes")))
+            .thenReturn(Mono.just(List.of(
+                VendaAnaliseDTO.builder()
+                    .agrupadoPor(List.of("tipoVenda", "mes"))
+                    .tipoVenda("PEDIDO")
+                    .mes(LocalDate.of(2024, 1, 1))
+                    .quantidade(3L)
+                    .valorVenda(new BigDecimal("3000.00"))
+                    .valorComissao(new BigDecimal("150.00"))
+                    .build(),
+                VendaAnaliseDTO.builder()
+                    .agrupadoPor(List.of())
+                    .quantidade(3L)
+                    .valorVenda(new BigDecimal("3000.00"))
+                    .valorComissao(new BigDecimal("150.00"))
+                    .build())));
+
+        webTestClient.get()
+                .uri("/api/vendas/analise?empresaId=1&dataInicio=2024-01-01&dataFim=2024-03-31&dimensoes=tipoVenda,mes")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].tipoVenda").isEqualTo("PEDIDO")
+                .jsonPath("$[1].agrupadoPor.length()").isEqualTo(0);
+    }
+
+    @Test
+    void consultarCubo_RepassaFiltrosEDimensoes() {
+        VendaCuboFiltroDTO filtro = VendaCuboFiltroDTO.builder()
+            .empresaId(1L)
+            .fabricaId(10L)
+            .dataInicio(LocalDate.of(2024, 1, 1))
+            .build();
+        when(cuboVendaService.agrupar(filtro, List.of("corretor", "mes")))
+            .thenReturn(Mono.just(List.of(VendaAnaliseDTO.builder()
+                .agrupadoPor(List.of("corretor", "mes"))
+                .corretorId(7L)
+                .mes(LocalDate.of(2024, 1, 1))
+                .quantidade(2L)
+                .valorVenda(new BigDecimal("800.00"))
+                .valorComissao(new BigDecimal("40.00"))
+                .build())));
+
+        webTestClient.get()
+                .uri("/api/vendas/cubo?empresaId=1&fabricaId=10&dataInicio=2024-01-01&dimensoes=corretor,mes")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].corretorId").isEqualTo(7)
+                .jsonPath("$[0].quantidade").isEqualTo(2);
+    }
+
+    @Test
+    void buscarPorNotaFiscal_RetornaPagina() {
+        VendaDTO venda = new VendaDTO();
+        venda.setId(5L);
+        venda.setNumeroNotaFiscal("NF-1001");
+        when(vendaService.buscarPorNotaFiscal(1L, "NF-10", true, null, 20))
+            .thenReturn(Mono.just(PaginaDTO.<VendaDTO>builder()
+                .itens(List.of(venda))
+                .tamanho(1)
+                .temProximaPagina(false)
+                .build()));
+
+        webTestClient.get()
+                .uri("/api/vendas/nota-fiscal?empresaId=1&numero=NF-10&contem=true&tamanho=20")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.itens[0].numeroNotaFiscal").isEqualTo("NF-1001")
+                .jsonPath("$.temProximaPagina").isEqualTo(false);
+    }
 }
@@ -0,0 +1,123 @@
+package br.com.corretor.service;
+
+import br.com.corretor.enums.TipoCadastro;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Corretor;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.FabricaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AutocompletarServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private FabricaRepository fabricaRepository;
+
+    @Mock
+    private CorretorRepository corretorRepository;
+
+    @InjectMocks
+    private AutocompletarService autocompletarService;
+
+    @Test
+    void completar_ConsultasSeguidas_CarregaIndiceUmaVez() {
+        when(clienteRepository.findAtivosByEmpresaId(1L)).thenReturn(Flux.just(
+            cliente(10L, "Móveis São José Ltda", "12.345.678/0001-90", true),
+            cliente(11L, "Mercado Central", "98.765.432/0001-10", true)));
+
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CLIENTE, 1L, "sao", null))
+                .expectNextMatches(item -> item.getId() == 10L)
+                .verifyComplete();
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CLIENTE, 1L, "98.765", null))
+                .expectNextMatches(item -> item.getId() == 11L)
+                .verifyComplete();
+
+        verify(clienteRepository, times(1)).findAtivosByEmpresaId(1L);
+        assertTrue(autocompletarService.memoriaEstimada(1L) > 0);
+    }
+
+    @Test
+    void registrarCliente_IndiceCarregado_AtualizaSemNovaConsulta() {
+        when(clienteRepository.findAtivosByEmpresaId(1L)).thenReturn(Flux.just(
+            cliente(10L, "Móveis São José Ltda", "12.345.678/0001-90", true)));
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CLIENTE, 1L, "moveis", null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        autocompletarService.registrarCliente(cliente(12L, "Móveis Paraná", "11.222.333/0001-44", true));
+        autocompletarService.registrarCliente(cliente(10L, "Móveis São José Ltda", "12.345.678/0001-90", false));
+
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CLIENTE, 1L, "moveis", null))
+                .expectNextMatches(item -> item.getId() == 12L)
+                .verifyComplete();
+        verify(clienteRepository, times(1)).findAtivosByEmpresaId(1L);
+    }
+
+    @Test
+    void remover_CorretorExcluido_SaiDoIndice() {
+        Corretor corretor = new Corretor();
+        corretor.setId(20L);
+        corretor.setEmpresaId(1L);
+        corretor.setNome("Carlos Andrade");
+        corretor.setAtivo(true);
+        when(corretorRepository.findByEmpresaIdAndAtivo(1L, true)).thenReturn(Flux.just(corretor));
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CORRETOR, 1L, "andr", null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        autocompletarService.remover(TipoCadastro.CORRETOR, 20L);
+
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CORRETOR, 1L, "andr", null))
+                .verifyComplete();
+    }
+
+    @Test
+    void invalidar_AposImportacao_RemontaIndiceDoBanco() {
+        when(clienteRepository.findAtivosByEmpresaId(1L))
+            .thenReturn(Flux.just(cliente(10L, "Móveis São José Ltda", "12.345.678/0001-90", true)))
+            .thenReturn(Flux.just(
+                cliente(10L, "Móveis São José Ltda", "12.345.678/0001-90", true),
+                cliente(13L, "Móveis Bahia", "11.444.777/0001-61", true)));
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CLIENTE, 1L, "moveis", null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        autocompletarService.invalidar(TipoCadastro.CLIENTE, 1L);
+
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.CLIENTE, 1L, "moveis", null))
+                .expectNextCount(2)
+                .verifyComplete();
+        verify(clienteRepository, times(2)).findAtivosByEmpresaId(1L);
+    }
+
+    @Test
+    void completar_TextoVazio_NaoConsultaBanco() {
+        StepVerifier.create(autocompletarService.completar(TipoCadastro.FABRICA, 1L, "  ", null))
+                .verifyComplete();
+
+        verifyNoInteractions(fabricaRepository);
+    }
+
+    private Cliente cliente(Long id, String razaoSocial, String cnpj, boolean ativo) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setEmpresaId(1L);
+        cliente.setRazaoSocial(razaoSocial);
+        cliente.setCnpj(cnpj);
+        cliente.setAtivo(ativo);
+        return cliente;
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.FabricaRepository;
+import br.com.corretor.util.TabelaComissao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CadastroCacheServiceTest {
+
+    @Mock
+    private FabricaRepository fabricaRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private CorretorRepository corretorRepository;
+
+    @InjectMocks
+    private CadastroCacheService cadastroCacheService;
+
+    @Test
+    void obterFabrica_SegundaLeitura_NaoConsultaBanco() {
+        Fabrica fabrica = fabrica(1L);
+        when(fabricaRepository.findById(1L)).thenReturn(Mono.just(fabrica));
+
+        StepVerifier.create(cadastroCacheService.obterFabrica(1L)).expectNext(fabrica).verifyComplete();
+        StepVerifier.create(cadastroCacheService.obterFabrica(1L)).expectNext(fabrica).verifyComplete();
+
+        verify(fabricaRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void obterFabrica_AposInvalidar_ConsultaBancoNovamente() {
+        Fabrica antiga = fabrica(1L);
+        Fabrica atualizada = fabrica(1L);
+        atualizada.setNomeFantasia("Atualizada");
+        when(fabricaRepository.findById(1L)).thenReturn(Mono.just(antiga), Mono.just(atualizada));
+
+        StepVerifier.create(cadastroCacheService.obterFabrica(1L)).expectNext(antiga).verifyComplete();
+        cadastroCacheService.invalidarFabrica(1L);
+
+        StepVerifier.create(cadastroCacheService.obterFabrica(1L)).expectNext(atualizada).verifyComplete();
+    }
+
+    @Test
+    void obterFabrica_QuandoNaoExiste_RetornaVazioSemGuardar() {
+        when(fabricaRepository.findById(9L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(cadastroCacheService.obterFabrica(9L)).verifyComplete();
+        StepVerifier.create(cadastroCacheService.obterFabrica(9L)).verifyComplete();
+
+        verify(fabricaRepository, times(2)).findById(9L);
+    }
+
+    private Fabrica fabrica(Long id) {
+        Fabrica fabrica = new Fabrica();
+        fabrica.setId(id);
+        fabrica.setEmpresaId(1L);
+        fabrica.setNomeFantasia("Fábrica " + id);
+        return fabrica;
+    }
+
+    @Test
+    void obterTabelaComissao_AposInvalidarFabrica_CompilaNovamente() {
+        Fabrica antiga = fabrica(1L);
+        antiga.setPercentualComissaoPorTipoVenda("PEDIDO", new BigDecimal("5.00"));
+        Fabrica atualizada = fabrica(1L);
+        atualizada.setPercentualComissaoPorTipoVenda("PEDIDO", new BigDecimal("7.50"));
+        when(fabricaRepository.findById(1L)).thenReturn(Mono.just(antiga), Mono.just(atualizada));
+
+        StepVerifier.create(cadastroCacheService.obterTabelaComissao(1L))
+                .assertNext(tabela -> assertEquals(500, tabela.pontosBase("PEDIDO")))
+                .verifyComplete();
+        StepVerifier.create(cadastroCacheService.obterTabelaComissao(1L))
+                .assertNext(tabela -> assertEquals(500, tabela.pontosBase("PEDIDO")))
+                .verifyComplete();
+        cadastroCacheService.invalidarFabrica(1L);
+        StepVerifier.create(cadastroCacheService.obterTabelaComissao(1L).map(TabelaComissao::getFabricaId))
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(cadastroCacheService.obterTabelaComissao(1L))
+                .assertNext(tabela -> assertEquals(750, tabela.pontosBase("PEDIDO")))
+                .verifyComplete();
+
+        verify(fabricaRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ClienteDTO;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.repository.AtualizacaoCadastroRepository;
+import br.com.corretor.repository.ClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClienteServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private AtualizacaoCadastroRepository atualizacaoCadastroRepository;
+
+    @Mock
+    private CadastroCacheService cadastroCacheService;
+
+    @Mock
+    private AutocompletarService autocompletarService;
+
+    @InjectMocks
+    private ClienteService clienteService;
+
+    private ClienteDTO clienteDTO;
+
+    @BeforeEach
+    void setUp() {
+        clienteDTO = new ClienteDTO();
+        clienteDTO.setEmpresaId(1L);
+        clienteDTO.setTipo("PJ");
+        clienteDTO.setRazaoSocial("Móveis São José Ltda");
+        clienteDTO.setCnpj("11222333000181");
+    }
+
+    @Test
+    void save_NovoComDocumentoJaCadastrado_RetornaErroDoDocumento() {
+        when(clienteRepository.save(any(Cliente.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("uk_clientes_empresa_cnpj")));
+
+        StepVerifier.create(clienteService.save(clienteDTO))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                    && "CNPJ já cadastrado para esta empresa".equals(e.getMessage()))
+                .verify();
+
+        verifyNoInteractions(autocompletarService);
+    }
+
+    @Test
+    void save_AlteracaoParaDocumentoJaCadastrado_RetornaErroSemInvalidarCache() {
+        clienteDTO.setId(5L);
+        clienteDTO.setTipo("PF");
+        clienteDTO.setCnpj(null);
+        clienteDTO.setCpf("52998224725");
+        when(atualizacaoCadastroRepository.atualizar(eq("clientes"), any(Cliente.class), eq(5L), any()))
+                .thenReturn(Mono.error(new DuplicateKeyException("uk_clientes_empresa_cpf")));
+
+        StepVerifier.create(clienteService.save(clienteDTO))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                    && "CPF já cadastrado para esta empresa".equals(e.getMessage()))
+                .verify();
+
+        verify(clienteRepository, never()).save(any());
+        verifyNoInteractions(cadastroCacheService, autocompletarService);
+    }
+
+    @Test
+    void save_Alteracao_PreservaAtivoEDataCadastroDoBanco() {
+        // O formulário não envia ativo nem data de cadastro; o UPDATE não deve zerá-los
+        clienteDTO.setId(5L);
+        Cliente salvo = new Cliente();
+        salvo.setId(5L);
+        salvo.setEmpresaId(1L);
+        salvo.setRazaoSocial("Móveis São José Ltda");
+        salvo.setAtivo(true);
+        salvo.setDataCadastro(LocalDate.of(2023, 3, 10));
+        when(atualizacaoCadastroRepository.atualizar(eq("clientes"), any(Cliente.class), eq(5L), any()))
+                .thenReturn(Mono.just(salvo));
+
+        StepVerifier.create(clienteService.save(clienteDTO))
+                .expectNextMatches(cliente -> Boolean.TRUE.equals(cliente.getAtivo())
+                    && LocalDate.of(2023, 3, 10).equals(cliente.getDataCadastro()))
+                .verifyComplete();
+
+        verify(atualizacaoCadastroRepository).atualizar(eq("clientes"),
+                argThat((Cliente cliente) -> cliente.getAtivo() == null && cliente.getDataCadastro() == null), eq(5L),
+                argThat((Set<String> colunas) -> colunas.containsAll(Set.of("ativo", "data_cadastro", "data_criacao", "criado_por"))));
+        verify(cadastroCacheService).invalidarCliente(5L);
+        verify(autocompletarService).registrarCliente(salvo);
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.ComissaoPagamentoDTO;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ComissaoPagamentoLoteServiceTest {
+
+    @Mock
+    private ComissaoRepository comissaoRepository;
+
+    @Mock
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    @Mock
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Mock
+    private LancamentoComissaoService lancamentoComissaoService;
+
+    @InjectMocks
+    private ComissaoPagamentoLoteService comissaoPagamentoLoteService;
+
+    private ComissaoPagamentoDTO pagamentoDTO;
+
+    @BeforeEach
+    void setUp() {
+        pagamentoDTO = new ComissaoPagamentoDTO();
+        pagamentoDTO.setDataPagamento(LocalDate.now());
+        pagamentoDTO.setValorPago(new BigDecimal("100.00"));
+        pagamentoDTO.setFormaPagamento("PIX");
+    }
+
+    @Test
+    void liquidar_RetornaResultadoPorId() {
+        Comissao pendente = comissao(1L, "PENDENTE");
+        Comissao paga = comissao(2L, "PAGO");
+        Comissao cancelada = comissao(3L, "CANCELADO");
+        Comissao pendentePaga = comissao(1L, "PAGO");
+
+        when(comissaoRepository.findAllByIds(any(Long[].class)))
+                .thenReturn(Flux.just(pendente, paga, cancelada));
+        when(comissaoRepository.pagarPendentes(eq(new Long[]{1L}), any(), eq("PIX"), any(), isNull()))
+                .thenReturn(Flux.just(pendentePaga));
+        when(lancamentoComissaoService.registrarMudancaStatusEmLote(anyList(), eq("PENDENTE")))
+                .thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarMudancaStatusEmLote(anyList(), eq("PENDENTE")))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(comissaoPagamentoLoteService.liquidar(List.of(1L, 2L, 3L, 4L), pagamentoDTO, null))
+                .expectNextMatches(itens ->
+                    itens.size() == 4 &&
+                    "PAGO".equals(itens.get(0).getResultado()) &&
+                    "JA_PAGA".equals(itens.get(1).getResultado()) &&
+                    "CANCELADA".equals(itens.get(2).getResultado()) &&
+                    "NAO_ENCONTRADA".equals(itens.get(3).getResultado()))
+                .verifyComplete();
+    }
+
+    @Test
+    void liquidar_QuandoNenhumaPendente_NaoExecutaUpdate() {
+        when(comissaoRepository.findAllByIds(any(Long[].class)))
+                .thenReturn(Flux.just(comissao(2L, "PAGO")));
+
+        StepVerifier.create(comissaoPagamentoLoteService.liquidar(List.of(2L), pagamentoDTO, null))
+                .expectNextMatches(itens -> "JA_PAGA".equals(itens.get(0).getResultado()))
+                .verifyComplete();
+
+        verify(comissaoRepository, never()).pagarPendentes(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void liquidar_QuandoRepetidoComMesmaChave_RetornaPago() {
+        Comissao jaPaga = comissao(1L, "PAGO");
+        jaPaga.setChavePagamento("lote-1");
+        when(comissaoRepository.findAllByIds(any(Long[].class)))
+                .thenReturn(Flux.just(jaPaga, comissao(2L, "PAGO")));
+
+        StepVerifier.create(comissaoPagamentoLoteService.liquidar(List.of(1L, 2L), pagamentoDTO, "lote-1"))
+                .expectNextMatches(itens ->
+                    "PAGO".equals(itens.get(0).getResultado()) &&
+                    "JA_PAGA".equals(itens.get(1).getResultado()))
+                .verifyComplete();
+
+        verify(comissaoRepository, never()).pagarPendentes(any(), any(), any(), any(), any());
+    }
+
+    private Comissao comissao(Long id, String status) {
+        Comissao comissao = new Comissao();
+        comissao.setId(id);
+        comissao.setEmpresaId(1L);
+        comissao.setDataVenda(LocalDate.now());
+        comissao.setValorComissao(new BigDecimal("100.00"));
+        comissao.setStatus(status);
+        return comissao;
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.ComissaoResumoMensal;
+import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.repository.ComissaoResumoMensalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ComissaoResumoMensalServiceTest {
+
+    @Mock
+    private ComissaoResumoMensalRepository resumoMensalRepository;
+
+    @Mock
+    private ComissaoRepository comissaoRepository;
+
+    @InjectMocks
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    private Comissao comissao;
+
+    @BeforeEach
+    void setUp() {
+        comissao = new Comissao();
+        comissao.setId(1L);
+        comissao.setEmpresaId(1L);
+        comissao.setDataVenda(LocalDate.of(2024, 3, 15));
+        comissao.setValorComissao(new BigDecimal("100.00"));
+        comissao.setStatus("PAGO");
+    }
+
+    @Test
+    void registrarMudancaStatus_MoveQuantidadeEValorEntreStatus() {
+        when(resumoMensalRepository.acumular(any(), any(), any(), any(), any())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(comissaoResumoMensalService.registrarMudancaStatus(comissao, "PENDENTE"))
+                .verifyComplete();
+
+        verify(resumoMensalRepository).acumular(1L, LocalDate.of(2024, 3, 1), "PENDENTE", -1L, new BigDecimal("-100.00"));
+        verify(resumoMensalRepository).acumular(1L, LocalDate.of(2024, 3, 1), "PAGO", 1L, new BigDecimal("100.00"));
+    }
+
+    @Test
+    void obterResumo_UsaMesesCompletosEBordasParciais() {
+        when(resumoMensalRepository.somarPorStatus(1L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 4, 1)))
+                .thenReturn(Flux.just(linha("PENDENTE", 10L, "1000.00"), linha("PAGO", 5L, "500.00")));
+        when(comissaoRepository.somarPorStatusNoPeriodo(1L, LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 31)))
+                .thenReturn(Flux.just(linha("PAGO", 1L, "50.00")));
+        when(comissaoRepository.somarPorStatusNoPeriodo(1L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 10)))
+                .thenReturn(Flux.just(linha("CANCELADO", 2L, "20.00")));
+
+        StepVerifier.create(comissaoResumoMensalService.obterResumo(1L, LocalDate.of(2024, 1, 20), LocalDate.of(2024, 5, 10)))
+                .expectNextMatches(resumo ->
+                    resumo.getTotalComissoes() == 18L &&
+                    resumo.getTotalPendente() == 10L &&
+                    resumo.getTotalPago() == 6L &&
+                    resumo.getTotalCancelado() == 2L &&
+                    resumo.getValorTotalComissoes().compareTo(new BigDecimal("1570.00")) == 0 &&
+                    resumo.getValorTotalPago().compareTo(new BigDecimal("550.00")) == 0
+                )
+                .verifyComplete();
+    }
+
+    @Test
+    void obterResumo_QuandoPeriodoDentroDoMes_AgregaComissoes() {
+        when(comissaoRepository.somarPorStatusNoPeriodo(eq(1L), any(), any()))
+                .thenReturn(Flux.just(linha("PENDENTE", 3L, "30.00")));
+
+        StepVerifier.create(comissaoResumoMensalService.obterResumo(1L, LocalDate.of(2024, 3, 5), LocalDate.of(2024, 3, 20)))
+                .expectNextMatches(resumo -> resumo.getTotalPendente() == 3L)
+                .verifyComplete();
+
+        verifyNoInteractions(resumoMensalRepository);
+    }
+
+    private ComissaoResumoMensal linha(String status, Long quantidade, String valor) {
+        ComissaoResumoMensal linha = new ComissaoResumoMensal();
+        linha.setStatus(status);
+        linha.setQuantidade(quantidade);
+        linha.setValorTotal(new BigDecimal(valor));
+        return linha;
+    }
+}
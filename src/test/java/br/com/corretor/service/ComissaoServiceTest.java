@@ -1,12 +1,15 @@
 package br.com.corretor.service;
 
 import br.com.corretor.dto.ComissaoDTO;
+import br.com.corretor.dto.ComissaoFiltroDTO;
 import br.com.corretor.dto.ComissaoPagamentoDTO;
 import br.com.corretor.dto.ComissaoResumoDTO;
 import br.com.corretor.exception.BusinessException;
 import br.com.corretor.exception.ResourceNotFoundException;
 import br.com.corretor.model.Comissao;
+import br.com.corretor.model.Venda;
 import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.util.CursorPaginacao;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,8 +23,14 @@ import reactor.test.StepVerifier;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +42,21 @@ class ComissaoServiceTest {
     @Mock
     private VendaService vendaService;
 
+    @Mock
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    @Mock
+    private ComissaoVencimentoService comissaoVencimentoService;
+
+    @Mock
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Mock
+    private RankingCorretorService rankingCorretorService;
+
+    @Mock
+    private LancamentoComissaoService lancamentoComissaoService;
+
     @InjectMocks
     private ComissaoService comissaoService;
 
@@ -94,7 +118,8 @@ class ComissaoServiceTest {
 
     @Test
     void listarComFiltros_RetornaComissoes() {
-        when(comissaoRepository.findByFiltros(any(), any(), any(), any(), any(), any()))
+        when(comissaoRepository.findPagina(any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyInt()))
                 .thenReturn(Flux.just(comissao));
 
         StepVerifier.create(comissaoService.listarComFiltros(1L, 1L, 1L, 
@@ -105,12 +130,62 @@ class ComissaoServiceTest {
 
     @Test
     void registrarPagamento_QuandoComissaoPendente_RetornaComissaoPaga() {
+        comissao.setVersao(3L);
+        Comissao paga = comissaoPaga("chave-1");
         when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissao));
-        when(comissaoRepository.save(any(Comissao.class))).thenReturn(Mono.just(comissao));
+        when(lancamentoComissaoService.pagamentoRegistrado(1L, "chave-1")).thenReturn(Mono.just(false));
+        when(comissaoRepository.pagar(eq(1L), eq(3L), any(), any(), eq("PIX"), any(), eq("chave-1")))
+                .thenReturn(Mono.just(paga));
+        when(lancamentoComissaoService.registrarPagamento(paga, null, "chave-1")).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarMudancaStatus(paga, "PENDENTE")).thenReturn(Mono.empty());
 
-        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO))
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO, "chave-1"))
+                .expectNextMatches(dto -> "PAGO".equals(dto.getStatus()))
+                .verifyComplete();
+
+        verify(lancamentoComissaoService, never()).registrarMudancaStatus(any(), any());
+    }
+
+    @Test
+    void registrarPagamento_QuandoVersaoMudou_ReleERevalida() {
+        comissao.setVersao(3L);
+        Comissao pagaPorOutro = comissaoPaga("outra-chave");
+        when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissao), Mono.just(pagaPorOutro));
+        when(lancamentoComissaoService.pagamentoRegistrado(1L, "chave-1")).thenReturn(Mono.just(false));
+        when(comissaoRepository.pagar(eq(1L), eq(3L), any(), any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO, "chave-1"))
+                .expectErrorMatches(e -> e instanceof IllegalStateException && "Comissão já está paga".equals(e.getMessage()))
+                .verify();
+
+        verify(comissaoResumoMensalService, never()).registrarMudancaStatus(any(Comissao.class), any());
+    }
+
+    @Test
+    void registrarPagamento_QuandoRepetidoComMesmaChave_RetornaPagamentoOriginal() {
+        when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissaoPaga("chave-1")));
+
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO, "chave-1"))
                 .expectNextMatches(dto -> "PAGO".equals(dto.getStatus()))
                 .verifyComplete();
+
+        verify(comissaoRepository, never()).pagar(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void registrarPagamento_QuandoParcialAnteriorRepetidoDepoisDeOutro_NaoPagaDeNovo() {
+        // Parcial com chave-1 e depois com chave-2: a comissão guarda chave-2, mas chave-1 está no razão
+        comissao.setValorPago(new BigDecimal("70.00"));
+        comissao.setChavePagamento("chave-2");
+        when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissao));
+        when(lancamentoComissaoService.pagamentoRegistrado(1L, "chave-1")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO, "chave-1"))
+                .expectNextMatches(dto -> "PENDENTE".equals(dto.getStatus()))
+                .verifyComplete();
+
+        verify(comissaoRepository, never()).pagar(any(), any(), any(), any(), any(), any(), any());
+        verify(lancamentoComissaoService, never()).registrarPagamento(any(), any(), any());
     }
 
     @Test
@@ -123,6 +198,57 @@ class ComissaoServiceTest {
                 .verify();
     }
 
+    @Test
+    void registrarPagamento_DoisPagamentosParciais_SoQuitaNoSegundo() {
+        comissao.setVersao(3L);
+        Comissao parcial = new Comissao();
+        parcial.setId(1L);
+        parcial.setEmpresaId(1L);
+        parcial.setValorComissao(new BigDecimal("100.00"));
+        parcial.setValorPago(new BigDecimal("40.00"));
+        parcial.setStatus("PENDENTE");
+        parcial.setVersao(4L);
+        Comissao paga = comissaoPaga("chave-2");
+        paga.setValorPago(new BigDecimal("100.00"));
+        when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissao), Mono.just(parcial));
+        when(lancamentoComissaoService.pagamentoRegistrado(eq(1L), any())).thenReturn(Mono.just(false));
+        when(comissaoRepository.pagar(eq(1L), eq(3L), any(), eq(new BigDecimal("40.00")), eq("PIX"), any(), eq("chave-1")))
+                .thenReturn(Mono.just(parcial));
+        when(comissaoRepository.pagar(eq(1L), eq(4L), any(), eq(new BigDecimal("60.00")), eq("PIX"), any(), eq("chave-2")))
+                .thenReturn(Mono.just(paga));
+        when(lancamentoComissaoService.registrarPagamento(parcial, new BigDecimal("40.00"), "chave-1")).thenReturn(Mono.empty());
+        when(lancamentoComissaoService.registrarPagamento(paga, null, "chave-2")).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarMudancaStatus(paga, "PENDENTE")).thenReturn(Mono.empty());
+
+        pagamentoDTO.setValorPago(new BigDecimal("40.00"));
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO, "chave-1"))
+                .expectNextMatches(dto -> "PENDENTE".equals(dto.getStatus()))
+                .verifyComplete();
+
+        pagamentoDTO.setValorPago(new BigDecimal("60.00"));
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO, "chave-2"))
+                .expectNextMatches(dto -> "PAGO".equals(dto.getStatus()))
+                .verifyComplete();
+
+        // Um lançamento por pagamento, cada um com a sua chave; o resumo só muda na quitação
+        verify(comissaoResumoMensalService, never()).registrarMudancaStatus(eq(parcial), any());
+        verify(lancamentoComissaoService, never()).registrarMudancaStatus(any(), any());
+    }
+
+    @Test
+    void registrarPagamento_QuandoValorMaiorQueOSaldo_RetornaError() {
+        comissao.setValorPago(new BigDecimal("70.00"));
+        pagamentoDTO.setValorPago(new BigDecimal("40.00"));
+        when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissao));
+
+        StepVerifier.create(comissaoService.registrarPagamento(1L, pagamentoDTO))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                    && "Valor pago não pode ser maior que o saldo da comissão".equals(e.getMessage()))
+                .verify();
+
+        verify(comissaoRepository, never()).pagar(any(), any(), any(), any(), any(), any(), any());
+    }
+
     @Test
     void registrarPagamento_QuandoValorMaior_RetornaError() {
         pagamentoDTO.setValorPago(new BigDecimal("200.00"));
@@ -137,6 +263,8 @@ class ComissaoServiceTest {
     void cancelar_QuandoComissaoPendente_RetornaComissaoCancelada() {
         when(comissaoRepository.findById(1L)).thenReturn(Mono.just(comissao));
         when(comissaoRepository.save(any(Comissao.class))).thenReturn(Mono.just(comissao));
+        when(lancamentoComissaoService.registrarMudancaStatus(any(Comissao.class), any())).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarMudancaStatus(any(Comissao.class), any())).thenReturn(Mono.empty());
 
         StepVerifier.create(comissaoService.cancelar(1L, "Motivo do cancelamento"))
                 .expectNextMatches(dto -> "CANCELADO".equals(dto.getStatus()))
@@ -155,7 +283,9 @@ class ComissaoServiceTest {
 
     @Test
     void buscarVencidas_RetornaComissoesVencidas() {
-        when(comissaoRepository.findVencidas(any(), any()))
+        comissao.setStatus("VENCIDA");
+        comissaoDTO.setStatus("VENCIDA");
+        when(comissaoRepository.findVencidas(eq(1L), eq(LocalDate.now()), isNull(), isNull(), anyInt()))
                 .thenReturn(Flux.just(comissao));
 
         StepVerifier.create(comissaoService.buscarVencidas(1L))
@@ -165,7 +295,7 @@ class ComissaoServiceTest {
 
     @Test
     void buscarAVencer_RetornaComissoesAVencer() {
-        when(comissaoRepository.findAVencer(any(), any()))
+        when(comissaoRepository.findAVencer(eq(1L), eq(LocalDate.now()), isNull(), isNull(), anyInt()))
                 .thenReturn(Flux.just(comissao));
 
         StepVerifier.create(comissaoService.buscarAVencer(1L))
@@ -174,27 +304,160 @@ class ComissaoServiceTest {
     }
 
     @Test
-    void obterResumo_RetornaResumoCompleto() {
-        Comissao comissaoPaga = new Comissao();
-        comissaoPaga.setStatus("PAGO");
-        comissaoPaga.setValorComissao(new BigDecimal("100.00"));
-        comissaoPaga.setValorPago(new BigDecimal("100.00"));
+    void obterResumo_DelegaParaResumoMensal() {
+        ComissaoResumoDTO resumo = new ComissaoResumoDTO();
+        resumo.setTotalComissoes(2L);
+        resumo.setValorTotalComissoes(new BigDecimal("200.00"));
 
-        Comissao comissaoPendente = new Comissao();
-        comissaoPendente.setStatus("PENDENTE");
-        comissaoPendente.setValorComissao(new BigDecimal("100.00"));
-
-        when(comissaoRepository.findByEmpresaIdAndDataVendaBetween(any(), any(), any()))
-                .thenReturn(Flux.just(comissaoPaga, comissaoPendente));
+        when(comissaoResumoMensalService.obterResumo(1L, LocalDate.now(), LocalDate.now()))
+                .thenReturn(Mono.just(resumo));
 
         StepVerifier.create(comissaoService.obterResumo(1L, LocalDate.now(), LocalDate.now()))
-                .expectNextMatches(resumo -> 
-                    resumo.getTotalComissoes() == 2L &&
-                    resumo.getValorTotalComissoes().compareTo(new BigDecimal("200.00")) == 0 &&
-                    resumo.getValorTotalPago().compareTo(new BigDecimal("100.00")) == 0 &&
-                    resumo.getTotalPago() == 1L &&
-                    resumo.getTotalPendente() == 1L
-                )
+                .expectNext(resumo)
+                .verifyComplete();
+    }
+
+    @Test
+    void gerarComissao_AtualizaResumoMensal() {
+        Venda venda = new Venda();
+        venda.setId(1L);
+        venda.setEmpresaId(1L);
+        venda.setCorretorId(1L);
+        venda.setFabricaId(1L);
+        venda.setDataVenda(LocalDate.now());
+        venda.setValorVenda(new BigDecimal("1000.00"));
+        venda.setPercentualComissao(new BigDecimal("10.00"));
+        venda.setValorComissao(new BigDecimal("100.00"));
+
+        when(comissaoRepository.gerarParcelas(any(), any(), any(), any(), any(), any())).thenReturn(Flux.just(comissao));
+        when(lancamentoComissaoService.registrarInclusoesEmLote(List.of(comissao))).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarInclusaoEmLote(List.of(comissao))).thenReturn(Mono.empty());
+
+        StepVerifier.create(comissaoService.gerarComissao(venda))
+                .verifyComplete();
+
+        verify(comissaoResumoMensalService).registrarInclusaoEmLote(List.of(comissao));
+        verify(projecaoFluxoCaixaService).registrarInclusao(comissao);
+    }
+
+    @Test
+    void gerarComissao_VendaParcelada_GravaCronogramaEmUmComando() {
+        Venda venda = new Venda();
+        venda.setId(7L);
+        venda.setDataVenda(LocalDate.of(2024, 1, 31));
+        venda.setValorVenda(new BigDecimal("1000.00"));
+        venda.setValorComissao(new BigDecimal("100.00"));
+        venda.setQuantidadeParcelas(3);
+
+        when(comissaoRepository.gerarParcelas(any(), any(), any(), any(), any(), any())).thenReturn(Flux.empty());
+        when(lancamentoComissaoService.registrarInclusoesEmLote(List.of())).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarInclusaoEmLote(List.of())).thenReturn(Mono.empty());
+
+        StepVerifier.create(comissaoService.gerarComissao(venda))
+                .verifyComplete();
+
+        verify(comissaoRepository).gerarParcelas(
+                aryEq(new Long[]{7L, 7L, 7L}),
+                aryEq(new Integer[]{1, 2, 3}),
+                aryEq(new Integer[]{3, 3, 3}),
+                aryEq(new BigDecimal[]{new BigDecimal("333.34"), new BigDecimal("333.33"), new BigDecimal("333.33")}),
+                aryEq(new BigDecimal[]{new BigDecimal("33.34"), new BigDecimal("33.33"), new BigDecimal("33.33")}),
+                aryEq(new String[]{"2024-02-29", "2024-03-31", "2024-04-30"}));
+    }
+
+    @Test
+    void atualizarComissao_QuantidadeDeParcelasAlteradaSemPagamento_RefazCronograma() {
+        Venda venda = new Venda();
+        venda.setId(1L);
+        venda.setDataVenda(LocalDate.of(2024, 1, 10));
+        venda.setValorVenda(new BigDecimal("1000.00"));
+        venda.setValorComissao(new BigDecimal("100.00"));
+        venda.setQuantidadeParcelas(2);
+
+        when(comissaoRepository.findByVendaId(1L)).thenReturn(Flux.just(comissao));
+        when(comissaoRepository.delete(comissao)).thenReturn(Mono.empty());
+        when(lancamentoComissaoService.registrarExclusao(comissao)).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarExclusao(comissao)).thenReturn(Mono.empty());
+        when(comissaoRepository.gerarParcelas(any(), any(), any(), any(), any(), any())).thenReturn(Flux.empty());
+        when(lancamentoComissaoService.registrarInclusoesEmLote(List.of())).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarInclusaoEmLote(List.of())).thenReturn(Mono.empty());
+
+        StepVerifier.create(comissaoService.atualizarComissao(venda))
                 .verifyComplete();
+
+        verify(comissaoRepository).delete(comissao);
+        verify(comissaoRepository).gerarParcelas(any(), aryEq(new Integer[]{1, 2}), any(), any(), any(), any());
+        verify(comissaoRepository, never()).save(any(Comissao.class));
+    }
+
+    @Test
+    void atualizarComissao_ParcelaPaga_RedistribuiValoresSemRefazerCronograma() {
+        comissao.setStatus("PAGO");
+        Venda venda = new Venda();
+        venda.setId(1L);
+        venda.setValorVenda(new BigDecimal("1200.00"));
+        venda.setPercentualComissao(new BigDecimal("10.00"));
+        venda.setValorComissao(new BigDecimal("120.00"));
+        venda.setQuantidadeParcelas(2);
+
+        when(comissaoRepository.findByVendaId(1L)).thenReturn(Flux.just(comissao));
+        when(comissaoRepository.save(comissao)).thenReturn(Mono.just(comissao));
+        when(lancamentoComissaoService.registrarAlteracaoValor(eq(comissao), any())).thenReturn(Mono.empty());
+        when(comissaoResumoMensalService.registrarAlteracaoValor(eq(comissao), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(comissaoService.atualizarComissao(venda))
+                .verifyComplete();
+
+        assertEquals(new BigDecimal("120.00"), comissao.getValorComissao());
+        verify(comissaoRepository, never()).gerarParcelas(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void listarPagina_QuandoHaMaisRegistros_RetornaCursorDaProximaPagina() {
+        Comissao segunda = new Comissao();
+        segunda.setId(2L);
+        segunda.setEmpresaId(1L);
+        segunda.setDataVenda(LocalDate.now());
+        segunda.setStatus("PENDENTE");
+
+        when(comissaoRepository.findPagina(eq(1L), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), isNull(), isNull(), eq(2)))
+                .thenReturn(Flux.just(comissao, segunda));
+
+        ComissaoFiltroDTO filtro = ComissaoFiltroDTO.builder().empresaId(1L).build();
+
+        StepVerifier.create(comissaoService.listarPagina(filtro, null, 1))
+                .expectNextMatches(pagina ->
+                    pagina.getItens().size() == 1 &&
+                    pagina.getTemProximaPagina() &&
+                    pagina.getProximoCursor().equals(new CursorPaginacao(comissao.getDataVenda(), 1L).codificar()))
+                .verifyComplete();
+    }
+
+    @Test
+    void processarVencimentos_ProcessaLotesAteEsgotar() {
+        Comissao outraEmpresa = new Comissao();
+        outraEmpresa.setId(2L);
+        outraEmpresa.setEmpresaId(2L);
+        outraEmpresa.setStatus("VENCIDA");
+
+        when(comissaoVencimentoService.vencerLote(eq(LocalDate.now()), anyInt()))
+                .thenReturn(Mono.just(List.of(comissao, outraEmpresa)));
+
+        StepVerifier.create(comissaoService.processarVencimentos(LocalDate.now()))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(comissaoVencimentoService, times(1)).vencerLote(eq(LocalDate.now()), anyInt());
+    }
+
+    private Comissao comissaoPaga(String chavePagamento) {
+        Comissao paga = new Comissao();
+        paga.setId(1L);
+        paga.setEmpresaId(1L);
+        paga.setValorComissao(new BigDecimal("100.00"));
+        paga.setStatus("PAGO");
+        paga.setChavePagamento(chavePagamento);
+        return paga;
     }
 }
@@ -0,0 +1,112 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.VendaCuboFiltroDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Venda;
+import br.com.corretor.repository.VendaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CuboVendaServiceTest {
+
+    @Mock
+    private VendaRepository vendaRepository;
+
+    @InjectMocks
+    private CuboVendaService cuboVendaService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cuboVendaService, "linhasMaximas", 1000);
+        ReflectionTestUtils.setField(cuboVendaService, "empresasMaximas", 2);
+    }
+
+    @Test
+    void agrupar_CarregaUmaVezEAplicaAlteracoesIncrementais() {
+        when(vendaRepository.findByEmpresaId(1L)).thenReturn(Flux.just(
+            venda(1L, 10L, "PEDIDO", "100.00", LocalDate.of(2024, 1, 5)),
+            venda(2L, 10L, "PROMOCAO", "50.00", LocalDate.of(2024, 2, 5)),
+            venda(3L, 20L, "PEDIDO", "30.00", LocalDate.of(2024, 2, 9))));
+        VendaCuboFiltroDTO filtro = VendaCuboFiltroDTO.builder().empresaId(1L).build();
+
+        StepVerifier.create(cuboVendaService.agrupar(filtro, List.of("fabrica")))
+            .expectNextMatches(linhas -> linhas.size() == 2
+                && linhas.get(0).getFabricaId() == 10L
+                && linhas.get(0).getValorVenda().compareTo(new BigDecimal("150.00")) == 0)
+            .verifyComplete();
+
+        cuboVendaService.registrar(venda(4L, 20L, "PEDIDO", "500.00", LocalDate.of(2024, 2, 20)));
+        cuboVendaService.remover(1L, 2L);
+
+        StepVerifier.create(cuboVendaService.agrupar(filtro, List.of("fabrica")))
+            .expectNextMatches(linhas -> linhas.get(0).getFabricaId() == 20L
+                && linhas.get(0).getQuantidade() == 2L
+                && linhas.get(1).getValorVenda().compareTo(new BigDecimal("100.00")) == 0)
+            .verifyComplete();
+
+        verify(vendaRepository, times(1)).findByEmpresaId(1L);
+    }
+
+    @Test
+    void agrupar_FiltraPorMesETipo() {
+        when(vendaRepository.findByEmpresaId(1L)).thenReturn(Flux.just(
+            venda(1L, 10L, "PEDIDO", "100.00", LocalDate.of(2024, 1, 5)),
+            venda(2L, 10L, "PEDIDO", "70.00", LocalDate.of(2024, 2, 5)),
+            venda(3L, 10L, "PROMOCAO", "30.00", LocalDate.of(2024, 2, 9))));
+        VendaCuboFiltroDTO filtro = VendaCuboFiltroDTO.builder()
+            .empresaId(1L)
+            .tipoVenda("PEDIDO")
+            .dataInicio(LocalDate.of(2024, 2, 10))
+            .build();
+
+        StepVerifier.create(cuboVendaService.agrupar(filtro, List.of("mes")))
+            .expectNextMatches(linhas -> linhas.size() == 1
+                && linhas.get(0).getMes().equals(LocalDate.of(2024, 2, 1))
+                && linhas.get(0).getValorVenda().compareTo(new BigDecimal("70.00")) == 0)
+            .verifyComplete();
+    }
+
+    @Test
+    void agrupar_QuandoEmpresaExcedeLimite_RetornaErroERecarregaNaProxima() {
+        ReflectionTestUtils.setField(cuboVendaService, "linhasMaximas", 1);
+        when(vendaRepository.findByEmpresaId(1L)).thenReturn(Flux.just(
+            venda(1L, 10L, "PEDIDO", "100.00", LocalDate.of(2024, 1, 5)),
+            venda(2L, 10L, "PEDIDO", "70.00", LocalDate.of(2024, 2, 5))));
+        VendaCuboFiltroDTO filtro = VendaCuboFiltroDTO.builder().empresaId(1L).build();
+
+        StepVerifier.create(cuboVendaService.agrupar(filtro, List.of()))
+            .expectError(BusinessException.class)
+            .verify();
+        StepVerifier.create(cuboVendaService.agrupar(filtro, List.of()))
+            .expectError(BusinessException.class)
+            .verify();
+
+        verify(vendaRepository, times(2)).findByEmpresaId(1L);
+    }
+
+    private Venda venda(Long id, Long fabricaId, String tipoVenda, String valor, LocalDate data) {
+        Venda venda = new Venda();
+        venda.setId(id);
+        venda.setEmpresaId(1L);
+        venda.setFabricaId(fabricaId);
+        venda.setTipoVenda(tipoVenda);
+        venda.setValorVenda(new BigDecimal(valor));
+        venda.setValorComissao(new BigDecimal(valor).divide(BigDecimal.TEN));
+        venda.setDataVenda(data);
+        return venda;
+    }
+}
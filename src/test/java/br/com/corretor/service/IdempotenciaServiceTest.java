@@ -0,0 +1,101 @@
+package br.com.corretor.service;
+
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.ChaveIdempotencia;
+import br.com.corretor.repository.ChaveIdempotenciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+
+    @Mock
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @InjectMocks
+    private IdempotenciaService idempotenciaService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotenciaService, "validadeHoras", 24);
+    }
+
+    @Test
+    void reservar_QuandoChaveNova_ReservaParaExecutar() {
+        ChaveIdempotencia reservada = chave(null);
+        when(chaveIdempotenciaRepository.reservar("joao", "abc", "hash", 60, 86400)).thenReturn(Mono.just(reservada));
+
+        StepVerifier.create(idempotenciaService.reservar("joao", "abc", "hash"))
+            .expectNextMatches(reserva -> reserva.executar() && reserva.chave() == reservada)
+            .verifyComplete();
+    }
+
+    @Test
+    void reservar_QuandoJaConcluida_RetornaRespostaGravada() {
+        ChaveIdempotencia concluida = chave(LocalDateTime.now());
+        when(chaveIdempotenciaRepository.reservar(any(), any(), any(), anyInt(), anyInt())).thenReturn(Mono.empty());
+        when(chaveIdempotenciaRepository.findByEscopoAndChave("joao", "abc")).thenReturn(Mono.just(concluida));
+
+        StepVerifier.create(idempotenciaService.reservar("joao", "abc", "hash"))
+            .expectNextMatches(reserva -> !reserva.executar() && reserva.chave().getStatusResposta() == 201)
+            .verifyComplete();
+    }
+
+    @Test
+    void reservar_QuandoEmAndamento_AguardaConclusao() {
+        when(chaveIdempotenciaRepository.reservar(any(), any(), any(), anyInt(), anyInt())).thenReturn(Mono.empty());
+        when(chaveIdempotenciaRepository.findByEscopoAndChave("joao", "abc"))
+            .thenReturn(Mono.just(chave(null)), Mono.just(chave(null)), Mono.just(chave(LocalDateTime.now())));
+
+        StepVerifier.create(idempotenciaService.reservar("joao", "abc", "hash"))
+            .expectNextMatches(reserva -> !reserva.executar())
+            .verifyComplete();
+
+        verify(chaveIdempotenciaRepository, times(3)).findByEscopoAndChave("joao", "abc");
+    }
+
+    @Test
+    void reservar_QuandoChaveUsadaComOutraRequisicao_RetornaErro() {
+        when(chaveIdempotenciaRepository.reservar(any(), any(), any(), anyInt(), anyInt())).thenReturn(Mono.empty());
+        when(chaveIdempotenciaRepository.findByEscopoAndChave("joao", "abc")).thenReturn(Mono.just(chave(null)));
+
+        StepVerifier.create(idempotenciaService.reservar("joao", "abc", "outro-hash"))
+            .expectError(BusinessException.class)
+            .verify();
+    }
+
+    @Test
+    void concluir_QuandoErroDoServidor_LiberaChave() {
+        ChaveIdempotencia reservada = chave(null);
+        when(chaveIdempotenciaRepository.deleteById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(idempotenciaService.concluir(reservada, 503, "application/json", new byte[0]))
+            .verifyComplete();
+
+        verify(chaveIdempotenciaRepository, never()).concluir(any(), anyInt(), any(), any());
+    }
+
+    private ChaveIdempotencia chave(LocalDateTime concluidaEm) {
+        return ChaveIdempotencia.builder()
+            .id(1L)
+            .escopo("joao")
+            .chave("abc")
+            .hashRequisicao("hash")
+            .statusResposta(concluidaEm != null ? 201 : null)
+            .concluidaEm(concluidaEm)
+            .build();
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.corretor.service;
+
+import br.com.corretor.enums.TipoCadastro;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.FabricaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacaoCadastroServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private FabricaRepository fabricaRepository;
+
+    @Mock
+    private AutocompletarService autocompletarService;
+
+    @InjectMocks
+    private ImportacaoCadastroService importacaoCadastroService;
+
+    @Test
+    void importarClientes_GravaValidosEmUmInsertERelataRejeitados() {
+        String csv = "Documento;Razão Social;Cidade\r\n" +
+            "11.222.333/0001-81;Móveis São José Ltda;Curitiba\r\n" +
+            "529.982.247-25;Maria da Silva;Londrina\r\n" +
+            "11222333000182;CNPJ Errado;Curitiba\r\n" +
+            "11222333000181;Repetida no Arquivo;Curitiba\r\n" +
+            "11444777000161;Já Cadastrada;Maringá\r\n";
+
+        when(clienteRepository.findByEmpresaIdAndDocumentos(eq(1L), any())).thenReturn(Flux.just(cliente(9L, "11444777000161", null)));
+        when(clienteRepository.inserirEmLote(eq(1L), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any()))
+            .thenReturn(Flux.just(cliente(10L, "11222333000181", null), cliente(11L, null, "52998224725")));
+
+        StepVerifier.create(importacaoCadastroService.importarClientes(1L, "clientes.csv", conteudo(csv)))
+            .expectNextMatches(resultado -> resultado.getTotalLinhas() == 5L
+                && resultado.getImportadas() == 2L
+                && resultado.getRejeitadas() == 3L
+                && resultado.getErros().get(0).getLinha() == 4L
+                && resultado.getErros().get(0).getMensagem().startsWith("CNPJ inválido")
+                && resultado.getErros().get(1).getMensagem().equals("Documento repetido no arquivo (linha 2)")
+                && resultado.getErros().get(2).getMensagem().equals("Documento já cadastrado para esta empresa")
+                && resultado.getRelatorioErrosId() != null)
+            .verifyComplete();
+
+        // Uma consulta e um INSERT para o lote inteiro, com o tipo vindo do tamanho do documento
+        ArgumentCaptor<String[]> tipos = ArgumentCaptor.forClass(String[].class);
+        ArgumentCaptor<String[]> cnpjs = ArgumentCaptor.forClass(String[].class);
+        ArgumentCaptor<String[]> cpfs = ArgumentCaptor.forClass(String[].class);
+        verify(clienteRepository, times(1)).findByEmpresaIdAndDocumentos(eq(1L), any());
+        verify(clienteRepository, times(1)).inserirEmLote(eq(1L), tipos.capture(), any(), any(), cnpjs.capture(),
+            cpfs.capture(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        assertArrayEquals(new String[]{"PJ", "PF"}, tipos.getValue());
+        assertArrayEquals(new String[]{"11222333000181", null}, cnpjs.getValue());
+        assertArrayEquals(new String[]{null, "52998224725"}, cpfs.getValue());
+        verify(autocompletarService).invalidar(TipoCadastro.CLIENTE, 1L);
+    }
+
+    @Test
+    void importarFabricas_DocumentoGravadoPorOutraRequisicao_RejeitaLinha() {
+        String csv = "cnpj;razao_social\r\n11222333000181;Fábrica A\r\n11444777000161;Fábrica B\r\n";
+
+        when(fabricaRepository.findByEmpresaIdAndCnpjs(eq(1L), any())).thenReturn(Flux.empty());
+        when(fabricaRepository.inserirEmLote(eq(1L), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any()))
+            .thenReturn(Flux.just(fabrica(5L, "11222333000181")));
+
+        StepVerifier.create(importacaoCadastroService.importarFabricas(1L, "fabricas.csv", conteudo(csv)))
+            .expectNextMatches(resultado -> resultado.getImportadas() == 1L
+                && resultado.getRejeitadas() == 1L
+                && resultado.getErros().get(0).getLinha() == 3L
+                && resultado.getErros().get(0).getDocumento().equals("11444777000161"))
+            .verifyComplete();
+    }
+
+    @Test
+    void relatorioErros_GeraCsvSoParaAEmpresaDaImportacao() {
+        String csv = "cnpj;razao_social\r\n123;Fábrica Sem CNPJ\r\n";
+
+        String relatorioId = importacaoCadastroService.importarFabricas(1L, "fabricas.csv", conteudo(csv))
+            .map(resultado -> resultado.getRelatorioErrosId())
+            .block();
+
+        StepVerifier.create(importacaoCadastroService.relatorioErros(TipoCadastro.FABRICA, 1L, relatorioId))
+            .expectNextMatches(relatorio -> new String(relatorio, StandardCharsets.UTF_8).contains("2;123;CNPJ inválido: 123"))
+            .verifyComplete();
+        StepVerifier.create(importacaoCadastroService.relatorioErros(TipoCadastro.FABRICA, 2L, relatorioId))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        verifyNoInteractions(fabricaRepository, autocompletarService);
+    }
+
+    @Test
+    void importarClientes_QuandoFaltaColunaObrigatoria_RetornaErro() {
+        String csv = "razao_social;cidade\r\nMaria da Silva;Londrina\r\n";
+
+        StepVerifier.create(importacaoCadastroService.importarClientes(1L, "clientes.csv", conteudo(csv)))
+            .expectError(BusinessException.class)
+            .verify();
+
+        verifyNoInteractions(clienteRepository);
+    }
+
+    private Cliente cliente(Long id, String cnpj, String cpf) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setCnpj(cnpj);
+        cliente.setCpf(cpf);
+        return cliente;
+    }
+
+    private Fabrica fabrica(Long id, String cnpj) {
+        Fabrica fabrica = new Fabrica();
+        fabrica.setId(id);
+        fabrica.setCnpj(cnpj);
+        return fabrica;
+    }
+
+    private Flux<DataBuffer> conteudo(String texto) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(texto.getBytes(StandardCharsets.UTF_8)));
+    }
+}
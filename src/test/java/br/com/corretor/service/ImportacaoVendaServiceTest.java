@@ -0,0 +1,143 @@
+package br.com.corretor.service;
+
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Cliente;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.Corretor;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.model.Venda;
+import br.com.corretor.repository.ClienteRepository;
+import br.com.corretor.repository.CorretorRepository;
+import br.com.corretor.repository.FabricaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacaoVendaServiceTest {
+
+    @Mock
+    private FabricaRepository fabricaRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private CorretorRepository corretorRepository;
+
+    @Mock
+    private ImportacaoVendaLoteService importacaoVendaLoteService;
+
+    @Mock
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Mock
+    private RankingCorretorService rankingCorretorService;
+
+    @Mock
+    private VendaAnaliseService vendaAnaliseService;
+
+    @Mock
+    private CuboVendaService cuboVendaService;
+
+    @InjectMocks
+    private ImportacaoVendaService importacaoVendaService;
+
+    private Fabrica fabrica;
+    private Cliente cliente;
+    private Corretor corretor;
+
+    @BeforeEach
+    void setUp() {
+        fabrica = new Fabrica();
+        fabrica.setId(5L);
+        fabrica.setCnpj("11.222.333/0001-44");
+        fabrica.setPercentualComissaoPorTipoVenda("PEDIDO", new BigDecimal("10"));
+
+        cliente = new Cliente();
+        cliente.setId(6L);
+        cliente.setCnpj("55666777000188");
+
+        corretor = new Corretor();
+        corretor.setId(7L);
+        corretor.setCpf("123.456.789-00");
+    }
+
+    @Test
+    void importar_GravaLinhasValidasERelataAsRejeitadas() {
+        String csv = "Data Venda;Fabrica CNPJ;Cliente Documento;Corretor CPF;Tipo Venda;Valor Venda;Forma Pagamento\r\n" +
+            "15/03/2024;11.222.333/0001-44;55666777000188;12345678900;pedido;1.000,00;PIX\r\n" +
+            "16/03/2024;11222333000144;55666777000188;99999999999;PEDIDO;500.00;PIX\r\n" +
+            "17/03/2024;11222333000144;55666777000188;12345678900;PEDIDO;abc;PIX\r\n";
+
+        when(fabricaRepository.findByEmpresaIdAndCnpjs(eq(1L), any())).thenReturn(Flux.just(fabrica));
+        when(clienteRepository.findByEmpresaIdAndDocumentos(eq(1L), any())).thenReturn(Flux.just(cliente));
+        when(corretorRepository.findByEmpresaIdAndCpfs(eq(1L), any())).thenReturn(Flux.just(corretor));
+        when(importacaoVendaLoteService.gravarLote(eq(1L), any())).thenReturn(Mono.just(List.of(new Comissao())));
+
+        StepVerifier.create(importacaoVendaService.importar(1L, "vendas.csv", conteudo(csv)))
+            .expectNextMatches(resultado -> resultado.getTotalLinhas() == 3L
+                && resultado.getImportadas() == 1L
+                && resultado.getRejeitadas() == 2L
+                && resultado.getErros().get(0).getLinha() == 3L
+                && resultado.getErros().get(0).getMensagem().startsWith("Corretor não encontrado")
+                && resultado.getErros().get(1).getLinha() == 4L)
+            .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Venda>> vendas = ArgumentCaptor.forClass(List.class);
+        verify(importacaoVendaLoteService).gravarLote(eq(1L), vendas.capture());
+        Venda venda = vendas.getValue().get(0);
+        assertEquals(LocalDate.of(2024, 3, 15), venda.getDataVenda());
+        assertEquals(0, new BigDecimal("100.00").compareTo(venda.getValorComissao()));
+        assertEquals(7L, venda.getCorretorId());
+
+        // Uma consulta por cadastro para todo o lote
+        verify(corretorRepository, times(1)).findByEmpresaIdAndCpfs(eq(1L), any());
+        verify(projecaoFluxoCaixaService).invalidar(1L);
+        verify(rankingCorretorService).invalidar(1L);
+        verify(vendaAnaliseService).invalidar(1L);
+        verify(cuboVendaService).invalidar(1L);
+    }
+
+    @Test
+    void importar_QuandoFaltaColunaObrigatoria_RetornaErro() {
+        String csv = "data_venda;fabrica_cnpj;valor_venda\r\n2024-03-15;11222333000144;10.00\r\n";
+
+        StepVerifier.create(importacaoVendaService.importar(1L, "vendas.csv", conteudo(csv)))
+            .expectError(BusinessException.class)
+            .verify();
+
+        verifyNoInteractions(importacaoVendaLoteService);
+    }
+
+    @Test
+    void importar_QuandoFormatoNaoSuportado_RetornaErro() {
+        StepVerifier.create(importacaoVendaService.importar(1L, "vendas.pdf", conteudo("")))
+            .expectError(BusinessException.class)
+            .verify();
+    }
+
+    private Flux<DataBuffer> conteudo(String texto) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(texto.getBytes(StandardCharsets.UTF_8)));
+    }
+}
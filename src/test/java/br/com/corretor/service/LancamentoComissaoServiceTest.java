@@ -0,0 +1,109 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.LancamentoComissao;
+import br.com.corretor.repository.LancamentoComissaoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LancamentoComissaoServiceTest {
+
+    @Mock
+    private LancamentoComissaoRepository lancamentoRepository;
+
+    @InjectMocks
+    private LancamentoComissaoService lancamentoComissaoService;
+
+    private Comissao comissao;
+
+    @BeforeEach
+    void setUp() {
+        comissao = new Comissao();
+        comissao.setId(10L);
+        comissao.setEmpresaId(1L);
+        comissao.setCorretorId(2L);
+        comissao.setDataVenda(LocalDate.now());
+        comissao.setValorComissao(new BigDecimal("100.00"));
+        comissao.setStatus("PENDENTE");
+    }
+
+    @Test
+    void registrarMudancaStatus_QuandoPaga_QuitaSaldoDaComissao() {
+        comissao.setStatus("PAGO");
+        comissao.setValorPago(new BigDecimal("100.00"));
+        when(lancamentoRepository.lancar(eq(1L), eq(2L), eq(10L), eq("PAGAMENTO"), isNull(), any(), isNull()))
+                .thenReturn(Mono.just(new LancamentoComissao()));
+
+        StepVerifier.create(lancamentoComissaoService.registrarMudancaStatus(comissao, "PENDENTE"))
+                .verifyComplete();
+    }
+
+    @Test
+    void registrarPagamento_Parcial_LancaValorPagoNegativoComAChave() {
+        comissao.setValorPago(new BigDecimal("60.00"));
+        when(lancamentoRepository.lancar(eq(1L), eq(2L), eq(10L), eq("PAGAMENTO"), eq(new BigDecimal("-60.00")),
+                eq("Pagamento parcial da comissão"), eq("chave-1")))
+                .thenReturn(Mono.just(new LancamentoComissao()));
+
+        StepVerifier.create(lancamentoComissaoService.registrarPagamento(comissao, new BigDecimal("60.00"), "chave-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void registrarMudancaStatus_QuandoCancelada_ZeraSaldoDaComissao() {
+        comissao.setStatus("CANCELADO");
+        when(lancamentoRepository.lancar(eq(1L), eq(2L), eq(10L), eq("CANCELAMENTO"), isNull(), any(), isNull()))
+                .thenReturn(Mono.just(new LancamentoComissao()));
+
+        StepVerifier.create(lancamentoComissaoService.registrarMudancaStatus(comissao, "VENCIDA"))
+                .verifyComplete();
+    }
+
+    @Test
+    void registrarMudancaStatus_QuandoVence_NaoLanca() {
+        comissao.setStatus("VENCIDA");
+
+        StepVerifier.create(lancamentoComissaoService.registrarMudancaStatus(comissao, "PENDENTE"))
+                .verifyComplete();
+
+        verifyNoInteractions(lancamentoRepository);
+    }
+
+    @Test
+    void registrarInclusao_QuandoSequenciaDisputada_TentaNovamente() {
+        when(lancamentoRepository.lancar(eq(1L), eq(2L), eq(10L), eq("PROVISAO"), eq(new BigDecimal("100.00")), any(), isNull()))
+                .thenReturn(Mono.empty(), Mono.just(new LancamentoComissao()));
+
+        StepVerifier.create(lancamentoComissaoService.registrarInclusao(comissao))
+                .verifyComplete();
+
+        verify(lancamentoRepository, times(2)).lancar(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void registrarInclusao_QuandoTentativasEsgotam_RetornaConflito() {
+        when(lancamentoRepository.lancar(any(), any(), any(), any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(lancamentoComissaoService.registrarInclusao(comissao))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verify(lancamentoRepository, times(5)).lancar(any(), any(), any(), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.AtrasoPagamentoFabricaDTO;
+import br.com.corretor.dto.ComissaoAbertaAgregadaDTO;
+import br.com.corretor.dto.ProjecaoFluxoCaixaDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjecaoFluxoCaixaServiceTest {
+
+    @Mock
+    private ComissaoRepository comissaoRepository;
+
+    @InjectMocks
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    private LocalDate previsao;
+
+    @BeforeEach
+    void setUp() {
+        previsao = LocalDate.now().plusMonths(1).withDayOfMonth(5);
+    }
+
+    private void stubBase() {
+        when(comissaoRepository.agregarAbertasPorPrevisao(1L))
+                .thenReturn(Flux.just(new ComissaoAbertaAgregadaDTO(1L, 1L, previsao, 2L, new BigDecimal("1000.00"))));
+        when(comissaoRepository.estatisticasAtrasoPorFabrica(eq(1L), any()))
+                .thenReturn(Flux.just(new AtrasoPagamentoFabricaDTO(1L, 8L, 2L, 30.0, 28.5)));
+    }
+
+    @Test
+    void projetar_AplicaAtrasoETaxaDeRealizacaoDaFabrica() {
+        LocalDate mesPrevisto = previsao.withDayOfMonth(1);
+        LocalDate mesAjustado = previsao.plusDays(30).withDayOfMonth(1);
+        stubBase();
+
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "mes", null))
+                .expectNextMatches(projecao ->
+                    projecao.getPeriodos().size() == 2 &&
+                    periodo(projecao, mesPrevisto).getValorPrevisto().compareTo(new BigDecimal("1000.00")) == 0 &&
+                    periodo(projecao, mesPrevisto).getValorAjustado().signum() == 0 &&
+                    periodo(projecao, mesAjustado).getValorAjustado().compareTo(new BigDecimal("800.00")) == 0 &&
+                    projecao.getValorTotalAjustado().compareTo(new BigDecimal("800.00")) == 0)
+                .verifyComplete();
+    }
+
+    @Test
+    void registrarInclusao_AtualizaBaseSemNovaConsulta() {
+        stubBase();
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "MES", null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Comissao comissao = new Comissao();
+        comissao.setEmpresaId(1L);
+        comissao.setFabricaId(1L);
+        comissao.setCorretorId(2L);
+        comissao.setDataPrevisaoPagamento(previsao);
+        comissao.setValorComissao(new BigDecimal("500.00"));
+        comissao.setStatus("PENDENTE");
+        projecaoFluxoCaixaService.registrarInclusao(comissao);
+
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "MES", null))
+                .expectNextMatches(projecao ->
+                    projecao.getQuantidadeTotal() == 3L &&
+                    projecao.getValorTotalPrevisto().compareTo(new BigDecimal("1500.00")) == 0 &&
+                    periodo(projecao, previsao.withDayOfMonth(1)).getPorCorretor().size() == 2)
+                .verifyComplete();
+
+        verify(comissaoRepository, times(1)).agregarAbertasPorPrevisao(1L);
+    }
+
+    @Test
+    void registrarPagamento_ParcialEQuitacao_TiramDaProjecaoSoOQueFoiPago() {
+        stubBase();
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "MES", null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Comissao aberta = comissao("PENDENTE", null);
+        Comissao parcial = comissao("PENDENTE", new BigDecimal("200.00"));
+        projecaoFluxoCaixaService.registrarPagamento(aberta, parcial);
+
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "MES", null))
+                .expectNextMatches(projecao ->
+                    projecao.getQuantidadeTotal() == 2L &&
+                    projecao.getValorTotalPrevisto().compareTo(new BigDecimal("800.00")) == 0)
+                .verifyComplete();
+
+        Comissao quitada = comissao("PAGO", new BigDecimal("500.00"));
+        projecaoFluxoCaixaService.registrarPagamento(parcial, quitada);
+        projecaoFluxoCaixaService.registrarMudancaStatus(quitada, "PENDENTE");
+
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "MES", null))
+                .expectNextMatches(projecao ->
+                    projecao.getQuantidadeTotal() == 1L &&
+                    projecao.getValorTotalPrevisto().compareTo(new BigDecimal("500.00")) == 0)
+                .verifyComplete();
+    }
+
+    @Test
+    void projetar_QuandoGranularidadeInvalida_RetornaErro() {
+        StepVerifier.create(projecaoFluxoCaixaService.projetar(1L, "ano", null))
+                .expectError(BusinessException.class)
+                .verify();
+    }
+
+    private Comissao comissao(String status, BigDecimal valorPago) {
+        Comissao comissao = new Comissao();
+        comissao.setEmpresaId(1L);
+        comissao.setFabricaId(1L);
+        comissao.setCorretorId(1L);
+        comissao.setDataPrevisaoPagamento(previsao);
+        comissao.setValorComissao(new BigDecimal("500.00"));
+        comissao.setValorPago(valorPago);
+        comissao.setStatus(status);
+        return comissao;
+    }
+
+    private ProjecaoFluxoCaixaDTO.Periodo periodo(ProjecaoFluxoCaixaDTO projecao, LocalDate inicio) {
+        return projecao.getPeriodos().stream()
+                .filter(periodo -> periodo.getInicio().equals(inicio))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.RankingCorretorDTO;
+import br.com.corretor.model.Comissao;
+import br.com.corretor.repository.ComissaoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RankingCorretorServiceTest {
+
+    @Mock
+    private ComissaoRepository comissaoRepository;
+
+    @InjectMocks
+    private RankingCorretorService rankingCorretorService;
+
+    @BeforeEach
+    void setUp() {
+        YearMonth mes = YearMonth.now();
+        when(comissaoRepository.totalizarPorCorretor(1L, mes.atDay(1), mes.atEndOfMonth()))
+                .thenReturn(Flux.just(
+                    new RankingCorretorDTO(null, 10L, 3L, new BigDecimal("300.00")),
+                    new RankingCorretorDTO(null, 20L, 1L, new BigDecimal("500.00")),
+                    new RankingCorretorDTO(null, 30L, 2L, new BigDecimal("100.00"))));
+    }
+
+    @Test
+    void obterRanking_RetornaMaioresEmOrdemDecrescente() {
+        StepVerifier.create(rankingCorretorService.obterRanking(1L, 2))
+                .expectNextMatches(ranking ->
+                    ranking.size() == 2 &&
+                    ranking.get(0).getCorretorId() == 20L && ranking.get(0).getPosicao() == 1 &&
+                    ranking.get(1).getCorretorId() == 10L && ranking.get(1).getPosicao() == 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void registrarAlteracoes_AtualizaRankingSemNovaConsulta() {
+        StepVerifier.create(rankingCorretorService.obterRanking(1L, 3))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Comissao nova = comissao(30L, "450.00", "PENDENTE");
+        rankingCorretorService.registrarInclusao(nova);
+
+        Comissao cancelada = comissao(20L, "500.00", "CANCELADO");
+        rankingCorretorService.registrarMudancaStatus(cancelada, "PENDENTE");
+
+        StepVerifier.create(rankingCorretorService.obterRanking(1L, 3))
+                .expectNextMatches(ranking ->
+                    ranking.size() == 2 &&
+                    ranking.get(0).getCorretorId() == 30L &&
+                    ranking.get(0).getValorTotal().compareTo(new BigDecimal("550.00")) == 0 &&
+                    ranking.get(0).getQuantidade() == 3L &&
+                    ranking.get(1).getCorretorId() == 10L)
+                .verifyComplete();
+
+        verify(comissaoRepository, times(1)).totalizarPorCorretor(any(), any(), any());
+    }
+
+    private Comissao comissao(Long corretorId, String valor, String status) {
+        Comissao comissao = new Comissao();
+        comissao.setEmpresaId(1L);
+        comissao.setCorretorId(corretorId);
+        comissao.setDataVenda(LocalDate.now());
+        comissao.setValorComissao(new BigDecimal(valor));
+        comissao.setStatus(status);
+        return comissao;
+    }
+}
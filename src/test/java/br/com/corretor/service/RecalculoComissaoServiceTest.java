@@ -0,0 +1,125 @@
+package br.com.corretor.service;
+
+import br.com.corretor.dto.RecalculoComissaoItemDTO;
+import br.com.corretor.exception.BusinessException;
+import br.com.corretor.model.Fabrica;
+import br.com.corretor.repository.FabricaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecalculoComissaoServiceTest {
+
+    @Mock
+    private FabricaRepository fabricaRepository;
+
+    @Mock
+    private RecalculoComissaoLoteService recalculoComissaoLoteService;
+
+    @Mock
+    private ComissaoResumoMensalService comissaoResumoMensalService;
+
+    @Mock
+    private ProjecaoFluxoCaixaService projecaoFluxoCaixaService;
+
+    @Mock
+    private RankingCorretorService rankingCorretorService;
+
+    @Mock
+    private VendaAnaliseService vendaAnaliseService;
+
+    @Mock
+    private CuboVendaService cuboVendaService;
+
+    @InjectMocks
+    private RecalculoComissaoService recalculoComissaoService;
+
+    private Fabrica fabrica;
+
+    @BeforeEach
+    void setUp() {
+        fabrica = new Fabrica();
+        fabrica.setId(5L);
+        fabrica.setEmpresaId(1L);
+        fabrica.setPercentualComissaoPorTipoVenda("PEDIDO", new BigDecimal("12.00"));
+    }
+
+    @Test
+    void recalcular_ProcessaLotesAteEsgotarEReconstroiResumo() {
+        List<RecalculoComissaoItemDTO> loteCheio = itens(1, 1000);
+        List<RecalculoComissaoItemDTO> ultimoLote = itens(1001, 3);
+
+        when(fabricaRepository.findById(5L)).thenReturn(Mono.just(fabrica));
+        when(recalculoComissaoLoteService.recalcularLote(eq(5L), any(), any(), isNull(), isNull(), eq(0L), anyInt()))
+                .thenReturn(Mono.just(loteCheio));
+        when(recalculoComissaoLoteService.recalcularLote(eq(5L), any(), any(), isNull(), isNull(), eq(1000L), anyInt()))
+                .thenReturn(Mono.just(ultimoLote));
+        when(comissaoResumoMensalService.reconstruir(1L)).thenReturn(Mono.just(12));
+
+        StepVerifier.create(recalculoComissaoService.recalcular(5L, null, null))
+                .expectNextMatches(progresso -> progresso.getLote() == 1 && progresso.getCursor() == 1000L
+                        && progresso.getItens().size() == 1000)
+                .expectNextMatches(progresso -> progresso.getLote() == 2 && progresso.getTotalAlteradas() == 1003L)
+                .expectNextMatches(progresso -> progresso.getConcluido() && progresso.getTotalAlteradas() == 1003L)
+                .verifyComplete();
+
+        verify(projecaoFluxoCaixaService).invalidar(1L);
+        verify(rankingCorretorService).invalidar(1L);
+        verify(vendaAnaliseService).invalidar(1L);
+        verify(cuboVendaService).invalidar(1L);
+    }
+
+    @Test
+    void recalcular_QuandoNadaMuda_NaoReconstroiResumo() {
+        when(fabricaRepository.findById(5L)).thenReturn(Mono.just(fabrica));
+        when(recalculoComissaoLoteService.recalcularLote(eq(5L), any(), any(), isNull(), isNull(), eq(0L), anyInt()))
+                .thenReturn(Mono.just(List.of()));
+
+        StepVerifier.create(recalculoComissaoService.recalcular(5L, null, null))
+                .expectNextMatches(progresso -> progresso.getConcluido() && progresso.getTotalAlteradas() == 0L)
+                .verifyComplete();
+
+        verify(comissaoResumoMensalService, never()).reconstruir(any());
+    }
+
+    @Test
+    void recalcular_QuandoFabricaSemPercentuais_RetornaErro() {
+        fabrica.setPercentuaisComissao(null);
+        when(fabricaRepository.findById(5L)).thenReturn(Mono.just(fabrica));
+
+        StepVerifier.create(recalculoComissaoService.recalcular(5L, null, null))
+                .expectError(BusinessException.class)
+                .verify();
+    }
+
+    private List<RecalculoComissaoItemDTO> itens(long primeiraVenda, int quantidade) {
+        List<RecalculoComissaoItemDTO> itens = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            itens.add(RecalculoComissaoItemDTO.builder()
+                    .comissaoId(primeiraVenda + i)
+                    .vendaId(primeiraVenda + i)
+                    .percentualAnterior(new BigDecimal("10.00"))
+                    .percentualNovo(new BigDecimal("12.00"))
+                    .valorAnterior(new BigDecimal("10.00"))
+                    .valorNovo(new BigDecimal("12.00"))
+                    .build());
+        }
+        return itens;
+    }
+}
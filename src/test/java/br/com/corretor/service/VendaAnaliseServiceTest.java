@@ -0,0 +1,50 @@
+package br.com.corretor.service;
+
+import br.com.corretor.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class VendaAnaliseServiceTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @InjectMocks
+    private VendaAnaliseService vendaAnaliseService;
+
+    @Test
+    void analisar_QuandoDimensaoInvalida_RetornaErro() {
+        StepVerifier.create(vendaAnaliseService.analisar(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31),
+                List.of("tipoVenda", "cidade")))
+            .expectErrorMatches(e -> e instanceof BusinessException && e.getMessage().contains("cidade"))
+            .verify();
+
+        verifyNoInteractions(databaseClient);
+    }
+
+    @Test
+    void analisar_QuandoSemDimensoes_RetornaErro() {
+        StepVerifier.create(vendaAnaliseService.analisar(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), List.of()))
+            .expectError(BusinessException.class)
+            .verify();
+    }
+
+    @Test
+    void analisar_QuandoPeriodoInvertido_RetornaErro() {
+        StepVerifier.create(vendaAnaliseService.analisar(1L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1),
+                List.of("mes")))
+            .expectError(BusinessException.class)
+            .verify();
+    }
+}
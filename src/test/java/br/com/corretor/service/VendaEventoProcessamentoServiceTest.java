@@ -0,0 +1,101 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.Comissao;
+import br.com.corretor.model.Venda;
+import br.com.corretor.model.VendaEvento;
+import br.com.corretor.repository.ComissaoRepository;
+import br.com.corretor.repository.VendaEventoRepository;
+import br.com.corretor.repository.VendaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VendaEventoProcessamentoServiceTest {
+
+    @Mock
+    private VendaRepository vendaRepository;
+
+    @Mock
+    private ComissaoRepository comissaoRepository;
+
+    @Mock
+    private VendaEventoRepository vendaEventoRepository;
+
+    @Mock
+    private ComissaoService comissaoService;
+
+    @Mock
+    private CuboVendaService cuboVendaService;
+
+    @InjectMocks
+    private VendaEventoProcessamentoService vendaEventoProcessamentoService;
+
+    private Venda venda;
+
+    @BeforeEach
+    void setUp() {
+        venda = new Venda();
+        venda.setId(10L);
+        venda.setEmpresaId(1L);
+    }
+
+    @Test
+    void processar_QuandoCriada_GeraComissaoEConcluiEvento() {
+        when(vendaRepository.findById(10L)).thenReturn(Mono.just(venda));
+        when(comissaoRepository.findByVendaId(10L)).thenReturn(Flux.empty());
+        when(comissaoService.gerarComissao(venda)).thenReturn(Mono.empty());
+        when(vendaEventoRepository.concluir(1L)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(vendaEventoProcessamentoService.processar(evento("CRIADA")))
+            .verifyComplete();
+
+        verify(comissaoService).gerarComissao(venda);
+        verify(cuboVendaService).registrar(venda);
+    }
+
+    @Test
+    void processar_QuandoComissaoJaGerada_SoConcluiEvento() {
+        when(vendaRepository.findById(10L)).thenReturn(Mono.just(venda));
+        when(comissaoRepository.findByVendaId(10L)).thenReturn(Flux.just(new Comissao()));
+        when(vendaEventoRepository.concluir(1L)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(vendaEventoProcessamentoService.processar(evento("CRIADA")))
+            .verifyComplete();
+
+        verify(comissaoService, never()).gerarComissao(any());
+    }
+
+    @Test
+    void processar_QuandoExcluida_ExcluiComissaoPeloIdDaVenda() {
+        when(comissaoService.excluirComissao(argThat(excluida -> excluida.getId().equals(10L))))
+            .thenReturn(Mono.empty());
+        when(vendaEventoRepository.concluir(1L)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(vendaEventoProcessamentoService.processar(evento("EXCLUIDA")))
+            .verifyComplete();
+
+        verifyNoInteractions(vendaRepository);
+        verify(cuboVendaService).remover(1L, 10L);
+    }
+
+    private VendaEvento evento(String tipo) {
+        return VendaEvento.builder()
+            .id(1L)
+            .empresaId(1L)
+            .vendaId(10L)
+            .tipo(tipo)
+            .tentativas(0)
+            .build();
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.corretor.service;
+
+import br.com.corretor.model.VendaEvento;
+import br.com.corretor.repository.VendaEventoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VendaEventoServiceTest {
+
+    @Mock
+    private VendaEventoRepository vendaEventoRepository;
+
+    @Mock
+    private VendaEventoProcessamentoService vendaEventoProcessamentoService;
+
+    @InjectMocks
+    private VendaEventoService vendaEventoService;
+
+    @Test
+    void processarPendentes_ProcessaLotesAteEsvaziarAFila() {
+        VendaEvento criada = evento(1L, 10L, "CRIADA", 0);
+        VendaEvento atualizada = evento(2L, 10L, "ATUALIZADA", 0);
+        when(vendaEventoRepository.reservarPendentes(anyInt(), anyInt()))
+            .thenReturn(Flux.just(criada), Flux.just(atualizada), Flux.empty());
+        when(vendaEventoProcessamentoService.processar(criada)).thenReturn(Mono.empty());
+        when(vendaEventoProcessamentoService.processar(atualizada)).thenReturn(Mono.empty());
+
+        StepVerifier.create(vendaEventoService.processarPendentes())
+            .expectNext(2L)
+            .verifyComplete();
+
+        verify(vendaEventoRepository, times(3)).reservarPendentes(anyInt(), anyInt());
+        verify(vendaEventoRepository, never()).reagendar(any(), any(), anyInt());
+    }
+
+    @Test
+    void processarPendentes_ConflitoNoRazao_RepeteATransacaoSemReagendar() {
+        VendaEvento evento = evento(1L, 10L, "CRIADA", 0);
+        when(vendaEventoRepository.reservarPendentes(anyInt(), anyInt()))
+            .thenReturn(Flux.just(evento), Flux.empty());
+        when(vendaEventoProcessamentoService.processar(evento))
+            .thenReturn(Mono.error(new DataIntegrityViolationException("sequencia duplicada")))
+            .thenReturn(Mono.empty());
+
+        StepVerifier.create(vendaEventoService.processarPendentes())
+            .expectNext(1L)
+            .verifyComplete();
+
+        verify(vendaEventoProcessamentoService, times(2)).processar(evento);
+        verify(vendaEventoRepository, never()).reagendar(any(), any(), anyInt());
+    }
+
+    @Test
+    void processarPendentes_QuandoFalha_ReagendaComEsperaCrescente() {
+        VendaEvento evento = evento(1L, 10L, "CRIADA", 3);
+        when(vendaEventoRepository.reservarPendentes(anyInt(), anyInt()))
+            .thenReturn(Flux.just(evento), Flux.empty());
+        when(vendaEventoProcessamentoService.processar(evento))
+            .thenReturn(Mono.error(new IllegalStateException("banco indisponível")));
+        when(vendaEventoRepository.reagendar(eq(1L), startsWith("IllegalStateException"), eq(8)))
+            .thenReturn(Mono.just(1));
+
+        StepVerifier.create(vendaEventoService.processarPendentes())
+            .expectNext(0L)
+            .verifyComplete();
+    }
+
+    private VendaEvento evento(Long id, Long vendaId, String tipo, int tentativas) {
+        return VendaEvento.builder()
+            .id(id)
+            .empresaId(1L)
+            .vendaId(vendaId)
+            .tipo(tipo)
+            .tentativas(tentativas)
+            .build();
+    }
+}
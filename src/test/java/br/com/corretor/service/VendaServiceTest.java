@@ -1,16 +1,16 @@
 package br.com.corretor.service;
 
 import br.com.corretor.dto.VendaDTO;
+import br.com.corretor.exception.BusinessException;
 import br.com.corretor.exception.ResourceNotFoundException;
 import br.com.corretor.model.Venda;
 import br.com.corretor.model.Fabrica;
 import br.com.corretor.model.Cliente;
 import br.com.corretor.model.Corretor;
 import br.com.corretor.repository.VendaRepository;
-import br.com.corretor.repository.FabricaRepository;
-import br.com.corretor.repository.ClienteRepository;
-import br.com.corretor.repository.CorretorRepository;
-import br.com.corretor.service.ComissaoService;
+import br.com.corretor.repository.VendaEventoRepository;
+import br.com.corretor.util.CursorTexto;
+import br.com.corretor.util.TabelaComissao;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +24,7 @@ import reactor.test.StepVerifier;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -34,16 +35,13 @@ class VendaServiceTest {
     private VendaRepository vendaRepository;
     
     @Mock
-    private FabricaRepository fabricaRepository;
+    private CadastroCacheService cadastroCacheService;
     
     @Mock
-    private ClienteRepository clienteRepository;
+    private VendaEventoRepository vendaEventoRepository;
     
     @Mock
-    private CorretorRepository corretorRepository;
-    
-    @Mock
-    private ComissaoService comissaoService;
+    private VendaAnaliseService vendaAnaliseService;
 
     @InjectMocks
     private VendaService vendaService;
@@ -102,7 +100,8 @@ class VendaServiceTest {
 
     @Test
     void listarComFiltros_RetornaVendas() {
-        when(vendaRepository.findByEmpresaId(1L))
+        when(vendaRepository.findComFiltros(1L, 1L, 1L, LocalDate.now(), LocalDate.now(),
+                new BigDecimal("100.00"), new BigDecimal("2000.00"), null, null, null, null))
                 .thenReturn(Flux.just(venda));
 
         StepVerifier.create(vendaService.listarComFiltros(1L, 1L, 1L, null, 
@@ -112,6 +111,20 @@ class VendaServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void listarComFiltros_QuandoFiltraPorCliente_NaoConsultaClientes() {
+        when(vendaRepository.findComFiltros(1L, null, null, null, null, null, null, null,
+                "12345678000199", "Curitiba", "PR"))
+                .thenReturn(Flux.just(venda));
+
+        StepVerifier.create(vendaService.listarComFiltros(1L, null, null, "12345678000199",
+                "Curitiba", "PR", null, null, null, null, null))
+                .expectNext(vendaDTO)
+                .verifyComplete();
+
+        verifyNoInteractions(cadastroCacheService);
+    }
+
     @Test
     void criar_QuandoNovaVenda_RetornaVendaSalva() {
         Fabrica fabrica = new Fabrica();
@@ -124,15 +137,19 @@ class VendaServiceTest {
         Corretor corretor = new Corretor();
         corretor.setId(1L);
 
-        when(fabricaRepository.findById(1L)).thenReturn(Mono.just(fabrica));
-        when(clienteRepository.findById(1L)).thenReturn(Mono.just(cliente));
-        when(corretorRepository.findById(1L)).thenReturn(Mono.just(corretor));
+        when(cadastroCacheService.obterTabelaComissao(1L))
+                .thenReturn(Mono.just(TabelaComissao.compilar(1L, fabrica.getPercentuaisComissao())));
+        when(cadastroCacheService.obterCliente(1L)).thenReturn(Mono.just(cliente));
+        when(cadastroCacheService.obterCorretor(1L)).thenReturn(Mono.just(corretor));
         when(vendaRepository.save(any(Venda.class))).thenReturn(Mono.just(venda));
-        when(comissaoService.gerarComissao(any(Venda.class))).thenReturn(Mono.empty());
+        when(vendaEventoRepository.registrar(1L, 1L, "CRIADA")).thenReturn(Mono.just(1));
 
         StepVerifier.create(vendaService.criar(vendaDTO))
                 .expectNext(vendaDTO)
                 .verifyComplete();
+
+        verify(vendaEventoRepository).registrar(1L, 1L, "CRIADA");
+        verify(vendaAnaliseService).invalidar(1L);
     }
 
     @Test
@@ -148,11 +165,12 @@ class VendaServiceTest {
         corretor.setId(1L);
 
         when(vendaRepository.findById(1L)).thenReturn(Mono.just(venda));
-        when(fabricaRepository.findById(1L)).thenReturn(Mono.just(fabrica));
-        when(clienteRepository.findById(1L)).thenReturn(Mono.just(cliente));
-        when(corretorRepository.findById(1L)).thenReturn(Mono.just(corretor));
+        when(cadastroCacheService.obterTabelaComissao(1L))
+                .thenReturn(Mono.just(TabelaComissao.compilar(1L, fabrica.getPercentuaisComissao())));
+        when(cadastroCacheService.obterCliente(1L)).thenReturn(Mono.just(cliente));
+        when(cadastroCacheService.obterCorretor(1L)).thenReturn(Mono.just(corretor));
         when(vendaRepository.save(any(Venda.class))).thenReturn(Mono.just(venda));
-        when(comissaoService.atualizarComissao(any(Venda.class))).thenReturn(Mono.empty());
+        when(vendaEventoRepository.registrar(1L, 1L, "ATUALIZADA")).thenReturn(Mono.just(1));
 
         StepVerifier.create(vendaService.atualizar(1L, vendaDTO))
                 .expectNext(vendaDTO)
@@ -172,7 +190,7 @@ class VendaServiceTest {
     void excluir_QuandoVendaExiste_RetornaVazio() {
         when(vendaRepository.findById(1L)).thenReturn(Mono.just(venda));
         when(vendaRepository.delete(any(Venda.class))).thenReturn(Mono.empty());
-        when(comissaoService.excluirComissao(any(Venda.class))).thenReturn(Mono.empty());
+        when(vendaEventoRepository.registrar(1L, 1L, "EXCLUIDA")).thenReturn(Mono.just(1));
 
         StepVerifier.create(vendaService.excluir(1L))
                 .verifyComplete();
@@ -186,4 +204,60 @@ class VendaServiceTest {
                 .expectError(ResourceNotFoundException.class)
                 .verify();
     }
+
+    @Test
+    void buscarPorNotaFiscal_PorPrefixo_RetornaPaginaComCursorDaUltimaNota() {
+        Venda primeira = vendaComNota(5L, "NF-1001");
+        Venda segunda = vendaComNota(9L, "NF-1002");
+        Venda excedente = vendaComNota(3L, "NF-1003");
+        when(vendaRepository.findPorPrefixoNotaFiscal(1L, "NF-10", "NF-11", null, null, 3))
+                .thenReturn(Flux.just(primeira, segunda, excedente));
+
+        StepVerifier.create(vendaService.buscarPorNotaFiscal(1L, " NF-10 ", false, null, 2))
+                .assertNext(pagina -> {
+                    assertEquals(2, pagina.getTamanho());
+                    assertTrue(pagina.getTemProximaPagina());
+                    CursorTexto cursor = CursorTexto.decodificar(pagina.getProximoCursor());
+                    assertEquals("NF-1002", cursor.getTexto());
+                    assertEquals(9L, cursor.getId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void buscarPorNotaFiscal_PorTrechoComCursor_ContinuaAposUltimaNota() {
+        String cursor = new CursorTexto("A|12", 7L).codificar();
+        when(vendaRepository.findPorTrechoNotaFiscal(1L, "%123%", "A|12", 7L, 51))
+                .thenReturn(Flux.just(vendaComNota(8L, "B-1234")));
+
+        StepVerifier.create(vendaService.buscarPorNotaFiscal(1L, "123", true, cursor, null))
+                .assertNext(pagina -> {
+                    assertEquals(1, pagina.getTamanho());
+                    assertFalse(pagina.getTemProximaPagina());
+                    assertNull(pagina.getProximoCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void buscarPorNotaFiscal_PorTrechoCurto_RetornaErro() {
+        StepVerifier.create(vendaService.buscarPorNotaFiscal(1L, "12", true, null, null))
+                .expectError(BusinessException.class)
+                .verify();
+        verifyNoInteractions(vendaRepository);
+    }
+
+    @Test
+    void fimDoPrefixo_IncrementaUltimoCaractere() {
+        assertEquals("NF-11", VendaService.fimDoPrefixo("NF-10"));
+        assertEquals("A%", VendaService.fimDoPrefixo("A$"));
+    }
+
+    private Venda vendaComNota(Long id, String numeroNotaFiscal) {
+        Venda encontrada = new Venda();
+        encontrada.setId(id);
+        encontrada.setEmpresaId(1L);
+        encontrada.setNumeroNotaFiscal(numeroNotaFiscal);
+        return encontrada;
+    }
 }
@@ -0,0 +1,34 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BuscaTextoTest {
+
+    @Test
+    void termo_ComEspacos_RetornaSemEspacos() {
+        assertEquals("José", BuscaTexto.termo("  José "));
+    }
+
+    @Test
+    void termo_Curto_RejeitaBusca() {
+        assertThrows(BusinessException.class, () -> BuscaTexto.termo(" ab "));
+        assertThrows(BusinessException.class, () -> BuscaTexto.termo(null));
+    }
+
+    @Test
+    void limite_ForaDosLimites_UsaPadraoOuMaximo() {
+        assertEquals(BuscaTexto.LIMITE_PADRAO, BuscaTexto.limite(null));
+        assertEquals(BuscaTexto.LIMITE_PADRAO, BuscaTexto.limite(0));
+        assertEquals(BuscaTexto.LIMITE_MAXIMO, BuscaTexto.limite(1000));
+        assertEquals(5, BuscaTexto.limite(5));
+    }
+
+    @Test
+    void padraoTrecho_TrataCuringasComoTexto() {
+        assertEquals("%10\\%\\_\\\\%", BuscaTexto.padraoTrecho("10%_\\"));
+    }
+}
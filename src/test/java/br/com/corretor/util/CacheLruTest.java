@@ -0,0 +1,63 @@
+package br.com.corretor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheLruTest {
+
+    private final AtomicLong relogio = new AtomicLong();
+
+    @Test
+    void guardar_AcimaDaCapacidade_DescartaMenosUsada() {
+        CacheLru<Long, String> cache = new CacheLru<>(2, Duration.ofMinutes(1), relogio::get);
+        cache.guardar(1L, "um", cache.geracao());
+        cache.guardar(2L, "dois", cache.geracao());
+        cache.obter(1L);
+
+        cache.guardar(3L, "tres", cache.geracao());
+
+        assertEquals(2, cache.tamanho());
+        assertEquals("um", cache.obter(1L));
+        assertNull(cache.obter(2L));
+        assertEquals("tres", cache.obter(3L));
+    }
+
+    @Test
+    void obter_AposValidade_RetornaNulo() {
+        CacheLru<Long, String> cache = new CacheLru<>(10, Duration.ofSeconds(10), relogio::get);
+        cache.guardar(1L, "um", cache.geracao());
+
+        relogio.set(Duration.ofSeconds(11).toNanos());
+
+        assertNull(cache.obter(1L));
+        assertEquals(0, cache.tamanho());
+    }
+
+    @Test
+    void guardar_LeituraIniciadaAntesDeInvalidacao_NaoGrava() {
+        CacheLru<Long, String> cache = new CacheLru<>(10, Duration.ofMinutes(1), relogio::get);
+        long geracao = cache.geracao();
+
+        cache.invalidar(1L);
+        cache.guardar(1L, "desatualizado", geracao);
+
+        assertNull(cache.obter(1L));
+    }
+
+    @Test
+    void invalidarSe_RemoveSomenteChavesQueAtendemCondicao() {
+        CacheLru<Long, String> cache = new CacheLru<>(10, Duration.ofMinutes(1), relogio::get);
+        cache.guardar(1L, "um", cache.geracao());
+        cache.guardar(2L, "dois", cache.geracao());
+
+        cache.invalidarSe(chave -> chave % 2 == 0);
+
+        assertEquals("um", cache.obter(1L));
+        assertNull(cache.obter(2L));
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.corretor.util;
+
+import br.com.corretor.model.Venda;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CronogramaParcelasTest {
+
+    @Test
+    void adicionar_VariasVendas_MontaColunasDeTodasAsParcelas() {
+        CronogramaParcelas cronograma = new CronogramaParcelas()
+            .adicionar(venda(1L, 2, "100.00", "10.01"))
+            .adicionar(venda(2L, null, "50.00", "5.00"));
+
+        assertEquals(3, cronograma.tamanho());
+        assertArrayEquals(new Long[]{1L, 1L, 2L}, cronograma.getVendaIds());
+        assertArrayEquals(new Integer[]{1, 2, 1}, cronograma.getNumeros());
+        assertArrayEquals(new Integer[]{2, 2, 1}, cronograma.getQuantidades());
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("5.01"), new BigDecimal("5.00"), new BigDecimal("5.00")},
+            cronograma.getValoresComissao());
+        assertArrayEquals(new String[]{"2024-02-29", "2024-03-31", "2024-02-29"}, cronograma.getDatasPrevisao());
+    }
+
+    @Test
+    void dividir_SomaDasParcelasIgualAoTotal() {
+        BigDecimal[] parcelas = CronogramaParcelas.dividir(new BigDecimal("100.00"), 7);
+
+        BigDecimal soma = BigDecimal.ZERO;
+        for (BigDecimal parcela : parcelas) {
+            soma = soma.add(parcela);
+        }
+        assertEquals(new BigDecimal("100.00"), soma);
+        assertEquals(new BigDecimal("14.29"), parcelas[0]);
+        assertEquals(new BigDecimal("14.28"), parcelas[6]);
+    }
+
+    @Test
+    void quantidade_ForaDosLimites_UsaParcelaUnicaOuMaximo() {
+        assertEquals(1, CronogramaParcelas.quantidade(null));
+        assertEquals(1, CronogramaParcelas.quantidade(0));
+        assertEquals(CronogramaParcelas.QUANTIDADE_MAXIMA, CronogramaParcelas.quantidade(1000));
+    }
+
+    private Venda venda(Long id, Integer parcelas, String valorVenda, String valorComissao) {
+        Venda venda = new Venda();
+        venda.setId(id);
+        venda.setDataVenda(LocalDate.of(2024, 1, 15));
+        venda.setValorVenda(new BigDecimal(valorVenda));
+        venda.setValorComissao(new BigDecimal(valorComissao));
+        venda.setQuantidadeParcelas(parcelas);
+        return venda;
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.corretor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CuboColunarTest {
+
+    @Test
+    void agrupar_SomaMedidasPorDimensaoComFiltro() {
+        CuboColunar cubo = new CuboColunar(2, 1, 100);
+        cubo.carregar(1L, new Object[]{10L, "PEDIDO"}, new long[]{1000});
+        cubo.carregar(2L, new Object[]{10L, "PROMOCAO"}, new long[]{500});
+        cubo.carregar(3L, new Object[]{20L, "PEDIDO"}, new long[]{300});
+        cubo.carregar(4L, new Object[]{10L, "PEDIDO"}, new long[]{200});
+        cubo.concluirCarga();
+
+        List<CuboColunar.Grupo> grupos = ordenar(cubo.agrupar(new int[]{0}, Map.<Integer, Predicate<Object>>of(1, "PEDIDO"::equals)));
+
+        assertEquals(2, grupos.size());
+        assertArrayEquals(new Object[]{10L}, grupos.get(0).valores());
+        assertEquals(2, grupos.get(0).quantidade());
+        assertEquals(1200, grupos.get(0).somas()[0]);
+        assertArrayEquals(new Object[]{20L}, grupos.get(1).valores());
+        assertEquals(300, grupos.get(1).somas()[0]);
+    }
+
+    @Test
+    void gravarERemover_AtualizamLinhasPeloId() {
+        CuboColunar cubo = new CuboColunar(1, 1, 100);
+        cubo.carregar(1L, new Object[]{"A"}, new long[]{100});
+        cubo.carregar(2L, new Object[]{"A"}, new long[]{200});
+        cubo.carregar(3L, new Object[]{"B"}, new long[]{300});
+        cubo.concluirCarga();
+
+        cubo.gravar(2L, new Object[]{"B"}, new long[]{250});
+        cubo.remover(1L);
+        cubo.remover(99L);
+
+        List<CuboColunar.Grupo> grupos = ordenar(cubo.agrupar(new int[]{0}, Map.of()));
+        assertEquals(2, cubo.tamanho());
+        assertEquals(1, grupos.size());
+        assertEquals(2, grupos.get(0).quantidade());
+        assertEquals(550, grupos.get(0).somas()[0]);
+    }
+
+    @Test
+    void carregar_NaoSobrescreveAlteracoesFeitasDuranteCarga() {
+        CuboColunar cubo = new CuboColunar(1, 1, 100);
+        cubo.gravar(1L, new Object[]{"novo"}, new long[]{10});
+        cubo.remover(2L);
+
+        cubo.carregar(1L, new Object[]{"antigo"}, new long[]{5});
+        cubo.carregar(2L, new Object[]{"excluido"}, new long[]{7});
+        cubo.concluirCarga();
+
+        List<CuboColunar.Grupo> grupos = cubo.agrupar(new int[]{0}, Map.of());
+        assertEquals(1, grupos.size());
+        assertArrayEquals(new Object[]{"novo"}, grupos.get(0).valores());
+        assertEquals(10, grupos.get(0).somas()[0]);
+    }
+
+    @Test
+    void gravar_AcimaDoLimiteDeLinhas_LancaExcecao() {
+        CuboColunar cubo = new CuboColunar(1, 1, 1);
+        cubo.gravar(1L, new Object[]{"A"}, new long[]{1});
+
+        assertThrows(IllegalStateException.class, () -> cubo.gravar(2L, new Object[]{"A"}, new long[]{1}));
+    }
+
+    private List<CuboColunar.Grupo> ordenar(List<CuboColunar.Grupo> grupos) {
+        return grupos.stream()
+            .sorted(Comparator.comparingLong((CuboColunar.Grupo grupo) -> grupo.somas()[0]).reversed())
+            .toList();
+    }
+}
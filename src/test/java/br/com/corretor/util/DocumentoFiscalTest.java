@@ -0,0 +1,38 @@
+package br.com.corretor.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentoFiscalTest {
+
+    @Test
+    void cpfValido_DigitosVerificadoresCorretos_RetornaTrue() {
+        assertTrue(DocumentoFiscal.cpfValido("52998224725"));
+        assertTrue(DocumentoFiscal.cpfValido("11144477735"));
+    }
+
+    @Test
+    void cpfValido_DigitoErradoTamanhoOuSequencia_RetornaFalse() {
+        assertFalse(DocumentoFiscal.cpfValido("52998224724"));
+        assertFalse(DocumentoFiscal.cpfValido("5299822472"));
+        assertFalse(DocumentoFiscal.cpfValido("11111111111"));
+        assertFalse(DocumentoFiscal.cpfValido("529.982.247-25"));
+        assertFalse(DocumentoFiscal.cpfValido(null));
+    }
+
+    @Test
+    void cnpjValido_DigitosVerificadoresCorretos_RetornaTrue() {
+        assertTrue(DocumentoFiscal.cnpjValido("11222333000181"));
+        assertTrue(DocumentoFiscal.cnpjValido("11444777000161"));
+    }
+
+    @Test
+    void cnpjValido_DigitoErradoTamanhoOuSequencia_RetornaFalse() {
+        assertFalse(DocumentoFiscal.cnpjValido("11222333000182"));
+        assertFalse(DocumentoFiscal.cnpjValido("1122233300018"));
+        assertFalse(DocumentoFiscal.cnpjValido("00000000000000"));
+        assertFalse(DocumentoFiscal.cnpjValido(null));
+    }
+}
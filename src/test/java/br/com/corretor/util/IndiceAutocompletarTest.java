@@ -0,0 +1,67 @@
+package br.com.corretor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceAutocompletarTest {
+
+    private final IndiceAutocompletar indice = IndiceAutocompletar.construir(List.of(
+        new IndiceAutocompletar.Item(1L, "José da Silva Comércio", "Silva Móveis", "12.345.678/0001-90"),
+        new IndiceAutocompletar.Item(2L, "Maria Silveira", null, "123.456.789-09"),
+        new IndiceAutocompletar.Item(3L, "Antônio Souza", null, null)));
+
+    @Test
+    void completar_PrefixoDeQualquerPalavraSemAcento_EncontraItem() {
+        assertEquals(List.of(1L), ids(indice.completar("moveis", 10)));
+        assertEquals(List.of(3L), ids(indice.completar("ANTO", 10)));
+        assertEquals(List.of(3L), ids(indice.completar("souz", 10)));
+    }
+
+    @Test
+    void completar_ItemComVariasChavesNoPrefixo_AparecePorUmaVez() {
+        // "silva comercio" e "silva moveis" começam com "silv"
+        assertEquals(List.of(1L, 2L), ids(indice.completar("silv", 10)));
+        assertEquals(List.of(1L), ids(indice.completar("silv", 1)));
+    }
+
+    @Test
+    void completar_DocumentoComPontuacao_BuscaPelosDigitos() {
+        assertEquals(List.of(1L, 2L), ids(indice.completar("123", 10)));
+        assertEquals(List.of(1L), ids(indice.completar("12.345.678/0", 10)));
+    }
+
+    @Test
+    void com_ItemExistente_SubstituiChavesAntigas() {
+        IndiceAutocompletar alterado = indice.com(new IndiceAutocompletar.Item(3L, "Antônio Pereira", null, null));
+
+        assertTrue(alterado.completar("souza", 10).isEmpty());
+        assertEquals(List.of(3L), ids(alterado.completar("pere", 10)));
+        assertEquals(3, alterado.quantidadeItens());
+        // A memória estimada incremental confere com a de um índice montado do zero
+        assertEquals(IndiceAutocompletar.construir(List.of(
+            new IndiceAutocompletar.Item(1L, "José da Silva Comércio", "Silva Móveis", "12.345.678/0001-90"),
+            new IndiceAutocompletar.Item(2L, "Maria Silveira", null, "123.456.789-09"),
+            new IndiceAutocompletar.Item(3L, "Antônio Pereira", null, null))).getBytesEstimados(),
+            alterado.getBytesEstimados());
+        // O índice original não muda
+        assertEquals(List.of(3L), ids(indice.completar("souza", 10)));
+    }
+
+    @Test
+    void sem_RemoveTodasAsChavesDoItem() {
+        IndiceAutocompletar alterado = indice.sem(1L);
+
+        assertFalse(alterado.contem(1L));
+        assertEquals(List.of(2L), ids(alterado.completar("silv", 10)));
+        assertTrue(alterado.getBytesEstimados() < indice.getBytesEstimados());
+    }
+
+    private List<Long> ids(List<IndiceAutocompletar.Item> itens) {
+        return itens.stream().map(IndiceAutocompletar.Item::id).toList();
+    }
+}
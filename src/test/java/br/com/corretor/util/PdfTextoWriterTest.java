@@ -0,0 +1,28 @@
+package br.com.corretor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfTextoWriterTest {
+
+    @Test
+    void gerar_QuebraEmPaginasEEscapaParenteses() {
+        List<String> linhas = new ArrayList<>();
+        linhas.add("Extrato (março) \\ teste");
+        for (int i = 0; i < 100; i++) {
+            linhas.add("Linha " + i);
+        }
+
+        String pdf = new String(PdfTextoWriter.gerar(linhas), Charset.forName("windows-1252"));
+
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.contains("/Count 2"));
+        assertTrue(pdf.contains("(Extrato \\(março\\) \\\\ teste) Tj"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+    }
+}
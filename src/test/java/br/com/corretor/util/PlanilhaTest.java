@@ -0,0 +1,71 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+class PlanilhaTest {
+
+    @Test
+    void lotes_CsvEmVariosBlocos_NumeraLinhasComoNaPlanilha() {
+        byte[] csv = "Nota;Valor\r\n001;10,00\r\n002;20,00\r\n003;30,00\r\n".getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> conteudo = Flux.range(0, csv.length)
+            .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{csv[i]}));
+
+        StepVerifier.create(Planilha.lotes("vendas.csv", conteudo, List.of("nota"), 2))
+            .expectNextMatches(lote -> lote.linhas().size() == 2
+                && lote.linhas().get(0).numero() == 2L
+                && "001".equals(lote.linhas().get(0).obrigatorio(lote.colunas(), "nota", "Nota")))
+            .expectNextMatches(lote -> lote.linhas().size() == 1
+                && lote.linhas().get(0).numero() == 4L
+                && "30,00".equals(lote.linhas().get(0).opcional(lote.colunas(), "valor")))
+            .verifyComplete();
+    }
+
+    @Test
+    void lotes_ArquivoVazio_RetornaErro() {
+        StepVerifier.create(Planilha.lotes("vendas.csv", Flux.empty(), List.of("nota"), 2))
+            .expectErrorMatches(e -> e instanceof BusinessException && "Arquivo sem cabeçalho".equals(e.getMessage()))
+            .verify();
+    }
+
+    @Test
+    void linhas_XlsxAcimaDoLimite_RetornaErroSemLerOArquivo() {
+        Flux<DataBuffer> conteudo = Flux.just(
+            DefaultDataBufferFactory.sharedInstance.wrap(new byte[Planilha.TAMANHO_MAXIMO_XLSX]),
+            DefaultDataBufferFactory.sharedInstance.wrap(new byte[1]));
+
+        StepVerifier.create(Planilha.linhas("vendas.xlsx", conteudo))
+            .expectError(BusinessException.class)
+            .verify();
+    }
+
+    @Test
+    void linhas_XlsxComTextoCompartilhadoInvalido_RetornaErroNaLinha() throws IOException {
+        ByteArrayOutputStream arquivo = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(arquivo)) {
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            zip.write(("<worksheet><sheetData>" +
+                "<row r=\"1\"><c r=\"A1\"><v>Nota</v></c></row>" +
+                "<row r=\"2\"><c r=\"A2\" t=\"s\"><v>x</v></c></row>" +
+                "</sheetData></worksheet>").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        StepVerifier.create(Planilha.linhas("vendas.xlsx",
+                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(arquivo.toByteArray()))))
+            .expectNextCount(1)
+            .expectError(BusinessException.class)
+            .verify();
+    }
+}
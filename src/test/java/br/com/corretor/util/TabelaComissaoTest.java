@@ -0,0 +1,72 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TabelaComissaoTest {
+
+    private final TabelaComissao tabela = TabelaComissao.compilar(1L, Map.of(
+        "PEDIDO", new BigDecimal("7.25"),
+        "PRONTA_ENTREGA", new BigDecimal("10")));
+
+    @Test
+    void compilar_ConvertePercentuaisEmPontosBase() {
+        assertEquals(725, tabela.pontosBase("PEDIDO"));
+        assertEquals(1000, tabela.pontosBase("PRONTA_ENTREGA"));
+        assertEquals(0, tabela.pontosBase("PROMOCAO"));
+        assertEquals(new BigDecimal("7.25"), tabela.percentual("PEDIDO"));
+    }
+
+    @Test
+    void compilar_PercentualGravadoComMaisDeDuasCasas_ArredondaParaPar() {
+        TabelaComissao gravada = TabelaComissao.compilar(1L, Map.of(
+            "PEDIDO", new BigDecimal("7.125"),
+            "PRONTA_ENTREGA", new BigDecimal("7.135")));
+
+        assertEquals(712, gravada.pontosBase("PEDIDO"));
+        assertEquals(714, gravada.pontosBase("PRONTA_ENTREGA"));
+    }
+
+    @Test
+    void validar_PercentualComMaisDeDuasCasas_RejeitaCadastro() {
+        Map<String, BigDecimal> percentuais = Map.of("PEDIDO", new BigDecimal("7.125"));
+
+        assertThrows(BusinessException.class, () -> TabelaComissao.validar(percentuais));
+        TabelaComissao.validar(Map.of("PEDIDO", new BigDecimal("7.2500")));
+    }
+
+    @Test
+    void compilar_PercentualAcimaDeCem_RejeitaTabela() {
+        Map<String, BigDecimal> percentuais = Map.of("PEDIDO", new BigDecimal("100.01"));
+
+        assertThrows(BusinessException.class, () -> TabelaComissao.compilar(1L, percentuais));
+    }
+
+    @Test
+    void comissaoCentavos_MetadeExata_ArredondaParaPar() {
+        // 1,50 x 5% = 0,075 -> 0,08; 2,50 x 5% = 0,125 -> 0,12
+        assertEquals(8L, TabelaComissao.comissaoCentavos(150L, 500));
+        assertEquals(12L, TabelaComissao.comissaoCentavos(250L, 500));
+        assertEquals(-12L, TabelaComissao.comissaoCentavos(-250L, 500));
+    }
+
+    @Test
+    void calcular_ConfereComBigDecimalComArredondamentoBancario() {
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal valorVenda = BigDecimal.valueOf(aleatorio.nextInt(100_000_000) + 1L, 2);
+            BigDecimal esperado = valorVenda.multiply(new BigDecimal("7.25"))
+                .divide(new BigDecimal("100"), 2, RoundingMode.HALF_EVEN);
+
+            assertEquals(esperado, tabela.calcular(valorVenda, "PEDIDO"));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.corretor.util;
+
+import br.com.corretor.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XlsxReaderTest {
+
+    @Test
+    void lerPlanilha_LeLinhasGeradasPeloXlsxStreamWriter() throws IOException {
+        ByteArrayOutputStream arquivo = new ByteArrayOutputStream();
+        try (XlsxStreamWriter writer = new XlsxStreamWriter("Vendas")) {
+            arquivo.write(writer.iniciar(new String[]{"data_venda", "valor_venda", "evento"}));
+            arquivo.write(writer.escreverLinhas(List.of(
+                new Object[]{"2024-03-15", new BigDecimal("10.50"), "A & B"},
+                new Object[]{"2024-03-16", BigDecimal.ONE, null})));
+            arquivo.write(writer.finalizar());
+        }
+
+        List<String[]> linhas = ler(new XlsxReader(arquivo.toByteArray()));
+
+        assertEquals(3, linhas.size());
+        assertArrayEquals(new String[]{"data_venda", "valor_venda", "evento"}, linhas.get(0));
+        assertArrayEquals(new String[]{"2024-03-15", "10.50", "A & B"}, linhas.get(1));
+        assertEquals("1", linhas.get(2)[1]);
+    }
+
+    @Test
+    void lerPlanilha_ResolveTextosCompartilhadosECelulasOmitidas() throws IOException {
+        byte[] arquivo = zip(
+            "xl/sharedStrings.xml",
+            "<sst><si><t>PEDIDO</t></si><si><r><t>Feira </t></r><r><t>SP</t></r></si></sst>",
+            "xl/worksheets/sheet1.xml",
+            "<worksheet><sheetData>" +
+            "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"C1\" t=\"s\"><v>1</v></c></row>" +
+            "<row r=\"2\"><c r=\"A2\"/></row>" +
+            "<row r=\"3\"><c r=\"B3\"><v>45366</v></c></row>" +
+            "</sheetData></worksheet>");
+
+        List<String[]> linhas = ler(new XlsxReader(arquivo));
+
+        assertEquals(2, linhas.size());
+        assertArrayEquals(new String[]{"PEDIDO", "", "Feira SP"}, linhas.get(0));
+        assertArrayEquals(new String[]{"", "45366"}, linhas.get(1));
+    }
+
+    @Test
+    void lerPlanilha_EntradaDescompactadaAcimaDoLimite_RetornaErro() throws IOException {
+        // Zeros comprimem para uma fração do tamanho: o arquivo é pequeno, a entrada passa do limite
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(saida)) {
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            byte[] bloco = new byte[1024 * 1024];
+            for (int i = 0; i <= XlsxReader.TAMANHO_MAXIMO_ENTRADA / bloco.length; i++) {
+                zip.write(bloco);
+            }
+            zip.closeEntry();
+        }
+
+        assertThrows(BusinessException.class, () -> new XlsxReader(saida.toByteArray()));
+    }
+
+    @Test
+    void lerCsv_DetectaSeparadorEAceitaAspas() {
+        String csv = "\uFEFFnota,evento\r\n\"001,A\",\"Feira \"\"Norte\"\"\nSP\"\r\n\r\n002,\r\n";
+
+        // Um byte por bloco: BOM, aspas duplicadas e \r\n ficam divididos entre blocos
+        CsvReader leitor = new CsvReader();
+        List<String[]> linhas = new ArrayList<>();
+        for (byte b : csv.getBytes(StandardCharsets.UTF_8)) {
+            linhas.addAll(leitor.ler(new byte[]{b}));
+        }
+        linhas.addAll(leitor.concluir());
+
+        assertEquals(3, linhas.size());
+        assertArrayEquals(new String[]{"nota", "evento"}, linhas.get(0));
+        assertArrayEquals(new String[]{"001,A", "Feira \"Norte\"\nSP"}, linhas.get(1));
+        assertArrayEquals(new String[]{"002", ""}, linhas.get(2));
+    }
+
+    private List<String[]> ler(Iterator<String[]> leitor) {
+        List<String[]> linhas = new ArrayList<>();
+        leitor.forEachRemaining(linhas::add);
+        return linhas;
+    }
+
+    private byte[] zip(String... entradas) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(saida)) {
+            for (int i = 0; i < entradas.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entradas[i]));
+                zip.write(entradas[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return saida.toByteArray();
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.corretor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XlsxStreamWriterTest {
+
+    @Test
+    void gerarPlanilha_ProduzPacoteComLinhasEscritasEmBlocos() throws IOException {
+        ByteArrayOutputStream arquivo = new ByteArrayOutputStream();
+        try (XlsxStreamWriter writer = new XlsxStreamWriter("Comissões")) {
+            arquivo.write(writer.iniciar(new String[]{"id", "status", "valor"}));
+            arquivo.write(writer.escreverLinhas(List.of(
+                new Object[]{1L, "PAGO", new BigDecimal("10.50")},
+                new Object[]{2L, "A & B <x>", null})));
+            arquivo.write(writer.escreverLinhas(List.<Object[]>of(
+                new Object[]{3L, LocalDate.of(2024, 3, 1), BigDecimal.ONE})));
+            arquivo.write(writer.finalizar());
+        }
+
+        Map<String, String> entradas = lerEntradas(arquivo.toByteArray());
+
+        assertTrue(entradas.containsKey("[Content_Types].xml"));
+        assertTrue(entradas.containsKey("xl/workbook.xml"));
+        assertTrue(entradas.get("xl/workbook.xml").contains("name=\"Comissões\""));
+
+        String planilha = entradas.get("xl/worksheets/sheet1.xml");
+        assertEquals(4, planilha.split("<row>", -1).length - 1);
+        assertTrue(planilha.contains("<v>10.50</v>"));
+        assertTrue(planilha.contains("A &amp; B &lt;x&gt;"));
+        // 2024-03-01 como número serial do Excel, com o estilo de data
+        assertTrue(planilha.contains("<c s=\"1\"><v>45352</v></c>"));
+        assertTrue(entradas.get("xl/styles.xml").contains("formatCode=\"dd/mm/yyyy\""));
+        assertTrue(planilha.endsWith("</sheetData></worksheet>"));
+    }
+
+    @Test
+    void cabecalhoCsv_IncluiBomEEscapaSeparador() {
+        String csv = new String(CsvWriter.cabecalho(new String[]{"id", "nota;fiscal"}), StandardCharsets.UTF_8);
+
+        assertEquals("\uFEFFid;\"nota;fiscal\"\r\n", csv);
+    }
+
+    @Test
+    void linhasCsv_TextoComoFormula_SaiComoTextoENumeroNegativoNao() {
+        String csv = new String(CsvWriter.linhas(List.<Object[]>of(
+            new Object[]{"=HYPERLINK(\"http://x\")", "@SOMA(A1)", "+1", new BigDecimal("-10.50"), "Feira"})),
+            StandardCharsets.UTF_8);
+
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\";'@SOMA(A1);'+1;-10.50;Feira\r\n", csv);
+    }
+
+    private Map<String, String> lerEntradas(byte[] conteudo) throws IOException {
+        Map<String, String> entradas = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(conteudo))) {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null) {
+                entradas.put(entrada.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entradas;
+    }
+}